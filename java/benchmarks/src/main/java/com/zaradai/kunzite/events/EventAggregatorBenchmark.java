@@ -0,0 +1,101 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.events;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.zaradai.kunzite.events.eventbus.EventBusAggregator;
+import com.zaradai.kunzite.events.typed.EventDispatcher;
+import com.zaradai.kunzite.events.typed.TypedEventAggregator;
+import com.zaradai.kunzite.logging.simple.DefaultContextLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishing one event to a number of subscribers through the reflective EventBusAggregator and the interface
+ * dispatching TypedEventAggregator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventAggregatorBenchmark {
+    @Param({"1", "8"})
+    private int subscribers;
+
+    private EventBusAggregator eventBusAggregator;
+    private TypedEventAggregator typedEventAggregator;
+    private BenchEvent event;
+
+    @Setup
+    public void setUp() {
+        eventBusAggregator = new EventBusAggregator(new EventBus("bench"));
+        typedEventAggregator = new TypedEventAggregator(new DefaultContextLogger(LoggerFactory.getLogger("bench")));
+        typedEventAggregator.register(new EventDispatcher<BenchListener, BenchEvent>(BenchListener.class,
+                BenchEvent.class) {
+            @Override
+            public void dispatch(BenchListener listener, BenchEvent event) {
+                listener.onBench(event);
+            }
+        });
+
+        for (int i = 0; i < subscribers; i++) {
+            BenchListener listener = new BenchListener();
+            eventBusAggregator.subscribe(listener);
+            typedEventAggregator.subscribe(listener);
+        }
+        event = new BenchEvent();
+    }
+
+    @Benchmark
+    public long eventBusPublish() {
+        eventBusAggregator.publish(event);
+
+        return event.count;
+    }
+
+    @Benchmark
+    public long typedPublish() {
+        typedEventAggregator.publish(event);
+
+        return event.count;
+    }
+
+    public static final class BenchEvent {
+        private long count;
+    }
+
+    public static final class BenchListener {
+        @Subscribe
+        public void onBench(BenchEvent event) {
+            event.count++;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import com.zaradai.kunzite.config.ConfigurationSource;
+import com.zaradai.kunzite.config.InMemoryConfigurationSource;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.config.SourcedTraderConfiguration;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.config.md.MarketDataConfigLoader;
+import com.zaradai.kunzite.trader.config.md.digester.DigesterMarketDataConfigLoader;
+import com.zaradai.kunzite.trader.config.orders.OrderGatewayConfigLoader;
+import com.zaradai.kunzite.trader.config.orders.digester.DigesterOrderGatewayConfigLoader;
+import com.zaradai.kunzite.trader.config.statics.StaticDataLoader;
+import com.zaradai.kunzite.trader.control.TradingManager;
+import com.zaradai.kunzite.trader.services.md.DefaultMarketDataService;
+import com.zaradai.kunzite.trader.services.md.InjectedMarketDataChannelFactory;
+import com.zaradai.kunzite.trader.services.md.MarketDataChannelFactory;
+import com.zaradai.kunzite.trader.services.md.MarketDataService;
+import com.zaradai.kunzite.trader.services.orders.DefaultOrderGatewayService;
+import com.zaradai.kunzite.trader.services.orders.InjectedGatewayFactory;
+import com.zaradai.kunzite.trader.services.orders.OrderGatewayFactory;
+import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
+import com.zaradai.kunzite.trader.services.orders.gateway.CountingEmulatorGateway;
+import com.zaradai.kunzite.trader.services.timer.SystemTimeBase;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
+import com.zaradai.kunzite.trader.services.timer.TimerService;
+import com.zaradai.kunzite.trader.services.timer.WheelTimerService;
+import com.zaradai.kunzite.trader.services.trader.DefaultTraderService;
+import com.zaradai.kunzite.trader.services.trader.TraderEventAggregator;
+import com.zaradai.kunzite.trader.services.trader.TraderService;
+
+/**
+ * Wires a complete trader for the benchmarks.  Services are bound as in production, the emulator channel and gateway
+ * are configured by the bench-*.xml resources and every instrument gets the full filter chain with the default
+ * limits that never reject.
+ */
+public class BenchmarkModule extends AbstractModule {
+    public static final String STATIC_CONFIG_URI = "bench-statics.xml";
+    public static final String MD_CONFIG_URI = "bench-md.xml";
+    public static final String OG_CONFIG_URI = "bench-og.xml";
+    public static final String INSTRUMENT_ID = "AAA";
+    public static final String INSTRUMENT_SID = "AAA.N";
+    public static final String PORTFOLIO_ID = "ptf1";
+    public static final String BROKER_ID = "bench";
+
+    @Override
+    protected void configure() {
+        install(new TraderModule(TraderEventAggregator.class));
+
+        bind(ConfigurationSource.class).to(InMemoryConfigurationSource.class).in(Singleton.class);
+        bind(TraderConfiguration.class).to(SourcedTraderConfiguration.class);
+        bind(MarketDataConfigLoader.class).to(DigesterMarketDataConfigLoader.class);
+        bind(OrderGatewayConfigLoader.class).to(DigesterOrderGatewayConfigLoader.class);
+        bind(MetricRegistry.class).toInstance(new MetricRegistry());
+
+        // the market data and timer services inject the concrete trader service, keep a single instance
+        bind(DefaultTraderService.class).in(Singleton.class);
+        bind(TraderService.class).to(DefaultTraderService.class);
+        bind(MarketDataService.class).to(DefaultMarketDataService.class).in(Singleton.class);
+        bind(MarketDataChannelFactory.class).to(InjectedMarketDataChannelFactory.class);
+        bind(OrderGatewayService.class).to(DefaultOrderGatewayService.class).in(Singleton.class);
+        bind(OrderGatewayFactory.class).to(InjectedGatewayFactory.class);
+        bind(CountingEmulatorGateway.class).in(Singleton.class);
+        bind(TimerService.class).to(WheelTimerService.class).in(Singleton.class);
+        bind(TimeBase.class).to(SystemTimeBase.class);
+    }
+
+    /**
+     * Create an injector with the configuration source pointing at the benchmark resources.
+     * @return
+     */
+    public static Injector createInjector() {
+        Injector res = Guice.createInjector(new BenchmarkModule());
+        ConfigurationSource source = res.getInstance(ConfigurationSource.class);
+        source.set(SourcedTraderConfiguration.STATIC_CONFIG_URI, STATIC_CONFIG_URI);
+        source.set(SourcedTraderConfiguration.MD_CONFIG_URI, MD_CONFIG_URI);
+        source.set(SourcedTraderConfiguration.OG_URI, OG_CONFIG_URI);
+
+        return res;
+    }
+
+    /**
+     * Build the trading states from the benchmark statics without starting any services.
+     * @param injector
+     * @return
+     * @throws ConfigException
+     */
+    public static TradingManager buildTrading(Injector injector) throws ConfigException {
+        TradingManager res = injector.getInstance(TradingManager.class);
+        res.build(injector.getInstance(StaticDataLoader.class).load(STATIC_CONFIG_URI));
+
+        return res;
+    }
+
+    /**
+     * Release the threads owned by injected singletons so the forked VM can exit.
+     * @param injector
+     */
+    public static void shutdown(Injector injector) {
+        injector.getInstance(ContextLogger.class).shutdown();
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader;
+
+import com.google.inject.Injector;
+import com.zaradai.kunzite.trader.algo.AlgoResolver;
+import com.zaradai.kunzite.trader.algos.TickToOrderAlgo;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.services.md.MarketDataService;
+import com.zaradai.kunzite.trader.services.orders.gateway.CountingEmulatorGateway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end latency of a running Trader.  A tick is pushed into the market data service as the EmulatorChannel
+ * would, the algo lifts the offer and the order travels through the filters and gateway service to the
+ * EmulatorGateway, which fills it straight back.  tickToOrder stops the clock when the gateway receives the order,
+ * tickToTrade when the fill reaches the algo.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TickToOrderBenchmark {
+    private static final double BID = 100.0;
+    private static final double TICK = 0.01;
+
+    private Injector injector;
+    private Trader trader;
+    private MarketDataService marketDataService;
+    private TickToOrderAlgo algo;
+    private CountingEmulatorGateway gateway;
+    private long ticks;
+
+    @Setup
+    public void setUp() {
+        injector = BenchmarkModule.createInjector();
+        trader = injector.getInstance(Trader.class);
+        trader.startAsync().awaitRunning();
+
+        marketDataService = injector.getInstance(MarketDataService.class);
+        algo = (TickToOrderAlgo) injector.getInstance(AlgoResolver.class).resolveAlgo("bench-" +
+                BenchmarkModule.INSTRUMENT_ID);
+        gateway = injector.getInstance(CountingEmulatorGateway.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        trader.stopAsync().awaitTerminated();
+        BenchmarkModule.shutdown(injector);
+    }
+
+    /**
+     * Let the previous round trip complete outside of the measurement.
+     */
+    @TearDown(Level.Invocation)
+    public void drain() {
+        while (algo.getTrades() < ticks) {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    public long tickToOrder() {
+        publishTick();
+
+        long res;
+        while ((res = gateway.getOrders()) < ticks) {
+            // spin
+        }
+
+        return res;
+    }
+
+    @Benchmark
+    public long tickToTrade() {
+        publishTick();
+
+        long res;
+        while ((res = algo.getTrades()) < ticks) {
+            // spin
+        }
+
+        return res;
+    }
+
+    private void publishTick() {
+        // move the bid each tick so the book always changes and the algo is notified
+        double bid = BID + (ticks++ & 1) * TICK;
+
+        marketDataService.onMarketData(marketDataService.acquireRecord()
+                .setInstrumentId(BenchmarkModule.INSTRUMENT_SID)
+                .setTimestampNanos(System.nanoTime())
+                .addDoubleValue(MarketDataFieldType.BEST_BID, bid)
+                .addLongValue(MarketDataFieldType.BID_SIZE, 100)
+                .addDoubleValue(MarketDataFieldType.BEST_ASK, bid + TICK)
+                .addLongValue(MarketDataFieldType.ASK_SIZE, 100));
+    }
+}
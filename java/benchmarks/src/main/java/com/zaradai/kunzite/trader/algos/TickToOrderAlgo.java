@@ -0,0 +1,73 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.algos;
+
+import com.zaradai.kunzite.trader.BenchmarkModule;
+import com.zaradai.kunzite.trader.algo.AbstractAlgo;
+import com.zaradai.kunzite.trader.algo.AlgoException;
+import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
+import com.zaradai.kunzite.trader.events.TradeEvent;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import org.joda.time.DateTime;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lifts the offer with a single lot on every book update, counting the fills that come back.
+ */
+public class TickToOrderAlgo extends AbstractAlgo {
+    private final AtomicLong trades = new AtomicLong();
+
+    @Override
+    public void initialize() throws AlgoException {
+        // nothing to prepare
+    }
+
+    @Override
+    public void onMarketBookUpdate(MarketBookUpdateEvent marketBookUpdateEvent) {
+        // pooled, the order manager recycles it once processed
+        OrderRequest request = getState().getOrderManager().getPool().acquireRequest();
+        request.setOrderRequestType(OrderRequestType.Create);
+        request.setPortfolioId(BenchmarkModule.PORTFOLIO_ID);
+        request.setInstrumentId(getState().getInstrument().getId());
+        request.setMarketId(getState().getInstrument().getMarketId());
+        request.setAlgoId(getId());
+        request.setClientOrderId(getId());
+        request.setBrokerId(BenchmarkModule.BROKER_ID);
+        request.setSide(OrderSide.Buy);
+        request.setType(OrderType.Limit);
+        request.setTimeInForce(OrderTimeInForce.Day);
+        request.setPrice(getState().getMarketBook().bestAsk());
+        request.setQuantity(1);
+        request.setCreated(DateTime.now());
+
+        getState().getOrderManager().add(request);
+    }
+
+    @Override
+    public void onTrade(TradeEvent event) {
+        // single writer, the trader thread
+        trades.lazySet(trades.get() + 1);
+    }
+
+    public long getTrades() {
+        return trades.get();
+    }
+}
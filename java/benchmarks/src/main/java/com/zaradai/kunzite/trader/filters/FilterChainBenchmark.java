@@ -0,0 +1,120 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import com.google.inject.Injector;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.BenchmarkModule;
+import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.control.TradingManager;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-trade checks of a single order passing every filter.  Group resolves the instrument, state and limits on each
+ * order as the filters did when chained in a GroupFilter, Compiled is the chain built by DefaultFilterManager.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterChainBenchmark {
+    @Param({"Group", "Compiled"})
+    private String chain;
+
+    private Injector injector;
+    private Filter uut;
+    private OrderRequest request;
+
+    @Setup
+    public void setUp() throws ConfigException {
+        injector = BenchmarkModule.createInjector();
+        TradingManager tradingManager = BenchmarkModule.buildTrading(injector);
+        Instrument instrument = tradingManager.resolveInstrument(BenchmarkModule.INSTRUMENT_ID);
+        // limits held per instrument and portfolio, wide enough to pass
+        FilterLimits limits = new FilterLimits();
+        limits.setMaxQuantity(1000000);
+        limits.setMaxNotional(1e9);
+        injector.getInstance(DefaultFilterParameterManager.class).setLimits(instrument.getId(),
+                BenchmarkModule.PORTFOLIO_ID, limits);
+
+        uut = "Group".equals(chain) ? createGroup(instrument, tradingManager) :
+                injector.getInstance(FilterManager.class).createFor(instrument);
+
+        request = new OrderRequest();
+        request.setOrderRequestType(OrderRequestType.Create);
+        request.setPortfolioId(BenchmarkModule.PORTFOLIO_ID);
+        request.setInstrumentId(instrument.getId());
+        request.setMarketId(instrument.getMarketId());
+        request.setBrokerId(BenchmarkModule.BROKER_ID);
+        request.setSide(OrderSide.Buy);
+        request.setType(OrderType.Limit);
+        request.setTimeInForce(OrderTimeInForce.Day);
+        request.setPrice(100.01);
+        request.setQuantity(100);
+        request.setCreated(DateTime.now());
+    }
+
+    private Filter createGroup(Instrument instrument, TradingManager tradingManager) {
+        ContextLogger logger = injector.getInstance(ContextLogger.class);
+        GroupFilter res = injector.getInstance(GroupFilter.class);
+
+        res.add(new PortfolioFilter(logger, tradingManager));
+        res.add(new TickFilter(logger, tradingManager.resolveMarket(instrument.getMarketId())));
+        res.add(injector.getInstance(LotSizeFilter.class));
+        res.add(injector.getInstance(RestrictedListFilter.class));
+        res.add(injector.getInstance(PriceRangeFilter.class));
+        res.add(injector.getInstance(MaxQuantityFilter.class));
+        res.add(injector.getInstance(MaxNotionalFilter.class));
+        res.add(injector.getInstance(MaxSpreadFilter.class));
+        res.add(injector.getInstance(MaxLongFilter.class));
+        res.add(injector.getInstance(MaxShortFilter.class));
+        res.add(injector.getInstance(ShortSellFilter.class));
+
+        return res;
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkModule.shutdown(injector);
+    }
+
+    @Benchmark
+    public boolean check() {
+        return uut.check(request);
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.instruments;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tick validation as run by the TickFilter on every new or amended order, using the tick ladder of the benchmark
+ * market.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TickCalculatorBenchmark {
+    @Param({"0.05", "0.3", "100.01", "100.015"})
+    private double price;
+
+    private TickCalculator uut;
+
+    @Setup
+    public void setUp() {
+        uut = new TickCalculator();
+        uut.addDefinition(new TickDefinition(0.0, 0.1, 0.001));
+        uut.addDefinition(new TickDefinition(0.1, 0.5, 0.005));
+        uut.addDefinition(new TickDefinition(0.5, 9999, 0.01));
+    }
+
+    @Benchmark
+    public boolean isValidTick() {
+        return uut.isValidTick(price);
+    }
+}
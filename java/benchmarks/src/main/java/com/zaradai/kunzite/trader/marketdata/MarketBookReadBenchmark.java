@@ -0,0 +1,91 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.marketdata;
+
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads an algo typically makes against a full book, for the object based DefaultMarketBook and the array backed
+ * ArrayMarketBook.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MarketBookReadBenchmark {
+    private static final int DEPTH = 10;
+
+    @Param({"Default", "Array"})
+    private String book;
+
+    private MarketBook uut;
+
+    @Setup
+    public void setUp() {
+        Instrument instrument = new Instrument() {
+            @Override
+            public InstrumentType getType() {
+                return InstrumentType.Stock;
+            }
+        };
+        instrument.setId("BENCH");
+        uut = "Array".equals(book) ? new ArrayMarketBook(instrument, DEPTH) : new DefaultMarketBook(instrument);
+
+        for (int level = 0; level < DEPTH; level++) {
+            uut.setPrice(Side.Bid, level, 100.0 - level * 0.01);
+            uut.setSize(Side.Bid, level, 100 + level);
+            uut.setPrice(Side.Ask, level, 100.01 + level * 0.01);
+            uut.setSize(Side.Ask, level, 200 + level);
+        }
+    }
+
+    @Benchmark
+    public double topOfBook() {
+        return uut.bestBid() + uut.bestAsk() + uut.bestBidSize() + uut.bestAskSize();
+    }
+
+    @Benchmark
+    public void fullDepth(Blackhole blackhole) {
+        int bidDepth = uut.getBidDepth();
+        int askDepth = uut.getAskDepth();
+
+        for (int level = 0; level < bidDepth; level++) {
+            blackhole.consume(uut.getBid(level));
+            blackhole.consume(uut.getBidSize(level));
+        }
+        for (int level = 0; level < askDepth; level++) {
+            blackhole.consume(uut.getAsk(level));
+            blackhole.consume(uut.getAskSize(level));
+        }
+    }
+}
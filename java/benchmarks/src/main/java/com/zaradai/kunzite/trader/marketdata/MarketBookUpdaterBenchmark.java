@@ -0,0 +1,115 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.marketdata;
+
+import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
+import com.zaradai.kunzite.trader.events.MarketData;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the switch based DefaultMarketBookUpdater against the table driven TableMarketBookUpdater for a top of
+ * book tick and a full ten level refresh.  Run with -prof gc to see the per tick allocation of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MarketBookUpdaterBenchmark {
+    private static final String INSTRUMENT_ID = "BENCH";
+
+    @Param({"TopOfBook", "FullDepth"})
+    private String tick;
+
+    private MarketBook book;
+    private MarketDataRecord record;
+    private MarketData marketData;
+    private DefaultMarketBookUpdater defaultUpdater;
+    private TableMarketBookUpdater tableUpdater;
+
+    @Setup
+    public void setUp() {
+        book = new DefaultMarketBook(createInstrument());
+        record = MarketDataRecord.newInstance().setInstrumentId(INSTRUMENT_ID).setTimestampNanos(System.nanoTime());
+
+        if ("TopOfBook".equals(tick)) {
+            record.addDoubleValue(MarketDataFieldType.BEST_BID, 100.0)
+                    .addLongValue(MarketDataFieldType.BID_SIZE, 500)
+                    .addDoubleValue(MarketDataFieldType.BEST_ASK, 100.5)
+                    .addLongValue(MarketDataFieldType.ASK_SIZE, 700);
+        } else {
+            for (MarketDataFieldType type : MarketDataFieldType.values()) {
+                if (type.name().endsWith("SIZE")) {
+                    record.addLongValue(type, 100 + type.ordinal());
+                } else {
+                    record.addDoubleValue(type, 100.0 + type.ordinal() / 100.0);
+                }
+            }
+        }
+        marketData = record.toMarketData();
+        defaultUpdater = new DefaultMarketBookUpdater();
+        tableUpdater = new TableMarketBookUpdater();
+    }
+
+    @Benchmark
+    public MarketBookUpdateEvent defaultUpdaterMarketData() {
+        return defaultUpdater.update(book, marketData);
+    }
+
+    @Benchmark
+    public MarketBookUpdateEvent defaultUpdaterRecord() {
+        return defaultUpdater.update(book, record);
+    }
+
+    @Benchmark
+    public MarketBookUpdateEvent tableUpdaterMarketData() {
+        return tableUpdater.update(book, marketData);
+    }
+
+    @Benchmark
+    public MarketBookUpdateEvent tableUpdaterRecord() {
+        return tableUpdater.update(book, record);
+    }
+
+    private Instrument createInstrument() {
+        Instrument res = new Instrument() {
+            @Override
+            public InstrumentType getType() {
+                return InstrumentType.Stock;
+            }
+        };
+        res.setId(INSTRUMENT_ID);
+
+        return res;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.book;
+
+import com.zaradai.kunzite.trader.instruments.TickCalculator;
+import com.zaradai.kunzite.trader.instruments.TickDefinition;
+import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderEntry;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderState;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One trader thread re-pricing resting quotes while two risk threads read the outstanding quantities, for the read
+ * write locked book that was replaced and the tick based ConcurrentOrderBook.  The quotes rest over a number of price
+ * levels a side, bids below the offers as in a live book.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ConcurrentOrderBookBenchmark {
+    private static final double BASE_PRICE = 100.0;
+    private static final double TICK = 0.01;
+
+    @Param({"Locked", "Concurrent"})
+    private String book;
+
+    @Param({"100", "1000"})
+    private int resting;
+
+    // price levels each side's quotes are spread over
+    @Param({"20", "1000"})
+    private int prices;
+
+    private OrderBook uut;
+    private Order[] orders;
+    private int next;
+    private int shift;
+
+    @Setup
+    public void setUp() {
+        TickCalculator tickCalculator = new TickCalculator();
+        tickCalculator.addDefinition(new TickDefinition(0.0, 1000.0, TICK));
+        uut = "Locked".equals(book) ? new LockedOrderBook() : new ConcurrentOrderBook(tickCalculator);
+        orders = new Order[resting];
+
+        for (int i = 0; i < resting; i++) {
+            orders[i] = createOrder("BENCH-" + i, (i % 2) == 0, priceFor(i, 0));
+            uut.add(orders[i]);
+        }
+    }
+
+    @Benchmark
+    @Group("quoting")
+    @GroupThreads(1)
+    public void requote() {
+        int i = next;
+        next = (next + 1) % resting;
+
+        if (next == 0) {
+            shift++;
+        }
+        // pull the quote and put it back a level away, as a market maker moving its price
+        Order order = orders[i];
+        uut.remove(order);
+        order.getState().setPrice(priceFor(i, shift + 1));
+        uut.add(order);
+    }
+
+    @Benchmark
+    @Group("quoting")
+    @GroupThreads(2)
+    public long outstanding() {
+        return uut.getOutstandingBuyQuantity() - uut.getOutstandingSellQuantity();
+    }
+
+    /**
+     * Bids rest below the base price and offers above it, each pass over the quotes moves every quote a level on.
+     */
+    private double priceFor(int i, int pass) {
+        int level = (i / 2 + pass) % prices;
+
+        return ((i % 2) == 0) ? BASE_PRICE - level * TICK : BASE_PRICE + (level + 1) * TICK;
+    }
+
+    private static Order createOrder(String orderId, boolean buy, double price) {
+        Order res = new Order(OrderRefData.builder().id(orderId).build());
+        OrderEntry entry = OrderEntry.newInstance();
+        entry.setSide(buy ? OrderSide.Buy : OrderSide.Sell);
+        entry.setType(OrderType.Limit);
+        OrderState state = res.getState();
+        state.setEntry(entry);
+        state.setAlive(true);
+        state.setQuantity(100);
+        state.setPrice(price);
+
+        return res;
+    }
+}
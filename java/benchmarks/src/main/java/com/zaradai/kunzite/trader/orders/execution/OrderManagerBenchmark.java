@@ -0,0 +1,125 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.execution;
+
+import com.google.inject.Injector;
+import com.zaradai.kunzite.trader.BenchmarkModule;
+import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.orders.book.OrderBook;
+import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderEntry;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single request through DefaultOrderManager.process, validated by the full filter chain and turned into an order
+ * send event.  Each iteration starts with a fresh manager as created orders accumulate in its book.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderManagerBenchmark {
+    private static final String RESTING_ORDER_ID = "BENCH-1";
+
+    @Param({"Create", "Amend"})
+    private String requestType;
+
+    private Injector injector;
+    private OrderManagerFactory orderManagerFactory;
+    private Instrument instrument;
+    private OrderManager uut;
+    private OrderRequest request;
+
+    @Setup
+    public void setUp() throws ConfigException {
+        injector = BenchmarkModule.createInjector();
+        instrument = BenchmarkModule.buildTrading(injector).resolveInstrument(BenchmarkModule.INSTRUMENT_ID);
+        orderManagerFactory = injector.getInstance(OrderManagerFactory.class);
+
+        request = new OrderRequest();
+        request.setOrderRequestType(OrderRequestType.valueOf(requestType));
+        request.setDependentOrderId(RESTING_ORDER_ID);
+        request.setPortfolioId(BenchmarkModule.PORTFOLIO_ID);
+        request.setInstrumentId(instrument.getId());
+        request.setMarketId(instrument.getMarketId());
+        request.setAlgoId("bench");
+        request.setClientOrderId("bench");
+        request.setBrokerId(BenchmarkModule.BROKER_ID);
+        request.setSide(OrderSide.Buy);
+        request.setType(OrderType.Limit);
+        request.setTimeInForce(OrderTimeInForce.Day);
+        request.setPrice(100.01);
+        request.setQuantity(100);
+        request.setCreated(DateTime.now());
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkModule.shutdown(injector);
+    }
+
+    @Setup(Level.Iteration)
+    public void newManager() {
+        uut = orderManagerFactory.create(instrument);
+        // the order amended
+        Order resting = new Order(OrderRefData.builder()
+                .id(RESTING_ORDER_ID)
+                .instrument(instrument.getId(), instrument.getIndex())
+                .market(instrument.getMarketId())
+                .portfolio(BenchmarkModule.PORTFOLIO_ID)
+                .build());
+        OrderEntry entry = OrderEntry.newInstanceWithCreated(request.getCreated());
+        entry.setSide(request.getSide());
+        entry.setType(request.getType());
+        entry.setPrice(request.getPrice());
+        entry.setQuantity(request.getQuantity());
+        resting.getState().setEntry(entry);
+        resting.getState().setAlive(true);
+        uut.getBook().add(resting);
+    }
+
+    @Benchmark
+    public OrderBook process() {
+        uut.add(request);
+        uut.process();
+
+        return uut.getBook();
+    }
+}
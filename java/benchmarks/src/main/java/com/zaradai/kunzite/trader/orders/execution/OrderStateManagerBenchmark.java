@@ -0,0 +1,111 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.execution;
+
+import com.google.inject.Injector;
+import com.zaradai.kunzite.trader.BenchmarkModule;
+import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applying a gateway status to a live order.  A partial fill also builds and publishes the trade event, the order
+ * is sized so it never completes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderStateManagerBenchmark {
+    @Param({"New", "PartiallyFilled"})
+    private String status;
+
+    private Injector injector;
+    private OrderStateManager uut;
+    private Order order;
+    private OrderStatusEvent event;
+
+    @Setup
+    public void setUp() throws ConfigException {
+        injector = BenchmarkModule.createInjector();
+        Instrument instrument = BenchmarkModule.buildTrading(injector)
+                .resolveInstrument(BenchmarkModule.INSTRUMENT_ID);
+        OrderManager orderManager = injector.getInstance(OrderManagerFactory.class).create(instrument);
+        uut = injector.getInstance(OrderStateManagerFactory.class).create(orderManager);
+
+        order = new Order(OrderRefData.builder()
+                .id("BENCH-1")
+                .instrument(instrument.getId(), instrument.getIndex())
+                .market(instrument.getMarketId())
+                .portfolio(BenchmarkModule.PORTFOLIO_ID)
+                .build());
+        OrderRequest request = new OrderRequest();
+        request.setOrderRequestType(OrderRequestType.Create);
+        request.setSide(OrderSide.Buy);
+        request.setType(OrderType.Limit);
+        request.setTimeInForce(OrderTimeInForce.Day);
+        request.setPrice(100.01);
+        request.setQuantity(Long.MAX_VALUE);
+        request.setCreated(DateTime.now());
+        uut.newRequest(order, request);
+
+        event = new OrderStatusEvent();
+        event.setOrderId("BENCH-1");
+        event.setInstrumentIndex(instrument.getIndex());
+        event.setOrderStatus(OrderStatus.valueOf(status));
+        event.setExchangeId("bench");
+        event.setLastPx(100.01);
+        event.setExecQty(1);
+        event.setTimestamp(DateTime.now());
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkModule.shutdown(injector);
+    }
+
+    @Benchmark
+    public Order onOrderStatus() {
+        uut.onOrderStatus(order, event);
+
+        return order;
+    }
+}
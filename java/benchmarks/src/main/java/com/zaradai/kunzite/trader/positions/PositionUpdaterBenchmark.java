@@ -0,0 +1,84 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.positions;
+
+import com.google.inject.Injector;
+import com.zaradai.kunzite.trader.BenchmarkModule;
+import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.control.TradingState;
+import com.zaradai.kunzite.trader.events.TradeEvent;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updating an open position with alternating buy and sell fills, each publishing a position changed event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionUpdaterBenchmark {
+    private Injector injector;
+    private PositionUpdater uut;
+    private Position position;
+    private TradeEvent buy;
+    private TradeEvent sell;
+    private boolean buying;
+
+    @Setup
+    public void setUp() throws ConfigException {
+        injector = BenchmarkModule.createInjector();
+        TradingState state = BenchmarkModule.buildTrading(injector)
+                .resolveTradingState(BenchmarkModule.INSTRUMENT_ID);
+        uut = injector.getInstance(PositionUpdater.class);
+        position = state.getPositionBook().getPositionFor(BenchmarkModule.PORTFOLIO_ID);
+
+        DateTime now = DateTime.now();
+        int index = state.getInstrument().getIndex();
+        buy = TradeEvent.newTrade(BenchmarkModule.PORTFOLIO_ID, BenchmarkModule.INSTRUMENT_ID, index, 1, 100.01, now);
+        sell = TradeEvent.newTrade(BenchmarkModule.PORTFOLIO_ID, BenchmarkModule.INSTRUMENT_ID, index, -1, 100.0, now);
+        // open the position so every update is a change
+        uut.update(position, TradeEvent.newTrade(BenchmarkModule.PORTFOLIO_ID, BenchmarkModule.INSTRUMENT_ID, index,
+                100, 100.0, now));
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkModule.shutdown(injector);
+    }
+
+    @Benchmark
+    public Position update() {
+        buying = !buying;
+        uut.update(position, buying ? buy : sell);
+
+        return position;
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Injector;
+import com.zaradai.kunzite.config.ConfigurationSource;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.BenchmarkModule;
+import com.zaradai.kunzite.trader.config.SourcedTraderConfiguration;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of a service bridge, a batch of events is pushed and the invocation completes once the service thread
+ * has handled them all.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueueBridgeBenchmark {
+    private static final int BATCH = 1024;
+    private static final Object EVENT = new Object();
+
+    @Param({"Queue", "Disruptor"})
+    private String bridgeType;
+
+    @Param({"Blocking", "BusySpin"})
+    private String waitStrategy;
+
+    private Injector injector;
+    private CountingBridge bridge;
+    private long published;
+
+    @Setup
+    public void setUp() {
+        injector = BenchmarkModule.createInjector();
+        ConfigurationSource source = injector.getInstance(ConfigurationSource.class);
+        source.set(SourcedTraderConfiguration.BRIDGE_TYPE, bridgeType);
+        source.set(SourcedTraderConfiguration.BRIDGE_WAIT_STRATEGY, waitStrategy);
+
+        bridge = new CountingBridge(injector.getInstance(ContextLogger.class), new MetricRegistry(),
+                injector.getInstance(TraderConfiguration.class));
+        bridge.startAsync().awaitRunning();
+    }
+
+    @TearDown
+    public void tearDown() {
+        bridge.stopAsync().awaitTerminated();
+        BenchmarkModule.shutdown(injector);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long publish() {
+        for (int i = 0; i < BATCH; i++) {
+            bridge.onEvent(EVENT);
+        }
+        published += BATCH;
+
+        long res;
+        while ((res = bridge.getHandled()) < published) {
+            // spin
+        }
+
+        return res;
+    }
+
+    static final class CountingBridge extends AbstractQueueBridge {
+        private final AtomicLong handled = new AtomicLong();
+
+        CountingBridge(ContextLogger logger, MetricRegistry metricRegistry, TraderConfiguration configuration) {
+            super(logger, metricRegistry, configuration);
+        }
+
+        @Override
+        public void handleEvent(Object event) {
+            // single writer, the bridge thread
+            handled.lazySet(handled.get() + 1);
+        }
+
+        long getHandled() {
+            return handled.get();
+        }
+
+        @Override
+        public String getName() {
+            return "QueueBridgeBenchmark";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway;
+
+import com.google.inject.Inject;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emulator gateway counting the orders reaching it, so a benchmark can tell when a tick has become an order.
+ */
+public class CountingEmulatorGateway extends EmulatorGateway {
+    private final AtomicLong orders = new AtomicLong();
+
+    @Inject
+    CountingEmulatorGateway(OrderGatewayService orderGatewayService, TraderConfiguration configuration,
+                            TimeBase timeBase) {
+        super(orderGatewayService, configuration, timeBase);
+    }
+
+    @Override
+    public void processOrder(NewOrder order) {
+        // single writer, the thread calling the gateway
+        orders.lazySet(orders.get() + 1);
+        super.processOrder(order);
+    }
+
+    @Override
+    public void processOrders(List<NewOrder> batch) {
+        orders.lazySet(orders.get() + batch.size());
+        super.processOrders(batch);
+    }
+
+    public long getOrders() {
+        return orders.get();
+    }
+}
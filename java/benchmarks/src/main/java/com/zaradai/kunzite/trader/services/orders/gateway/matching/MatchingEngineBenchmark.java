@@ -0,0 +1,117 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+import com.google.inject.Injector;
+import com.zaradai.kunzite.trader.BenchmarkModule;
+import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.OrderStatusHandler;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.marketdata.MarketBookFactory;
+import com.zaradai.kunzite.trader.marketdata.MarketBookUpdater;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.orders.model.NewOrderPool;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders per second through the matching engine, each operation is a sell that rests followed by a buy that fills
+ * it.  Resting is the number of bids already working below the market, the book the pair has to find its way past.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchingEngineBenchmark {
+    private static final double PRICE = 100.0;
+    private static final double TICK = 0.01;
+
+    @Param({"0", "1000"})
+    private int resting;
+
+    private Injector injector;
+    private MatchingEngine uut;
+    private NewOrderPool pool;
+    private long nextId;
+    private long statuses;
+
+    @Setup
+    public void setUp() throws ConfigException {
+        injector = BenchmarkModule.createInjector();
+        BenchmarkModule.buildTrading(injector);
+        pool = new NewOrderPool();
+        uut = new MatchingEngine(injector.getInstance(InstrumentResolver.class),
+                injector.getInstance(MarketResolver.class), injector.getInstance(MarketBookFactory.class),
+                injector.getInstance(MarketBookUpdater.class), new OrderStatusHandler() {
+                    @Override
+                    public void onOrderStatus(OrderStatusEvent event) {
+                        statuses++;
+                        event.recycle();
+                    }
+                });
+
+        for (int i = 0; i < resting; ++i) {
+            uut.process(order(OrderSide.Buy, PRICE - (i + 1) * TICK));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkModule.shutdown(injector);
+    }
+
+    @Benchmark
+    public long restAndFill() {
+        uut.process(order(OrderSide.Sell, PRICE));
+        uut.process(order(OrderSide.Buy, PRICE));
+
+        return statuses;
+    }
+
+    private NewOrder order(OrderSide side, double price) {
+        NewOrder res = pool.acquire();
+        res.getRefData().setNumericOrderId(++nextId);
+        res.getRefData().setInstrumentId(BenchmarkModule.INSTRUMENT_ID);
+        res.setRequestType(OrderRequestType.Create);
+        res.setSide(side);
+        res.setType(OrderType.Limit);
+        res.setTimeInForce(OrderTimeInForce.Day);
+        res.setPrice(price);
+        res.setQuantity(100);
+
+        return res;
+    }
+}
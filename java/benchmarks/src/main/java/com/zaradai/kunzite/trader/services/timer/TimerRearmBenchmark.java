@@ -0,0 +1,187 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.inject.Injector;
+import com.zaradai.kunzite.events.EventAggregator;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.BenchmarkModule;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerEventBatch;
+import com.zaradai.kunzite.trader.events.TimerListener;
+import com.zaradai.kunzite.trader.services.trader.ShardEventSink;
+import com.zaradai.kunzite.trader.services.trader.TraderShard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer re-arms per second through the timer engine, each operation cancels the running timer and subscribes a new
+ * one the way an algo re-arms an order time-out.  The rearm benchmark's timer service recycles the requests without
+ * scheduling them so only the engine's own cost is measured.  The wheel benchmark goes through the wheel timer
+ * service on a manual clock instead, each operation arms a one-shot timer for a tick, then ticks the service so the
+ * timer is scheduled, expires and is dispatched back to the engine and recycled as on a trader shard.  What it still
+ * allocates is the node of the service's linked command queue for each submit.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimerRearmBenchmark {
+    private static final long TIMEOUT_MILLIS = 500;
+
+    private final TimerListener listener = new TimerListener() {
+        @Override
+        public void onTimer(TimerEvent event) {
+        }
+    };
+
+    private Injector injector;
+    private DefaultTimerEngine uut;
+    private long current;
+
+    @Setup
+    public void setUp() {
+        // the benchmark thread re-arms as a trader shard would
+        TraderShard.enter(0);
+        injector = BenchmarkModule.createInjector();
+        uut = new DefaultTimerEngine(injector.getInstance(ContextLogger.class),
+                injector.getInstance(EventAggregator.class), new DiscardingTimerService(), new SystemTimeBase(),
+                injector.getInstance(TraderConfiguration.class));
+        current = uut.subscribe(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, false, listener);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkModule.shutdown(injector);
+        TraderShard.leave();
+    }
+
+    @Benchmark
+    public long rearm() {
+        uut.unsubscribe(current);
+        current = uut.subscribe(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, false, listener);
+
+        return current;
+    }
+
+    @Benchmark
+    public long rearmThroughWheel(WheelState state) {
+        long res = state.engine.subscribe(state.tickMillis, TimeUnit.MILLISECONDS, false, listener);
+        state.service.process();
+
+        return res;
+    }
+
+    @State(Scope.Thread)
+    public static class WheelState implements ShardEventSink {
+        private Injector injector;
+        private DefaultTimerEngine engine;
+        private WheelTimerService service;
+        private long tickMillis;
+
+        @Setup
+        public void setUp() {
+            TraderShard.enter(0);
+            injector = BenchmarkModule.createInjector();
+            ContextLogger logger = injector.getInstance(ContextLogger.class);
+            TraderConfiguration configuration = injector.getInstance(TraderConfiguration.class);
+            TimeBase timeBase = new ManualTimeBase();
+            tickMillis = configuration.getTimerTickMillis();
+            service = new WheelTimerService(logger, this, timeBase, configuration);
+            engine = new DefaultTimerEngine(logger, injector.getInstance(EventAggregator.class), service, timeBase,
+                    configuration);
+        }
+
+        @TearDown
+        public void tearDown() {
+            BenchmarkModule.shutdown(injector);
+            TraderShard.leave();
+        }
+
+        @Override
+        public void onShardEvent(int shard, Object event) {
+            // dispatch and recycle as the trader service does on the shard
+            if (event instanceof TimerEventBatch) {
+                TimerEventBatch batch = (TimerEventBatch) event;
+
+                for (int i = 0; i < batch.size(); ++i) {
+                    engine.onTimer(batch.get(i));
+                }
+                batch.recycle();
+            } else {
+                engine.onTimer((TimerEvent) event);
+                ((TimerEvent) event).recycle();
+            }
+        }
+    }
+
+    /**
+     * Clock moved on by the wheel's own sleep between ticks, so each tick expires without waiting.
+     */
+    private static final class ManualTimeBase implements TimeBase {
+        private long now;
+
+        @Override
+        public void sleep(long duration, TimeUnit unit) {
+            now += unit.toMillis(duration);
+        }
+
+        @Override
+        public long now() {
+            return now;
+        }
+
+        @Override
+        public void advanceTo(long millis) {
+            now = Math.max(now, millis);
+        }
+    }
+
+    private static final class DiscardingTimerService extends AbstractIdleService implements TimerService {
+        @Override
+        protected void startUp() throws Exception {
+        }
+
+        @Override
+        protected void shutDown() throws Exception {
+        }
+
+        @Override
+        public void submit(TimerRequest request) {
+            request.recycle();
+        }
+
+        @Override
+        public void cancel(TimerCancelRequest request) {
+            request.recycle();
+        }
+    }
+}
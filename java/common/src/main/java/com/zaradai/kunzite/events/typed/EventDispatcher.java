@@ -0,0 +1,44 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.events.typed;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Routes one event type to listeners implementing a handler interface, implementations simply call the handler
+ * method so dispatch needs no reflection.
+ * @param <L> handler interface
+ * @param <E> event type
+ */
+public abstract class EventDispatcher<L, E> {
+    private final Class<L> listenerType;
+    private final Class<E> eventType;
+
+    protected EventDispatcher(Class<L> listenerType, Class<E> eventType) {
+        this.listenerType = checkNotNull(listenerType, "Invalid listener type");
+        this.eventType = checkNotNull(eventType, "Invalid event type");
+    }
+
+    public Class<L> getListenerType() {
+        return listenerType;
+    }
+
+    public Class<E> getEventType() {
+        return eventType;
+    }
+
+    public abstract void dispatch(L listener, E event);
+}
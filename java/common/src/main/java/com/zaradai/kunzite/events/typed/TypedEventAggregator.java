@@ -0,0 +1,236 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.events.typed;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.events.EventAggregator;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Event aggregator dispatching through registered {@link EventDispatcher}s instead of annotated subscriber methods.
+ * A subscribed listener receives every event type for which a dispatcher of one of its handler interfaces is
+ * registered.  Handler arrays are precomputed per concrete event class whenever the subscriptions change so
+ * publishing is a map lookup followed by direct interface calls.
+ *
+ * As with the event bus, events published from within a handler are queued and dispatched once the current event
+ * has been handled by all its handlers, so handlers are never re-entered.  Subscriptions are expected to change
+ * rarely.
+ */
+public class TypedEventAggregator implements EventAggregator {
+    private static final Binding[] NO_BINDINGS = new Binding[0];
+
+    private final ContextLogger logger;
+    private final List<EventDispatcher<?, ?>> dispatchers;
+    private final List<Object> listeners;
+    private final List<Binding> bindings;
+    private volatile Map<Class<?>, Binding[]> bindingsByEventClass;
+    private final ThreadLocal<Dispatch> dispatch = new ThreadLocal<Dispatch>() {
+        @Override
+        protected Dispatch initialValue() {
+            return new Dispatch();
+        }
+    };
+
+    @Inject
+    public TypedEventAggregator(ContextLogger logger) {
+        this.logger = logger;
+        dispatchers = Lists.newArrayList();
+        listeners = Lists.newArrayList();
+        bindings = Lists.newArrayList();
+        bindingsByEventClass = Maps.newIdentityHashMap();
+    }
+
+    public synchronized TypedEventAggregator register(EventDispatcher<?, ?> dispatcher) {
+        checkNotNull(dispatcher, "Invalid dispatcher");
+        dispatchers.add(dispatcher);
+        // existing subscribers may handle the new event type
+        for (Object listener : listeners) {
+            bind(listener, dispatcher);
+        }
+        rebuild();
+
+        return this;
+    }
+
+    @Override
+    public void publish(Object event) {
+        Dispatch current = dispatch.get();
+
+        if (current.dispatching) {
+            current.pending.add(event);
+            return;
+        }
+
+        current.dispatching = true;
+        try {
+            dispatch(event);
+            // drain anything published by the handlers
+            Object next;
+
+            while ((next = current.pending.poll()) != null) {
+                dispatch(next);
+            }
+        } finally {
+            current.pending.clear();
+            current.dispatching = false;
+        }
+    }
+
+    private void dispatch(Object event) {
+        Binding[] targets = bindingsByEventClass.get(event.getClass());
+
+        if (targets == null) {
+            targets = resolve(event.getClass());
+        }
+
+        for (Binding target : targets) {
+            try {
+                target.dispatch(event);
+            } catch (RuntimeException e) {
+                logDispatchFailure(target, event, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(Object listener) {
+        checkNotNull(listener, "Invalid listener");
+
+        if (indexOf(listener) != -1) {
+            return;
+        }
+        listeners.add(listener);
+
+        for (EventDispatcher<?, ?> dispatcher : dispatchers) {
+            bind(listener, dispatcher);
+        }
+        rebuild();
+    }
+
+    @Override
+    public synchronized void unsubscribe(Object listener) {
+        int index = indexOf(listener);
+
+        if (index == -1) {
+            return;
+        }
+        listeners.remove(index);
+        Iterator<Binding> iterator = bindings.iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().listener == listener) {
+                iterator.remove();
+            }
+        }
+        rebuild();
+    }
+
+    private void bind(Object listener, EventDispatcher<?, ?> dispatcher) {
+        if (dispatcher.getListenerType().isInstance(listener)) {
+            bindings.add(new Binding(listener, dispatcher));
+        }
+    }
+
+    private int indexOf(Object listener) {
+        for (int i = 0; i < listeners.size(); ++i) {
+            if (listeners.get(i) == listener) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Called for event classes not seen before, e.g. subclasses of a dispatched event type.
+     */
+    private synchronized Binding[] resolve(Class<?> eventClass) {
+        Map<Class<?>, Binding[]> res = Maps.newIdentityHashMap();
+        res.putAll(bindingsByEventClass);
+        Binding[] targets = computeBindings(eventClass);
+        res.put(eventClass, targets);
+        bindingsByEventClass = res;
+
+        return targets;
+    }
+
+    private void rebuild() {
+        Map<Class<?>, Binding[]> res = Maps.newIdentityHashMap();
+
+        for (Class<?> eventClass : bindingsByEventClass.keySet()) {
+            res.put(eventClass, computeBindings(eventClass));
+        }
+        for (EventDispatcher<?, ?> dispatcher : dispatchers) {
+            if (!res.containsKey(dispatcher.getEventType())) {
+                res.put(dispatcher.getEventType(), computeBindings(dispatcher.getEventType()));
+            }
+        }
+        bindingsByEventClass = res;
+    }
+
+    private Binding[] computeBindings(Class<?> eventClass) {
+        List<Binding> res = Lists.newArrayList();
+
+        for (Binding binding : bindings) {
+            if (binding.dispatcher.getEventType().isAssignableFrom(eventClass)) {
+                res.add(binding);
+            }
+        }
+
+        return res.isEmpty() ? NO_BINDINGS : res.toArray(new Binding[res.size()]);
+    }
+
+    private void logDispatchFailure(Binding target, Object event, RuntimeException e) {
+        LogHelper.error(logger)
+                .addContext("Event Aggregator")
+                .addReason("Handler failed")
+                .add("Listener", target.listener.getClass().getName())
+                .add("Event", event.getClass().getName())
+                .add("Exception", e.getMessage())
+                .log();
+    }
+
+    private static final class Dispatch {
+        private final Queue<Object> pending = Queues.newArrayDeque();
+        private boolean dispatching;
+    }
+
+    private static final class Binding {
+        private final Object listener;
+        private final EventDispatcher<Object, Object> dispatcher;
+
+        @SuppressWarnings("unchecked")
+        private Binding(Object listener, EventDispatcher<?, ?> dispatcher) {
+            this.listener = listener;
+            this.dispatcher = (EventDispatcher<Object, Object>) dispatcher;
+        }
+
+        private void dispatch(Object event) {
+            dispatcher.dispatch(listener, event);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.utils.collections;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hash map of primitive long keys written by a single thread and read by any number of others.  The writer works on
+ * the table in place, as {@link LongObjectMap} does, bumping a version either side of each change.  Readers look up
+ * optimistically and retry when the version moved under them, so neither side locks, boxes or allocates outside of a
+ * resize.  Zero marks an empty slot so it cannot be used as a key.
+ * @param <V>
+ */
+public class ConcurrentLongObjectMap<V> {
+    private static final long EMPTY = 0L;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // odd while the writer changes the table
+    private volatile long version;
+    private volatile Table table;
+    private int size;
+
+    public ConcurrentLongObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentLongObjectMap(int expectedSize) {
+        checkArgument(expectedSize >= 0, "Invalid size");
+
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    /**
+     * Number of entries, only meaningful on the writing thread.
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Safe from any thread.
+     * @param key
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) {
+            return null;
+        }
+
+        long before;
+        Object res;
+
+        do {
+            before = version;
+            res = table.find(key);
+        } while ((before & 1) != 0 || before != version);
+
+        return (V) res;
+    }
+
+    /**
+     * Writing thread only.
+     * @param key
+     * @param value
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        checkArgument(key != EMPTY, "Invalid key");
+
+        long next = version + 1;
+        version = next;
+
+        try {
+            Table current = table;
+            int index = current.slot(key);
+
+            while (current.keys[index] != EMPTY) {
+                if (current.keys[index] == key) {
+                    V res = (V) current.values[index];
+                    current.values[index] = value;
+
+                    return res;
+                }
+                index = (index + 1) & current.mask;
+            }
+
+            current.keys[index] = key;
+            current.values[index] = value;
+
+            if (++size > current.resizeAt) {
+                table = current.grow();
+            }
+
+            return null;
+        } finally {
+            version = next + 1;
+        }
+    }
+
+    /**
+     * Writing thread only.
+     * @param key
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        Table current = table;
+        int index = current.indexOf(key);
+
+        if (index < 0) {
+            return null;
+        }
+
+        long next = version + 1;
+        version = next;
+
+        try {
+            V res = (V) current.values[index];
+            current.closeGap(index);
+            --size;
+
+            return res;
+        } finally {
+            version = next + 1;
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 2;
+
+        while ((capacity >> 1) < expectedSize) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Open addressed table, the arrays and mask are only ever replaced together so a reader never mixes tables.
+     */
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        private final int resizeAt;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            // keep at most half full so probes stay short
+            resizeAt = capacity >> 1;
+        }
+
+        Object find(long key) {
+            int index = slot(key);
+            // a reader racing the writer may see a torn table, bound the probe and let the version check retry
+            for (int i = 0; i < keys.length && keys[index] != EMPTY; ++i) {
+                if (keys[index] == key) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+
+            return null;
+        }
+
+        int indexOf(long key) {
+            if (key == EMPTY) {
+                return -1;
+            }
+
+            int index = slot(key);
+
+            while (keys[index] != EMPTY) {
+                if (keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Shift back the entries following a removed one so every probe sequence stays unbroken.
+         * @param gap
+         */
+        void closeGap(int gap) {
+            int index = (gap + 1) & mask;
+
+            while (keys[index] != EMPTY) {
+                int home = slot(keys[index]);
+
+                if (((index - home) & mask) >= ((index - gap) & mask)) {
+                    keys[gap] = keys[index];
+                    values[gap] = values[index];
+                    gap = index;
+                }
+                index = (index + 1) & mask;
+            }
+
+            keys[gap] = EMPTY;
+            values[gap] = null;
+        }
+
+        Table grow() {
+            Table res = new Table(keys.length << 1);
+
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] != EMPTY) {
+                    int index = res.slot(keys[i]);
+
+                    while (res.keys[index] != EMPTY) {
+                        index = (index + 1) & res.mask;
+                    }
+                    res.keys[index] = keys[i];
+                    res.values[index] = values[i];
+                }
+            }
+
+            return res;
+        }
+
+        int slot(long key) {
+            // spread sequential ids, which differ only in their low bits, across the table
+            long hash = key * 0x9E3779B97F4A7C15L;
+
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
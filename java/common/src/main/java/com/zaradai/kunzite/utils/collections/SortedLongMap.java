@@ -0,0 +1,151 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.utils.collections;
+
+import java.util.Arrays;
+
+/**
+ * Map of primitive long keys held sorted in parallel arrays.  Lookups are a binary search with no boxing, inserts and
+ * removes shift the arrays which is cheap for small maps such as the handful of price levels an order book holds.
+ * @param <V>
+ */
+public class SortedLongMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    public SortedLongMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SortedLongMap(int capacity) {
+        keys = new long[Math.max(1, capacity)];
+        values = new Object[keys.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+
+        return (index >= 0) ? (V) values[index] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associate the value with the key.
+     * @param key
+     * @param value
+     * @return the value previously held against the key or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int index = indexOf(key);
+
+        if (index >= 0) {
+            V res = (V) values[index];
+            values[index] = value;
+
+            return res;
+        }
+
+        index = -(index + 1);
+        ensureCapacity();
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        keys[index] = key;
+        values[index] = value;
+        size++;
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+
+        if (index < 0) {
+            return null;
+        }
+
+        V res = (V) values[index];
+        int moved = size - index - 1;
+        System.arraycopy(keys, index + 1, keys, index, moved);
+        System.arraycopy(values, index + 1, values, index, moved);
+        // release the reference held in the vacated slot
+        values[--size] = null;
+
+        return res;
+    }
+
+    /**
+     * Key at the given position, positions run in ascending key order.
+     * @param index
+     * @return
+     */
+    public long keyAt(int index) {
+        checkIndex(index);
+
+        return keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        checkIndex(index);
+
+        return (V) values[index];
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Position of the key, for walking outwards from it.
+     * @param key
+     * @return the position of the key if held, otherwise -(insertion point) - 1
+     */
+    public int indexOf(long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void ensureCapacity() {
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+}
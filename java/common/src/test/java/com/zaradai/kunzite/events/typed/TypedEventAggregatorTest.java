@@ -0,0 +1,165 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.events.typed;
+
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.mocks.ContextLoggerMocker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class TypedEventAggregatorTest {
+    private ContextLogger logger;
+    private TypedEventAggregator uut;
+
+    public interface TestHandler {
+        void onTest(TestEvent event);
+    }
+
+    public interface OtherHandler {
+        void onOther(String event);
+    }
+
+    public static class TestEvent {
+    }
+
+    public static class SubTestEvent extends TestEvent {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        logger = ContextLoggerMocker.create();
+        uut = new TypedEventAggregator(logger);
+        uut.register(new EventDispatcher<TestHandler, TestEvent>(TestHandler.class, TestEvent.class) {
+            @Override
+            public void dispatch(TestHandler listener, TestEvent event) {
+                listener.onTest(event);
+            }
+        });
+    }
+
+    @Test
+    public void shouldDispatchToSubscribedHandler() throws Exception {
+        TestHandler handler = mock(TestHandler.class);
+        TestEvent event = new TestEvent();
+        uut.subscribe(handler);
+
+        uut.publish(event);
+
+        verify(handler).onTest(event);
+    }
+
+    @Test
+    public void shouldDispatchSubclassedEvents() throws Exception {
+        TestHandler handler = mock(TestHandler.class);
+        TestEvent event = new SubTestEvent();
+        uut.subscribe(handler);
+
+        uut.publish(event);
+        uut.publish(event);
+
+        verify(handler, times(2)).onTest(event);
+    }
+
+    @Test
+    public void shouldIgnoreListenersWithoutHandlerInterface() throws Exception {
+        OtherHandler handler = mock(OtherHandler.class);
+        uut.subscribe(handler);
+
+        uut.publish(new TestEvent());
+        uut.publish("unrouted");
+
+        verifyZeroInteractions(handler);
+    }
+
+    @Test
+    public void shouldBindExistingSubscribersToLateDispatchers() throws Exception {
+        OtherHandler handler = mock(OtherHandler.class);
+        uut.subscribe(handler);
+        uut.register(new EventDispatcher<OtherHandler, String>(OtherHandler.class, String.class) {
+            @Override
+            public void dispatch(OtherHandler listener, String event) {
+                listener.onOther(event);
+            }
+        });
+
+        uut.publish("test");
+
+        verify(handler).onOther("test");
+    }
+
+    @Test
+    public void shouldNotDispatchAfterUnsubscribe() throws Exception {
+        TestHandler handler = mock(TestHandler.class);
+        uut.subscribe(handler);
+        uut.publish(new SubTestEvent());
+
+        uut.unsubscribe(handler);
+        uut.publish(new SubTestEvent());
+        uut.publish(new TestEvent());
+
+        verify(handler, times(1)).onTest(any(TestEvent.class));
+    }
+
+    @Test
+    public void shouldLogAndContinueWhenHandlerFails() throws Exception {
+        TestHandler failing = mock(TestHandler.class);
+        TestHandler handler = mock(TestHandler.class);
+        TestEvent event = new TestEvent();
+        doThrow(new IllegalStateException("fail")).when(failing).onTest(event);
+        uut.subscribe(failing);
+        uut.subscribe(handler);
+
+        uut.publish(event);
+
+        verify(logger).error();
+        verify(handler).onTest(event);
+    }
+
+    @Test
+    public void shouldQueueEventsPublishedFromHandlers() throws Exception {
+        final TestEvent nested = new TestEvent();
+        final TestEvent outer = new TestEvent();
+        final List<TestEvent> seen = Lists.newArrayList();
+        TestHandler republishing = new TestHandler() {
+            @Override
+            public void onTest(TestEvent event) {
+                seen.add(event);
+                if (event == outer) {
+                    uut.publish(nested);
+                }
+            }
+        };
+        TestHandler recording = new TestHandler() {
+            @Override
+            public void onTest(TestEvent event) {
+                seen.add(event);
+            }
+        };
+        uut.subscribe(republishing);
+        uut.subscribe(recording);
+
+        uut.publish(outer);
+
+        assertThat(seen, is((List<TestEvent>) Lists.newArrayList(outer, outer, nested, nested)));
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.utils.collections;
+
+import com.google.common.collect.Maps;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ConcurrentLongObjectMapTest {
+    @Test
+    public void shouldPutGetAndRemove() throws Exception {
+        ConcurrentLongObjectMap<String> uut = new ConcurrentLongObjectMap<String>();
+
+        assertThat(uut.put(10L, "ten"), is(nullValue()));
+        assertThat(uut.put(10L, "TEN"), is("ten"));
+        assertThat(uut.get(10L), is("TEN"));
+        assertThat(uut.get(0L), is(nullValue()));
+
+        assertThat(uut.remove(10L), is("TEN"));
+        assertThat(uut.remove(10L), is(nullValue()));
+        assertThat(uut.get(10L), is(nullValue()));
+        assertThat(uut.size(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToPutZero() throws Exception {
+        new ConcurrentLongObjectMap<String>().put(0L, "zero");
+    }
+
+    @Test
+    public void shouldMatchHashMapUnderChurn() throws Exception {
+        ConcurrentLongObjectMap<Long> uut = new ConcurrentLongObjectMap<Long>(1);
+        Map<Long, Long> expected = Maps.newHashMap();
+        Random random = new Random(17);
+
+        for (int i = 0; i < 100000; ++i) {
+            long key = 1 + random.nextInt(200);
+
+            if (random.nextBoolean()) {
+                assertThat(uut.put(key, (long) i), is(expected.put(key, (long) i)));
+            } else {
+                assertThat(uut.remove(key), is(expected.remove(key)));
+            }
+        }
+
+        assertThat(uut.size(), is(expected.size()));
+
+        for (long key = 1; key <= 200; ++key) {
+            assertThat(uut.get(key), is(expected.get(key)));
+        }
+    }
+
+    @Test
+    public void shouldOnlyReadValuesOfTheKeyWhileWriting() throws Exception {
+        final ConcurrentLongObjectMap<Long> uut = new ConcurrentLongObjectMap<Long>(1);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final CountDownLatch done = new CountDownLatch(2);
+        Runnable reader = new Runnable() {
+            @Override
+            public void run() {
+                Random random = new Random();
+
+                try {
+                    while (writing.get() && failure.get() == null) {
+                        long key = 1 + random.nextInt(500);
+                        Long value = uut.get(key);
+
+                        if (value != null && value != key) {
+                            failure.compareAndSet(null, "Read " + value + " for " + key);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        new Thread(reader).start();
+        new Thread(reader).start();
+        // each key only ever maps to itself, growing and shifting entries must never show another key's value
+        Random random = new Random(17);
+
+        for (int i = 0; i < 500000; ++i) {
+            long key = 1 + random.nextInt(500);
+
+            if (random.nextBoolean()) {
+                uut.put(key, key);
+            } else {
+                uut.remove(key);
+            }
+        }
+        writing.set(false);
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(failure.get(), is(nullValue()));
+    }
+}
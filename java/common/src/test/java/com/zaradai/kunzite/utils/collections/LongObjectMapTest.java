@@ -0,0 +1,126 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.utils.collections;
+
+import com.google.common.collect.Maps;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class LongObjectMapTest {
+    @Test
+    public void shouldPutAndGet() throws Exception {
+        LongObjectMap<String> uut = new LongObjectMap<String>();
+
+        assertThat(uut.put(10L, "ten"), is(nullValue()));
+        assertThat(uut.put(-3L, "minus three"), is(nullValue()));
+
+        assertThat(uut.get(10L), is("ten"));
+        assertThat(uut.get(-3L), is("minus three"));
+        assertThat(uut.get(11L), is(nullValue()));
+        assertThat(uut.size(), is(2));
+    }
+
+    @Test
+    public void shouldReplaceExisting() throws Exception {
+        LongObjectMap<String> uut = new LongObjectMap<String>();
+        uut.put(10L, "ten");
+
+        assertThat(uut.put(10L, "TEN"), is("ten"));
+
+        assertThat(uut.get(10L), is("TEN"));
+        assertThat(uut.size(), is(1));
+    }
+
+    @Test
+    public void shouldRemove() throws Exception {
+        LongObjectMap<String> uut = new LongObjectMap<String>();
+        uut.put(10L, "ten");
+
+        assertThat(uut.remove(10L), is("ten"));
+        assertThat(uut.remove(10L), is(nullValue()));
+
+        assertThat(uut.containsKey(10L), is(false));
+        assertThat(uut.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldGrow() throws Exception {
+        LongObjectMap<Long> uut = new LongObjectMap<Long>(1);
+
+        for (long i = 1; i <= 1000; ++i) {
+            uut.put(i, i);
+        }
+
+        assertThat(uut.size(), is(1000));
+
+        for (long i = 1; i <= 1000; ++i) {
+            assertThat(uut.get(i), is(i));
+        }
+    }
+
+    @Test
+    public void shouldClear() throws Exception {
+        LongObjectMap<String> uut = new LongObjectMap<String>();
+        uut.put(10L, "ten");
+
+        uut.clear();
+
+        assertThat(uut.isEmpty(), is(true));
+        assertThat(uut.get(10L), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotFindZero() throws Exception {
+        LongObjectMap<String> uut = new LongObjectMap<String>();
+
+        assertThat(uut.get(0L), is(nullValue()));
+        assertThat(uut.remove(0L), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToPutZero() throws Exception {
+        new LongObjectMap<String>().put(0L, "zero");
+    }
+
+    @Test
+    public void shouldMatchHashMapUnderChurn() throws Exception {
+        LongObjectMap<Long> uut = new LongObjectMap<Long>(4);
+        Map<Long, Long> expected = Maps.newHashMap();
+        Random random = new Random(17);
+        // a small key range forces collisions and removals from the middle of probe runs
+        for (int i = 0; i < 100000; ++i) {
+            long key = 1 + random.nextInt(200);
+
+            if (random.nextBoolean()) {
+                assertThat(uut.put(key, (long) i), is(expected.put(key, (long) i)));
+            } else {
+                assertThat(uut.remove(key), is(expected.remove(key)));
+            }
+        }
+
+        assertThat(uut.size(), is(expected.size()));
+
+        for (long key = 1; key <= 200; ++key) {
+            assertThat(uut.get(key), is(expected.get(key)));
+        }
+    }
+}
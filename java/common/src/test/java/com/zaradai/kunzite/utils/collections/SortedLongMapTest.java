@@ -0,0 +1,113 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.utils.collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SortedLongMapTest {
+    private SortedLongMap<String> uut;
+
+    @Before
+    public void setUp() throws Exception {
+        uut = new SortedLongMap<String>(2);
+    }
+
+    @Test
+    public void shouldPutAndGet() throws Exception {
+        uut.put(10L, "ten");
+        uut.put(-5L, "minus five");
+
+        assertThat(uut.get(10L), is("ten"));
+        assertThat(uut.get(-5L), is("minus five"));
+        assertThat(uut.get(7L), is(nullValue()));
+        assertThat(uut.containsKey(10L), is(true));
+        assertThat(uut.containsKey(7L), is(false));
+        assertThat(uut.size(), is(2));
+    }
+
+    @Test
+    public void shouldReplaceExistingValue() throws Exception {
+        uut.put(10L, "ten");
+
+        String previous = uut.put(10L, "TEN");
+
+        assertThat(previous, is("ten"));
+        assertThat(uut.get(10L), is("TEN"));
+        assertThat(uut.size(), is(1));
+    }
+
+    @Test
+    public void shouldKeepKeysSortedAsItGrows() throws Exception {
+        uut.put(30L, "30");
+        uut.put(10L, "10");
+        uut.put(50L, "50");
+        uut.put(20L, "20");
+        uut.put(40L, "40");
+
+        assertThat(uut.size(), is(5));
+        for (int i = 0; i < uut.size(); i++) {
+            assertThat(uut.keyAt(i), is((i + 1) * 10L));
+            assertThat(uut.valueAt(i), is(String.valueOf((i + 1) * 10)));
+        }
+    }
+
+    @Test
+    public void shouldRemove() throws Exception {
+        uut.put(10L, "10");
+        uut.put(20L, "20");
+        uut.put(30L, "30");
+
+        assertThat(uut.remove(20L), is("20"));
+        assertThat(uut.remove(20L), is(nullValue()));
+
+        assertThat(uut.size(), is(2));
+        assertThat(uut.keyAt(0), is(10L));
+        assertThat(uut.keyAt(1), is(30L));
+    }
+
+    @Test
+    public void shouldClear() throws Exception {
+        uut.put(10L, "10");
+        uut.put(20L, "20");
+
+        uut.clear();
+
+        assertThat(uut.isEmpty(), is(true));
+        assertThat(uut.get(10L), is(nullValue()));
+    }
+
+    @Test
+    public void shouldFindPositionOfKeys() throws Exception {
+        uut.put(10L, "10");
+        uut.put(30L, "30");
+
+        assertThat(uut.indexOf(30L), is(1));
+        assertThat(uut.indexOf(20L), is(-2));
+        assertThat(uut.indexOf(40L), is(-3));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldFailOutOfRangeIndex() throws Exception {
+        uut.put(10L, "10");
+
+        uut.keyAt(1);
+    }
+}
@@ -30,41 +30,59 @@ import com.zaradai.kunzite.trader.config.statics.StaticDataLoader;
 import com.zaradai.kunzite.trader.config.statics.digester.DigesterStaticDataLoader;
 import com.zaradai.kunzite.trader.control.*;
 import com.zaradai.kunzite.trader.filters.DefaultFilterManager;
+import com.zaradai.kunzite.trader.filters.DefaultFilterParameterManager;
 import com.zaradai.kunzite.trader.filters.FilterManager;
+import com.zaradai.kunzite.trader.filters.FilterParameterManager;
 import com.zaradai.kunzite.trader.instruments.*;
-import com.zaradai.kunzite.trader.marketdata.DefaultMarketBook;
-import com.zaradai.kunzite.trader.marketdata.MarketBook;
+import com.zaradai.kunzite.trader.marketdata.ArrayMarketBookFactory;
 import com.zaradai.kunzite.trader.marketdata.MarketBookFactory;
-import com.zaradai.kunzite.trader.orders.book.DefaultOrderBook;
+import com.zaradai.kunzite.trader.marketdata.MarketBookUpdater;
+import com.zaradai.kunzite.trader.marketdata.TableMarketBookUpdater;
 import com.zaradai.kunzite.trader.orders.book.OrderBook;
 import com.zaradai.kunzite.trader.orders.book.OrderBookFactory;
+import com.zaradai.kunzite.trader.orders.book.TickOrderBook;
 import com.zaradai.kunzite.trader.orders.execution.*;
-import com.zaradai.kunzite.trader.orders.utils.KunziteOrderIdGenerator;
 import com.zaradai.kunzite.trader.orders.utils.OrderIdGenerator;
+import com.zaradai.kunzite.trader.orders.utils.SessionOrderIdGenerator;
 import com.zaradai.kunzite.trader.positions.*;
+import com.zaradai.kunzite.trader.services.md.eod.EodReader;
+import com.zaradai.kunzite.trader.services.md.eod.EodReaderFactory;
+import com.zaradai.kunzite.trader.services.md.eod.compact.CompactEodEncoder;
+import com.zaradai.kunzite.trader.services.md.eod.compact.CompactEodReader;
+import com.zaradai.kunzite.trader.services.md.eod.compact.EodEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class TraderModule extends AbstractModule {
     private Logger logger;
     private EventBus eventBus;
-    private KunziteOrderIdGenerator orderIdGenerator;
+    private SessionOrderIdGenerator orderIdGenerator;
+    private final Class<? extends EventAggregator> eventAggregatorClass;
 
     public TraderModule() {
+        this(EventBusAggregator.class);
+    }
+
+    /**
+     * @param eventAggregatorClass aggregator used on the trader thread, e.g. TraderEventAggregator to dispatch through
+     *                             handler interfaces without reflection.
+     */
+    public TraderModule(Class<? extends EventAggregator> eventAggregatorClass) {
+        this.eventAggregatorClass = eventAggregatorClass;
         logger = LoggerFactory.getLogger("trader");
         eventBus = new EventBus("DefaultTraderService");
-        orderIdGenerator = KunziteOrderIdGenerator.newInstance();
+        orderIdGenerator = SessionOrderIdGenerator.newInstance();
     }
 
     @Override
     protected void configure() {
-        bind(Logger.class).toInstance(logger);
-        bind(ContextLogger.class).to(DisruptorLogger.class).in(Singleton.class);
+        bindLogging();
         bind(EventBus.class).toInstance(eventBus);
-        bind(EventAggregator.class).to(EventBusAggregator.class).in(Singleton.class);
+        bind(EventAggregator.class).to(eventAggregatorClass).in(Singleton.class);
         bind(StaticDataLoader.class).to(DigesterStaticDataLoader.class);
         bind(TradingManager.class).in(Singleton.class);
         bind(TradingBuilder.class);
+        bind(SymbolRegistry.class).in(Singleton.class);
         bind(AlgoFactory.class).to(InjectedAlgoFactory.class);
         bind(InstrumentFactory.class).to(DefaultInstrumentFactory.class);
 
@@ -74,7 +92,9 @@ public class TraderModule extends AbstractModule {
         bind(PortfolioResolver.class).to(TradingManager.class);
         bind(AlgoResolver.class).to(TradingManager.class);
 
-        bind(FilterManager.class).to(DefaultFilterManager.class);
+        // chains are cached per instrument and refreshed by the parameter manager, share a single instance of each
+        bind(FilterParameterManager.class).to(DefaultFilterParameterManager.class).in(Singleton.class);
+        bind(FilterManager.class).to(DefaultFilterManager.class).in(Singleton.class);
 
         bind(OrderIdGenerator.class).toInstance(orderIdGenerator);
         bind(PositionUpdater.class).to(DefaultPositionUpdater.class);
@@ -92,13 +112,20 @@ public class TraderModule extends AbstractModule {
         install(new FactoryModuleBuilder().build(MarketFactory.class));
         install(new FactoryModuleBuilder().build(PortfolioFactory.class));
 
-        install(new FactoryModuleBuilder().implement(MarketBook.class, DefaultMarketBook.class).build(MarketBookFactory.class));
+        bind(MarketBookFactory.class).to(ArrayMarketBookFactory.class);
+        bind(MarketBookUpdater.class).to(TableMarketBookUpdater.class);
         install(new FactoryModuleBuilder().implement(PositionBook.class, DefaultPositionBook.class).build(PositionBookFactory.class));
-        install(new FactoryModuleBuilder().implement(OrderBook.class, DefaultOrderBook.class).build(OrderBookFactory.class));
+        install(new FactoryModuleBuilder().implement(OrderBook.class, TickOrderBook.class).build(OrderBookFactory.class));
         install(new FactoryModuleBuilder().implement(OrderManager.class, DefaultOrderManager.class).build(OrderManagerFactory.class));
         install(new FactoryModuleBuilder().implement(OrderStateManager.class, DefaultOrderStateManager.class).build(OrderStateManagerFactory.class));
         install(new FactoryModuleBuilder().build(PositionFactory.class));
+        // replayed by the emulator channel
+        bind(EodEncoder.class).to(CompactEodEncoder.class);
+        install(new FactoryModuleBuilder().implement(EodReader.class, CompactEodReader.class).build(EodReaderFactory.class));
+    }
 
-
+    protected void bindLogging() {
+        bind(Logger.class).toInstance(logger);
+        bind(ContextLogger.class).to(DisruptorLogger.class).in(Singleton.class);
     }
 }
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A single run of the trading described by the static configuration over a tape.  Every run builds its own trading
+ * stack, only the tape is shared, so runs are independent of each other and can be made from any thread.
+ */
+public class Backtest implements Callable<BacktestResult> {
+    private final StaticConfiguration configuration;
+    private final BarTape tape;
+    private final List<Module> modules;
+
+    /**
+     * @param configuration trading to test
+     * @param tape bars to test over
+     * @param modules bindings the algos need over those of the backtest module
+     */
+    public Backtest(StaticConfiguration configuration, BarTape tape, Module... modules) {
+        this.configuration = configuration;
+        this.tape = tape;
+        this.modules = Arrays.asList(modules);
+    }
+
+    @Override
+    public BacktestResult call() throws BacktestException {
+        return Guice.createInjector(createModules()).getInstance(BacktestEngine.class).run(configuration, tape);
+    }
+
+    protected List<Module> createModules() {
+        List<Module> res = Lists.newArrayList();
+        res.add(new BacktestModule());
+        res.addAll(modules);
+
+        return res;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.inject.Inject;
+import com.zaradai.kunzite.events.EventAggregator;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+import com.zaradai.kunzite.trader.control.TradingException;
+import com.zaradai.kunzite.trader.control.TradingManager;
+import com.zaradai.kunzite.trader.control.TradingState;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.services.timer.SimulatedTimeBase;
+import com.zaradai.kunzite.trader.services.timer.TimerService;
+import com.zaradai.kunzite.trader.services.trader.TraderShard;
+
+import java.util.List;
+
+/**
+ * Drives a trading stack through a tape on the calling thread.  Each bar first works the orders resting from earlier
+ * bars, so the algos see their fills before the bar itself.  The bar reaches the instrument's trading state as its
+ * open, high and low with the close and volume as the last trade, the close also standing as the best bid and ask so
+ * algos working from the book have a price.  Time follows the bar dates, timers due by a bar's date fire before it.
+ */
+public class BacktestEngine {
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final ContextLogger logger;
+    private final TradingManager tradingManager;
+    private final EventAggregator eventAggregator;
+    private final SimulatedFillGateway gateway;
+    private final SimulatedTimeBase timeBase;
+    private final TimerService timerService;
+    private final PerformanceRecorder recorder;
+    private final MarketDataRecord record;
+
+    @Inject
+    BacktestEngine(ContextLogger logger, TradingManager tradingManager, EventAggregator eventAggregator,
+                   SimulatedFillGateway gateway, SimulatedTimeBase timeBase, TimerService timerService,
+                   PerformanceRecorder recorder) {
+        this.logger = logger;
+        this.tradingManager = tradingManager;
+        this.eventAggregator = eventAggregator;
+        this.gateway = gateway;
+        this.timeBase = timeBase;
+        this.timerService = timerService;
+        this.recorder = recorder;
+        record = MarketDataRecord.newInstance();
+    }
+
+    public BacktestResult run(StaticConfiguration configuration, BarTape tape) throws BacktestException {
+        // this thread handles every event of the run, acting as the only trader shard
+        TraderShard.enter(0);
+
+        try {
+            build(configuration);
+            timerService.startAsync().awaitRunning();
+
+            try {
+                return replay(tape);
+            } finally {
+                timerService.stopAsync().awaitTerminated();
+            }
+        } finally {
+            TraderShard.leave();
+        }
+    }
+
+    private BacktestResult replay(BarTape tape) {
+        TradingState[] states = resolveStates(tape);
+        long date = NO_DATE;
+        long bars = 0;
+
+        for (int bar = 0; bar < tape.size(); ++bar) {
+            TradingState state = states[tape.getSymbolIndex(bar)];
+
+            if (state == null) {
+                continue;
+            }
+
+            long barDate = tape.getDateMillis(bar);
+
+            if (barDate != date) {
+                if (date != NO_DATE) {
+                    recorder.sample(date);
+                }
+                date = barDate;
+                timeBase.advanceTo(barDate);
+            }
+            publish(state, tape, bar);
+            bars++;
+        }
+        if (date != NO_DATE) {
+            recorder.sample(date);
+        }
+
+        return recorder.getResult(bars, gateway.getFillCount());
+    }
+
+    private void publish(TradingState state, BarTape tape, int bar) {
+        int index = state.getInstrument().getIndex();
+
+        gateway.onBar(index, tape.getOpen(bar), tape.getHigh(bar), tape.getLow(bar));
+        gateway.flush();
+
+        record.clear();
+        record.setInstrument(state.getInstrument().getId(), index)
+                .setTimestampNanos(tape.getDateMillis(bar) * NANOS_PER_MILLI)
+                .addDoubleValue(MarketDataFieldType.OPEN, tape.getOpen(bar))
+                .addDoubleValue(MarketDataFieldType.HIGH, tape.getHigh(bar))
+                .addDoubleValue(MarketDataFieldType.LOW, tape.getLow(bar))
+                .addDoubleValue(MarketDataFieldType.TRADE_PRICE, tape.getClose(bar))
+                .addLongValue(MarketDataFieldType.TRADE_SIZE, tape.getVolume(bar))
+                .addDoubleValue(MarketDataFieldType.BEST_BID, tape.getClose(bar))
+                .addDoubleValue(MarketDataFieldType.BEST_ASK, tape.getClose(bar));
+        state.onMarketData(record);
+
+        recorder.mark(index, tape.getClose(bar));
+        // acknowledge whatever the bar prompted
+        gateway.flush();
+    }
+
+    private void build(StaticConfiguration configuration) throws BacktestException {
+        try {
+            tradingManager.build(configuration);
+            tradingManager.initialize();
+        } catch (ConfigException e) {
+            throw new BacktestException("Unable to build trading", e);
+        } catch (TradingException e) {
+            throw new BacktestException("Unable to initialize trading", e);
+        }
+        eventAggregator.subscribe(gateway);
+    }
+
+    /**
+     * Trading state of each symbol on the tape, symbols not traded are skipped.
+     */
+    private TradingState[] resolveStates(BarTape tape) {
+        List<String> symbols = tape.getSymbols();
+        TradingState[] res = new TradingState[symbols.size()];
+
+        for (int i = 0; i < res.length; ++i) {
+            res[i] = tradingManager.resolveTradingState(symbols.get(i));
+
+            if (res[i] == null) {
+                LogHelper.warn(logger)
+                        .addContext("Backtest")
+                        .addReason("No trading state for symbol")
+                        .add("Symbol", symbols.get(i))
+                        .log();
+            }
+        }
+
+        return res;
+    }
+}
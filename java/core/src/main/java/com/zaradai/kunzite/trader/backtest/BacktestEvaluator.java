@@ -0,0 +1,120 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import com.zaradai.kunzite.optimizer.eval.Evaluator;
+import com.zaradai.kunzite.optimizer.model.InputRow;
+import com.zaradai.kunzite.optimizer.model.InputRowSchema;
+import com.zaradai.kunzite.optimizer.model.OutputRow;
+import com.zaradai.kunzite.optimizer.model.OutputRowSchema;
+import com.zaradai.kunzite.optimizer.model.Row;
+import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Evaluates a row of algo parameters by backtesting the configured trading over a tape, for the optimizer to
+ * search.  The tape is read once by the subclass and shared read-only by every evaluation, each of which runs in
+ * its own injector so the calc engine can evaluate rows in parallel.
+ * Each input is bound as a constant named after its column, for the algos to inject with {@code @Named}.
+ */
+public abstract class BacktestEvaluator implements Evaluator {
+    public static final String PNL = "pnl";
+    public static final String SHARPE = "sharpe";
+    public static final String MAX_DRAWDOWN = "maxDrawdown";
+    private static final List<String> OUTPUT_KEYS = ImmutableList.of(PNL, SHARPE, MAX_DRAWDOWN);
+    private static final OutputRowSchema OUTPUT_SCHEMA = OutputRowSchema.newBuilder()
+            .withName(PNL)
+            .withName(SHARPE)
+            .withName(MAX_DRAWDOWN)
+            .build();
+
+    private final StaticConfiguration configuration;
+    private final BarTape tape;
+
+    protected BacktestEvaluator(StaticConfiguration configuration, BarTape tape) {
+        this.configuration = checkNotNull(configuration, "Invalid configuration");
+        this.tape = checkNotNull(tape, "Invalid tape");
+    }
+
+    @Override
+    public List<String> getOutputKeys() {
+        return OUTPUT_KEYS;
+    }
+
+    @Override
+    public OutputRowSchema getOutputSchema() {
+        return OUTPUT_SCHEMA;
+    }
+
+    @Override
+    public Row evaluate(InputRow inputRow) {
+        BacktestResult result;
+
+        try {
+            result = createBacktest(inputRow).call();
+        } catch (BacktestException e) {
+            throw new IllegalStateException("Unable to backtest " + inputRow, e);
+        }
+
+        return Row.newInstance(inputRow, createOutput(result.getTotal()));
+    }
+
+    protected Backtest createBacktest(InputRow inputRow) {
+        return new Backtest(configuration, tape, createParameters(inputRow));
+    }
+
+    /**
+     * Bindings the algos take the row's parameters from, named after their column.  Inputs are bound as doubles, whole
+     * values are bound as longs too so counts such as quantities can be taken as they are.
+     * @param inputRow
+     * @return
+     */
+    protected Module createParameters(final InputRow inputRow) {
+        return new AbstractModule() {
+            @Override
+            protected void configure() {
+                InputRowSchema schema = inputRow.getSchema();
+
+                for (int i = 0; i < inputRow.getNumColumns(); ++i) {
+                    Named name = Names.named(schema.getName(i));
+                    double value = inputRow.getInputValue(i);
+                    bindConstant().annotatedWith(name).to(value);
+
+                    if (value == Math.rint(value) && !Double.isInfinite(value)) {
+                        bindConstant().annotatedWith(name).to((long) value);
+                    }
+                }
+            }
+        };
+    }
+
+    private OutputRow createOutput(PnlSeries series) {
+        OutputRow res = OutputRow.fromSchema(OUTPUT_SCHEMA);
+        res.setValue(PNL, series.getFinalPnl());
+        res.setValue(SHARPE, series.getSharpeRatio());
+        res.setValue(MAX_DRAWDOWN, series.getMaxDrawdown());
+
+        return res;
+    }
+}
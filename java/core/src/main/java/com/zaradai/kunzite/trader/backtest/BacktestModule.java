@@ -0,0 +1,74 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.inject.Singleton;
+import com.zaradai.kunzite.config.ConfigurationSource;
+import com.zaradai.kunzite.config.InMemoryConfigurationSource;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.simple.DefaultContextLogger;
+import com.zaradai.kunzite.trader.TraderModule;
+import com.zaradai.kunzite.trader.config.SourcedTraderConfiguration;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
+import com.zaradai.kunzite.trader.services.timer.DefaultTimerEngine;
+import com.zaradai.kunzite.trader.services.timer.SimulatedTimeBase;
+import com.zaradai.kunzite.trader.services.timer.SimulatedTimerService;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
+import com.zaradai.kunzite.trader.services.timer.TimerEngine;
+import com.zaradai.kunzite.trader.services.timer.TimerService;
+import com.zaradai.kunzite.trader.services.trader.ShardEventSink;
+import com.zaradai.kunzite.trader.services.trader.TraderEventAggregator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The trading stack of a single backtest, events are dispatched on the calling thread and orders go to the simulated
+ * fill gateway.  Timers run on the simulated clock, expiring as the tape moves on and dispatched on the same thread.
+ * Each backtest gets its own injector so any number can run side by side, the trader settings are left at their
+ * defaults.
+ */
+public class BacktestModule extends TraderModule {
+    public BacktestModule() {
+        super(TraderEventAggregator.class);
+    }
+
+    @Override
+    protected void configure() {
+        super.configure();
+
+        bind(SimulatedTimeBase.class).in(Singleton.class);
+        bind(TimeBase.class).to(SimulatedTimeBase.class);
+        bind(ConfigurationSource.class).to(InMemoryConfigurationSource.class).in(Singleton.class);
+        bind(TraderConfiguration.class).to(SourcedTraderConfiguration.class);
+        bind(ShardEventSink.class).to(InlineShardEventSink.class);
+        bind(TimerService.class).to(SimulatedTimerService.class).in(Singleton.class);
+        bind(TimerEngine.class).to(DefaultTimerEngine.class).in(Singleton.class);
+        bind(PerformanceRecorder.class).in(Singleton.class);
+        bind(FillListener.class).to(PerformanceRecorder.class);
+        bind(SimulatedFillGateway.class).in(Singleton.class);
+        bind(OrderGatewayService.class).to(SimulatedFillGateway.class);
+    }
+
+    /**
+     * Logged straight through, a logging thread per backtest would soon add up.
+     */
+    @Override
+    protected void bindLogging() {
+        bind(Logger.class).toInstance(LoggerFactory.getLogger("backtest"));
+        bind(ContextLogger.class).to(DefaultContextLogger.class).in(Singleton.class);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import java.util.Map;
+
+/**
+ * Outcome of a single backtest, the P&L and position series of each algo and portfolio that traded as well as those
+ * of everything taken together.  The total is sampled every date from the first bar.
+ */
+public class BacktestResult {
+    private final Map<String, PnlSeries> seriesByAlgo;
+    private final Map<String, PnlSeries> seriesByPortfolio;
+    private final PnlSeries total;
+    private final long bars;
+    private final long fills;
+
+    BacktestResult(Map<String, PnlSeries> seriesByAlgo, Map<String, PnlSeries> seriesByPortfolio, PnlSeries total,
+                   long bars, long fills) {
+        this.seriesByAlgo = seriesByAlgo;
+        this.seriesByPortfolio = seriesByPortfolio;
+        this.total = total;
+        this.bars = bars;
+        this.fills = fills;
+    }
+
+    public Map<String, PnlSeries> getAlgoSeries() {
+        return seriesByAlgo;
+    }
+
+    public Map<String, PnlSeries> getPortfolioSeries() {
+        return seriesByPortfolio;
+    }
+
+    public PnlSeries getTotal() {
+        return total;
+    }
+
+    public long getBars() {
+        return bars;
+    }
+
+    public long getFills() {
+        return fills;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs independent backtests side by side, one per thread, by default as many as there are cores.
+ */
+public class BacktestRunner {
+    private final int threads;
+
+    public BacktestRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BacktestRunner(int threads) {
+        checkArgument(threads > 0, "Invalid thread count");
+        this.threads = threads;
+    }
+
+    protected ExecutorService createExecutor() {
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Run the backtests and wait for them all to finish.
+     * @param backtests
+     * @return results in the order of the backtests
+     * @throws BacktestException if any backtest fails or the wait is interrupted
+     */
+    public List<BacktestResult> run(Collection<Backtest> backtests) throws BacktestException {
+        ExecutorService executor = createExecutor();
+
+        try {
+            List<BacktestResult> res = Lists.newArrayListWithCapacity(backtests.size());
+
+            for (Future<BacktestResult> future : executor.invokeAll(backtests)) {
+                res.add(future.get());
+            }
+
+            return res;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BacktestException("Interrupted running backtests", e);
+        } catch (ExecutionException e) {
+            throw new BacktestException("Backtest failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.ImmutableList;
+import com.zaradai.kunzite.trader.services.md.eod.EodData;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bars of many symbols merged into date order and held column wise in primitive arrays, about 50 bytes a bar.
+ * A tape is never changed once built so it can be shared read-only by any number of backtests running at once.
+ */
+public final class BarTape {
+    private final List<String> symbols;
+    private final int size;
+    private final int[] symbolIndex;
+    private final long[] dateMillis;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] volume;
+
+    private BarTape(Builder builder) {
+        symbols = ImmutableList.copyOf(builder.symbols);
+        size = builder.size;
+        symbolIndex = Arrays.copyOf(builder.symbolIndex, size);
+        dateMillis = Arrays.copyOf(builder.dateMillis, size);
+        open = Arrays.copyOf(builder.open, size);
+        high = Arrays.copyOf(builder.high, size);
+        low = Arrays.copyOf(builder.low, size);
+        close = Arrays.copyOf(builder.close, size);
+        volume = Arrays.copyOf(builder.volume, size);
+    }
+
+    public static Builder builder(List<String> symbols) {
+        return new Builder(symbols);
+    }
+
+    public List<String> getSymbols() {
+        return symbols;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Index into getSymbols() of the symbol the bar is for.
+     */
+    public int getSymbolIndex(int bar) {
+        return symbolIndex[bar];
+    }
+
+    public long getDateMillis(int bar) {
+        return dateMillis[bar];
+    }
+
+    public double getOpen(int bar) {
+        return open[bar];
+    }
+
+    public double getHigh(int bar) {
+        return high[bar];
+    }
+
+    public double getLow(int bar) {
+        return low[bar];
+    }
+
+    public double getClose(int bar) {
+        return close[bar];
+    }
+
+    public long getVolume(int bar) {
+        return volume[bar];
+    }
+
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final List<String> symbols;
+        private int size;
+        private int[] symbolIndex;
+        private long[] dateMillis;
+        private double[] open;
+        private double[] high;
+        private double[] low;
+        private double[] close;
+        private long[] volume;
+
+        private Builder(List<String> symbols) {
+            this.symbols = symbols;
+            symbolIndex = new int[INITIAL_CAPACITY];
+            dateMillis = new long[INITIAL_CAPACITY];
+            open = new double[INITIAL_CAPACITY];
+            high = new double[INITIAL_CAPACITY];
+            low = new double[INITIAL_CAPACITY];
+            close = new double[INITIAL_CAPACITY];
+            volume = new long[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Append the next bar, bars must be added in date order.
+         * @param symbol index into the symbols the tape was started with
+         * @param bar
+         * @return
+         */
+        public Builder add(int symbol, EodData bar) {
+            checkArgument(symbol >= 0 && symbol < symbols.size(), "Invalid symbol");
+            long date = bar.getDate().getMillis();
+            checkArgument(size == 0 || date >= dateMillis[size - 1], "Bars must be in date order");
+
+            if (size == symbolIndex.length) {
+                grow();
+            }
+            symbolIndex[size] = symbol;
+            dateMillis[size] = date;
+            open[size] = bar.getOpen();
+            high[size] = bar.getHigh();
+            low[size] = bar.getLow();
+            close[size] = bar.getClose();
+            volume[size] = bar.getVolume();
+            size++;
+
+            return this;
+        }
+
+        private void grow() {
+            int capacity = symbolIndex.length * 2;
+            symbolIndex = Arrays.copyOf(symbolIndex, capacity);
+            dateMillis = Arrays.copyOf(dateMillis, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            volume = Arrays.copyOf(volume, capacity);
+        }
+
+        public BarTape build() {
+            return new BarTape(this);
+        }
+    }
+}
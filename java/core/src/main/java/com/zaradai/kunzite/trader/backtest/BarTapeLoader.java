@@ -0,0 +1,128 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.services.md.eod.EodData;
+import com.zaradai.kunzite.trader.services.md.eod.EodIOException;
+import com.zaradai.kunzite.trader.services.md.eod.EodMerger;
+import com.zaradai.kunzite.trader.services.md.eod.EodReader;
+import com.zaradai.kunzite.trader.services.md.eod.EodReaderFactory;
+import org.joda.time.DateTime;
+
+import java.util.List;
+
+/**
+ * Reads the EOD files of the symbols once, merging them into a single tape in date order.  Symbols without a file
+ * are logged and left out of the tape.
+ */
+public class BarTapeLoader {
+    private final ContextLogger logger;
+    private final EodReaderFactory readerFactory;
+
+    @Inject
+    BarTapeLoader(ContextLogger logger, EodReaderFactory readerFactory) {
+        this.logger = logger;
+        this.readerFactory = readerFactory;
+    }
+
+    public BarTape load(String folder, Iterable<String> symbols) {
+        return load(folder, symbols, null, null);
+    }
+
+    /**
+     * Load the bars of the symbols dated within the given range.
+     * @param folder
+     * @param symbols
+     * @param from first date included, null to start from the first bar
+     * @param to last date included, null to run to the last bar
+     * @return
+     */
+    public BarTape load(String folder, Iterable<String> symbols, DateTime from, DateTime to) {
+        List<EodReader> readers = Lists.newArrayList();
+        List<String> opened = Lists.newArrayList();
+
+        try {
+            for (String symbol : symbols) {
+                EodReader reader = open(folder, symbol);
+
+                if (reader != null) {
+                    readers.add(reader);
+                    opened.add(symbol);
+                }
+            }
+
+            return read(new EodMerger(readers), ImmutableList.copyOf(opened), from, to);
+        } finally {
+            close(readers);
+        }
+    }
+
+    private BarTape read(EodMerger merger, List<String> symbols, DateTime from, DateTime to) {
+        BarTape.Builder builder = BarTape.builder(symbols);
+
+        for (int symbol = merger.peekReader(); symbol != -1; symbol = merger.peekReader()) {
+            EodData bar = merger.next();
+
+            if (from != null && bar.getDate().isBefore(from)) {
+                continue;
+            }
+            if (to != null && bar.getDate().isAfter(to)) {
+                // merged in date order so nothing after this is wanted either
+                break;
+            }
+            builder.add(symbol, bar);
+        }
+
+        return builder.build();
+    }
+
+    private EodReader open(String folder, String symbol) {
+        EodReader res = readerFactory.create(folder);
+
+        try {
+            res.open(symbol);
+
+            return res;
+        } catch (EodIOException e) {
+            LogHelper.warn(logger)
+                    .addContext("Bar Tape Loader")
+                    .addReason("Unable to open EOD file")
+                    .add("Folder", folder)
+                    .add("Symbol", symbol)
+                    .log();
+        }
+
+        return null;
+    }
+
+    private void close(List<EodReader> readers) {
+        for (EodReader reader : readers) {
+            try {
+                reader.close();
+            } catch (Exception e) {
+                LogHelper.warn(logger)
+                        .addContext("Bar Tape Loader")
+                        .addReason("Unable to close EOD file")
+                        .log();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+
+public interface FillListener {
+    /**
+     * @param refData order filled, only valid for the duration of the call
+     * @param quantity signed, negative for sells
+     * @param price
+     * @param timestampMillis
+     */
+    void onFill(OrderRefData refData, long quantity, double price, long timestampMillis);
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.inject.Inject;
+import com.zaradai.kunzite.events.EventAggregator;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerEventBatch;
+import com.zaradai.kunzite.trader.services.trader.ShardEventSink;
+
+/**
+ * A backtest has the one thread, events for any shard are dispatched on it as they arrive.
+ */
+class InlineShardEventSink implements ShardEventSink {
+    private final EventAggregator eventAggregator;
+
+    @Inject
+    InlineShardEventSink(EventAggregator eventAggregator) {
+        this.eventAggregator = eventAggregator;
+    }
+
+    @Override
+    public void onShardEvent(int shard, Object event) {
+        if (event instanceof TimerEventBatch) {
+            TimerEventBatch batch = (TimerEventBatch) event;
+
+            for (int i = 0; i < batch.size(); ++i) {
+                eventAggregator.publish(batch.get(i));
+            }
+            batch.recycle();
+        } else {
+            eventAggregator.publish(event);
+            // pooled timeouts are only valid for the duration of the dispatch
+            if (event instanceof TimerEvent) {
+                ((TimerEvent) event).recycle();
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Keeps a ledger of cash and position per instrument for every algo and portfolio that trades, marking the positions
+ * to the last close to sample their P&L each date.  Algos are known by the algo id of their orders, orders without
+ * one only count towards their portfolio.  Instruments without a multiplier count as 1.
+ */
+public class PerformanceRecorder implements FillListener {
+    private static final int INITIAL_INSTRUMENTS = 64;
+
+    private final InstrumentResolver instrumentResolver;
+    private final Map<String, Ledger> ledgerByAlgo;
+    private final Map<String, Ledger> ledgerByPortfolio;
+    private final Ledger total;
+    private double[] marks;
+    private double[] multipliers;
+
+    @Inject
+    PerformanceRecorder(InstrumentResolver instrumentResolver) {
+        this.instrumentResolver = instrumentResolver;
+        ledgerByAlgo = Maps.newTreeMap();
+        ledgerByPortfolio = Maps.newTreeMap();
+        total = new Ledger();
+        marks = new double[INITIAL_INSTRUMENTS];
+        multipliers = new double[INITIAL_INSTRUMENTS];
+    }
+
+    @Override
+    public void onFill(OrderRefData refData, long quantity, double price, long timestampMillis) {
+        int index = refData.getInstrumentIndex();
+        ensureInstrument(index);
+
+        if (multipliers[index] == 0.0) {
+            multipliers[index] = getMultiplier(index);
+        }
+
+        if (refData.getAlgoId() != null) {
+            getLedger(ledgerByAlgo, refData.getAlgoId()).trade(index, quantity, price);
+        }
+        if (refData.getPortfolioId() != null) {
+            getLedger(ledgerByPortfolio, refData.getPortfolioId()).trade(index, quantity, price);
+        }
+        total.trade(index, quantity, price);
+    }
+
+    /**
+     * Price positions in the instrument are valued at from now on, normally its last close.
+     * @param instrumentIndex
+     * @param price
+     */
+    public void mark(int instrumentIndex, double price) {
+        ensureInstrument(instrumentIndex);
+        marks[instrumentIndex] = price;
+    }
+
+    /**
+     * Record the value of every ledger at the end of the date.
+     * @param dateMillis
+     */
+    public void sample(long dateMillis) {
+        for (Ledger ledger : ledgerByAlgo.values()) {
+            ledger.sample(dateMillis);
+        }
+        for (Ledger ledger : ledgerByPortfolio.values()) {
+            ledger.sample(dateMillis);
+        }
+        total.sample(dateMillis);
+    }
+
+    public BacktestResult getResult(long bars, long fills) {
+        return new BacktestResult(seriesOf(ledgerByAlgo), seriesOf(ledgerByPortfolio), total.series, bars, fills);
+    }
+
+    private Map<String, PnlSeries> seriesOf(Map<String, Ledger> ledgers) {
+        Map<String, PnlSeries> res = Maps.newTreeMap();
+
+        for (Map.Entry<String, Ledger> entry : ledgers.entrySet()) {
+            res.put(entry.getKey(), entry.getValue().series);
+        }
+
+        return res;
+    }
+
+    private Ledger getLedger(Map<String, Ledger> ledgers, String id) {
+        Ledger res = ledgers.get(id);
+
+        if (res == null) {
+            res = new Ledger();
+            ledgers.put(id, res);
+        }
+
+        return res;
+    }
+
+    private double getMultiplier(int instrumentIndex) {
+        Instrument instrument = instrumentResolver.resolveInstrument(instrumentIndex);
+
+        return (instrument != null && instrument.getMultiplier() > 0.0) ? instrument.getMultiplier() : 1.0;
+    }
+
+    private void ensureInstrument(int instrumentIndex) {
+        if (instrumentIndex >= marks.length) {
+            int capacity = Math.max(instrumentIndex + 1, marks.length * 2);
+            marks = Arrays.copyOf(marks, capacity);
+            multipliers = Arrays.copyOf(multipliers, capacity);
+        }
+    }
+
+    /**
+     * Cash and positions of one algo or portfolio, only the instruments it has traded are valued.
+     */
+    private final class Ledger {
+        private final PnlSeries series = new PnlSeries();
+        private long[] positions = new long[INITIAL_INSTRUMENTS];
+        private boolean[] held = new boolean[INITIAL_INSTRUMENTS];
+        private int[] traded = new int[INITIAL_INSTRUMENTS];
+        private int tradedCount;
+        private double cash;
+
+        private void trade(int index, long quantity, double price) {
+            if (index >= positions.length) {
+                int capacity = Math.max(index + 1, positions.length * 2);
+                positions = Arrays.copyOf(positions, capacity);
+                held = Arrays.copyOf(held, capacity);
+            }
+            if (!held[index]) {
+                held[index] = true;
+                if (tradedCount == traded.length) {
+                    traded = Arrays.copyOf(traded, tradedCount * 2);
+                }
+                traded[tradedCount++] = index;
+            }
+            positions[index] += quantity;
+            cash -= quantity * price * multipliers[index];
+        }
+
+        private void sample(long dateMillis) {
+            double value = cash;
+            long net = 0;
+
+            for (int i = 0; i < tradedCount; ++i) {
+                int index = traded[i];
+                value += positions[index] * marks[index] * multipliers[index];
+                net += positions[index];
+            }
+            series.add(dateMillis, value, net);
+        }
+    }
+}
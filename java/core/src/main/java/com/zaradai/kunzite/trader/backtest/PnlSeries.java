@@ -0,0 +1,114 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import java.util.Arrays;
+
+/**
+ * Daily P&L and net position, sampled at the close of each date once the owner has traded.  P&L is cumulative,
+ * realised and unrealised, in the currency of the instruments.
+ */
+public final class PnlSeries {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final double TRADING_DAYS = 252.0;
+
+    private long[] dateMillis;
+    private double[] pnl;
+    private long[] position;
+    private int size;
+
+    PnlSeries() {
+        dateMillis = new long[INITIAL_CAPACITY];
+        pnl = new double[INITIAL_CAPACITY];
+        position = new long[INITIAL_CAPACITY];
+    }
+
+    void add(long date, double value, long net) {
+        if (size == dateMillis.length) {
+            int capacity = size * 2;
+            dateMillis = Arrays.copyOf(dateMillis, capacity);
+            pnl = Arrays.copyOf(pnl, capacity);
+            position = Arrays.copyOf(position, capacity);
+        }
+        dateMillis[size] = date;
+        pnl[size] = value;
+        position[size] = net;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getDateMillis(int index) {
+        return dateMillis[index];
+    }
+
+    public double getPnl(int index) {
+        return pnl[index];
+    }
+
+    public long getPosition(int index) {
+        return position[index];
+    }
+
+    /**
+     * @return P&L at the end of the series, 0 if it is empty.
+     */
+    public double getFinalPnl() {
+        return (size > 0) ? pnl[size - 1] : 0.0;
+    }
+
+    /**
+     * Annualised Sharpe ratio of the daily changes in P&L, taken against a zero risk free rate.  As there is no
+     * capital base the changes stand in for returns, so it ranks runs over the same tape rather than strategies.
+     * @return ratio, 0 if the P&L never changes.
+     */
+    public double getSharpeRatio() {
+        if (size == 0) {
+            return 0.0;
+        }
+
+        // changes sum to the final P&L
+        double mean = pnl[size - 1] / size;
+        double variance = 0.0;
+        double last = 0.0;
+
+        for (int i = 0; i < size; ++i) {
+            double deviation = pnl[i] - last - mean;
+            variance += deviation * deviation;
+            last = pnl[i];
+        }
+        variance /= size;
+
+        return (variance > 0.0) ? mean / Math.sqrt(variance) * Math.sqrt(TRADING_DAYS) : 0.0;
+    }
+
+    /**
+     * @return largest fall in P&L from a previous high, starting from flat, as a positive amount.
+     */
+    public double getMaxDrawdown() {
+        double peak = 0.0;
+        double res = 0.0;
+
+        for (int i = 0; i < size; ++i) {
+            peak = Math.max(peak, pnl[i]);
+            res = Math.max(res, peak - pnl[i]);
+        }
+
+        return res;
+    }
+}
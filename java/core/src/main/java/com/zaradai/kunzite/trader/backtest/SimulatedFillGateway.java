@@ -0,0 +1,298 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.events.EventAggregator;
+import com.zaradai.kunzite.trader.config.orders.OrderGatewayConfiguration;
+import com.zaradai.kunzite.trader.events.OrderSendEvent;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.OrderStatusEventPool;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
+import com.zaradai.kunzite.utils.collections.LongObjectMap;
+
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Stands in for the order gateways during a backtest, working orders against the bars that follow them.  An order
+ * can only trade on a bar after the one it was sent on, so the algos never see a price before trading on it:
+ * market orders fill at the open, limit and stop orders at their price or at the open if it gaps through.  Orders
+ * fill in full, anything but good till cancel expires if the bar it first meets does not fill it.
+ * Statuses are held until flushed so they reach the trader after the event that caused them rather than within it.
+ * Single threaded, driven by the backtest.
+ */
+public class SimulatedFillGateway extends AbstractIdleService implements OrderGatewayService {
+    static final String EXCHANGE_ID = "backtest";
+
+    private final EventAggregator eventAggregator;
+    private final TimeBase timeBase;
+    private final FillListener fillListener;
+    private final OrderStatusEventPool statusEventPool;
+    private final LongObjectMap<NewOrder> workingById;
+    private final List<List<NewOrder>> workingByInstrument;
+    private final Queue<OrderStatusEvent> statuses;
+    private long fills;
+
+    @Inject
+    SimulatedFillGateway(EventAggregator eventAggregator, TimeBase timeBase, FillListener fillListener) {
+        this.eventAggregator = eventAggregator;
+        this.timeBase = timeBase;
+        this.fillListener = fillListener;
+        statusEventPool = createStatusEventPool();
+        workingById = new LongObjectMap<NewOrder>();
+        workingByInstrument = Lists.newArrayList();
+        statuses = Queues.newArrayDeque();
+    }
+
+    protected OrderStatusEventPool createStatusEventPool() {
+        return new OrderStatusEventPool();
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+        //NOP
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+        //NOP
+    }
+
+    @Override
+    public void build(OrderGatewayConfiguration configuration) {
+        // every market trades here
+    }
+
+    @Override
+    public void onOrderSend(OrderSendEvent event) {
+        for (NewOrder order : event.getOrders()) {
+            switch (order.getRequestType()) {
+                case Create:
+                    create(order);
+                    break;
+                case Amend:
+                    amend(order);
+                    break;
+                case Cancel:
+                    cancel(order);
+                    break;
+            }
+        }
+        event.recycle();
+    }
+
+    @Override
+    public void onOrderStatus(OrderStatusEvent event) {
+        statuses.add(event);
+    }
+
+    public int getWorkingCount() {
+        return workingById.size();
+    }
+
+    public long getFillCount() {
+        return fills;
+    }
+
+    /**
+     * Deliver the pending statuses to the trader, including any raised by orders sent in response to them.
+     */
+    public void flush() {
+        OrderStatusEvent event;
+
+        while ((event = statuses.poll()) != null) {
+            eventAggregator.publish(event);
+            event.recycle();
+        }
+    }
+
+    /**
+     * Work the orders for the instrument against its next bar.
+     * @param instrumentIndex
+     * @param open
+     * @param high
+     * @param low
+     */
+    public void onBar(int instrumentIndex, double open, double high, double low) {
+        List<NewOrder> working = getWorking(instrumentIndex);
+
+        if (working == null || working.isEmpty()) {
+            return;
+        }
+
+        int kept = 0;
+
+        for (int i = 0; i < working.size(); ++i) {
+            NewOrder order = working.get(i);
+            double price = getFillPrice(order, open, high, low);
+
+            if (!Double.isNaN(price)) {
+                fill(order, price);
+            } else if (order.getTimeInForce() != OrderTimeInForce.GoodTillCancel) {
+                done(order, OrderStatus.Expired);
+            } else {
+                working.set(kept++, order);
+            }
+        }
+        // drop what has finished, the rest keep their order
+        while (working.size() > kept) {
+            working.remove(working.size() - 1);
+        }
+    }
+
+    private double getFillPrice(NewOrder order, double open, double high, double low) {
+        boolean buy = isBuy(order);
+        double price = order.getPrice();
+
+        switch (order.getType()) {
+            case Market:
+                return open;
+            case Limit:
+                if (buy) {
+                    return (low <= price) ? Math.min(open, price) : Double.NaN;
+                }
+                return (high >= price) ? Math.max(open, price) : Double.NaN;
+            case Stop:
+                if (buy) {
+                    return (high >= price) ? Math.max(open, price) : Double.NaN;
+                }
+                return (low <= price) ? Math.min(open, price) : Double.NaN;
+            default:
+                return Double.NaN;
+        }
+    }
+
+    private void fill(NewOrder order, double price) {
+        long quantity = order.getQuantity();
+        fills++;
+        fillListener.onFill(order.getRefData(), isBuy(order) ? quantity : -quantity, price, timeBase.now());
+
+        OrderStatusEvent event = acquireEvent(order.getRefData(), OrderStatus.Filled);
+        event.setExecQty(quantity);
+        event.setLastPx(price);
+        statuses.add(event);
+
+        workingById.remove(order.getRefData().getNumericOrderId());
+        order.recycle();
+    }
+
+    private void done(NewOrder order, OrderStatus status) {
+        report(order.getRefData(), status);
+        workingById.remove(order.getRefData().getNumericOrderId());
+        order.recycle();
+    }
+
+    private void create(NewOrder order) {
+        OrderRefData refData = order.getRefData();
+
+        if (!refData.hasNumericOrderId() || order.getQuantity() <= 0 || !isSupported(order.getType()) ||
+                workingById.containsKey(refData.getNumericOrderId())) {
+            report(refData, OrderStatus.Rejected);
+            order.recycle();
+            return;
+        }
+
+        report(refData, OrderStatus.New);
+        workingById.put(refData.getNumericOrderId(), order);
+        getOrCreateWorking(refData.getInstrumentIndex()).add(order);
+    }
+
+    /**
+     * The working order takes on the amended terms and keeps its place, it has not traded as orders fill in full.
+     */
+    private void amend(NewOrder order) {
+        NewOrder working = getWorkingOrder(order.getRefData());
+
+        if (working == null || order.getQuantity() <= 0 || !isSupported(order.getType())) {
+            report(order.getRefData(), OrderStatus.Rejected);
+        } else {
+            working.setPrice(order.getPrice());
+            working.setQuantity(order.getQuantity());
+            working.setType(order.getType());
+            working.setTimeInForce(order.getTimeInForce());
+            report(order.getRefData(), OrderStatus.Replaced);
+        }
+        order.recycle();
+    }
+
+    private void cancel(NewOrder order) {
+        NewOrder working = getWorkingOrder(order.getRefData());
+
+        if (working == null) {
+            report(order.getRefData(), OrderStatus.Rejected);
+        } else {
+            getWorking(working.getRefData().getInstrumentIndex()).remove(working);
+            done(working, OrderStatus.Cancelled);
+        }
+        order.recycle();
+    }
+
+    private NewOrder getWorkingOrder(OrderRefData refData) {
+        return refData.hasNumericOrderId() ? workingById.get(refData.getNumericOrderId()) : null;
+    }
+
+    private List<NewOrder> getWorking(int instrumentIndex) {
+        return (instrumentIndex >= 0 && instrumentIndex < workingByInstrument.size()) ?
+                workingByInstrument.get(instrumentIndex) : null;
+    }
+
+    private List<NewOrder> getOrCreateWorking(int instrumentIndex) {
+        while (workingByInstrument.size() <= instrumentIndex) {
+            workingByInstrument.add(null);
+        }
+        List<NewOrder> res = workingByInstrument.get(instrumentIndex);
+
+        if (res == null) {
+            res = Lists.newArrayList();
+            workingByInstrument.set(instrumentIndex, res);
+        }
+
+        return res;
+    }
+
+    private void report(OrderRefData refData, OrderStatus status) {
+        statuses.add(acquireEvent(refData, status));
+    }
+
+    private OrderStatusEvent acquireEvent(OrderRefData refData, OrderStatus status) {
+        OrderStatusEvent res = statusEventPool.acquire();
+        res.setOrder(refData);
+        res.setOrderStatus(status);
+        res.setExchangeId(EXCHANGE_ID);
+        res.setTimestampMillis(timeBase.now());
+
+        return res;
+    }
+
+    private boolean isSupported(OrderType type) {
+        return type == OrderType.Market || type == OrderType.Limit || type == OrderType.Stop;
+    }
+
+    private boolean isBuy(NewOrder order) {
+        return order.getSide() == OrderSide.Buy || order.getSide() == OrderSide.Cover_Short;
+    }
+}
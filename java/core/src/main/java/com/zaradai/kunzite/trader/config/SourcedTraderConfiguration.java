@@ -17,6 +17,12 @@ package com.zaradai.kunzite.trader.config;
 
 import com.google.inject.Inject;
 import com.zaradai.kunzite.config.ConfigurationSource;
+import com.zaradai.kunzite.trader.services.BridgeType;
+import com.zaradai.kunzite.trader.services.BridgeWaitStrategy;
+import com.zaradai.kunzite.trader.services.md.channel.EmulatorSource;
+import com.zaradai.kunzite.trader.services.orders.GatewayExecution;
+import com.zaradai.kunzite.trader.services.orders.gateway.matching.LatencyModel;
+import com.zaradai.kunzite.trader.services.trader.ShardPolicy;
 
 public class SourcedTraderConfiguration implements TraderConfiguration {
     private static final String PRE = "trader";
@@ -24,10 +30,52 @@ public class SourcedTraderConfiguration implements TraderConfiguration {
     public static final String STATIC_CONFIG_URI = PRE + ".static.config.uri";
     public static final String MD_CONFIG_URI = PRE + ".md.config.uri";
     public static final String OG_URI = PRE + ".og.config.uri";
+    public static final String BRIDGE_TYPE = PRE + ".bridge.type";
+    public static final String BRIDGE_RING_SIZE = PRE + ".bridge.ring.size";
+    public static final String BRIDGE_WAIT_STRATEGY = PRE + ".bridge.wait.strategy";
+    public static final String TRADER_SHARDS = PRE + ".shards";
+    public static final String SHARD_POLICY = PRE + ".shard.policy";
+    public static final String GATEWAY_EXECUTION = PRE + ".og.execution";
+    public static final String GATEWAY_QUEUE_SIZE = PRE + ".og.queue.size";
+    public static final String GATEWAY_BATCH_SIZE = PRE + ".og.batch.size";
+    public static final String EMULATOR_LATENCY_MICROS = PRE + ".og.emulator.latency.micros";
+    public static final String EMULATOR_LATENCY_MODEL = PRE + ".og.emulator.latency.model";
+    public static final String EMULATOR_ACK_LATENCY_MICROS = PRE + ".og.emulator.ack.latency.micros";
+    public static final String EMULATOR_FILL_LATENCY_MICROS = PRE + ".og.emulator.fill.latency.micros";
+    public static final String EMULATOR_LATENCY_JITTER_MICROS = PRE + ".og.emulator.latency.jitter.micros";
+    public static final String EMULATOR_SOURCE = PRE + ".md.emulator.source";
+    public static final String EMULATOR_TICK_RATE = PRE + ".md.emulator.rate";
+    public static final String EMULATOR_BOOK_DEPTH = PRE + ".md.emulator.depth";
+    public static final String EMULATOR_SYMBOLS = PRE + ".md.emulator.symbols";
+    public static final String EMULATOR_REPLAY_FOLDER = PRE + ".md.emulator.replay.folder";
+    public static final String EMULATOR_REPLAY_LOOP = PRE + ".md.emulator.replay.loop";
+    public static final String TIMER_TICK_MILLIS = PRE + ".timer.tick.millis";
+    public static final String TIMER_WHEEL_SIZE = PRE + ".timer.wheel.size";
 
     public static final String DEFAULT_STATIC_CONFIG_URI = "static.xml";
     public static final String DEFAULT_MD_CONFIG_URI = "md.xml";
     public static final String DEFAULT_OG_CONFIG_URI = "og.xml";
+    public static final String DEFAULT_BRIDGE_TYPE = BridgeType.Queue.name();
+    public static final int DEFAULT_BRIDGE_RING_SIZE = 65536;
+    public static final String DEFAULT_BRIDGE_WAIT_STRATEGY = BridgeWaitStrategy.Blocking.name();
+    public static final int DEFAULT_TRADER_SHARDS = 1;
+    public static final String DEFAULT_SHARD_POLICY = ShardPolicy.Hash.name();
+    public static final String DEFAULT_GATEWAY_EXECUTION = GatewayExecution.Inline.name();
+    public static final int DEFAULT_GATEWAY_QUEUE_SIZE = 4096;
+    public static final int DEFAULT_GATEWAY_BATCH_SIZE = 64;
+    public static final long DEFAULT_EMULATOR_LATENCY_MICROS = 0;
+    public static final String DEFAULT_EMULATOR_LATENCY_MODEL = LatencyModel.Fixed.name();
+    public static final long DEFAULT_EMULATOR_ACK_LATENCY_MICROS = 0;
+    public static final long DEFAULT_EMULATOR_FILL_LATENCY_MICROS = 0;
+    public static final long DEFAULT_EMULATOR_LATENCY_JITTER_MICROS = 0;
+    public static final String DEFAULT_EMULATOR_SOURCE = EmulatorSource.None.name();
+    public static final int DEFAULT_EMULATOR_TICK_RATE = 1000;
+    public static final int DEFAULT_EMULATOR_BOOK_DEPTH = 1;
+    public static final int DEFAULT_EMULATOR_SYMBOLS = 0;
+    public static final String DEFAULT_EMULATOR_REPLAY_FOLDER = ".";
+    public static final boolean DEFAULT_EMULATOR_REPLAY_LOOP = false;
+    public static final long DEFAULT_TIMER_TICK_MILLIS = 10;
+    public static final int DEFAULT_TIMER_WHEEL_SIZE = 1024;
 
     private final ConfigurationSource source;
 
@@ -51,4 +99,109 @@ public class SourcedTraderConfiguration implements TraderConfiguration {
     public String getOrderGatewayConfigUri() {
         return source.get(OG_URI, DEFAULT_OG_CONFIG_URI);
     }
+
+    @Override
+    public BridgeType getBridgeType() {
+        return BridgeType.valueOf(source.get(BRIDGE_TYPE, DEFAULT_BRIDGE_TYPE));
+    }
+
+    @Override
+    public int getBridgeRingSize() {
+        return source.get(BRIDGE_RING_SIZE, DEFAULT_BRIDGE_RING_SIZE);
+    }
+
+    @Override
+    public BridgeWaitStrategy getBridgeWaitStrategy() {
+        return BridgeWaitStrategy.valueOf(source.get(BRIDGE_WAIT_STRATEGY, DEFAULT_BRIDGE_WAIT_STRATEGY));
+    }
+
+    @Override
+    public int getTraderShards() {
+        return source.get(TRADER_SHARDS, DEFAULT_TRADER_SHARDS);
+    }
+
+    @Override
+    public ShardPolicy getShardPolicy() {
+        return ShardPolicy.valueOf(source.get(SHARD_POLICY, DEFAULT_SHARD_POLICY));
+    }
+
+    @Override
+    public GatewayExecution getGatewayExecution() {
+        return GatewayExecution.valueOf(source.get(GATEWAY_EXECUTION, DEFAULT_GATEWAY_EXECUTION));
+    }
+
+    @Override
+    public int getGatewayQueueSize() {
+        return source.get(GATEWAY_QUEUE_SIZE, DEFAULT_GATEWAY_QUEUE_SIZE);
+    }
+
+    @Override
+    public int getGatewayBatchSize() {
+        return source.get(GATEWAY_BATCH_SIZE, DEFAULT_GATEWAY_BATCH_SIZE);
+    }
+
+    @Override
+    public long getEmulatorLatencyMicros() {
+        return source.get(EMULATOR_LATENCY_MICROS, DEFAULT_EMULATOR_LATENCY_MICROS);
+    }
+
+    @Override
+    public LatencyModel getEmulatorLatencyModel() {
+        return LatencyModel.valueOf(source.get(EMULATOR_LATENCY_MODEL, DEFAULT_EMULATOR_LATENCY_MODEL));
+    }
+
+    @Override
+    public long getEmulatorAckLatencyMicros() {
+        return source.get(EMULATOR_ACK_LATENCY_MICROS, DEFAULT_EMULATOR_ACK_LATENCY_MICROS);
+    }
+
+    @Override
+    public long getEmulatorFillLatencyMicros() {
+        return source.get(EMULATOR_FILL_LATENCY_MICROS, DEFAULT_EMULATOR_FILL_LATENCY_MICROS);
+    }
+
+    @Override
+    public long getEmulatorLatencyJitterMicros() {
+        return source.get(EMULATOR_LATENCY_JITTER_MICROS, DEFAULT_EMULATOR_LATENCY_JITTER_MICROS);
+    }
+
+    @Override
+    public EmulatorSource getEmulatorSource() {
+        return EmulatorSource.valueOf(source.get(EMULATOR_SOURCE, DEFAULT_EMULATOR_SOURCE));
+    }
+
+    @Override
+    public int getEmulatorTickRate() {
+        return source.get(EMULATOR_TICK_RATE, DEFAULT_EMULATOR_TICK_RATE);
+    }
+
+    @Override
+    public int getEmulatorBookDepth() {
+        return source.get(EMULATOR_BOOK_DEPTH, DEFAULT_EMULATOR_BOOK_DEPTH);
+    }
+
+    @Override
+    public int getEmulatorSymbols() {
+        return source.get(EMULATOR_SYMBOLS, DEFAULT_EMULATOR_SYMBOLS);
+    }
+
+    @Override
+    public String getEmulatorReplayFolder() {
+        return source.get(EMULATOR_REPLAY_FOLDER, DEFAULT_EMULATOR_REPLAY_FOLDER);
+    }
+
+    @Override
+    public boolean isEmulatorReplayLoop() {
+        return source.get(EMULATOR_REPLAY_LOOP, DEFAULT_EMULATOR_REPLAY_LOOP);
+    }
+
+    @Override
+    public long getTimerTickMillis() {
+        return source.get(TIMER_TICK_MILLIS, DEFAULT_TIMER_TICK_MILLIS);
+    }
+
+    @Override
+    public int getTimerWheelSize() {
+        return source.get(TIMER_WHEEL_SIZE, DEFAULT_TIMER_WHEEL_SIZE);
+    }
 }
@@ -15,8 +15,36 @@
  */
 package com.zaradai.kunzite.trader.config;
 
+import com.zaradai.kunzite.trader.services.BridgeType;
+import com.zaradai.kunzite.trader.services.BridgeWaitStrategy;
+import com.zaradai.kunzite.trader.services.md.channel.EmulatorSource;
+import com.zaradai.kunzite.trader.services.orders.GatewayExecution;
+import com.zaradai.kunzite.trader.services.orders.gateway.matching.LatencyModel;
+import com.zaradai.kunzite.trader.services.trader.ShardPolicy;
+
 public interface TraderConfiguration {
     String getStaticConfigUri();
     String getMarketDataConfigUri();
     String getOrderGatewayConfigUri();
+    BridgeType getBridgeType();
+    int getBridgeRingSize();
+    BridgeWaitStrategy getBridgeWaitStrategy();
+    int getTraderShards();
+    ShardPolicy getShardPolicy();
+    GatewayExecution getGatewayExecution();
+    int getGatewayQueueSize();
+    int getGatewayBatchSize();
+    long getEmulatorLatencyMicros();
+    LatencyModel getEmulatorLatencyModel();
+    long getEmulatorAckLatencyMicros();
+    long getEmulatorFillLatencyMicros();
+    long getEmulatorLatencyJitterMicros();
+    EmulatorSource getEmulatorSource();
+    int getEmulatorTickRate();
+    int getEmulatorBookDepth();
+    int getEmulatorSymbols();
+    String getEmulatorReplayFolder();
+    boolean isEmulatorReplayLoop();
+    long getTimerTickMillis();
+    int getTimerWheelSize();
 }
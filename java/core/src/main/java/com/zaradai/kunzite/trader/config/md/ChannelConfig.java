@@ -18,6 +18,7 @@ package com.zaradai.kunzite.trader.config.md;
 public class ChannelConfig {
     private String name;
     private String clazz;
+    private boolean conflate;
 
     public String getName() {
         return name;
@@ -34,4 +35,12 @@ public class ChannelConfig {
     public void setClazz(String clazz) {
         this.clazz = clazz;
     }
+
+    public boolean isConflate() {
+        return conflate;
+    }
+
+    public void setConflate(boolean conflate) {
+        this.conflate = conflate;
+    }
 }
@@ -19,6 +19,7 @@ public class Subscription {
     private String id;
     private String map;
     private String channel;
+    private Boolean conflate;
 
     public String getId() {
         return id;
@@ -43,4 +44,16 @@ public class Subscription {
     public void setChannel(String channel) {
         this.channel = channel;
     }
+
+    /**
+     * Whether updates for this subscription are conflated, null to inherit the setting of the channel.
+     * @return
+     */
+    public Boolean getConflate() {
+        return conflate;
+    }
+
+    public void setConflate(Boolean conflate) {
+        this.conflate = conflate;
+    }
 }
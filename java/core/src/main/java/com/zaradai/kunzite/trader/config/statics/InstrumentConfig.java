@@ -34,6 +34,7 @@ public final class InstrumentConfig {
     private double multiplier;
     private int lotSize;
     private String marketId;
+    private String shardGroup;
     private InstrumentType type;
     // membership
     private List<String> members;
@@ -98,6 +99,17 @@ public final class InstrumentConfig {
         this.marketId = marketId;
     }
 
+    /**
+     * Optional group used to co-locate instruments on the same trader shard.
+     */
+    public String getShardGroup() {
+        return shardGroup;
+    }
+
+    public void setShardGroup(String shardGroup) {
+        this.shardGroup = shardGroup;
+    }
+
     public InstrumentType getType() {
         return type;
     }
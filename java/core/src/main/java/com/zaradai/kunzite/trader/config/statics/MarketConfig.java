@@ -22,6 +22,7 @@ import java.util.List;
 
 public final class MarketConfig {
     private String id;
+    private int bookDepth;
     private final List<TickDefinition> tickDefinitions;
 
     public MarketConfig() {
@@ -36,6 +37,14 @@ public final class MarketConfig {
         this.id = marketId;
     }
 
+    public int getBookDepth() {
+        return bookDepth;
+    }
+
+    public void setBookDepth(int bookDepth) {
+        this.bookDepth = bookDepth;
+    }
+
     public Iterable<TickDefinition> getTickDefinitions() {
         return tickDefinitions;
     }
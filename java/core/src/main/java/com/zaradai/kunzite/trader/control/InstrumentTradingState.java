@@ -15,30 +15,42 @@
  */
 package com.zaradai.kunzite.trader.control;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
+import com.zaradai.kunzite.trader.algo.Algo;
+import com.zaradai.kunzite.trader.events.*;
 import com.zaradai.kunzite.trader.instruments.Instrument;
 import com.zaradai.kunzite.trader.marketdata.MarketBook;
 import com.zaradai.kunzite.trader.marketdata.MarketBookFactory;
+import com.zaradai.kunzite.trader.marketdata.MarketBookUpdater;
 import com.zaradai.kunzite.trader.orders.book.OrderBook;
 import com.zaradai.kunzite.trader.orders.execution.OrderManager;
 import com.zaradai.kunzite.trader.orders.execution.OrderManagerFactory;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
 import com.zaradai.kunzite.trader.positions.PositionBook;
 import com.zaradai.kunzite.trader.positions.PositionBookFactory;
 
+import java.util.List;
+
 public class InstrumentTradingState implements TradingState {
     private final Instrument instrument;
     private final MarketBook marketBook;
     private final PositionBook positionBook;
     private final OrderManager orderManager;
+    private final MarketBookUpdater marketBookUpdater;
+    private final List<Algo> algos;
 
     @Inject
     InstrumentTradingState(MarketBookFactory marketBookFactory, PositionBookFactory positionBookFactory,
-                           OrderManagerFactory orderManagerFactory, @Assisted Instrument instrument) {
+                           OrderManagerFactory orderManagerFactory, MarketBookUpdater marketBookUpdater,
+                           @Assisted Instrument instrument) {
         this.instrument = instrument;
+        this.marketBookUpdater = marketBookUpdater;
         marketBook = marketBookFactory.create(instrument);
         positionBook = positionBookFactory.create(instrument);
         orderManager = orderManagerFactory.create(instrument);
+        algos = Lists.newArrayList();
     }
 
     @Override
@@ -65,4 +77,80 @@ public class InstrumentTradingState implements TradingState {
     public OrderManager getOrderManager() {
         return orderManager;
     }
+
+    @Override
+    public void add(Algo algo) {
+        if (!algos.contains(algo)) {
+            algos.add(algo);
+        }
+    }
+
+    @Override
+    public Iterable<Algo> getAlgos() {
+        return algos;
+    }
+
+    @Override
+    public void onMarketData(MarketData marketData) {
+        onMarketBookUpdate(marketBookUpdater.update(marketBook, marketData));
+    }
+
+    @Override
+    public void onMarketData(MarketDataRecord record) {
+        onMarketBookUpdate(marketBookUpdater.update(marketBook, record));
+    }
+
+    private void onMarketBookUpdate(MarketBookUpdateEvent event) {
+        // ticks that changed nothing in the book are not worth waking the algos for
+        if (event != null && event.getChanges() != 0) {
+            for (int i = 0; i < algos.size(); ++i) {
+                algos.get(i).onMarketBookUpdate(event);
+            }
+            // send any order requests the algos made in response
+            orderManager.process();
+        }
+    }
+
+    @Override
+    public void onOrderStatus(OrderStatusEvent event) {
+        orderManager.onOrderStatus(event);
+    }
+
+    @Override
+    public void onTrade(TradeEvent event) {
+        positionBook.onTrade(event);
+
+        for (int i = 0; i < algos.size(); ++i) {
+            algos.get(i).onTrade(event);
+        }
+        orderManager.process();
+    }
+
+    @Override
+    public void onReject(OrderRequest request) {
+        for (int i = 0; i < algos.size(); ++i) {
+            algos.get(i).onReject(request);
+        }
+    }
+
+    @Override
+    public void onPositionInitiated(PositionInitiatedEvent event) {
+        for (int i = 0; i < algos.size(); ++i) {
+            algos.get(i).onPositionInitiated(event);
+        }
+    }
+
+    @Override
+    public void onPositionLiquidated(PositionLiquidatedEvent event) {
+        for (int i = 0; i < algos.size(); ++i) {
+            algos.get(i).onPositionLiquidated(event);
+        }
+    }
+
+    @Override
+    public void onPositionChanged(PositionChangedEvent event) {
+        for (int i = 0; i < algos.size(); ++i) {
+            algos.get(i).onPositionChanged(event);
+        }
+    }
 }
@@ -30,17 +30,19 @@ public class TradingBuilder {
     private final TradingStateFactory tradingStateFactory;
     private final InstrumentFactory instrumentFactory;
     private final AlgoFactory algoFactory;
+    private final SymbolRegistry symbolRegistry;
 
     @Inject
     TradingBuilder(ContextLogger logger, PortfolioFactory portfolioFactory, MarketFactory marketFactory,
                           TradingStateFactory tradingStateFactory, InstrumentFactory instrumentFactory,
-                          AlgoFactory algoFactory) {
+                          AlgoFactory algoFactory, SymbolRegistry symbolRegistry) {
         this.logger = logger;
         this.portfolioFactory = portfolioFactory;
         this.marketFactory = marketFactory;
         this.tradingStateFactory = tradingStateFactory;
         this.instrumentFactory = instrumentFactory;
         this.algoFactory = algoFactory;
+        this.symbolRegistry = symbolRegistry;
     }
 
     public void build(TradingManager manager, StaticConfiguration configuration) {
@@ -67,6 +69,10 @@ public class TradingBuilder {
         for (MarketConfig config : markets) {
             String id = config.getId();
             Market market = marketFactory.create(id);
+            // optional book depth, markets default otherwise
+            if (config.getBookDepth() > 0) {
+                market.setBookDepth(config.getBookDepth());
+            }
             // config the market ticks
             for (TickDefinition tickDefinition : config.getTickDefinitions()) {
                 market.addTickDefinition(tickDefinition);
@@ -184,6 +190,7 @@ public class TradingBuilder {
 
     private void setMembershipMembers(MembershipInstrument res, InstrumentConfig config) {
         res.setId(config.getId());
+        res.setIndex(symbolRegistry.intern(config.getId()));
         res.setMarketId(config.getMarketId());
         res.setLotSize(config.getLotSize());
         res.setMultiplier(config.getMultiplier());
@@ -16,8 +16,12 @@
 package com.zaradai.kunzite.trader.control;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
 import com.google.inject.Inject;
+import com.zaradai.kunzite.events.EventAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.logging.LogHelper;
 import com.zaradai.kunzite.trader.algo.Algo;
@@ -25,37 +29,52 @@ import com.zaradai.kunzite.trader.algo.AlgoException;
 import com.zaradai.kunzite.trader.algo.AlgoResolver;
 import com.zaradai.kunzite.trader.config.ConfigException;
 import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+import com.zaradai.kunzite.trader.events.*;
 import com.zaradai.kunzite.trader.instruments.Instrument;
 import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
 import com.zaradai.kunzite.trader.instruments.Market;
 import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
 import com.zaradai.kunzite.trader.positions.Portfolio;
 import com.zaradai.kunzite.trader.positions.PortfolioResolver;
 
+import java.util.List;
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+/**
+ * Owns all trading state and routes trader events straight to the state of the instrument concerned, so the cost
+ * of an event is proportional to the algos bound to that instrument rather than to every subscriber.
+ * The routing tables are only written whilst building, so handlers may be called concurrently by trader shards.
+ */
 public class TradingManager implements InstrumentResolver, TradingStateResolver, MarketResolver, PortfolioResolver,
-        AlgoResolver {
+        AlgoResolver, MarketDataHandler, MarketDataRecordHandler, OrderStatusHandler, TradeEventHandler,
+        OrderRejectHandler, PositionChangeHandler {
     private final Map<String, Portfolio> portfolioByPortfolioId;
     private final Map<String, Market> marketByMarketId;
     private final Map<String, Instrument> instrumentByInstrumentId;
     private final Map<String, TradingState> tradingStateByInstrumentId;
     private final Map<String, Algo> algoByAlgoId;
+    private final List<Instrument> instrumentByIndex;
+    private final List<TradingState> tradingStateByIndex;
     private final ContextLogger logger;
     private final TradingBuilder builder;
-
+    private final EventAggregator eventAggregator;
 
     @Inject
-    TradingManager(ContextLogger logger, TradingBuilder builder) {
+    TradingManager(ContextLogger logger, TradingBuilder builder, EventAggregator eventAggregator) {
         this.logger = logger;
         this.builder = builder;
+        this.eventAggregator = eventAggregator;
         tradingStateByInstrumentId = Maps.newHashMap();
         instrumentByInstrumentId = Maps.newHashMap();
         marketByMarketId = Maps.newHashMap();
         portfolioByPortfolioId = Maps.newHashMap();
         algoByAlgoId = Maps.newHashMap();
+        instrumentByIndex = Lists.newArrayList();
+        tradingStateByIndex = Lists.newArrayList();
     }
 
     public void build(StaticConfiguration configuration) throws ConfigException {
@@ -82,6 +101,11 @@ public class TradingManager implements InstrumentResolver, TradingStateResolver,
         return instrumentByInstrumentId.get(instrumentId);
     }
 
+    @Override
+    public Instrument resolveInstrument(int instrumentIndex) {
+        return getByIndex(instrumentByIndex, instrumentIndex);
+    }
+
     @Override
     public Market resolveMarket(String marketId) {
         checkArgument(!Strings.isNullOrEmpty(marketId));
@@ -103,6 +127,24 @@ public class TradingManager implements InstrumentResolver, TradingStateResolver,
         return tradingStateByInstrumentId.get(instrumentId);
     }
 
+    @Override
+    public TradingState resolveTradingState(int instrumentIndex) {
+        return getByIndex(tradingStateByIndex, instrumentIndex);
+    }
+
+    private <T> T getByIndex(List<T> items, int index) {
+        return (index >= 0 && index < items.size()) ? items.get(index) : null;
+    }
+
+    private <T> void setByIndex(List<T> items, int index, T item) {
+        if (index >= 0) {
+            while (items.size() <= index) {
+                items.add(null);
+            }
+            items.set(index, item);
+        }
+    }
+
     @Override
     public Algo resolveAlgo(String id) {
         checkArgument(!Strings.isNullOrEmpty(id));
@@ -120,14 +162,20 @@ public class TradingManager implements InstrumentResolver, TradingStateResolver,
 
     public void add(Instrument instrument) {
         instrumentByInstrumentId.put(instrument.getId(), instrument);
+        setByIndex(instrumentByIndex, instrument.getIndex(), instrument);
     }
 
     public void add(TradingState state) {
         tradingStateByInstrumentId.put(state.getInstrument().getId(), state);
+        setByIndex(tradingStateByIndex, state.getInstrument().getIndex(), state);
     }
 
     public void add(Algo algo) {
         algoByAlgoId.put(algo.getId(), algo);
+        // bind to the state so the algo only sees events for its own instrument
+        if (algo.getState() != null) {
+            algo.getState().add(algo);
+        }
     }
 
     public void initialize() throws TradingException {
@@ -136,7 +184,133 @@ public class TradingManager implements InstrumentResolver, TradingStateResolver,
         } catch (AlgoException e) {
             throw new TradingException("Unable to initialize Algo", e);
         }
+        // start routing events to the trading states
+        eventAggregator.subscribe(this);
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    @Override
+    public void onMarketData(MarketData marketData) {
+        TradingState state = route(marketData.getInstrumentIndex(), marketData.getInstrumentId());
+
+        if (state != null) {
+            state.onMarketData(marketData);
+        }
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    @Override
+    public void onMarketData(MarketDataRecord record) {
+        TradingState state = route(record.getInstrumentIndex(), record.getInstrumentId());
+
+        if (state != null) {
+            state.onMarketData(record);
+        }
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    @Override
+    public void onOrderStatus(OrderStatusEvent event) {
+        TradingState state = route(event.getInstrumentIndex(), null);
+
+        if (state != null) {
+            state.onOrderStatus(event);
+        }
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    @Override
+    public void onTrade(TradeEvent event) {
+        TradingState state = route(event.getInstrumentIndex(), event.getInstrumentId());
+
+        if (state != null) {
+            state.onTrade(event);
+        }
+    }
+
+    /**
+     * Event bus entry point for rejects, the typed aggregator calls onReject per request directly.
+     * @param event
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onOrderRequestReject(OrderRequestRejectEvent event) {
+        for (OrderRequest request : event.getRejects()) {
+            onReject(request);
+        }
+    }
+
+    @Override
+    public void onReject(OrderRequest request) {
+        TradingState state = route(SymbolRegistry.UNKNOWN_INDEX, request.getInstrumentId());
+
+        if (state != null) {
+            state.onReject(request);
+        }
+        // the order manager hands rejected requests over, done with once the algos have seen them
+        request.recycle();
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    @Override
+    public void onPositionInitiated(PositionInitiatedEvent event) {
+        TradingState state = route(event.getPosition().getInstrument());
+
+        if (state != null) {
+            state.onPositionInitiated(event);
+        }
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    @Override
+    public void onPositionLiquidated(PositionLiquidatedEvent event) {
+        TradingState state = route(event.getPosition().getInstrument());
+
+        if (state != null) {
+            state.onPositionLiquidated(event);
+        }
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    @Override
+    public void onPositionChanged(PositionChangedEvent event) {
+        TradingState state = route(event.getPosition().getInstrument());
+
+        if (state != null) {
+            state.onPositionChanged(event);
+        }
+    }
+
+    private TradingState route(Instrument instrument) {
+        return route(instrument.getIndex(), instrument.getId());
+    }
+
+    /**
+     * Resolve the state by interned index, only falling back to the id for events raised before interning.
+     */
+    private TradingState route(int instrumentIndex, String instrumentId) {
+        TradingState res = resolveTradingState(instrumentIndex);
+
+        if (res == null && !Strings.isNullOrEmpty(instrumentId)) {
+            res = tradingStateByInstrumentId.get(instrumentId);
+        }
+        if (res == null) {
+            LogHelper.warn(logger)
+                    .addContext("Trading Manager")
+                    .addReason("No trading state for event")
+                    .add("Index", instrumentIndex)
+                    .add("Instrument", instrumentId)
+                    .log();
+        }
 
+        return res;
     }
 
     private void initializeAlgos() throws AlgoException {
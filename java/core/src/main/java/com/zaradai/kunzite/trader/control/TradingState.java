@@ -15,16 +15,26 @@
  */
 package com.zaradai.kunzite.trader.control;
 
+import com.zaradai.kunzite.trader.algo.Algo;
+import com.zaradai.kunzite.trader.events.*;
 import com.zaradai.kunzite.trader.instruments.Instrument;
 import com.zaradai.kunzite.trader.marketdata.MarketBook;
 import com.zaradai.kunzite.trader.orders.book.OrderBook;
 import com.zaradai.kunzite.trader.orders.execution.OrderManager;
 import com.zaradai.kunzite.trader.positions.PositionBook;
 
-public interface TradingState {
+/**
+ * All state for a single instrument.  The trading manager routes events for the instrument straight to its state
+ * which in turn only involves the algos bound to it.
+ */
+public interface TradingState extends MarketDataHandler, MarketDataRecordHandler, OrderStatusHandler,
+        TradeEventHandler, OrderRejectHandler, PositionChangeHandler {
     Instrument getInstrument();
     MarketBook getMarketBook();
     PositionBook getPositionBook();
     OrderBook getOrderBook();
     OrderManager getOrderManager();
+
+    void add(Algo algo);
+    Iterable<Algo> getAlgos();
 }
@@ -17,4 +17,5 @@ package com.zaradai.kunzite.trader.control;
 
 public interface TradingStateResolver {
     TradingState resolveTradingState(String instrumentId);
+    TradingState resolveTradingState(int instrumentIndex);
 }
@@ -20,27 +20,61 @@ import com.google.common.base.Strings;
 import com.zaradai.kunzite.trader.marketdata.MarketBook;
 import org.joda.time.DateTime;
 
+/**
+ * Describes what changed on a market book.  Events created through the builder are immutable, events created with
+ * newReusable are owned by a market book updater and overwritten on every update so handlers must not hold on to
+ * them beyond the dispatch.
+ */
 public final class MarketBookUpdateEvent {
+    public static final int BEST_PRICE = 1;
+    public static final int BEST_SIZE = 1 << 1;
+    public static final int DEPTH = 1 << 2;
+    public static final int LAST_TRADE = 1 << 3;
+    public static final int OHLC = 1 << 4;
+
     private final String instrumentId;
     private final MarketBook marketBook;
-    private final DateTime timestamp;
-    private final boolean bestPriceUpdated;
-    private final boolean bestSizeUpdated;
-    private final boolean depthUpdated;
-    private final boolean lastTradeUpdated;
-    private final boolean ohlcUpdated;
-
-    private MarketBookUpdateEvent(String instrumentId, MarketBook marketBook, DateTime timestamp, boolean bestPriceUpdated,
-                                  boolean bestSizeUpdated, boolean depthUpdated, boolean lastTradeUpdated,
-                                  boolean ohlcUpdated) {
+    private DateTime timestamp;
+    private long timestampMillis;
+    private int changes;
+    private long bidLevelsChanged;
+    private long askLevelsChanged;
+
+    private MarketBookUpdateEvent(String instrumentId, MarketBook marketBook, DateTime timestamp, int changes,
+                                  long bidLevelsChanged, long askLevelsChanged) {
         this.instrumentId = instrumentId;
         this.marketBook = marketBook;
         this.timestamp = timestamp;
-        this.bestPriceUpdated = bestPriceUpdated;
-        this.bestSizeUpdated = bestSizeUpdated;
-        this.depthUpdated = depthUpdated;
-        this.lastTradeUpdated = lastTradeUpdated;
-        this.ohlcUpdated = ohlcUpdated;
+        this.timestampMillis = timestamp.getMillis();
+        this.changes = changes;
+        this.bidLevelsChanged = bidLevelsChanged;
+        this.askLevelsChanged = askLevelsChanged;
+    }
+
+    private MarketBookUpdateEvent(String instrumentId, MarketBook marketBook) {
+        this.instrumentId = instrumentId;
+        this.marketBook = marketBook;
+    }
+
+    public static MarketBookUpdateEvent newReusable(String instrumentId, MarketBook marketBook) {
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(instrumentId), "Invalid Instrument ID");
+
+        return new MarketBookUpdateEvent(instrumentId, marketBook);
+    }
+
+    /**
+     * Overwrite the content of a reusable event.
+     * @param timestampMillis time of the market data that caused the update.
+     * @param changes bitwise or of BEST_PRICE, BEST_SIZE, DEPTH, LAST_TRADE and OHLC.
+     * @param bidLevelsChanged bit n set if bid level n changed.
+     * @param askLevelsChanged bit n set if ask level n changed.
+     */
+    public void update(long timestampMillis, int changes, long bidLevelsChanged, long askLevelsChanged) {
+        this.timestamp = null;
+        this.timestampMillis = timestampMillis;
+        this.changes = changes;
+        this.bidLevelsChanged = bidLevelsChanged;
+        this.askLevelsChanged = askLevelsChanged;
     }
 
     public String getInstrumentId() {
@@ -52,27 +86,60 @@ public final class MarketBookUpdateEvent {
     }
 
     public DateTime getTimestamp() {
+        // only materialized when asked for
+        if (timestamp == null) {
+            timestamp = new DateTime(timestampMillis);
+        }
+
         return timestamp;
     }
 
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public int getChanges() {
+        return changes;
+    }
+
+    public long getBidLevelsChanged() {
+        return bidLevelsChanged;
+    }
+
+    public long getAskLevelsChanged() {
+        return askLevelsChanged;
+    }
+
+    public boolean isBidLevelChanged(int level) {
+        return isLevelChanged(bidLevelsChanged, level);
+    }
+
+    public boolean isAskLevelChanged(int level) {
+        return isLevelChanged(askLevelsChanged, level);
+    }
+
+    private boolean isLevelChanged(long levels, int level) {
+        return level >= 0 && level < Long.SIZE && (levels & (1L << level)) != 0;
+    }
+
     public boolean isBestPriceUpdated() {
-        return bestPriceUpdated;
+        return (changes & BEST_PRICE) != 0;
     }
 
     public boolean isBestSizeUpdated() {
-        return bestSizeUpdated;
+        return (changes & BEST_SIZE) != 0;
     }
 
     public boolean isDepthUpdated() {
-        return depthUpdated;
+        return (changes & DEPTH) != 0;
     }
 
     public boolean isLastTradeUpdated() {
-        return lastTradeUpdated;
+        return (changes & LAST_TRADE) != 0;
     }
 
     public boolean isOhlcUpdated() {
-        return ohlcUpdated;
+        return (changes & OHLC) != 0;
     }
 
     public static MarketBookUpdateBuilder builder() {
@@ -88,6 +155,8 @@ public final class MarketBookUpdateEvent {
         private boolean depthUpdated;
         private boolean lastTradeUpdated;
         private boolean ohlcUpdated;
+        private long bidLevelsChanged;
+        private long askLevelsChanged;
 
         public MarketBookUpdateBuilder instrument(String instrumentId) {
             this.instrumentId = instrumentId;
@@ -129,14 +198,36 @@ public final class MarketBookUpdateEvent {
             return this;
         }
 
+        public MarketBookUpdateBuilder bidLevels(long bidLevelsChanged) {
+            this.bidLevelsChanged = bidLevelsChanged;
+            return this;
+        }
+
+        public MarketBookUpdateBuilder askLevels(long askLevelsChanged) {
+            this.askLevelsChanged = askLevelsChanged;
+            return this;
+        }
+
         public MarketBookUpdateEvent build() {
             Preconditions.checkArgument(!Strings.isNullOrEmpty(instrumentId), "Invalid Instrument ID");
             if (timestamp == null) {
                 timestamp = DateTime.now();
             }
 
-            return new MarketBookUpdateEvent(instrumentId, marketBook, timestamp, bestPriceUpdated, bestSizeUpdated,
-                    depthUpdated, lastTradeUpdated, ohlcUpdated);
+            return new MarketBookUpdateEvent(instrumentId, marketBook, timestamp, getChanges(), bidLevelsChanged,
+                    askLevelsChanged);
+        }
+
+        private int getChanges() {
+            int res = 0;
+
+            res |= bestPriceUpdated ? BEST_PRICE : 0;
+            res |= bestSizeUpdated ? BEST_SIZE : 0;
+            res |= depthUpdated ? DEPTH : 0;
+            res |= lastTradeUpdated ? LAST_TRADE : 0;
+            res |= ohlcUpdated ? OHLC : 0;
+
+            return res;
         }
     }
 }
@@ -18,6 +18,7 @@ package com.zaradai.kunzite.trader.events;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 import org.joda.time.DateTime;
 
 import java.util.Iterator;
@@ -25,21 +26,28 @@ import java.util.List;
 
 public final class MarketData {
     private final String instrumentId;
+    private final int instrumentIndex;
     private final List<MarketDataField> fields;
     private final DateTime timestamp;
 
-    private MarketData(String instrumentId, DateTime timestamp, List<MarketDataField> fields) {
+    private MarketData(String instrumentId, int instrumentIndex, DateTime timestamp, List<MarketDataField> fields) {
         this.instrumentId = instrumentId;
+        this.instrumentIndex = instrumentIndex;
         this.timestamp = timestamp;
         this.fields = fields;
     }
 
-    public static MarketData newInstance(String instrumentId, DateTime timestamp, List<MarketDataField> fields) {
+    public static MarketData newInstance(String instrumentId, int instrumentIndex, DateTime timestamp,
+                                         List<MarketDataField> fields) {
         Preconditions.checkArgument(!Strings.isNullOrEmpty(instrumentId), "Invalid Instrument");
         Preconditions.checkNotNull(timestamp, "Invalid timestamp");
         Preconditions.checkNotNull(fields, "Invalid fields specified");
 
-        return new MarketData(instrumentId, timestamp, fields);
+        return new MarketData(instrumentId, instrumentIndex, timestamp, fields);
+    }
+
+    public static MarketData newInstance(String instrumentId, DateTime timestamp, List<MarketDataField> fields) {
+        return newInstance(instrumentId, SymbolRegistry.UNKNOWN_INDEX, timestamp, fields);
     }
 
     public static MarketData newInstance(String instrumentId, List<MarketDataField> fields) {
@@ -74,6 +82,14 @@ public final class MarketData {
         return instrumentId;
     }
 
+    /**
+     * Interned index of the instrument, SymbolRegistry.UNKNOWN_INDEX until mapped by the market data service.
+     * @return
+     */
+    public int getInstrumentIndex() {
+        return instrumentIndex;
+    }
+
     public List<MarketDataField> getFields() {
         return fields;
     }
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
+import org.joda.time.DateTime;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Mutable, reusable counterpart of {@link MarketData}.  Fields are held in parallel primitive arrays so a record can
+ * be filled by a channel, dispatched and recycled without allocating.  Records are single owner, once handed to
+ * the market data service they must not be touched by the producer again.
+ */
+public final class MarketDataRecord {
+    public static final int UNKNOWN_INDEX = SymbolRegistry.UNKNOWN_INDEX;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int CAPACITY = MarketDataFieldType.values().length;
+
+    private final MarketDataRecordPool pool;
+    private final MarketDataFieldType[] types;
+    private final double[] doubleValues;
+    private final long[] longValues;
+    private final boolean[] longValued;
+    private String instrumentId;
+    private int instrumentIndex;
+    private long timestampNanos;
+    private int size;
+
+    MarketDataRecord(MarketDataRecordPool pool) {
+        this.pool = pool;
+        types = new MarketDataFieldType[CAPACITY];
+        doubleValues = new double[CAPACITY];
+        longValues = new long[CAPACITY];
+        longValued = new boolean[CAPACITY];
+        clear();
+    }
+
+    public static MarketDataRecord newInstance() {
+        return new MarketDataRecord(null);
+    }
+
+    public void clear() {
+        instrumentId = null;
+        instrumentIndex = UNKNOWN_INDEX;
+        timestampNanos = 0L;
+        size = 0;
+    }
+
+    /**
+     * Return the record to the pool it was acquired from, unpooled records are simply dropped.
+     */
+    public void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
+
+    public MarketDataRecord setInstrument(String instrumentId, int instrumentIndex) {
+        this.instrumentId = instrumentId;
+        this.instrumentIndex = instrumentIndex;
+        return this;
+    }
+
+    public MarketDataRecord setInstrumentId(String instrumentId) {
+        return setInstrument(instrumentId, UNKNOWN_INDEX);
+    }
+
+    public MarketDataRecord setTimestampNanos(long timestampNanos) {
+        this.timestampNanos = timestampNanos;
+        return this;
+    }
+
+    public MarketDataRecord addDoubleValue(MarketDataFieldType type, double value) {
+        return add(type, value, 0L, false);
+    }
+
+    public MarketDataRecord addLongValue(MarketDataFieldType type, long value) {
+        return add(type, 0.0, value, true);
+    }
+
+    private MarketDataRecord add(MarketDataFieldType type, double doubleValue, long longValue, boolean isLong) {
+        checkState(size < CAPACITY, "Market data record is full");
+
+        types[size] = type;
+        doubleValues[size] = doubleValue;
+        longValues[size] = longValue;
+        longValued[size] = isLong;
+        size++;
+
+        return this;
+    }
+
+    /**
+     * Fold a newer update for the same instrument into this record, fields present in both take the newer value and
+     * the timestamp moves forward to that of the newer update.
+     * @param newer
+     * @return this record
+     */
+    public MarketDataRecord merge(MarketDataRecord newer) {
+        for (int i = 0; i < newer.size; ++i) {
+            int at = indexOf(newer.types[i]);
+
+            if (at == -1) {
+                add(newer.types[i], newer.doubleValues[i], newer.longValues[i], newer.longValued[i]);
+            } else {
+                doubleValues[at] = newer.doubleValues[i];
+                longValues[at] = newer.longValues[i];
+                longValued[at] = newer.longValued[i];
+            }
+        }
+        timestampNanos = newer.timestampNanos;
+
+        return this;
+    }
+
+    private int indexOf(MarketDataFieldType type) {
+        for (int i = 0; i < size; ++i) {
+            if (types[i] == type) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public boolean contains(MarketDataFieldType type) {
+        return indexOf(type) != -1;
+    }
+
+    public String getInstrumentId() {
+        return instrumentId;
+    }
+
+    public int getInstrumentIndex() {
+        return instrumentIndex;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public MarketDataFieldType getType(int index) {
+        checkElementIndex(index, size);
+        return types[index];
+    }
+
+    public double getDoubleValue(int index) {
+        checkElementIndex(index, size);
+        return doubleValues[index];
+    }
+
+    public long getLongValue(int index) {
+        checkElementIndex(index, size);
+        return longValues[index];
+    }
+
+    /**
+     * Overwrite this record with the content of an immutable market data event.
+     * @param marketData
+     * @return this record
+     */
+    public MarketDataRecord copyFrom(MarketData marketData) {
+        clear();
+        setInstrument(marketData.getInstrumentId(), marketData.getInstrumentIndex());
+        setTimestampNanos(marketData.getTimestamp().getMillis() * NANOS_PER_MILLI);
+
+        for (MarketDataField field : marketData.getFields()) {
+            add(field.getType(), field.getDoubleValue(), field.getLongValue(), field.getDoubleValue() == 0.0);
+        }
+
+        return this;
+    }
+
+    /**
+     * Create an immutable copy, only intended for consumers that have not moved to records as it allocates.
+     * @return
+     */
+    public MarketData toMarketData() {
+        List<MarketDataField> fields = Lists.newArrayListWithCapacity(size);
+
+        for (int i = 0; i < size; ++i) {
+            if (longValued[i]) {
+                fields.add(MarketDataField.newLongValue(types[i], longValues[i]));
+            } else {
+                fields.add(MarketDataField.newDoubleValue(types[i], doubleValues[i]));
+            }
+        }
+
+        return MarketData.newInstance(instrumentId, instrumentIndex, new DateTime(timestampNanos / NANOS_PER_MILLI),
+                fields);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded free list of market data records.  Records are acquired on the channel threads and released on the trader
+ * thread once dispatched, the array backed queue does not allocate on either side.  When empty a new record is
+ * created so producers never block, records released into a full pool are left for the collector.
+ */
+public class MarketDataRecordPool {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final BlockingQueue<MarketDataRecord> free;
+
+    public MarketDataRecordPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MarketDataRecordPool(int capacity) {
+        free = new ArrayBlockingQueue<MarketDataRecord>(capacity);
+
+        for (int i = 0; i < capacity; ++i) {
+            free.offer(new MarketDataRecord(this));
+        }
+    }
+
+    public MarketDataRecord acquire() {
+        MarketDataRecord res = free.poll();
+
+        if (res == null) {
+            res = new MarketDataRecord(this);
+        }
+
+        return res;
+    }
+
+    void release(MarketDataRecord record) {
+        record.clear();
+        free.offer(record);
+    }
+
+    public int available() {
+        return free.size();
+    }
+}
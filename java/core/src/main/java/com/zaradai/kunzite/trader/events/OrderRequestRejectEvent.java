@@ -31,6 +31,10 @@ public class OrderRequestRejectEvent {
         return new OrderRequestRejectEvent();
     }
 
+    public void clear() {
+        rejects.clear();
+    }
+
     public boolean hasRequests() {
         return rejects.size() > 0;
     }
@@ -20,15 +20,34 @@ import com.zaradai.kunzite.trader.orders.model.NewOrder;
 
 import java.util.List;
 
+/**
+ * Batch of orders for the order gateway service.  Pooled events are recycled by the service once it has handed
+ * the orders on, the orders themselves are then owned by their gateways.
+ */
 public class OrderSendEvent {
+    private final OrderSendEventPool pool;
     private final List<NewOrder> orders;
 
-    private OrderSendEvent() {
+    OrderSendEvent(OrderSendEventPool pool) {
+        this.pool = pool;
         orders = Lists.newArrayList();
     }
 
     public static OrderSendEvent newInstance() {
-        return new OrderSendEvent();
+        return new OrderSendEvent(null);
+    }
+
+    public void clear() {
+        orders.clear();
+    }
+
+    /**
+     * Return the event to the pool it was acquired from, unpooled events are simply dropped.
+     */
+    public void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        }
     }
 
     public boolean hasOrders() {
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Send events are acquired on the trader thread and recycled by the order gateway service once their orders have
+ * been handed to the gateways, the pool is filled by those releases rather than up front.
+ */
+public class OrderSendEventPool {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final BlockingQueue<OrderSendEvent> free;
+
+    public OrderSendEventPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public OrderSendEventPool(int capacity) {
+        free = new ArrayBlockingQueue<OrderSendEvent>(capacity);
+    }
+
+    public OrderSendEvent acquire() {
+        OrderSendEvent res = free.poll();
+
+        if (res == null) {
+            res = new OrderSendEvent(this);
+        }
+
+        return res;
+    }
+
+    void release(OrderSendEvent event) {
+        event.clear();
+        free.offer(event);
+    }
+
+    public int available() {
+        return free.size();
+    }
+}
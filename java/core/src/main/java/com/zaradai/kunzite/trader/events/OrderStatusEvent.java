@@ -15,16 +15,60 @@
  */
 package com.zaradai.kunzite.trader.events;
 
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.utils.OrderIds;
 import org.joda.time.DateTime;
 
+/**
+ * Status of an order as reported by its gateway.  Gateways acquire events from an OrderStatusEventPool and hand
+ * them to the trader, which recycles them once dispatched; a pooled event must not be held past its dispatch.
+ */
 public class OrderStatusEvent {
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final OrderStatusEventPool pool;
     private OrderStatus orderStatus;
     private String exchangeId;
     private String orderId;
+    private long numericOrderId;
     private String algoId;
+    private int instrumentIndex = SymbolRegistry.UNKNOWN_INDEX;
     private long execQty;
     private double lastPx;
     private DateTime timestamp;
+    private long timestampMillis;
+
+    public OrderStatusEvent() {
+        this(null);
+    }
+
+    OrderStatusEvent(OrderStatusEventPool pool) {
+        this.pool = pool;
+        clear();
+    }
+
+    public void clear() {
+        orderStatus = null;
+        exchangeId = null;
+        orderId = null;
+        numericOrderId = OrderIds.NO_ID;
+        algoId = null;
+        instrumentIndex = SymbolRegistry.UNKNOWN_INDEX;
+        execQty = 0L;
+        lastPx = 0.0;
+        timestamp = null;
+        timestampMillis = NO_TIMESTAMP;
+    }
+
+    /**
+     * Return the event to the pool it was acquired from, unpooled events are simply dropped.
+     */
+    public void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
 
     public OrderStatus getOrderStatus() {
         return orderStatus;
@@ -59,19 +103,74 @@ public class OrderStatusEvent {
     }
 
     public DateTime getTimestamp() {
+        // only materialized when asked for
+        if (timestamp == null && timestampMillis != NO_TIMESTAMP) {
+            timestamp = new DateTime(timestampMillis);
+        }
+
         return timestamp;
     }
 
     public void setTimestamp(DateTime timestamp) {
         this.timestamp = timestamp;
+        timestampMillis = (timestamp != null) ? timestamp.getMillis() : NO_TIMESTAMP;
     }
 
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Set the time of the status without creating a DateTime, gateways should prefer this on the hot path.
+     * @param timestampMillis
+     */
+    public void setTimestampMillis(long timestampMillis) {
+        this.timestampMillis = timestampMillis;
+        timestamp = null;
+    }
+
+    /**
+     * The string id, for a numeric id this is rendered on first use.
+     * @return
+     */
     public String getOrderId() {
+        if (orderId == null && OrderIds.isValid(numericOrderId)) {
+            orderId = OrderIds.toString(numericOrderId);
+        }
+
         return orderId;
     }
 
     public void setOrderId(String orderId) {
         this.orderId = orderId;
+        numericOrderId = OrderIds.NO_ID;
+    }
+
+    public long getNumericOrderId() {
+        return numericOrderId;
+    }
+
+    public boolean hasNumericOrderId() {
+        return OrderIds.isValid(numericOrderId);
+    }
+
+    public void setNumericOrderId(long numericOrderId) {
+        this.numericOrderId = numericOrderId;
+        orderId = null;
+    }
+
+    /**
+     * Identify the order the status is for, a numeric id is carried as is so no string is rendered.
+     * @param refData
+     */
+    public void setOrder(OrderRefData refData) {
+        if (refData.hasNumericOrderId()) {
+            setNumericOrderId(refData.getNumericOrderId());
+        } else {
+            setOrderId(refData.getOrderId());
+        }
+        algoId = refData.getAlgoId();
+        instrumentIndex = refData.getInstrumentIndex();
     }
 
     public String getAlgoId() {
@@ -81,4 +180,16 @@ public class OrderStatusEvent {
     public void setAlgoId(String algoId) {
         this.algoId = algoId;
     }
+
+    /**
+     * Interned index of the instrument the order is for, copied from the order reference data by the gateway.
+     * @return
+     */
+    public int getInstrumentIndex() {
+        return instrumentIndex;
+    }
+
+    public void setInstrumentIndex(int instrumentIndex) {
+        this.instrumentIndex = instrumentIndex;
+    }
 }
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Status events are acquired on gateway threads and recycled on the trader thread once dispatched, the pool is
+ * filled by those releases rather than up front.
+ */
+public class OrderStatusEventPool {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final BlockingQueue<OrderStatusEvent> free;
+
+    public OrderStatusEventPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public OrderStatusEventPool(int capacity) {
+        free = new ArrayBlockingQueue<OrderStatusEvent>(capacity);
+    }
+
+    public OrderStatusEvent acquire() {
+        OrderStatusEvent res = free.poll();
+
+        if (res == null) {
+            res = new OrderStatusEvent(this);
+        }
+
+        return res;
+    }
+
+    void release(OrderStatusEvent event) {
+        event.clear();
+        free.offer(event);
+    }
+
+    public int available() {
+        return free.size();
+    }
+}
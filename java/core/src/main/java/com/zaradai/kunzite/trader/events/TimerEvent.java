@@ -15,22 +15,45 @@
  */
 package com.zaradai.kunzite.trader.events;
 
-import java.util.UUID;
-
+/**
+ * Timeout of a timer subscription.  A repeating timer delivers the same unpooled instance on every period, one-shot
+ * timeouts are taken from a pool and recycled by the trader once dispatched; a pooled event must not be held past its
+ * dispatch.
+ */
 public final class TimerEvent {
-    private final UUID timerId;
-    private final boolean last;
+    private final TimerEventPool pool;
+    private long timerId;
+    private boolean last;
+
+    TimerEvent(TimerEventPool pool) {
+        this.pool = pool;
+    }
 
-    private TimerEvent(UUID id, boolean last) {
+    public static TimerEvent newInstance(long id, boolean last) {
+        return new TimerEvent(null).set(id, last);
+    }
+
+    TimerEvent set(long id, boolean last) {
         timerId = id;
         this.last = last;
+
+        return this;
+    }
+
+    void clear() {
+        set(0L, false);
     }
 
-    public static TimerEvent newInstance(UUID id, boolean last) {
-        return new TimerEvent(id, last);
+    /**
+     * Return the event to the pool it was acquired from, unpooled events are simply dropped.
+     */
+    public void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        }
     }
 
-    public UUID getTimerId() {
+    public long getTimerId() {
         return timerId;
     }
 
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * Timer events expiring on the same tick for one trader shard, queued as a single event and published one by one on
+ * the shard.  A pooled batch is recycled by the trader once published, along with the events it holds.
+ */
+public final class TimerEventBatch {
+    private final TimerEventPool pool;
+    private final List<TimerEvent> events;
+
+    TimerEventBatch(TimerEventPool pool) {
+        this.pool = pool;
+        events = Lists.newArrayList();
+    }
+
+    public static TimerEventBatch newInstance() {
+        return new TimerEventBatch(null);
+    }
+
+    public void add(TimerEvent event) {
+        events.add(event);
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    public TimerEvent get(int index) {
+        return events.get(index);
+    }
+
+    void clear() {
+        events.clear();
+    }
+
+    /**
+     * Recycle the events held and return the batch to the pool it was acquired from.
+     */
+    public void recycle() {
+        for (int i = 0; i < events.size(); ++i) {
+            events.get(i).recycle();
+        }
+
+        if (pool != null) {
+            pool.release(this);
+        } else {
+            events.clear();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * One-shot timer events and their batches are acquired on the timer thread and recycled on the trader shards once
+ * dispatched, the pool is filled by those releases rather than up front.
+ */
+public class TimerEventPool {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final BlockingQueue<TimerEvent> events;
+    private final BlockingQueue<TimerEventBatch> batches;
+
+    public TimerEventPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TimerEventPool(int capacity) {
+        events = new ArrayBlockingQueue<TimerEvent>(capacity);
+        batches = new ArrayBlockingQueue<TimerEventBatch>(capacity);
+    }
+
+    public TimerEvent acquire(long id, boolean last) {
+        TimerEvent res = events.poll();
+
+        if (res == null) {
+            res = new TimerEvent(this);
+        }
+
+        return res.set(id, last);
+    }
+
+    public TimerEventBatch acquireBatch() {
+        TimerEventBatch res = batches.poll();
+
+        if (res == null) {
+            res = new TimerEventBatch(this);
+        }
+
+        return res;
+    }
+
+    void release(TimerEvent event) {
+        event.clear();
+        events.offer(event);
+    }
+
+    void release(TimerEventBatch batch) {
+        batch.clear();
+        batches.offer(batch);
+    }
+
+    public int available() {
+        return events.size();
+    }
+
+    public int availableBatches() {
+        return batches.size();
+    }
+}
@@ -16,6 +16,7 @@
 package com.zaradai.kunzite.trader.events;
 
 import com.google.common.base.Strings;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 import org.joda.time.DateTime;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -24,13 +25,16 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public final class TradeEvent {
     private final String portfolioId;
     private final String instrumentId;
+    private final int instrumentIndex;
     private final long quantity;
     private final double price;
     private final DateTime timestamp;
 
-    private TradeEvent(String portfolioId, String instrumentId, long quantity, double price, DateTime timestamp) {
+    private TradeEvent(String portfolioId, String instrumentId, int instrumentIndex, long quantity, double price,
+                       DateTime timestamp) {
         this.portfolioId = portfolioId;
         this.instrumentId = instrumentId;
+        this.instrumentIndex = instrumentIndex;
         this.quantity = quantity;
         this.price = price;
         this.timestamp = timestamp;
@@ -38,12 +42,17 @@ public final class TradeEvent {
 
     public static TradeEvent newTrade(String portfolioId, String instrumentId, long quantity, double price,
                                       DateTime timestamp) {
+        return newTrade(portfolioId, instrumentId, SymbolRegistry.UNKNOWN_INDEX, quantity, price, timestamp);
+    }
+
+    public static TradeEvent newTrade(String portfolioId, String instrumentId, int instrumentIndex, long quantity,
+                                      double price, DateTime timestamp) {
         checkArgument(!Strings.isNullOrEmpty(portfolioId), "Invalid portfolio");
         checkArgument(!Strings.isNullOrEmpty(instrumentId), "Invalid instrument");
         checkArgument(!Double.isNaN(price), "Invalid price");
         checkNotNull(timestamp, "Invalid timestamp");
 
-        return new TradeEvent(portfolioId, instrumentId, quantity, price, timestamp);
+        return new TradeEvent(portfolioId, instrumentId, instrumentIndex, quantity, price, timestamp);
     }
 
     public long getQuantity() {
@@ -58,6 +67,10 @@ public final class TradeEvent {
         return instrumentId;
     }
 
+    public int getInstrumentIndex() {
+        return instrumentIndex;
+    }
+
     public String getPortfolioId() {
         return portfolioId;
     }
@@ -0,0 +1,198 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import com.google.common.base.Strings;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.control.TradingState;
+import com.zaradai.kunzite.trader.control.TradingStateResolver;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderRejectReason;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Applies the max long, max short, short sell and notional limits to a batch of requests in one pass.  The position
+ * and outstanding quantities are read once and each accepted request is added to the projection the next request is
+ * checked against, so a burst cannot breach a limit that each request would pass on its own.  The notional limit
+ * bounds the combined notional of the batch.  An amend's order is already outstanding, so only the change in its
+ * quantity is projected.  Requests with no portfolio are left to the portfolio check.
+ */
+public class BatchRiskFilter implements BatchFilter {
+    private final ContextLogger logger;
+    private final Instrument instrument;
+    private final TradingStateResolver stateResolver;
+    private final FilterLimitsCache limitsCache;
+    private final BatchRiskMode mode;
+    private final FilterRequest filterRequest;
+
+    BatchRiskFilter(ContextLogger logger, Instrument instrument, TradingStateResolver stateResolver,
+                    FilterLimitsCache limitsCache, BatchRiskMode mode) {
+        this.logger = logger;
+        this.instrument = instrument;
+        this.stateResolver = stateResolver;
+        this.limitsCache = limitsCache;
+        this.mode = mode;
+        filterRequest = FilterRequest.newInstance();
+    }
+
+    @Override
+    public void check(List<OrderRequest> orderRequests) {
+        checkNotNull(orderRequests, Constants.INVALID_ORDER_REQUEST);
+        TradingState state = checkNotNull(stateResolver.resolveTradingState(instrument.getId()),
+                Constants.INVALID_INSTRUMENT_REQUEST);
+        long position = state.getPositionBook().getTotalNetPosition();
+        long buys = state.getOrderBook().getOutstandingBuyQuantity();
+        long sells = state.getOrderBook().getOutstandingSellQuantity();
+        double notional = 0.0;
+
+        for (int i = 0; i < orderRequests.size(); ++i) {
+            OrderRequest request = orderRequests.get(i);
+
+            if (isChecked(request)) {
+                FilterLimits limits = limitsCache.getLimits(filterRequest.set(instrument.getId(),
+                        request.getPortfolioId()));
+                // an amend replaces what its order already has outstanding, only the change is projected
+                long booked = getBooked(state, request);
+                long allowed = request.getQuantity();
+                OrderRejectReason reason = null;
+                // position limits, short positions are negative
+                if (request.isBuy()) {
+                    long room = headroom(limits.getMaxLong(), position + buys);
+
+                    if (room < allowed - booked) {
+                        allowed = booked + room;
+                        reason = OrderRejectReason.MaxLong;
+                    }
+                } else {
+                    long floor = limits.isAllowShort() ? limits.getMaxShort() : Math.max(limits.getMaxShort(), 0);
+                    long room = headroom(position - sells, floor);
+
+                    if (room < allowed - booked) {
+                        allowed = booked + room;
+                        reason = (floor == limits.getMaxShort()) ? OrderRejectReason.MaxShort :
+                                OrderRejectReason.ShortSell;
+                    }
+                }
+                // combined notional of the batch
+                double unitNotional = request.getPrice() * instrument.getMultiplier();
+
+                if (unitNotional > 0.0 && allowed > booked &&
+                        notional + unitNotional * (allowed - booked) > limits.getMaxNotional()) {
+                    allowed = booked + (long) ((limits.getMaxNotional() - notional) / unitNotional);
+                    reason = OrderRejectReason.MaxNotional;
+                }
+
+                if (reason != null && !apply(request, allowed, reason)) {
+                    continue;
+                }
+                // accepted, the next request sees its change in the projection
+                long change = request.getQuantity() - booked;
+
+                if (request.isBuy()) {
+                    buys += change;
+                } else {
+                    sells += change;
+                }
+                notional += unitNotional * change;
+            }
+        }
+    }
+
+    private boolean isChecked(OrderRequest request) {
+        OrderRequestType type = request.getOrderRequestType();
+
+        return request.isValid() && (type == OrderRequestType.Create || type == OrderRequestType.Amend) &&
+                !Strings.isNullOrEmpty(request.getPortfolioId());
+    }
+
+    /**
+     * The part of a request already counted in the outstanding quantities, for an amend its order's quantity
+     * including what has executed, as the amended quantity does.
+     */
+    private long getBooked(TradingState state, OrderRequest request) {
+        if (request.getOrderRequestType() != OrderRequestType.Amend) {
+            return 0;
+        }
+        // unknown orders are rejected when the amend is processed
+        Order order = state.getOrderBook().get(request.getDependentOrderId());
+
+        return (order != null) ? order.getPendingOrOnMarket() + order.getState().getExecQty() : 0;
+    }
+
+    /**
+     * Trim or reject a request that would breach a limit.
+     * @return true if the request remains valid with the allowed quantity.
+     */
+    private boolean apply(OrderRequest request, long allowed, OrderRejectReason reason) {
+        if (mode == BatchRiskMode.Trim && allowed > 0) {
+            int lotSize = instrument.getLotSize();
+            long trimmed = (lotSize > 0) ? allowed - (allowed % lotSize) : allowed;
+
+            if (trimmed > 0) {
+                logTrim(request, trimmed, reason);
+                request.setQuantity(trimmed);
+                return true;
+            }
+        }
+
+        logFail(request, allowed, reason);
+        request.reject(reason);
+        return false;
+    }
+
+    /**
+     * The quantity between an upper and lower value, saturated rather than overflowing for the unlimited values.
+     */
+    private static long headroom(long upper, long lower) {
+        long res = upper - lower;
+
+        if (((upper ^ lower) & (upper ^ res)) < 0) {
+            return (upper < 0) ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+
+        return res;
+    }
+
+    private void logTrim(OrderRequest request, long trimmed, OrderRejectReason reason) {
+        LogHelper.warn(logger)
+                .addContext("Filter: " + getName())
+                .addReason("Trimmed by " + reason)
+                .add("Quantity", request.getQuantity())
+                .add("Trimmed", trimmed)
+                .log();
+    }
+
+    private void logFail(OrderRequest request, long allowed, OrderRejectReason reason) {
+        LogHelper.warn(logger)
+                .addContext("Filter: " + getName())
+                .addReason("Rejected by " + reason)
+                .add("Quantity", request.getQuantity())
+                .add("Allowed", allowed)
+                .log();
+    }
+
+    @Override
+    public String getName() {
+        return Constants.BATCH_RISK_FILTER_NAME;
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+/**
+ * How the aggregate limits are applied to the requests an order manager processes together.
+ */
+public enum BatchRiskMode {
+    // each request is checked on its own by the filter chain
+    Off,
+    // requests taking the batch beyond a limit are rejected
+    Reject,
+    // requests taking the batch beyond a limit are cut down to the lots that fit, rejected if none do
+    Trim
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import com.zaradai.kunzite.trader.control.TradingState;
+import com.zaradai.kunzite.trader.control.TradingStateResolver;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+
+/**
+ * Resolves the instrument a filter chain was built for without a map lookup, the trading state is remembered once
+ * it has been built.  Any other instrument is passed to the underlying resolvers.
+ */
+class BoundInstrumentResolver implements InstrumentResolver, TradingStateResolver {
+    private final Instrument instrument;
+    private final InstrumentResolver instrumentResolver;
+    private final TradingStateResolver stateResolver;
+    private TradingState state;
+
+    BoundInstrumentResolver(Instrument instrument, InstrumentResolver instrumentResolver,
+                            TradingStateResolver stateResolver) {
+        this.instrument = instrument;
+        this.instrumentResolver = instrumentResolver;
+        this.stateResolver = stateResolver;
+    }
+
+    @Override
+    public Instrument resolveInstrument(String instrumentId) {
+        return isBound(instrumentId) ? instrument : instrumentResolver.resolveInstrument(instrumentId);
+    }
+
+    @Override
+    public Instrument resolveInstrument(int instrumentIndex) {
+        return instrumentResolver.resolveInstrument(instrumentIndex);
+    }
+
+    @Override
+    public TradingState resolveTradingState(String instrumentId) {
+        if (isBound(instrumentId)) {
+            // the chain is created while the state is built so resolve it on first use
+            if (state == null) {
+                state = stateResolver.resolveTradingState(instrumentId);
+            }
+
+            return state;
+        }
+
+        return stateResolver.resolveTradingState(instrumentId);
+    }
+
+    @Override
+    public TradingState resolveTradingState(int instrumentIndex) {
+        return stateResolver.resolveTradingState(instrumentIndex);
+    }
+
+    private boolean isBound(String instrumentId) {
+        String id = instrument.getId();
+
+        return id == instrumentId || id.equals(instrumentId);
+    }
+}
@@ -21,6 +21,8 @@ public final class Constants {
     }
 
     public static final String GROUP_FILTER_NAME = "Group Filter";
+    public static final String FILTER_CHAIN_NAME = "Filter Chain";
+    public static final String BATCH_RISK_FILTER_NAME = "Batch Risk";
     public static final String LOT_SIZE_FILTER_NAME = "Lot Size";
     public static final String MAX_LONG_FILTER_NAME = "Max Long";
     public static final String MAX_NOTIONAL_FILTER_NAME = "Max Notional";
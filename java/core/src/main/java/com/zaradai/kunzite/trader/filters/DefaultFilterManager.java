@@ -15,11 +15,196 @@
  */
 package com.zaradai.kunzite.trader.filters;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.control.TradingStateResolver;
 import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.positions.PortfolioResolver;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Builds the filter chain of each instrument once.  The portfolio check always runs first as every limit is held per
+ * portfolio, the remaining checks follow the configured order which defaults to cheapest first.  Limits are cached by
+ * each chain and refreshed when the parameter manager reports a change.  With batch risk enabled the aggregate
+ * position and notional limits are left out of the chain and applied across each batch instead.
+ */
+public class DefaultFilterManager implements FilterManager, FilterParameterListener {
+    // checks applied across the batch by the batch risk filter
+    private static final Set<FilterType> BATCHED_TYPES = EnumSet.of(FilterType.MaxNotional, FilterType.ShortSell,
+            FilterType.MaxLong, FilterType.MaxShort);
+
+    private final ContextLogger logger;
+    private final FilterParameterManager filterParameterManager;
+    private final InstrumentResolver instrumentResolver;
+    private final TradingStateResolver stateResolver;
+    private final MarketResolver marketResolver;
+    private final PortfolioResolver portfolioResolver;
+    private final ConcurrentMap<String, FilterChain> chains;
+    private volatile List<FilterType> filterOrder;
+    private volatile BatchRiskMode batchRiskMode;
+
+    @Inject
+    DefaultFilterManager(ContextLogger logger, FilterParameterManager filterParameterManager,
+                         InstrumentResolver instrumentResolver, TradingStateResolver stateResolver,
+                         MarketResolver marketResolver, PortfolioResolver portfolioResolver) {
+        this.logger = logger;
+        this.filterParameterManager = filterParameterManager;
+        this.instrumentResolver = instrumentResolver;
+        this.stateResolver = stateResolver;
+        this.marketResolver = marketResolver;
+        this.portfolioResolver = portfolioResolver;
+        chains = createChainMap();
+        filterOrder = createFilterOrder();
+        batchRiskMode = BatchRiskMode.Off;
+        this.filterParameterManager.registerUpdateListener(this);
+    }
+
+    protected ConcurrentMap<String, FilterChain> createChainMap() {
+        return Maps.newConcurrentMap();
+    }
+
+    protected List<FilterType> createFilterOrder() {
+        return ImmutableList.copyOf(FilterType.values());
+    }
+
+    /**
+     * Set the checks and the order they run in for chains built from now on, checks left out are not applied.
+     * @param order
+     */
+    public void setFilterOrder(List<FilterType> order) {
+        checkNotNull(order, "Invalid filter order");
+        Set<FilterType> seen = EnumSet.noneOf(FilterType.class);
+
+        for (FilterType type : order) {
+            checkArgument(type != null && seen.add(type), "Invalid filter order: %s", order);
+        }
+
+        filterOrder = ImmutableList.copyOf(order);
+    }
+
+    public void setFilterOrder(FilterType... order) {
+        setFilterOrder(Arrays.asList(order));
+    }
+
+    public List<FilterType> getFilterOrder() {
+        return filterOrder;
+    }
+
+    /**
+     * Set how the aggregate limits are applied for instruments whose filters are built from now on.
+     * @param mode
+     */
+    public void setBatchRiskMode(BatchRiskMode mode) {
+        batchRiskMode = checkNotNull(mode, "Invalid batch risk mode");
+    }
+
+    public BatchRiskMode getBatchRiskMode() {
+        return batchRiskMode;
+    }
+
+    @Override
+    public Filter createFor(Instrument instrument) {
+        checkNotNull(instrument, "Invalid instrument");
+        FilterChain res = chains.get(instrument.getId());
+
+        if (res == null) {
+            res = createChain(instrument);
+            FilterChain existing = chains.putIfAbsent(instrument.getId(), res);
+
+            if (existing != null) {
+                res = existing;
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public BatchFilter createBatchFor(Instrument instrument) {
+        BatchRiskMode mode = batchRiskMode;
+
+        if (mode == BatchRiskMode.Off) {
+            return null;
+        }
+        // share the limits cached by the instrument's chain
+        FilterChain chain = (FilterChain) createFor(instrument);
+
+        return new BatchRiskFilter(logger, instrument,
+                new BoundInstrumentResolver(instrument, instrumentResolver, stateResolver), chain.getLimitsCache(), mode);
+    }
+
+    private FilterChain createChain(Instrument instrument) {
+        FilterLimitsCache limitsCache = new FilterLimitsCache(filterParameterManager, instrument.getId());
+        BoundInstrumentResolver resolver = new BoundInstrumentResolver(instrument, instrumentResolver, stateResolver);
+        List<Filter> filters = Lists.newArrayList();
+
+        filters.add(new PortfolioFilter(logger, portfolioResolver));
+        boolean batched = batchRiskMode != BatchRiskMode.Off;
+
+        for (FilterType type : filterOrder) {
+            if (!(batched && BATCHED_TYPES.contains(type))) {
+                filters.add(createFilter(type, instrument, resolver, limitsCache));
+            }
+        }
+
+        return new FilterChain(filters, limitsCache);
+    }
+
+    private Filter createFilter(FilterType type, Instrument instrument, BoundInstrumentResolver resolver,
+                                FilterParameterManager limits) {
+        switch (type) {
+            case MaxQuantity:
+                return new MaxQuantityFilter(logger, limits);
+            case PriceRange:
+                return new PriceRangeFilter(logger, limits);
+            case LotSize:
+                return new LotSizeFilter(logger, resolver);
+            case RestrictedList:
+                return new RestrictedListFilter(logger, limits);
+            case MaxNotional:
+                return new MaxNotionalFilter(logger, resolver, limits);
+            case TickSize:
+                return new TickFilter(logger, checkNotNull(marketResolver.resolveMarket(instrument.getMarketId()),
+                        "Unknown market %s", instrument.getMarketId()));
+            case MaxSpread:
+                return new MaxSpreadFilter(logger, resolver, limits);
+            case ShortSell:
+                return new ShortSellFilter(logger, resolver, limits);
+            case MaxLong:
+                return new MaxLongFilter(logger, resolver, limits);
+            case MaxShort:
+                return new MaxShortFilter(logger, resolver, limits);
+            default:
+                throw new IllegalArgumentException("Unsupported filter: " + type);
+        }
+    }
+
+    @Override
+    public void onParametersChanged(String instrumentId) {
+        FilterChain chain = chains.get(instrumentId);
+
+        if (chain != null) {
+            chain.invalidate();
+        }
+    }
 
-public class DefaultFilterManager implements FilterManager {
     @Override
-    public Filter createFor(Instrument state) {
-        return null;  //To change body of implemented methods use File | Settings | File Templates.
+    public void onAllParametersChanged() {
+        for (FilterChain chain : chains.values()) {
+            chain.invalidate();
+        }
     }
 }
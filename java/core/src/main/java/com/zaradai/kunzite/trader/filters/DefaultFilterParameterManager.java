@@ -0,0 +1,163 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Holds limits in memory, set per instrument and portfolio with a default for everything else.  Until configured no
+ * order is limited.  Filter chains cache what they read so every change is reported to the registered listeners.
+ */
+public class DefaultFilterParameterManager implements FilterParameterManager {
+    private final FilterLimits defaultLimits;
+    private final Table<String, String, FilterLimits> limits;
+    private final Set<String> restricted;
+    private final List<FilterParameterListener> listeners;
+
+    public DefaultFilterParameterManager() {
+        defaultLimits = new FilterLimits();
+        limits = HashBasedTable.create();
+        restricted = Sets.newHashSet();
+        listeners = Lists.newCopyOnWriteArrayList();
+    }
+
+    public void setDefaultLimits(FilterLimits value) {
+        checkNotNull(value, "Invalid limits");
+
+        synchronized (this) {
+            defaultLimits.copyFrom(value);
+        }
+        notifyAllChanged();
+    }
+
+    public void setLimits(String instrumentId, String portfolioId, FilterLimits value) {
+        checkNotNull(value, "Invalid limits");
+        FilterLimits copy = new FilterLimits();
+        copy.copyFrom(value);
+
+        synchronized (this) {
+            limits.put(instrumentId, portfolioId, copy);
+        }
+        notifyChanged(instrumentId);
+    }
+
+    public void removeLimits(String instrumentId, String portfolioId) {
+        synchronized (this) {
+            limits.remove(instrumentId, portfolioId);
+        }
+        notifyChanged(instrumentId);
+    }
+
+    public void restrict(String instrumentId) {
+        synchronized (this) {
+            restricted.add(instrumentId);
+        }
+        notifyChanged(instrumentId);
+    }
+
+    public void unrestrict(String instrumentId) {
+        synchronized (this) {
+            restricted.remove(instrumentId);
+        }
+        notifyChanged(instrumentId);
+    }
+
+    @Override
+    public synchronized long getMaxLong(FilterRequest filterRequest) {
+        return limitsFor(filterRequest).getMaxLong();
+    }
+
+    @Override
+    public synchronized double getMaxNotional(FilterRequest filterRequest) {
+        return limitsFor(filterRequest).getMaxNotional();
+    }
+
+    @Override
+    public synchronized long getMaxQuantity(FilterRequest filterRequest) {
+        return limitsFor(filterRequest).getMaxQuantity();
+    }
+
+    @Override
+    public synchronized long getMaxShort(FilterRequest filterRequest) {
+        return limitsFor(filterRequest).getMaxShort();
+    }
+
+    @Override
+    public synchronized double getMaxSpread(FilterRequest filterRequest) {
+        return limitsFor(filterRequest).getMaxSpread();
+    }
+
+    @Override
+    public synchronized double getMaxPrice(FilterRequest filterRequest) {
+        return limitsFor(filterRequest).getMaxPrice();
+    }
+
+    @Override
+    public synchronized double getMinPrice(FilterRequest filterRequest) {
+        return limitsFor(filterRequest).getMinPrice();
+    }
+
+    @Override
+    public synchronized boolean allowShort(FilterRequest filterRequest) {
+        return limitsFor(filterRequest).isAllowShort();
+    }
+
+    /**
+     * Instruments restricted globally plus the request's instrument if its limits mark it as restricted.
+     * @param filterRequest
+     * @return
+     */
+    @Override
+    public synchronized Set<String> getRestrictedList(FilterRequest filterRequest) {
+        if (limitsFor(filterRequest).isRestricted()) {
+            return ImmutableSet.<String>builder().addAll(restricted).add(filterRequest.getInstrumentId()).build();
+        }
+
+        return ImmutableSet.copyOf(restricted);
+    }
+
+    @Override
+    public void registerUpdateListener(FilterParameterListener listener) {
+        listeners.add(listener);
+    }
+
+    private FilterLimits limitsFor(FilterRequest filterRequest) {
+        FilterLimits res = limits.get(filterRequest.getInstrumentId(), filterRequest.getPortfolioId());
+
+        return (res != null) ? res : defaultLimits;
+    }
+
+    private void notifyChanged(String instrumentId) {
+        for (FilterParameterListener listener : listeners) {
+            listener.onParametersChanged(instrumentId);
+        }
+    }
+
+    private void notifyAllChanged() {
+        for (FilterParameterListener listener : listeners) {
+            listener.onAllParametersChanged();
+        }
+    }
+}
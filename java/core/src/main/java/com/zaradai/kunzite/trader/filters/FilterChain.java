@@ -0,0 +1,73 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An instrument's filters fixed in the order they run, built once by the filter manager.
+ */
+public class FilterChain implements Filter {
+    private final Filter[] filters;
+    private final FilterLimitsCache limitsCache;
+
+    FilterChain(List<Filter> filters, FilterLimitsCache limitsCache) {
+        this.filters = filters.toArray(new Filter[filters.size()]);
+        this.limitsCache = limitsCache;
+    }
+
+    @Override
+    public boolean check(OrderRequest orderRequest) {
+        checkNotNull(orderRequest, Constants.INVALID_ORDER_REQUEST);
+
+        for (int i = 0; i < filters.length; i++) {
+            if (!filters[i].check(orderRequest)) {
+                // get out early, the failed filter will do the logging
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Limits have changed, refresh the cached copies on next use.
+     */
+    public void invalidate() {
+        limitsCache.invalidate();
+    }
+
+    FilterLimitsCache getLimitsCache() {
+        return limitsCache;
+    }
+
+    public int size() {
+        return filters.length;
+    }
+
+    public Filter get(int index) {
+        return filters[index];
+    }
+
+    @Override
+    public String getName() {
+        return Constants.FILTER_CHAIN_NAME;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+/**
+ * Limits applying to a single instrument and portfolio held in primitive fields, the default instance places no
+ * restriction on an order.
+ */
+public class FilterLimits {
+    private long maxLong;
+    private long maxShort;
+    private long maxQuantity;
+    private double maxNotional;
+    private double maxSpread;
+    private double maxPrice;
+    private double minPrice;
+    private boolean allowShort;
+    private boolean restricted;
+
+    public FilterLimits() {
+        clear();
+    }
+
+    /**
+     * Reset to the unrestricted limits.
+     */
+    public void clear() {
+        maxLong = Long.MAX_VALUE;
+        maxShort = Long.MIN_VALUE;
+        maxQuantity = Long.MAX_VALUE;
+        maxNotional = Double.MAX_VALUE;
+        maxSpread = Double.MAX_VALUE;
+        maxPrice = Double.MAX_VALUE;
+        minPrice = 0.0;
+        allowShort = true;
+        restricted = false;
+    }
+
+    public void copyFrom(FilterLimits other) {
+        maxLong = other.maxLong;
+        maxShort = other.maxShort;
+        maxQuantity = other.maxQuantity;
+        maxNotional = other.maxNotional;
+        maxSpread = other.maxSpread;
+        maxPrice = other.maxPrice;
+        minPrice = other.minPrice;
+        allowShort = other.allowShort;
+        restricted = other.restricted;
+    }
+
+    /**
+     * Resolve every limit for the request from the parameter manager.
+     * @param source
+     * @param filterRequest
+     */
+    void load(FilterParameterManager source, FilterRequest filterRequest) {
+        maxLong = source.getMaxLong(filterRequest);
+        maxShort = source.getMaxShort(filterRequest);
+        maxQuantity = source.getMaxQuantity(filterRequest);
+        maxNotional = source.getMaxNotional(filterRequest);
+        maxSpread = source.getMaxSpread(filterRequest);
+        maxPrice = source.getMaxPrice(filterRequest);
+        minPrice = source.getMinPrice(filterRequest);
+        allowShort = source.allowShort(filterRequest);
+        restricted = source.getRestrictedList(filterRequest).contains(filterRequest.getInstrumentId());
+    }
+
+    public long getMaxLong() {
+        return maxLong;
+    }
+
+    public void setMaxLong(long maxLong) {
+        this.maxLong = maxLong;
+    }
+
+    public long getMaxShort() {
+        return maxShort;
+    }
+
+    /**
+     * Short positions are negative, the limit is the lowest position allowed.
+     * @param maxShort
+     */
+    public void setMaxShort(long maxShort) {
+        this.maxShort = maxShort;
+    }
+
+    public long getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    public void setMaxQuantity(long maxQuantity) {
+        this.maxQuantity = maxQuantity;
+    }
+
+    public double getMaxNotional() {
+        return maxNotional;
+    }
+
+    public void setMaxNotional(double maxNotional) {
+        this.maxNotional = maxNotional;
+    }
+
+    public double getMaxSpread() {
+        return maxSpread;
+    }
+
+    public void setMaxSpread(double maxSpread) {
+        this.maxSpread = maxSpread;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public boolean isAllowShort() {
+        return allowShort;
+    }
+
+    public void setAllowShort(boolean allowShort) {
+        this.allowShort = allowShort;
+    }
+
+    public boolean isRestricted() {
+        return restricted;
+    }
+
+    public void setRestricted(boolean restricted) {
+        this.restricted = restricted;
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the limits of a single instrument per portfolio so the filters in its chain read primitive fields rather
+ * than asking the parameter manager on every order.  Lookups are made on the trader thread, invalidation may come
+ * from any thread and is picked up by the next lookup of each portfolio.
+ */
+public class FilterLimitsCache implements FilterParameterManager {
+    private final FilterParameterManager source;
+    private final String instrumentId;
+    private final Set<String> restrictedList;
+    private final Map<String, Entry> entries;
+    private final AtomicInteger stamp;
+    private Entry last;
+
+    FilterLimitsCache(FilterParameterManager source, String instrumentId) {
+        this.source = source;
+        this.instrumentId = instrumentId;
+        restrictedList = ImmutableSet.of(instrumentId);
+        entries = Maps.newHashMap();
+        stamp = new AtomicInteger();
+    }
+
+    /**
+     * Mark every cached limit as stale, they are resolved again on next use.
+     */
+    public void invalidate() {
+        stamp.incrementAndGet();
+    }
+
+    /**
+     * Get the limits of the request's portfolio, resolving them from the source if not cached or stale.
+     * @param filterRequest
+     * @return
+     */
+    public FilterLimits getLimits(FilterRequest filterRequest) {
+        String portfolioId = filterRequest.getPortfolioId();
+        int current = stamp.get();
+        Entry res = last;
+        // orders for an instrument mostly come from the same portfolio
+        if (res == null || !res.portfolioId.equals(portfolioId)) {
+            res = entries.get(portfolioId);
+
+            if (res == null) {
+                res = new Entry(portfolioId);
+                entries.put(portfolioId, res);
+            }
+            last = res;
+        }
+
+        if (res.stamp != current) {
+            res.limits.load(source, filterRequest);
+            res.stamp = current;
+        }
+
+        return res.limits;
+    }
+
+    @Override
+    public long getMaxLong(FilterRequest filterRequest) {
+        return isCached(filterRequest) ? getLimits(filterRequest).getMaxLong() : source.getMaxLong(filterRequest);
+    }
+
+    @Override
+    public double getMaxNotional(FilterRequest filterRequest) {
+        return isCached(filterRequest) ? getLimits(filterRequest).getMaxNotional() :
+                source.getMaxNotional(filterRequest);
+    }
+
+    @Override
+    public long getMaxQuantity(FilterRequest filterRequest) {
+        return isCached(filterRequest) ? getLimits(filterRequest).getMaxQuantity() :
+                source.getMaxQuantity(filterRequest);
+    }
+
+    @Override
+    public long getMaxShort(FilterRequest filterRequest) {
+        return isCached(filterRequest) ? getLimits(filterRequest).getMaxShort() : source.getMaxShort(filterRequest);
+    }
+
+    @Override
+    public double getMaxSpread(FilterRequest filterRequest) {
+        return isCached(filterRequest) ? getLimits(filterRequest).getMaxSpread() :
+                source.getMaxSpread(filterRequest);
+    }
+
+    @Override
+    public double getMaxPrice(FilterRequest filterRequest) {
+        return isCached(filterRequest) ? getLimits(filterRequest).getMaxPrice() : source.getMaxPrice(filterRequest);
+    }
+
+    @Override
+    public double getMinPrice(FilterRequest filterRequest) {
+        return isCached(filterRequest) ? getLimits(filterRequest).getMinPrice() : source.getMinPrice(filterRequest);
+    }
+
+    @Override
+    public boolean allowShort(FilterRequest filterRequest) {
+        return isCached(filterRequest) ? getLimits(filterRequest).isAllowShort() : source.allowShort(filterRequest);
+    }
+
+    /**
+     * Only the cached instrument can be restricted by this list, other requests go to the source.
+     * @param filterRequest
+     * @return
+     */
+    @Override
+    public Set<String> getRestrictedList(FilterRequest filterRequest) {
+        if (isCached(filterRequest)) {
+            return getLimits(filterRequest).isRestricted() ? restrictedList : Collections.<String>emptySet();
+        }
+
+        return source.getRestrictedList(filterRequest);
+    }
+
+    @Override
+    public void registerUpdateListener(FilterParameterListener listener) {
+        source.registerUpdateListener(listener);
+    }
+
+    private boolean isCached(FilterRequest filterRequest) {
+        String id = filterRequest.getInstrumentId();
+
+        return id == instrumentId || instrumentId.equals(id);
+    }
+
+    private static final class Entry {
+        private final String portfolioId;
+        private final FilterLimits limits;
+        private int stamp;
+
+        private Entry(String portfolioId) {
+            this.portfolioId = portfolioId;
+            limits = new FilterLimits();
+            stamp = -1;
+        }
+    }
+}
@@ -20,4 +20,11 @@ import com.zaradai.kunzite.trader.instruments.Instrument;
 
 public interface FilterManager {
     Filter createFor(Instrument state);
+
+    /**
+     * Get the batch check applied to all requests processed together for the instrument.
+     * @param instrument
+     * @return the batch filter or null if batch risk is not enabled.
+     */
+    BatchFilter createBatchFor(Instrument instrument);
 }
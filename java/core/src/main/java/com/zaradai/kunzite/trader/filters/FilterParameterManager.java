@@ -30,4 +30,5 @@ public interface FilterParameterManager {
     double getMinPrice(FilterRequest filterRequest);
     boolean allowShort(FilterRequest filterRequest);
     Set<String> getRestrictedList(FilterRequest filterRequest);
+    void registerUpdateListener(FilterParameterListener listener);
 }
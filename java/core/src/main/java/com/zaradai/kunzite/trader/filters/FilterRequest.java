@@ -19,20 +19,36 @@ import com.google.common.base.Strings;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+/**
+ * The instrument and portfolio whose limits are looked up.  Filters keep one request each and set it on every check
+ * so a lookup needs no temporary key, such a request belongs to the filter and is only used on the filter's thread.
+ */
 public class FilterRequest {
     private String instrumentId;
     private String portfolioId;
 
-    private FilterRequest(String instrumentId, String portfolioId) {
-        this.instrumentId = instrumentId;
-        this.portfolioId = portfolioId;
+    private FilterRequest() {
     }
 
     public static FilterRequest newInstance(String instrumentId, String portfolioId) {
+        return newInstance().set(instrumentId, portfolioId);
+    }
+
+    /**
+     * An empty request to be set before each lookup.
+     * @return
+     */
+    public static FilterRequest newInstance() {
+        return new FilterRequest();
+    }
+
+    public FilterRequest set(String instrumentId, String portfolioId) {
         checkArgument(!Strings.isNullOrEmpty(instrumentId), "Invalid instrument specified");
         checkArgument(!Strings.isNullOrEmpty(portfolioId), "Invalid portfolio specified");
+        this.instrumentId = instrumentId;
+        this.portfolioId = portfolioId;
 
-        return new FilterRequest(instrumentId, portfolioId);
+        return this;
     }
 
     public String getInstrumentId() {
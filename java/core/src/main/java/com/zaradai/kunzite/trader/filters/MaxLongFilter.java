@@ -29,6 +29,7 @@ public class MaxLongFilter implements Filter {
     private final ContextLogger logger;
     private final TradingStateResolver stateResolver;
     private final FilterParameterManager filterParameterManager;
+    private final FilterRequest filterRequest;
 
     @Inject
     MaxLongFilter(ContextLogger logger, TradingStateResolver stateResolver,
@@ -36,6 +37,7 @@ public class MaxLongFilter implements Filter {
         this.logger = logger;
         this.stateResolver = stateResolver;
         this.filterParameterManager = filterParameterManager;
+        filterRequest = FilterRequest.newInstance();
     }
 
     @Override
@@ -64,7 +66,7 @@ public class MaxLongFilter implements Filter {
     }
 
     private long getLimit(OrderRequest request) {
-        FilterRequest filterRequest = FilterRequest.newInstance(request.getInstrumentId(),request.getPortfolioId());
+        filterRequest.set(request.getInstrumentId(), request.getPortfolioId());
         return filterParameterManager.getMaxLong(filterRequest);
     }
 
@@ -29,6 +29,7 @@ public class MaxNotionalFilter implements Filter {
     private final ContextLogger logger;
     private final InstrumentResolver instrumentResolver;
     private final FilterParameterManager filterParameterManager;
+    private final FilterRequest filterRequest;
 
     @Inject
     MaxNotionalFilter(ContextLogger logger, InstrumentResolver instrumentResolver,
@@ -36,6 +37,7 @@ public class MaxNotionalFilter implements Filter {
         this.logger = logger;
         this.instrumentResolver = instrumentResolver;
         this.filterParameterManager = filterParameterManager;
+        filterRequest = FilterRequest.newInstance();
     }
 
     @Override
@@ -57,7 +59,7 @@ public class MaxNotionalFilter implements Filter {
     }
 
     private double getLimit(OrderRequest request) {
-        FilterRequest filterRequest = FilterRequest.newInstance(request.getInstrumentId(),request.getPortfolioId());
+        filterRequest.set(request.getInstrumentId(), request.getPortfolioId());
         return filterParameterManager.getMaxNotional(filterRequest);
     }
 
@@ -26,11 +26,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class MaxQuantityFilter implements Filter {
     private final ContextLogger logger;
     private final FilterParameterManager filterParameterManager;
+    private final FilterRequest filterRequest;
 
     @Inject
     MaxQuantityFilter(ContextLogger logger, FilterParameterManager filterParameterManager) {
         this.logger = logger;
         this.filterParameterManager = filterParameterManager;
+        filterRequest = FilterRequest.newInstance();
     }
 
     @Override
@@ -50,7 +52,7 @@ public class MaxQuantityFilter implements Filter {
     }
 
     private long getLimit(OrderRequest request) {
-        FilterRequest filterRequest = FilterRequest.newInstance(request.getInstrumentId(),request.getPortfolioId());
+        filterRequest.set(request.getInstrumentId(), request.getPortfolioId());
         return filterParameterManager.getMaxQuantity(filterRequest);
     }
 
@@ -26,11 +26,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class PriceRangeFilter implements Filter {
     private final ContextLogger logger;
     private final FilterParameterManager filterParameterManager;
+    private final FilterRequest filterRequest;
 
     @Inject
     PriceRangeFilter(ContextLogger logger, FilterParameterManager filterParameterManager) {
         this.logger = logger;
         this.filterParameterManager = filterParameterManager;
+        filterRequest = FilterRequest.newInstance();
     }
 
     @Override
@@ -60,12 +62,12 @@ public class PriceRangeFilter implements Filter {
     }
 
     private double getMinPriceLimit(OrderRequest request) {
-        FilterRequest filterRequest = FilterRequest.newInstance(request.getInstrumentId(),request.getPortfolioId());
+        filterRequest.set(request.getInstrumentId(), request.getPortfolioId());
         return filterParameterManager.getMinPrice(filterRequest);
     }
 
     private double getMaxPriceLimit(OrderRequest request) {
-        FilterRequest filterRequest = FilterRequest.newInstance(request.getInstrumentId(),request.getPortfolioId());
+        filterRequest.set(request.getInstrumentId(), request.getPortfolioId());
         return filterParameterManager.getMaxPrice(filterRequest);
     }
 
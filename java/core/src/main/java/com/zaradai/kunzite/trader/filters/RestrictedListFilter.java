@@ -28,11 +28,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class RestrictedListFilter implements Filter {
     private final ContextLogger logger;
     private final FilterParameterManager filterParameterManager;
+    private final FilterRequest filterRequest;
 
     @Inject
     RestrictedListFilter(ContextLogger logger, FilterParameterManager filterParameterManager) {
         this.logger = logger;
         this.filterParameterManager = filterParameterManager;
+        filterRequest = FilterRequest.newInstance();
     }
 
     @Override
@@ -59,7 +61,7 @@ public class RestrictedListFilter implements Filter {
     }
 
     private Set<String> getRestrictedList(OrderRequest request) {
-        FilterRequest filterRequest = FilterRequest.newInstance(request.getInstrumentId(),request.getPortfolioId());
+        filterRequest.set(request.getInstrumentId(), request.getPortfolioId());
         return filterParameterManager.getRestrictedList(filterRequest);
     }
 
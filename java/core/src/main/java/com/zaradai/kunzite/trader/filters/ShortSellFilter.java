@@ -29,6 +29,7 @@ public class ShortSellFilter implements Filter {
     private final ContextLogger logger;
     private final TradingStateResolver stateResolver;
     private final FilterParameterManager filterParameterManager;
+    private final FilterRequest filterRequest;
 
     @Inject
     ShortSellFilter(ContextLogger logger, TradingStateResolver stateResolver,
@@ -36,6 +37,7 @@ public class ShortSellFilter implements Filter {
         this.logger = logger;
         this.stateResolver = stateResolver;
         this.filterParameterManager = filterParameterManager;
+        filterRequest = FilterRequest.newInstance();
     }
 
     @Override
@@ -72,7 +74,7 @@ public class ShortSellFilter implements Filter {
     }
 
     private boolean getAllowShort(OrderRequest request) {
-        FilterRequest filterRequest = FilterRequest.newInstance(request.getInstrumentId(),request.getPortfolioId());
+        filterRequest.set(request.getInstrumentId(), request.getPortfolioId());
         return filterParameterManager.allowShort(filterRequest);
     }
 
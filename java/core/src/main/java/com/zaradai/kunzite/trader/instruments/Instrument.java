@@ -26,6 +26,7 @@ public abstract class Instrument {
     private double multiplier;
     private int lotSize;
     private String marketId;
+    private int index = SymbolRegistry.UNKNOWN_INDEX;
 
     public abstract InstrumentType getType();
 
@@ -89,4 +90,16 @@ public abstract class Instrument {
     public void setMarketId(String marketId) {
         this.marketId = marketId;
     }
+
+    /**
+     * Dense index interned from the id at build time, used in place of the id for hot lookups.
+     * @return
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
 }
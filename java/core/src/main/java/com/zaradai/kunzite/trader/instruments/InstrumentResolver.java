@@ -20,4 +20,5 @@ package com.zaradai.kunzite.trader.instruments;
  */
 public interface InstrumentResolver {
     Instrument resolveInstrument(String instrumentId);
+    Instrument resolveInstrument(int instrumentIndex);
 }
@@ -19,13 +19,17 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 
 public class Market {
+    public static final int DEFAULT_BOOK_DEPTH = 10;
+
     private final TickCalculator tickCalculator;
     private final String id;
+    private int bookDepth;
 
     @Inject
     Market(@Assisted String id) {
         this.id = id;
         tickCalculator = new TickCalculator();
+        bookDepth = DEFAULT_BOOK_DEPTH;
     }
 
     public boolean validTick(double price) {
@@ -36,6 +40,18 @@ public class Market {
         return id;
     }
 
+    public int getBookDepth() {
+        return bookDepth;
+    }
+
+    public void setBookDepth(int bookDepth) {
+        this.bookDepth = bookDepth;
+    }
+
+    public TickCalculator getTickCalculator() {
+        return tickCalculator;
+    }
+
     public void addTickDefinition(TickDefinition tickDefinition) {
         tickCalculator.addDefinition(tickDefinition);
     }
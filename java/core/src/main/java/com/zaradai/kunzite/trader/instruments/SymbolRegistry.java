@@ -0,0 +1,95 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.instruments;
+
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+/**
+ * Interns instrument symbols into dense int indexes so hot paths can resolve by array lookup rather than hashing
+ * strings.  Indexes are assigned once, in order of first registration, and never reused.  Interning is expected at
+ * build time but is safe to call from any thread, lookups are lock free.
+ */
+public class SymbolRegistry {
+    public static final int UNKNOWN_INDEX = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ConcurrentMap<String, Integer> indexBySymbol;
+    private volatile String[] symbolByIndex;
+    private volatile int size;
+
+    public SymbolRegistry() {
+        indexBySymbol = Maps.newConcurrentMap();
+        symbolByIndex = new String[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Get the index of the symbol, assigning the next free index on first use.
+     * @param symbol
+     * @return
+     */
+    public synchronized int intern(String symbol) {
+        checkArgument(!isNullOrEmpty(symbol), "Invalid symbol");
+        Integer existing = indexBySymbol.get(symbol);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        int res = size;
+
+        if (res == symbolByIndex.length) {
+            symbolByIndex = Arrays.copyOf(symbolByIndex, res * 2);
+        }
+        symbolByIndex[res] = symbol;
+        indexBySymbol.put(symbol, res);
+        // publish the new size last so lock free readers never see an unset slot
+        size = res + 1;
+
+        return res;
+    }
+
+    /**
+     * @param symbol
+     * @return index or UNKNOWN_INDEX if the symbol has not been interned
+     */
+    public int indexOf(String symbol) {
+        Integer res = (symbol != null) ? indexBySymbol.get(symbol) : null;
+
+        return (res != null) ? res : UNKNOWN_INDEX;
+    }
+
+    /**
+     * @param index
+     * @return symbol or null if no symbol has been interned at that index
+     */
+    public String symbolOf(int index) {
+        // read size before the array, any slot below it is then visible
+        int count = size;
+        String[] symbols = symbolByIndex;
+
+        return (index >= 0 && index < count) ? symbols[index] : null;
+    }
+
+    public int size() {
+        return size;
+    }
+}
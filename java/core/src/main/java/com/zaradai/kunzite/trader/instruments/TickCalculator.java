@@ -25,9 +25,12 @@ import static java.lang.Math.round;
 public final class TickCalculator {
     private final List<TickDefinition> ticks;
     private final static double EPSILON = 0.00001;
+    // tick index of each definition's min, ascending with the sorted definitions
+    private long[] offsets;
 
     public TickCalculator() {
         ticks = createTickList();
+        offsets = new long[0];
     }
 
     private List<TickDefinition> createTickList() {
@@ -41,6 +44,17 @@ public final class TickCalculator {
 
     private void sort() {
         Collections.sort(ticks, TickDefinition.TickComparator);
+        calculateOffsets();
+    }
+
+    private void calculateOffsets() {
+        offsets = new long[ticks.size()];
+
+        for (int i = 1; i < offsets.length; i++) {
+            TickDefinition previous = ticks.get(i - 1);
+            // count the ticks of the previous band up to this band's min, gaps are counted in the previous tick
+            offsets[i] = offsets[i - 1] + round((ticks.get(i).getMin() - previous.getMin()) / previous.getValue());
+        }
     }
 
     public TickDefinition getTickDefinitionFor(double value) {
@@ -75,7 +89,46 @@ public final class TickCalculator {
         return false;
     }
 
+    /**
+     * Convert a price to its tick index, an ascending integer key counting ticks across all the definitions.  Prices
+     * outside the definitions are extrapolated from the nearest lower definition, and at a fixed fine resolution
+     * when no definitions have been added.
+     * @param value
+     * @return
+     */
+    public long toTicks(double value) {
+        if (ticks.isEmpty()) {
+            return round(value / EPSILON);
+        }
+
+        int band = bandFor(value);
+        TickDefinition tickDefinition = ticks.get(band);
+
+        return offsets[band] + round((value - tickDefinition.getMin()) / tickDefinition.getValue());
+    }
+
+    /**
+     * Last definition starting at or below the value, the first if the value is below them all.
+     */
+    private int bandFor(double value) {
+        int from = 0;
+        int until = ticks.size();
+
+        while (from < until) {
+            int mid = (from + until) >>> 1;
+
+            if (value < ticks.get(mid).getMin()) {
+                until = mid;
+            } else {
+                from = mid + 1;
+            }
+        }
+
+        return (from > 0) ? from - 1 : 0;
+    }
+
     public void reset() {
         ticks.clear();
+        offsets = new long[0];
     }
 }
@@ -0,0 +1,243 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.marketdata;
+
+import com.zaradai.kunzite.trader.instruments.Instrument;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Market book holding each side as parallel primitive price and size arrays.  Depth is fixed at construction and
+ * the populated depth of each side is tracked as the highest level set, so depth queries are O(1) and a snapshot is
+ * a handful of array copies.
+ */
+public class ArrayMarketBook implements MarketBook {
+    private final Instrument instrument;
+    private final int maxDepth;
+    private final double[] bidPrices;
+    private final long[] bidSizes;
+    private final double[] askPrices;
+    private final long[] askSizes;
+    private final MarketBookItem lastTraded;
+    private int bidDepth;
+    private int askDepth;
+    private double prevClose;
+    private double open;
+    private double high;
+    private double low;
+
+    public ArrayMarketBook(Instrument instrument, int maxDepth) {
+        checkArgument(maxDepth > 0, "Invalid book depth");
+
+        this.instrument = instrument;
+        this.maxDepth = maxDepth;
+        bidPrices = new double[maxDepth];
+        bidSizes = new long[maxDepth];
+        askPrices = new double[maxDepth];
+        askSizes = new long[maxDepth];
+        lastTraded = new MarketBookItem(0L, 0.0);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public String getInstrumentId() {
+        return instrument.getId();
+    }
+
+    @Override
+    public MarketBookItem getLastTrade() {
+        return lastTraded;
+    }
+
+    @Override
+    public double getLastTradedPrice() {
+        return lastTraded.getPrice();
+    }
+
+    @Override
+    public long getLastTradedSize() {
+        return lastTraded.getSize();
+    }
+
+    @Override
+    public double bestBid() {
+        return getBid(0);
+    }
+
+    @Override
+    public long bestBidSize() {
+        return getBidSize(0);
+    }
+
+    @Override
+    public double bestAsk() {
+        return getAsk(0);
+    }
+
+    @Override
+    public long bestAskSize() {
+        return getAskSize(0);
+    }
+
+    @Override
+    public double getBid(int level) {
+        return (level >= 0 && level < bidDepth) ? bidPrices[level] : 0.0;
+    }
+
+    @Override
+    public long getBidSize(int level) {
+        return (level >= 0 && level < bidDepth) ? bidSizes[level] : 0;
+    }
+
+    @Override
+    public double getAsk(int level) {
+        return (level >= 0 && level < askDepth) ? askPrices[level] : 0.0;
+    }
+
+    @Override
+    public long getAskSize(int level) {
+        return (level >= 0 && level < askDepth) ? askSizes[level] : 0;
+    }
+
+    @Override
+    public int getAskDepth() {
+        return askDepth;
+    }
+
+    @Override
+    public int getBidDepth() {
+        return bidDepth;
+    }
+
+    @Override
+    public double getPrevClose() {
+        return prevClose;
+    }
+
+    @Override
+    public double getOpen() {
+        return open;
+    }
+
+    @Override
+    public double getHigh() {
+        return high;
+    }
+
+    @Override
+    public double getLow() {
+        return low;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(bidPrices, 0, bidDepth, 0.0);
+        Arrays.fill(bidSizes, 0, bidDepth, 0L);
+        Arrays.fill(askPrices, 0, askDepth, 0.0);
+        Arrays.fill(askSizes, 0, askDepth, 0L);
+        bidDepth = 0;
+        askDepth = 0;
+    }
+
+    @Override
+    public void setSize(Side side, int depth, long size) {
+        if (!validLevel(depth)) {
+            return;
+        }
+
+        if (side == Side.Bid) {
+            bidSizes[depth] = size;
+            bidDepth = Math.max(bidDepth, depth + 1);
+        } else {
+            askSizes[depth] = size;
+            askDepth = Math.max(askDepth, depth + 1);
+        }
+    }
+
+    @Override
+    public void setPrice(Side side, int depth, double price) {
+        if (!validLevel(depth)) {
+            return;
+        }
+
+        if (side == Side.Bid) {
+            bidPrices[depth] = price;
+            bidDepth = Math.max(bidDepth, depth + 1);
+        } else {
+            askPrices[depth] = price;
+            askDepth = Math.max(askDepth, depth + 1);
+        }
+    }
+
+    @Override
+    public void setPrevClose(double value) {
+        prevClose = value;
+    }
+
+    @Override
+    public void setOpen(double value) {
+        open = value;
+    }
+
+    @Override
+    public void setHigh(double value) {
+        high = value;
+    }
+
+    @Override
+    public void setLow(double value) {
+        low = value;
+    }
+
+    @Override
+    public MarketBook snapshot() {
+        ArrayMarketBook res = new ArrayMarketBook(instrument, maxDepth);
+        copyTo(res);
+
+        return res;
+    }
+
+    /**
+     * Copy the state of this book into target without allocating, target must have the same maximum depth.
+     * @param target
+     */
+    public void copyTo(ArrayMarketBook target) {
+        checkArgument(target.maxDepth == maxDepth, "Snapshot depth must match");
+
+        target.reset();
+        System.arraycopy(bidPrices, 0, target.bidPrices, 0, bidDepth);
+        System.arraycopy(bidSizes, 0, target.bidSizes, 0, bidDepth);
+        System.arraycopy(askPrices, 0, target.askPrices, 0, askDepth);
+        System.arraycopy(askSizes, 0, target.askSizes, 0, askDepth);
+        target.bidDepth = bidDepth;
+        target.askDepth = askDepth;
+        target.prevClose = prevClose;
+        target.open = open;
+        target.high = high;
+        target.low = low;
+        target.lastTraded.setPrice(lastTraded.getPrice());
+        target.lastTraded.setSize(lastTraded.getSize());
+    }
+
+    private boolean validLevel(int level) {
+        return (level >= 0 && level < maxDepth);
+    }
+}
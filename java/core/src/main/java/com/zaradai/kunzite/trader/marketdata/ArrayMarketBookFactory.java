@@ -0,0 +1,51 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.marketdata;
+
+import com.google.common.base.Strings;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.Market;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+
+/**
+ * Creates array backed books sized to the depth configured on the instrument's market.
+ */
+public class ArrayMarketBookFactory implements MarketBookFactory {
+    private final MarketResolver marketResolver;
+
+    @Inject
+    ArrayMarketBookFactory(MarketResolver marketResolver) {
+        this.marketResolver = marketResolver;
+    }
+
+    @Override
+    public MarketBook create(Instrument instrument) {
+        return new ArrayMarketBook(instrument, getDepth(instrument));
+    }
+
+    private int getDepth(Instrument instrument) {
+        if (!Strings.isNullOrEmpty(instrument.getMarketId())) {
+            Market market = marketResolver.resolveMarket(instrument.getMarketId());
+
+            if (market != null) {
+                return market.getBookDepth();
+            }
+        }
+
+        return Market.DEFAULT_BOOK_DEPTH;
+    }
+}
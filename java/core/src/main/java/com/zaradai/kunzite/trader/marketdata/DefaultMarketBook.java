@@ -232,6 +232,28 @@ public class DefaultMarketBook implements MarketBook {
         low = value;
     }
 
+    @Override
+    public MarketBook snapshot() {
+        DefaultMarketBook res = new DefaultMarketBook(instrument);
+
+        for (int i = 0; i < MAX_BOOK_DEPTH; ++i) {
+            res.bids[i] = copyOf(bids[i]);
+            res.asks[i] = copyOf(asks[i]);
+        }
+        res.prevClose = prevClose;
+        res.open = open;
+        res.high = high;
+        res.low = low;
+        res.lastTraded.setPrice(lastTraded.getPrice());
+        res.lastTraded.setSize(lastTraded.getSize());
+
+        return res;
+    }
+
+    private MarketBookItem copyOf(MarketBookItem item) {
+        return (item != null) ? new MarketBookItem(item.getSize(), item.getPrice()) : null;
+    }
+
     private MarketBookItem getBidItem(int level) {
         if (validLevel(level)) {
             return bids[level];
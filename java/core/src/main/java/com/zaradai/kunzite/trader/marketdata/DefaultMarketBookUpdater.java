@@ -18,213 +18,199 @@ package com.zaradai.kunzite.trader.marketdata;
 import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
 import com.zaradai.kunzite.trader.events.MarketData;
 import com.zaradai.kunzite.trader.events.MarketDataField;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import org.joda.time.DateTime;
 
 public class DefaultMarketBookUpdater implements MarketBookUpdater {
+    private static final int NONE = 0;
+    private static final int BEST_PRICE = 1;
+    private static final int BEST_SIZE = 1 << 1;
+    private static final int DEPTH = 1 << 2;
+    private static final int LAST_TRADE = 1 << 3;
+    private static final int OHLC = 1 << 4;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
     @Override
     public MarketBookUpdateEvent update(MarketBook book, MarketData marketData) {
-        boolean bestPriceChanged = false;
-        boolean bestSizeChanged = false;
-        boolean depthChanged = false;
-        boolean lastTradeUpdated = false;
-        boolean ohlcChanged = false;
+        int changed = NONE;
 
         for (MarketDataField field : marketData.getFields()) {
-            switch (field.getType()) {
-                case BEST_BID:
-                    book.setPrice(Side.Bid, 0, field.getDoubleValue());
-                    bestPriceChanged = true;
-                    break;
-                case BEST_BID2:
-                    book.setPrice(Side.Bid, 1, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_BID3:
-                    book.setPrice(Side.Bid, 2, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_BID4:
-                    book.setPrice(Side.Bid, 3, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_BID5:
-                    book.setPrice(Side.Bid, 4, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_BID6:
-                    book.setPrice(Side.Bid, 5, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_BID7:
-                    book.setPrice(Side.Bid, 6, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_BID8:
-                    book.setPrice(Side.Bid, 7, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_BID9:
-                    book.setPrice(Side.Bid, 8, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_BID10:
-                    book.setPrice(Side.Bid, 9, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_ASK:
-                    book.setPrice(Side.Ask, 0, field.getDoubleValue());
-                    bestPriceChanged = true;
-                    break;
-                case BEST_ASK2:
-                    book.setPrice(Side.Ask, 1, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_ASK3:
-                    book.setPrice(Side.Ask, 2, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_ASK4:
-                    book.setPrice(Side.Ask, 3, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_ASK5:
-                    book.setPrice(Side.Ask, 4, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_ASK6:
-                    book.setPrice(Side.Ask, 5, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_ASK7:
-                    book.setPrice(Side.Ask, 6, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_ASK8:
-                    book.setPrice(Side.Ask, 7, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_ASK9:
-                    book.setPrice(Side.Ask, 8, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BEST_ASK10:
-                    book.setPrice(Side.Ask, 9, field.getDoubleValue());
-                    depthChanged = true;
-                    break;
-                case BID_SIZE:
-                    book.setSize(Side.Bid, 0, field.getLongValue());
-                    bestSizeChanged = true;
-                    break;
-                case BID2_SIZE:
-                    book.setSize(Side.Bid, 1, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case BID3_SIZE:
-                    book.setSize(Side.Bid, 2, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case BID4_SIZE:
-                    book.setSize(Side.Bid, 3, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case BID5_SIZE:
-                    book.setSize(Side.Bid, 4, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case BID6_SIZE:
-                    book.setSize(Side.Bid, 5, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case BID7_SIZE:
-                    book.setSize(Side.Bid, 6, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case BID8_SIZE:
-                    book.setSize(Side.Bid, 7, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case BID9_SIZE:
-                    book.setSize(Side.Bid, 8, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case BID10_SIZE:
-                    book.setSize(Side.Bid, 9, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case ASK_SIZE:
-                    book.setSize(Side.Ask, 0, field.getLongValue());
-                    bestSizeChanged = true;
-                    break;
-                case ASK2_SIZE:
-                    book.setSize(Side.Ask, 1, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case ASK3_SIZE:
-                    book.setSize(Side.Ask, 2, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case ASK4_SIZE:
-                    book.setSize(Side.Ask, 3, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case ASK5_SIZE:
-                    book.setSize(Side.Ask, 4, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case ASK6_SIZE:
-                    book.setSize(Side.Ask, 5, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case ASK7_SIZE:
-                    book.setSize(Side.Ask, 6, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case ASK8_SIZE:
-                    book.setSize(Side.Ask, 7, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case ASK9_SIZE:
-                    book.setSize(Side.Ask, 8, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case ASK10_SIZE:
-                    book.setSize(Side.Ask, 9, field.getLongValue());
-                    depthChanged = true;
-                    break;
-                case TRADE_PRICE:
-                    book.getLastTrade().setPrice(field.getDoubleValue());
-                    lastTradeUpdated = true;
-                    break;
-                case TRADE_SIZE:
-                    book.getLastTrade().setSize(field.getLongValue());
-                    lastTradeUpdated = true;
-                    break;
-                case PREV_CLOSE:
-                    book.setPrevClose(field.getDoubleValue());
-                    ohlcChanged = true;
-                    break;
-                case OPEN:
-                    book.setOpen(field.getDoubleValue());
-                    ohlcChanged = true;
-                    break;
-                case HIGH:
-                    book.setHigh(field.getDoubleValue());
-                    ohlcChanged = true;
-                    break;
-                case LOW:
-                    book.setLow(field.getDoubleValue());
-                    ohlcChanged = true;
-                    break;
-            }
+            changed |= apply(book, field.getType(), field.getDoubleValue(), field.getLongValue());
+        }
+
+        return createEvent(book, marketData.getTimestamp(), changed);
+    }
+
+    @Override
+    public MarketBookUpdateEvent update(MarketBook book, MarketDataRecord record) {
+        int changed = NONE;
+
+        for (int i = 0; i < record.size(); ++i) {
+            changed |= apply(book, record.getType(i), record.getDoubleValue(i), record.getLongValue(i));
         }
 
+        return createEvent(book, new DateTime(record.getTimestampNanos() / NANOS_PER_MILLI), changed);
+    }
+
+    /**
+     * Stamped with the time of the data rather than the clock so replayed updates carry their original time.
+     */
+    private MarketBookUpdateEvent createEvent(MarketBook book, DateTime timestamp, int changed) {
         return MarketBookUpdateEvent.builder()
                 .instrument(book.getInstrumentId())
                 .book(book)
-                .bestPrice(bestPriceChanged)
-                .bestSize(bestSizeChanged)
-                .depth(depthChanged)
-                .lastTrade(lastTradeUpdated)
-                .ohlc(ohlcChanged)
+                .timestamp(timestamp)
+                .bestPrice((changed & BEST_PRICE) != 0)
+                .bestSize((changed & BEST_SIZE) != 0)
+                .depth((changed & DEPTH) != 0)
+                .lastTrade((changed & LAST_TRADE) != 0)
+                .ohlc((changed & OHLC) != 0)
                 .build();
     }
+
+    private int apply(MarketBook book, MarketDataFieldType type, double doubleValue, long longValue) {
+        switch (type) {
+            case BEST_BID:
+                book.setPrice(Side.Bid, 0, doubleValue);
+                return BEST_PRICE;
+            case BEST_BID2:
+                book.setPrice(Side.Bid, 1, doubleValue);
+                return DEPTH;
+            case BEST_BID3:
+                book.setPrice(Side.Bid, 2, doubleValue);
+                return DEPTH;
+            case BEST_BID4:
+                book.setPrice(Side.Bid, 3, doubleValue);
+                return DEPTH;
+            case BEST_BID5:
+                book.setPrice(Side.Bid, 4, doubleValue);
+                return DEPTH;
+            case BEST_BID6:
+                book.setPrice(Side.Bid, 5, doubleValue);
+                return DEPTH;
+            case BEST_BID7:
+                book.setPrice(Side.Bid, 6, doubleValue);
+                return DEPTH;
+            case BEST_BID8:
+                book.setPrice(Side.Bid, 7, doubleValue);
+                return DEPTH;
+            case BEST_BID9:
+                book.setPrice(Side.Bid, 8, doubleValue);
+                return DEPTH;
+            case BEST_BID10:
+                book.setPrice(Side.Bid, 9, doubleValue);
+                return DEPTH;
+            case BEST_ASK:
+                book.setPrice(Side.Ask, 0, doubleValue);
+                return BEST_PRICE;
+            case BEST_ASK2:
+                book.setPrice(Side.Ask, 1, doubleValue);
+                return DEPTH;
+            case BEST_ASK3:
+                book.setPrice(Side.Ask, 2, doubleValue);
+                return DEPTH;
+            case BEST_ASK4:
+                book.setPrice(Side.Ask, 3, doubleValue);
+                return DEPTH;
+            case BEST_ASK5:
+                book.setPrice(Side.Ask, 4, doubleValue);
+                return DEPTH;
+            case BEST_ASK6:
+                book.setPrice(Side.Ask, 5, doubleValue);
+                return DEPTH;
+            case BEST_ASK7:
+                book.setPrice(Side.Ask, 6, doubleValue);
+                return DEPTH;
+            case BEST_ASK8:
+                book.setPrice(Side.Ask, 7, doubleValue);
+                return DEPTH;
+            case BEST_ASK9:
+                book.setPrice(Side.Ask, 8, doubleValue);
+                return DEPTH;
+            case BEST_ASK10:
+                book.setPrice(Side.Ask, 9, doubleValue);
+                return DEPTH;
+            case BID_SIZE:
+                book.setSize(Side.Bid, 0, longValue);
+                return BEST_SIZE;
+            case BID2_SIZE:
+                book.setSize(Side.Bid, 1, longValue);
+                return DEPTH;
+            case BID3_SIZE:
+                book.setSize(Side.Bid, 2, longValue);
+                return DEPTH;
+            case BID4_SIZE:
+                book.setSize(Side.Bid, 3, longValue);
+                return DEPTH;
+            case BID5_SIZE:
+                book.setSize(Side.Bid, 4, longValue);
+                return DEPTH;
+            case BID6_SIZE:
+                book.setSize(Side.Bid, 5, longValue);
+                return DEPTH;
+            case BID7_SIZE:
+                book.setSize(Side.Bid, 6, longValue);
+                return DEPTH;
+            case BID8_SIZE:
+                book.setSize(Side.Bid, 7, longValue);
+                return DEPTH;
+            case BID9_SIZE:
+                book.setSize(Side.Bid, 8, longValue);
+                return DEPTH;
+            case BID10_SIZE:
+                book.setSize(Side.Bid, 9, longValue);
+                return DEPTH;
+            case ASK_SIZE:
+                book.setSize(Side.Ask, 0, longValue);
+                return BEST_SIZE;
+            case ASK2_SIZE:
+                book.setSize(Side.Ask, 1, longValue);
+                return DEPTH;
+            case ASK3_SIZE:
+                book.setSize(Side.Ask, 2, longValue);
+                return DEPTH;
+            case ASK4_SIZE:
+                book.setSize(Side.Ask, 3, longValue);
+                return DEPTH;
+            case ASK5_SIZE:
+                book.setSize(Side.Ask, 4, longValue);
+                return DEPTH;
+            case ASK6_SIZE:
+                book.setSize(Side.Ask, 5, longValue);
+                return DEPTH;
+            case ASK7_SIZE:
+                book.setSize(Side.Ask, 6, longValue);
+                return DEPTH;
+            case ASK8_SIZE:
+                book.setSize(Side.Ask, 7, longValue);
+                return DEPTH;
+            case ASK9_SIZE:
+                book.setSize(Side.Ask, 8, longValue);
+                return DEPTH;
+            case ASK10_SIZE:
+                book.setSize(Side.Ask, 9, longValue);
+                return DEPTH;
+            case TRADE_PRICE:
+                book.getLastTrade().setPrice(doubleValue);
+                return LAST_TRADE;
+            case TRADE_SIZE:
+                book.getLastTrade().setSize(longValue);
+                return LAST_TRADE;
+            case PREV_CLOSE:
+                book.setPrevClose(doubleValue);
+                return OHLC;
+            case OPEN:
+                book.setOpen(doubleValue);
+                return OHLC;
+            case HIGH:
+                book.setHigh(doubleValue);
+                return OHLC;
+            case LOW:
+                book.setLow(doubleValue);
+                return OHLC;
+        }
+
+        return NONE;
+    }
 }
@@ -43,4 +43,9 @@ public interface MarketBook {
     void setHigh(double value);
     void setLow(double value);
 
+    /**
+     * Take an independent copy of the current state of the book.
+     * @return
+     */
+    MarketBook snapshot();
 }
@@ -17,7 +17,9 @@ package com.zaradai.kunzite.trader.marketdata;
 
 import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
 import com.zaradai.kunzite.trader.events.MarketData;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
 
 public interface MarketBookUpdater {
     MarketBookUpdateEvent update(MarketBook book, MarketData marketData);
+    MarketBookUpdateEvent update(MarketBook book, MarketDataRecord record);
 }
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.marketdata;
+
+import com.google.common.collect.Maps;
+import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
+import com.zaradai.kunzite.trader.events.MarketData;
+import com.zaradai.kunzite.trader.events.MarketDataField;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+
+import java.util.Map;
+
+import static com.zaradai.kunzite.trader.events.MarketDataFieldType.*;
+
+/**
+ * Updater driven by a table, indexed by field type ordinal, describing what each field sets on the book.  Changed
+ * depth levels are tracked as a bit per level for each side and a single update event is reused per book, so an
+ * update does not allocate once the book has been seen.
+ */
+public class TableMarketBookUpdater implements MarketBookUpdater {
+    private static final int PRICE = 0;
+    private static final int SIZE = 1;
+    private static final int TRADE_PRICE_KIND = 2;
+    private static final int TRADE_SIZE_KIND = 3;
+    private static final int PREV_CLOSE_KIND = 4;
+    private static final int OPEN_KIND = 5;
+    private static final int HIGH_KIND = 6;
+    private static final int LOW_KIND = 7;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private static final MarketDataFieldType[] BID_PRICES = {BEST_BID, BEST_BID2, BEST_BID3, BEST_BID4, BEST_BID5,
+            BEST_BID6, BEST_BID7, BEST_BID8, BEST_BID9, BEST_BID10};
+    private static final MarketDataFieldType[] ASK_PRICES = {BEST_ASK, BEST_ASK2, BEST_ASK3, BEST_ASK4, BEST_ASK5,
+            BEST_ASK6, BEST_ASK7, BEST_ASK8, BEST_ASK9, BEST_ASK10};
+    private static final MarketDataFieldType[] BID_SIZES = {BID_SIZE, BID2_SIZE, BID3_SIZE, BID4_SIZE, BID5_SIZE,
+            BID6_SIZE, BID7_SIZE, BID8_SIZE, BID9_SIZE, BID10_SIZE};
+    private static final MarketDataFieldType[] ASK_SIZES = {ASK_SIZE, ASK2_SIZE, ASK3_SIZE, ASK4_SIZE, ASK5_SIZE,
+            ASK6_SIZE, ASK7_SIZE, ASK8_SIZE, ASK9_SIZE, ASK10_SIZE};
+
+    private static final int[] KIND = new int[MarketDataFieldType.values().length];
+    private static final Side[] SIDE = new Side[MarketDataFieldType.values().length];
+    private static final int[] LEVEL = new int[MarketDataFieldType.values().length];
+
+    static {
+        for (int level = 0; level < BID_PRICES.length; ++level) {
+            register(BID_PRICES[level], PRICE, Side.Bid, level);
+            register(ASK_PRICES[level], PRICE, Side.Ask, level);
+            register(BID_SIZES[level], SIZE, Side.Bid, level);
+            register(ASK_SIZES[level], SIZE, Side.Ask, level);
+        }
+        register(TRADE_PRICE, TRADE_PRICE_KIND, null, 0);
+        register(TRADE_SIZE, TRADE_SIZE_KIND, null, 0);
+        register(PREV_CLOSE, PREV_CLOSE_KIND, null, 0);
+        register(OPEN, OPEN_KIND, null, 0);
+        register(HIGH, HIGH_KIND, null, 0);
+        register(LOW, LOW_KIND, null, 0);
+    }
+
+    private static void register(MarketDataFieldType type, int kind, Side side, int level) {
+        KIND[type.ordinal()] = kind;
+        SIDE[type.ordinal()] = side;
+        LEVEL[type.ordinal()] = level;
+    }
+
+    private final Map<MarketBook, MarketBookUpdateEvent> eventByBook;
+    // accumulated during a single update, the updater is used from the trader thread only
+    private int changes;
+    private long bidLevels;
+    private long askLevels;
+
+    public TableMarketBookUpdater() {
+        eventByBook = Maps.newIdentityHashMap();
+    }
+
+    @Override
+    public MarketBookUpdateEvent update(MarketBook book, MarketData marketData) {
+        begin();
+
+        for (MarketDataField field : marketData.getFields()) {
+            apply(book, field.getType(), field.getDoubleValue(), field.getLongValue());
+        }
+
+        return end(book, marketData.getTimestamp().getMillis());
+    }
+
+    @Override
+    public MarketBookUpdateEvent update(MarketBook book, MarketDataRecord record) {
+        begin();
+
+        for (int i = 0; i < record.size(); ++i) {
+            apply(book, record.getType(i), record.getDoubleValue(i), record.getLongValue(i));
+        }
+
+        return end(book, record.getTimestampNanos() / NANOS_PER_MILLI);
+    }
+
+    private void begin() {
+        changes = 0;
+        bidLevels = 0L;
+        askLevels = 0L;
+    }
+
+    private MarketBookUpdateEvent end(MarketBook book, long timestampMillis) {
+        MarketBookUpdateEvent res = getEvent(book);
+        res.update(timestampMillis, changes, bidLevels, askLevels);
+
+        return res;
+    }
+
+    private MarketBookUpdateEvent getEvent(MarketBook book) {
+        MarketBookUpdateEvent res = eventByBook.get(book);
+
+        if (res == null) {
+            res = MarketBookUpdateEvent.newReusable(book.getInstrumentId(), book);
+            eventByBook.put(book, res);
+        }
+
+        return res;
+    }
+
+    private void apply(MarketBook book, MarketDataFieldType type, double doubleValue, long longValue) {
+        int ordinal = type.ordinal();
+
+        switch (KIND[ordinal]) {
+            case PRICE:
+                book.setPrice(SIDE[ordinal], LEVEL[ordinal], doubleValue);
+                levelChanged(SIDE[ordinal], LEVEL[ordinal], MarketBookUpdateEvent.BEST_PRICE);
+                break;
+            case SIZE:
+                book.setSize(SIDE[ordinal], LEVEL[ordinal], longValue);
+                levelChanged(SIDE[ordinal], LEVEL[ordinal], MarketBookUpdateEvent.BEST_SIZE);
+                break;
+            case TRADE_PRICE_KIND:
+                book.getLastTrade().setPrice(doubleValue);
+                changes |= MarketBookUpdateEvent.LAST_TRADE;
+                break;
+            case TRADE_SIZE_KIND:
+                book.getLastTrade().setSize(longValue);
+                changes |= MarketBookUpdateEvent.LAST_TRADE;
+                break;
+            case PREV_CLOSE_KIND:
+                book.setPrevClose(doubleValue);
+                changes |= MarketBookUpdateEvent.OHLC;
+                break;
+            case OPEN_KIND:
+                book.setOpen(doubleValue);
+                changes |= MarketBookUpdateEvent.OHLC;
+                break;
+            case HIGH_KIND:
+                book.setHigh(doubleValue);
+                changes |= MarketBookUpdateEvent.OHLC;
+                break;
+            case LOW_KIND:
+                book.setLow(doubleValue);
+                changes |= MarketBookUpdateEvent.OHLC;
+                break;
+        }
+    }
+
+    private void levelChanged(Side side, int level, int topOfBookChange) {
+        changes |= (level == 0) ? topOfBookChange : MarketBookUpdateEvent.DEPTH;
+
+        if (side == Side.Bid) {
+            bidLevels |= 1L << level;
+        } else {
+            askLevels |= 1L << level;
+        }
+    }
+}
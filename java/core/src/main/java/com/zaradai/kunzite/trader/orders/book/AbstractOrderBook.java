@@ -17,6 +17,8 @@ package com.zaradai.kunzite.trader.orders.book;
 
 import com.google.common.base.Strings;
 import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderQueue;
+import com.zaradai.kunzite.trader.orders.utils.OrderIds;
 
 import java.util.Map;
 
@@ -61,38 +63,37 @@ public abstract class AbstractOrderBook implements OrderBook {
         forgetOrder(order);
     }
 
+    @Override
+    public void update(Order order) {
+        // outstanding quantities are summed on demand so there is nothing to track
+    }
+
     @Override
     public long getOutstandingBuyQuantity() {
         long res = 0;
         // Process limits
-        for (Map.Entry<Double, PriceEntry> entry : this.limitOrders.entrySet()) {
-            PriceEntry priceEntry = entry.getValue();
-
-            for (Order order : priceEntry.getBuyOrders()) {
-                res += order.getPendingOrOnMarket();
-            }
+        for (PriceEntry priceEntry : this.limitOrders.values()) {
+            res += sumOutstanding(priceEntry.getBuyQueue());
         }
         // process market orders
-        for (Order order : this.marketOrders.getBuyOrders()) {
-            res += order.getPendingOrOnMarket();
-        }
-
-        return res;
+        return res + sumOutstanding(this.marketOrders.getBuyQueue());
     }
 
     @Override
     public long getOutstandingSellQuantity() {
         long res = 0;
         // Process limits
-        for (Map.Entry<Double, PriceEntry> entry : this.limitOrders.entrySet()) {
-            PriceEntry priceEntry = entry.getValue();
-
-            for (Order order : priceEntry.getSellOrders()) {
-                res += order.getPendingOrOnMarket();
-            }
+        for (PriceEntry priceEntry : this.limitOrders.values()) {
+            res += sumOutstanding(priceEntry.getSellQueue());
         }
         // process market orders
-        for (Order order : this.marketOrders.getSellOrders()) {
+        return res + sumOutstanding(this.marketOrders.getSellQueue());
+    }
+
+    private long sumOutstanding(OrderQueue queue) {
+        long res = 0;
+        // walk the links rather than copying the queue
+        for (Order order = queue.first(); order != null; order = queue.next(order)) {
             res += order.getPendingOrOnMarket();
         }
 
@@ -112,6 +113,16 @@ public abstract class AbstractOrderBook implements OrderBook {
         return ordersByOrderId.get(orderId);
     }
 
+    /**
+     * Orders are held by their string id here, the numeric id is looked up by its rendered form.
+     * @param numericOrderId
+     * @return
+     */
+    @Override
+    public Order get(long numericOrderId) {
+        return OrderIds.isValid(numericOrderId) ? get(OrderIds.toString(numericOrderId)) : null;
+    }
+
     protected Map<Double, PriceEntry> getLimitOrders() {
         return limitOrders;
     }
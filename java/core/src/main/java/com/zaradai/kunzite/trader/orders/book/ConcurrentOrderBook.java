@@ -16,70 +16,129 @@
 package com.zaradai.kunzite.trader.orders.book;
 
 import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.assistedinject.Assisted;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.instruments.TickCalculator;
 import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.utils.OrderIds;
+import com.zaradai.kunzite.utils.collections.ConcurrentLongObjectMap;
 
-import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class ConcurrentOrderBook extends AbstractOrderBook {
-    private final ReadWriteLock updateLock;
+/**
+ * Tick order book that other threads can read while the owning trader thread writes.  Only a single writer is
+ * supported, unlike the read write locked book it replaced adds, updates and removes must all come from the one
+ * thread owning the book.  The levels and queues are writer only and need no locking, readers only see the order
+ * lookups, concurrent maps, and the best prices and outstanding totals republished after every change.  Each value
+ * is read atomically on its own, a snapshot reads them all as of the same change.  The id indexes of the tick book
+ * are writer only and re-use their bookings, readers look orders up through indexes of their own.  Numeric ids go
+ * through a single writer map that neither boxes nor allocates per order, string ids through a concurrent map.
+ */
+public class ConcurrentOrderBook extends TickOrderBook {
+    // odd while the writer republishes, a snapshot is retried until it reads the same even version either side
+    private volatile long version;
+    private volatile double bestBid = Double.NaN;
+    private volatile double bestAsk = Double.NaN;
+    private volatile long outstandingBuy;
+    private volatile long outstandingSell;
+    private final ConcurrentMap<String, Order> ordersByOrderId = Maps.newConcurrentMap();
+    private final ConcurrentLongObjectMap<Order> ordersByNumericId = new ConcurrentLongObjectMap<Order>();
 
     public ConcurrentOrderBook() {
-        updateLock = createUpdateLock();
+        this(new TickCalculator());
     }
 
-    protected ReadWriteLock createUpdateLock() {
-        return new ReentrantReadWriteLock();
+    public ConcurrentOrderBook(TickCalculator tickCalculator) {
+        super(tickCalculator);
     }
 
-    @Override
-    protected Map<Double, PriceEntry> createEntryMap() {
-        return Maps.newConcurrentMap();
+    @Inject
+    ConcurrentOrderBook(MarketResolver marketResolver, @Assisted Instrument instrument) {
+        super(marketResolver, instrument);
     }
 
     @Override
-    protected Map<String, Order> createOrderMap() {
-        return Maps.newConcurrentMap();
+    public void add(Order order) {
+        super.add(order);
+        OrderRefData refData = order.getRefData();
+
+        if (refData.hasNumericOrderId()) {
+            ordersByNumericId.put(refData.getNumericOrderId(), order);
+        } else {
+            ordersByOrderId.put(refData.getOrderId(), order);
+        }
     }
 
     @Override
-    protected PriceEntry getOrCreateAtEntryPrice(double entryPrice) {
-        ConcurrentMap<Double, PriceEntry> limitOrders = (ConcurrentMap<Double, PriceEntry>) getLimitOrders();
-        PriceEntry entry = limitOrders.get(entryPrice);
+    public void remove(Order order) {
+        OrderRefData refData = order.getRefData();
 
-        if (entry == null) {
-            entry = new PriceEntry(entryPrice);
-            PriceEntry previous = limitOrders.putIfAbsent(entryPrice, entry);
+        if (refData.hasNumericOrderId()) {
+            ordersByNumericId.remove(refData.getNumericOrderId());
+        } else if (refData.getOrderId() != null) {
+            ordersByOrderId.remove(refData.getOrderId());
+        }
+        super.remove(order);
+    }
 
-            if (previous != null) {
-                return previous;
-            }
+    @Override
+    public Order get(String orderId) {
+        Order res = ordersByOrderId.get(orderId);
+
+        if (res != null) {
+            return res;
         }
+        // may be the rendered form of a numeric id
+        long numericOrderId = OrderIds.parse(orderId);
+
+        return OrderIds.isValid(numericOrderId) ? get(numericOrderId) : null;
+    }
 
-        return entry;
+    @Override
+    public Order get(long numericOrderId) {
+        return ordersByNumericId.get(numericOrderId);
     }
 
     @Override
-    protected void removeEntry(PriceEntry entry, Order order) {
-        updateLock.writeLock().lock();
+    protected void onOutstandingChanged() {
+        double bid = getBestBid();
+        double ask = getBestAsk();
+        long next = version + 1;
 
-        try {
-            entry.remove(order);
-        } finally {
-            updateLock.writeLock().unlock();
-        }
+        version = next;
+        bestBid = bid;
+        bestAsk = ask;
+        outstandingBuy = super.getOutstandingBuyQuantity();
+        outstandingSell = super.getOutstandingSellQuantity();
+        version = next + 1;
+    }
+
+    /**
+     * Take the best prices and outstanding totals as of the same change, safe from any thread.
+     * @param res
+     * @return
+     */
+    public OrderBookSnapshot snapshot(OrderBookSnapshot res) {
+        long before;
+
+        do {
+            before = version;
+            res.set(bestBid, bestAsk, outstandingBuy, outstandingSell);
+        } while ((before & 1) != 0 || before != version);
+
+        return res;
     }
 
     @Override
-    protected void addEntry(PriceEntry entry, Order order) {
-        updateLock.writeLock().lock();
+    public long getOutstandingBuyQuantity() {
+        return outstandingBuy;
+    }
 
-        try {
-            entry.add(order);
-        } finally {
-            updateLock.writeLock().unlock();
-        }
+    @Override
+    public long getOutstandingSellQuantity() {
+        return outstandingSell;
     }
 }
@@ -22,8 +22,22 @@ public interface OrderBook extends OrderLoadHandler {
     void add(Order order);
     void remove(Order order);
 
+    /**
+     * Order state has changed, such as an amend, acknowledgement or fill, re-evaluate where it sits in the book and
+     * what it contributes to the outstanding quantities.
+     * @param order
+     */
+    void update(Order order);
+
     Order get(String orderId);
 
+    /**
+     * Look up an order by its numeric id without rendering or hashing a string.
+     * @param numericOrderId
+     * @return
+     */
+    Order get(long numericOrderId);
+
     long getOutstandingBuyQuantity();
     long getOutstandingSellQuantity();
 }
@@ -15,6 +15,8 @@
  */
 package com.zaradai.kunzite.trader.orders.book;
 
+import com.zaradai.kunzite.trader.instruments.Instrument;
+
 public interface OrderBookFactory {
-    OrderBook create();
+    OrderBook create(Instrument instrument);
 }
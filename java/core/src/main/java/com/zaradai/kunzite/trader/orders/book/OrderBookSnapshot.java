@@ -0,0 +1,58 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.book;
+
+/**
+ * The best prices and outstanding quantities of an order book as of a single change, filled in by the book so a
+ * reader can keep one and take snapshots without allocating.  A side without resting limit orders has a NaN price.
+ */
+public class OrderBookSnapshot {
+    private double bestBid = Double.NaN;
+    private double bestAsk = Double.NaN;
+    private long outstandingBuyQuantity;
+    private long outstandingSellQuantity;
+
+    void set(double bestBid, double bestAsk, long outstandingBuyQuantity, long outstandingSellQuantity) {
+        this.bestBid = bestBid;
+        this.bestAsk = bestAsk;
+        this.outstandingBuyQuantity = outstandingBuyQuantity;
+        this.outstandingSellQuantity = outstandingSellQuantity;
+    }
+
+    /**
+     * Highest price of a resting buy limit order.
+     * @return
+     */
+    public double getBestBid() {
+        return bestBid;
+    }
+
+    /**
+     * Lowest price of a resting sell limit order.
+     * @return
+     */
+    public double getBestAsk() {
+        return bestAsk;
+    }
+
+    public long getOutstandingBuyQuantity() {
+        return outstandingBuyQuantity;
+    }
+
+    public long getOutstandingSellQuantity() {
+        return outstandingSellQuantity;
+    }
+}
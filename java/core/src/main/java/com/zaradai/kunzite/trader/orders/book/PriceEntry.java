@@ -17,72 +17,115 @@ package com.zaradai.kunzite.trader.orders.book;
 
 import com.google.common.collect.ImmutableList;
 import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderQueue;
 
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
 /**
- * Will support Order Book capability to view an orders time priority
+ * Will support Order Book capability to view an orders time priority, each side is queued in arrival order.
  */
 public class PriceEntry {
-    private static final int ORDER_QUEUE_INITIAL_CAPACITY = 100;
-
-    private final double price;
-    private final Queue<Order> buySide;
-    private final Queue<Order> sellSide;
+    private final OrderQueue buySide;
+    private final OrderQueue sellSide;
+    private double price;
 
     public PriceEntry(double price) {
-        checkArgument(!Double.isNaN(price), "Invalid entry specified");
-
-        this.price = price;
         buySide = createBuyOrderQueue();
         sellSide = createSellOrderQueue();
+        reset(price);
     }
 
-    protected Queue<Order> createBuyOrderQueue() {
-        return new PriorityQueue<Order>(ORDER_QUEUE_INITIAL_CAPACITY, Order.TimeComparator);
+    protected OrderQueue createBuyOrderQueue() {
+        return new OrderQueue();
     }
 
-    protected Queue<Order> createSellOrderQueue() {
-        return new PriorityQueue<Order>(ORDER_QUEUE_INITIAL_CAPACITY, Order.TimeComparator);
+    protected OrderQueue createSellOrderQueue() {
+        return new OrderQueue();
+    }
+
+    /**
+     * Re-use the entry for another price level, the entry must be empty.
+     * @param price
+     */
+    void reset(double price) {
+        checkArgument(!Double.isNaN(price), "Invalid entry specified");
+
+        this.price = price;
     }
 
     void add(Order order) {
-        if (order.isBuy()) {
-            this.buySide.offer(order);
+        add(order, order.isBuy());
+    }
+
+    /**
+     * Queue the order on the side it was booked on, rather than the side of its current entry.
+     * @param order
+     * @param buy
+     */
+    void add(Order order, boolean buy) {
+        if (buy) {
+            this.buySide.append(order);
         } else {
-            this.sellSide.offer(order);
+            this.sellSide.append(order);
         }
     }
 
+    /**
+     * Unlink the order from whichever side holds it, a cancel entry no longer says which side that is.
+     * @param order
+     */
     void remove(Order order) {
-        if (order.isBuy()) {
-            this.buySide.remove(order);
-        } else {
+        if (!this.buySide.remove(order)) {
             this.sellSide.remove(order);
         }
     }
 
+    void clear() {
+        buySide.clear();
+        sellSide.clear();
+    }
+
     boolean hasBuyOrders() {
-        return this.buySide.size() > 0;
+        return !this.buySide.isEmpty();
     }
 
     boolean hasSellOrders() {
-        return this.sellSide.size() > 0;
+        return !this.sellSide.isEmpty();
+    }
+
+    boolean isEmpty() {
+        return buySide.isEmpty() && sellSide.isEmpty();
+    }
+
+    OrderQueue getBuyQueue() {
+        return buySide;
+    }
+
+    OrderQueue getSellQueue() {
+        return sellSide;
     }
 
     List<Order> getBuyOrders() {
-        return ImmutableList.copyOf(buySide);
+        return copyOf(buySide);
     }
 
     List<Order> getSellOrders() {
-        return ImmutableList.copyOf(sellSide);
+        return copyOf(sellSide);
     }
 
     public double getPrice() {
         return price;
     }
+
+    private List<Order> copyOf(OrderQueue queue) {
+        ImmutableList.Builder<Order> res = ImmutableList.builder();
+
+        for (Order order = queue.first(); order != null; order = queue.next(order)) {
+            res.add(order);
+        }
+
+        return res.build();
+    }
 }
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.book;
+
+import com.google.common.collect.Queues;
+
+import java.util.Deque;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Free list of empty price levels so books whose prices come and go re-use their levels rather than allocating new
+ * ones.  Not thread safe, each book keeps its own pool.
+ */
+public class PriceEntryPool {
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Deque<PriceEntry> free;
+    private final int maxSize;
+
+    public PriceEntryPool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public PriceEntryPool(int maxSize) {
+        checkArgument(maxSize >= 0, "Invalid pool size");
+
+        this.maxSize = maxSize;
+        free = Queues.newArrayDeque();
+    }
+
+    public PriceEntry acquire(double price) {
+        PriceEntry res = free.poll();
+
+        if (res == null) {
+            return new PriceEntry(price);
+        }
+
+        res.reset(price);
+
+        return res;
+    }
+
+    /**
+     * Return a level no longer in use, any orders still queued on it are unlinked.
+     * @param entry
+     */
+    public void release(PriceEntry entry) {
+        if (free.size() < maxSize) {
+            entry.clear();
+            free.push(entry);
+        }
+    }
+
+    public int size() {
+        return free.size();
+    }
+}
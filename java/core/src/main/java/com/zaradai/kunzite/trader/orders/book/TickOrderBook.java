@@ -0,0 +1,399 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.book;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import com.google.inject.Inject;
+import com.google.inject.assistedinject.Assisted;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.Market;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.instruments.TickCalculator;
+import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.utils.OrderIds;
+import com.zaradai.kunzite.utils.collections.LongObjectMap;
+import com.zaradai.kunzite.utils.collections.SortedLongMap;
+
+import java.util.Deque;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Order book keyed by the tick index of the market rather than a boxed price.  The outstanding buy and sell
+ * quantities are kept as running totals, adjusted by each order's change in contribution as it is added, updated
+ * and removed, so reading them does not walk the book.  The best bid and ask levels are kept the same way, only
+ * searching outwards from the old best when its side of that level empties.  Orders with a numeric id are held by
+ * that id, the rest by their string id.  Where each order is booked is kept on a bookkeeping object the book re-uses
+ * once the order is removed, so booking an order with a numeric id allocates nothing in the steady state.
+ */
+public class TickOrderBook implements OrderBook {
+    public static final int MAX_FREE_BOOKINGS = 1024;
+
+    private final TickCalculator tickCalculator;
+    private final SortedLongMap<PriceEntry> limitOrders;
+    private final PriceEntryPool entryPool;
+    private final PriceEntry marketOrders;
+    private final Map<String, BookedOrder> ordersByOrderId;
+    private final LongObjectMap<BookedOrder> ordersByNumericId;
+    private final Deque<BookedOrder> freeBookings;
+    private long outstandingBuy;
+    private long outstandingSell;
+    // best levels with orders on each side, null when the side is empty
+    private PriceEntry bestBid;
+    private long bestBidKey;
+    private PriceEntry bestAsk;
+    private long bestAskKey;
+
+    @Inject
+    TickOrderBook(MarketResolver marketResolver, @Assisted Instrument instrument) {
+        this(resolveTickCalculator(marketResolver, instrument));
+    }
+
+    public TickOrderBook(TickCalculator tickCalculator) {
+        this.tickCalculator = checkNotNull(tickCalculator, "Invalid tick calculator");
+        limitOrders = createEntryMap();
+        entryPool = createEntryPool();
+        marketOrders = new PriceEntry(0);
+        ordersByOrderId = createOrderMap();
+        ordersByNumericId = createNumericOrderMap();
+        freeBookings = Queues.newArrayDeque();
+    }
+
+    private static TickCalculator resolveTickCalculator(MarketResolver marketResolver, Instrument instrument) {
+        if (!Strings.isNullOrEmpty(instrument.getMarketId())) {
+            Market market = marketResolver.resolveMarket(instrument.getMarketId());
+
+            if (market != null) {
+                return market.getTickCalculator();
+            }
+        }
+        // no market ticks, keys fall back to a fixed resolution
+        return new TickCalculator();
+    }
+
+    protected SortedLongMap<PriceEntry> createEntryMap() {
+        return new SortedLongMap<PriceEntry>();
+    }
+
+    protected PriceEntryPool createEntryPool() {
+        return new PriceEntryPool();
+    }
+
+    protected Map<String, BookedOrder> createOrderMap() {
+        return Maps.newHashMap();
+    }
+
+    protected LongObjectMap<BookedOrder> createNumericOrderMap() {
+        return new LongObjectMap<BookedOrder>();
+    }
+
+    @Override
+    public void add(Order order) {
+        if (lookup(order) != null) {
+            // already booked, treat as a change of state
+            update(order);
+            return;
+        }
+
+        BookedOrder booked = acquireBooking(order);
+        place(booked);
+        booked.outstanding = order.getPendingOrOnMarket();
+        addOutstanding(booked.buy, booked.outstanding);
+        index(order, booked);
+        onOutstandingChanged();
+    }
+
+    @Override
+    public void remove(Order order) {
+        BookedOrder booked = unindex(order);
+
+        if (booked != null) {
+            displace(booked);
+            // take away what was booked, the order state may already have moved on
+            addOutstanding(booked.buy, -booked.outstanding);
+            releaseBooking(booked);
+            onOutstandingChanged();
+        }
+    }
+
+    @Override
+    public void update(Order order) {
+        BookedOrder booked = lookup(order);
+
+        if (booked == null) {
+            return;
+        }
+        // move the order if an amend has changed its price level
+        if (hasMoved(booked, order)) {
+            displace(booked);
+            place(booked);
+        }
+
+        long outstanding = order.getPendingOrOnMarket();
+        addOutstanding(booked.buy, outstanding - booked.outstanding);
+        booked.outstanding = outstanding;
+        onOutstandingChanged();
+    }
+
+    @Override
+    public Order get(String orderId) {
+        BookedOrder booked = ordersByOrderId.get(orderId);
+
+        if (booked != null) {
+            return booked.order;
+        }
+        // may be the rendered form of a numeric id
+        long numericOrderId = OrderIds.parse(orderId);
+
+        return OrderIds.isValid(numericOrderId) ? get(numericOrderId) : null;
+    }
+
+    @Override
+    public Order get(long numericOrderId) {
+        BookedOrder booked = ordersByNumericId.get(numericOrderId);
+
+        return (booked != null) ? booked.order : null;
+    }
+
+    @Override
+    public long getOutstandingBuyQuantity() {
+        return outstandingBuy;
+    }
+
+    @Override
+    public long getOutstandingSellQuantity() {
+        return outstandingSell;
+    }
+
+    /**
+     * Called on the writing thread once an add, update or remove has adjusted the outstanding totals.
+     */
+    protected void onOutstandingChanged() {
+    }
+
+    int getFreeBookings() {
+        return freeBookings.size();
+    }
+
+    protected SortedLongMap<PriceEntry> getLimitOrders() {
+        return limitOrders;
+    }
+
+    /**
+     * Price of the highest level with buy limit orders, kept as orders are placed and displaced.
+     * @return NaN if there are none
+     */
+    protected double getBestBid() {
+        return (bestBid != null) ? bestBid.getPrice() : Double.NaN;
+    }
+
+    /**
+     * Price of the lowest level with sell limit orders, kept as orders are placed and displaced.
+     * @return NaN if there are none
+     */
+    protected double getBestAsk() {
+        return (bestAsk != null) ? bestAsk.getPrice() : Double.NaN;
+    }
+
+    private boolean hasMoved(BookedOrder booked, Order order) {
+        // a cancel entry carries no side or type, the order stays where it was booked until it is removed
+        if (!order.isBuy() && !order.isSell()) {
+            return false;
+        }
+
+        return booked.market != order.isMarketOrder() ||
+                (!booked.market && booked.key != tickCalculator.toTicks(order.getPrice()));
+    }
+
+    private void place(BookedOrder booked) {
+        Order order = booked.order;
+        booked.market = order.isMarketOrder();
+
+        if (booked.market) {
+            marketOrders.add(order, booked.buy);
+        } else {
+            booked.key = tickCalculator.toTicks(order.getPrice());
+            PriceEntry entry = limitOrders.get(booked.key);
+
+            if (entry == null) {
+                entry = entryPool.acquire(order.getPrice());
+                limitOrders.put(booked.key, entry);
+            }
+
+            entry.add(order, booked.buy);
+            improveBest(booked.buy, booked.key, entry);
+        }
+    }
+
+    private void improveBest(boolean buy, long key, PriceEntry entry) {
+        if (buy) {
+            if (bestBid == null || key > bestBidKey) {
+                bestBid = entry;
+                bestBidKey = key;
+            }
+        } else if (bestAsk == null || key < bestAskKey) {
+            bestAsk = entry;
+            bestAskKey = key;
+        }
+    }
+
+    private void displace(BookedOrder booked) {
+        if (booked.market) {
+            marketOrders.remove(booked.order);
+        } else {
+            PriceEntry entry = limitOrders.get(booked.key);
+
+            if (entry != null) {
+                entry.remove(booked.order);
+                // drop empty levels so the map only holds live prices, the level is kept for re-use
+                if (entry.isEmpty()) {
+                    limitOrders.remove(booked.key);
+                    entryPool.release(entry);
+                }
+                // only a best level left without orders on its side needs the next one finding
+                if (booked.buy && entry == bestBid && !entry.hasBuyOrders()) {
+                    findBestBidBelow(booked.key);
+                } else if (!booked.buy && entry == bestAsk && !entry.hasSellOrders()) {
+                    findBestAskAbove(booked.key);
+                }
+            }
+        }
+    }
+
+    private void findBestBidBelow(long key) {
+        int index = limitOrders.indexOf(key);
+        bestBid = null;
+
+        for (int i = (index >= 0) ? index - 1 : -index - 2; i >= 0; --i) {
+            PriceEntry entry = limitOrders.valueAt(i);
+
+            if (entry.hasBuyOrders()) {
+                bestBid = entry;
+                bestBidKey = limitOrders.keyAt(i);
+                return;
+            }
+        }
+    }
+
+    private void findBestAskAbove(long key) {
+        int index = limitOrders.indexOf(key);
+        bestAsk = null;
+
+        for (int i = (index >= 0) ? index + 1 : -index - 1; i < limitOrders.size(); ++i) {
+            PriceEntry entry = limitOrders.valueAt(i);
+
+            if (entry.hasSellOrders()) {
+                bestAsk = entry;
+                bestAskKey = limitOrders.keyAt(i);
+                return;
+            }
+        }
+    }
+
+    private BookedOrder acquireBooking(Order order) {
+        BookedOrder res = freeBookings.poll();
+
+        if (res == null) {
+            res = new BookedOrder();
+        }
+        res.set(order);
+
+        return res;
+    }
+
+    private void releaseBooking(BookedOrder booked) {
+        booked.clear();
+
+        if (freeBookings.size() < MAX_FREE_BOOKINGS) {
+            freeBookings.push(booked);
+        }
+    }
+
+    private void addOutstanding(boolean buy, long quantity) {
+        if (buy) {
+            outstandingBuy += quantity;
+        } else {
+            outstandingSell += quantity;
+        }
+    }
+
+    private BookedOrder lookup(Order order) {
+        OrderRefData refData = order.getRefData();
+
+        if (refData.hasNumericOrderId()) {
+            return ordersByNumericId.get(refData.getNumericOrderId());
+        }
+
+        return ordersByOrderId.get(getOrderId(refData));
+    }
+
+    private void index(Order order, BookedOrder booked) {
+        OrderRefData refData = order.getRefData();
+
+        if (refData.hasNumericOrderId()) {
+            ordersByNumericId.put(refData.getNumericOrderId(), booked);
+        } else {
+            ordersByOrderId.put(getOrderId(refData), booked);
+        }
+    }
+
+    private BookedOrder unindex(Order order) {
+        OrderRefData refData = order.getRefData();
+
+        if (refData.hasNumericOrderId()) {
+            return ordersByNumericId.remove(refData.getNumericOrderId());
+        }
+
+        return ordersByOrderId.remove(getOrderId(refData));
+    }
+
+    private String getOrderId(OrderRefData refData) {
+        String res = refData.getOrderId();
+        checkArgument(!Strings.isNullOrEmpty(res), "Invalid order id");
+
+        return res;
+    }
+
+    /**
+     * Where an order was booked and what it contributed to the outstanding totals when last seen.  Writer only, it is
+     * re-used for another order once removed so must not be handed to other threads.
+     */
+    protected static final class BookedOrder {
+        private Order order;
+        private boolean buy;
+        private boolean market;
+        private long key;
+        private long outstanding;
+
+        void set(Order order) {
+            this.order = order;
+            buy = order.isBuy();
+        }
+
+        void clear() {
+            order = null;
+            buy = false;
+            market = false;
+            key = 0;
+            outstanding = 0;
+        }
+    }
+}
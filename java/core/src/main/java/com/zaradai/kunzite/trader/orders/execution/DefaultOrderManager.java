@@ -23,6 +23,9 @@ import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.logging.LogHelper;
 import com.zaradai.kunzite.trader.events.OrderRequestRejectEvent;
 import com.zaradai.kunzite.trader.events.OrderSendEvent;
+import com.zaradai.kunzite.trader.events.OrderSendEventPool;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.filters.BatchFilter;
 import com.zaradai.kunzite.trader.filters.Filter;
 import com.zaradai.kunzite.trader.filters.FilterManager;
 import com.zaradai.kunzite.trader.instruments.Instrument;
@@ -41,10 +44,15 @@ public class DefaultOrderManager implements OrderManager {
     private final ContextLogger logger;
     private final EventAggregator eventAggregator;
     private final OrderIdGenerator idGenerator;
+    private final OrderPool orderPool;
+    private final OrderSendEventPool sendEventPool;
 
     private final List<OrderRequest> pending;
+    private final List<Order> retired;
     private final Filter orderFilter;
+    private final BatchFilter batchFilter;
     private final String instrumentId;
+    private final int instrumentIndex;
     private final String marketId;
 
     @Inject
@@ -54,19 +62,32 @@ public class DefaultOrderManager implements OrderManager {
         this.logger = logger;
         this.eventAggregator = eventAggregator;
         this.idGenerator = idGenerator;
+        orderPool = createOrderPool();
+        sendEventPool = createSendEventPool();
         orderStateManager = orderStateManagerFactory.create(this);
-        orderBook = orderBookFactory.create();
+        orderBook = orderBookFactory.create(instrument);
 
         pending = createPendingList();
+        retired = Lists.newArrayList();
         instrumentId = instrument.getId();
+        instrumentIndex = instrument.getIndex();
         marketId = instrument.getMarketId();
         orderFilter = filterManager.createFor(instrument);
+        batchFilter = filterManager.createBatchFor(instrument);
     }
 
     private List<OrderRequest> createPendingList() {
         return Lists.newArrayList();
     }
 
+    protected OrderPool createOrderPool() {
+        return new OrderPool();
+    }
+
+    protected OrderSendEventPool createSendEventPool() {
+        return new OrderSendEventPool();
+    }
+
     @Override
     public void add(OrderRequest orderRequest) {
         checkNotNull(orderRequest, "Invalid Order Request");
@@ -75,6 +96,11 @@ public class DefaultOrderManager implements OrderManager {
 
     @Override
     public void process() {
+        releaseRetired();
+        // nothing requested, nothing to do
+        if (pending.isEmpty()) {
+            return;
+        }
         processPending();
         processRejects();
         clear();
@@ -82,45 +108,119 @@ public class DefaultOrderManager implements OrderManager {
 
     @Override
     public void clear() {
+        // processed requests go back to the pool, rejected requests have been handed over with their reject event
+        for (int i = 0; i < pending.size(); ++i) {
+            pending.get(i).recycle();
+        }
         pending.clear();
     }
 
+    @Override
+    public void onOrderStatus(OrderStatusEvent event) {
+        Order order = findOrder(event);
+
+        if (order != null) {
+            orderStateManager.onOrderStatus(order, event);
+            // out of the book the order is done with, but the events its final status raised are still to be
+            // dispatched so it is only released on the next process
+            if (findOrder(event) == null) {
+                retired.add(order);
+            }
+        } else {
+            LogHelper.warn(logger)
+                    .addContext("Order Manager")
+                    .addReason("Status for unknown order")
+                    .add("Order ID", event.getOrderId())
+                    .add("Status", event.getOrderStatus())
+                    .log();
+        }
+    }
+
     @Override
     public OrderBook getBook() {
         return orderBook;
     }
 
+    @Override
+    public OrderPool getPool() {
+        return orderPool;
+    }
+
+    private Order findOrder(OrderStatusEvent event) {
+        if (event.hasNumericOrderId()) {
+            return orderBook.get(event.getNumericOrderId());
+        }
+
+        return orderBook.get(event.getOrderId());
+    }
+
+    private void releaseRetired() {
+        for (int i = 0; i < retired.size(); ++i) {
+            orderPool.release(retired.get(i));
+        }
+        retired.clear();
+    }
+
+    /**
+     * Rejected requests are handed over with their reject event and recycled by its handler.  Publishing from within
+     * a dispatch is deferred, so each batch has its own event and the requests are taken out of pending rather than
+     * recycled with it.  Rejects are the exception so the event is not pooled.
+     */
     private void processRejects() {
-        OrderRequestRejectEvent event = OrderRequestRejectEvent.newInstance();
+        OrderRequestRejectEvent rejectEvent = null;
+        int kept = 0;
+
+        for (int i = 0; i < pending.size(); ++i) {
+            OrderRequest orderRequest = pending.get(i);
 
-        for (OrderRequest orderRequest : pending) {
-            if (!orderRequest.isValid()) {
-                event.add(orderRequest);
+            if (orderRequest.isValid()) {
+                pending.set(kept++, orderRequest);
+            } else {
+                if (rejectEvent == null) {
+                    rejectEvent = OrderRequestRejectEvent.newInstance();
+                }
+                rejectEvent.add(orderRequest);
             }
         }
+        while (pending.size() > kept) {
+            pending.remove(pending.size() - 1);
+        }
         // only publish if we have rejects
-        if (event.hasRequests()) {
-            eventAggregator.publish(event);
+        if (rejectEvent != null) {
+            eventAggregator.publish(rejectEvent);
         }
     }
 
     private void processPending() {
-        // Batch all orders to send in one event message
-        OrderSendEvent orderSendEvent = OrderSendEvent.newInstance();
+        // aggregate limits see the whole batch before any request is sent, rejected requests are then skipped
+        if (batchFilter != null) {
+            batchFilter.check(pending);
+        }
+        // Batch all orders to send in one event message, only taken from the pool once there is an order to send
+        OrderSendEvent orderSendEvent = null;
         // iterate through all requests
-        for (OrderRequest request : pending) {
+        for (int i = 0; i < pending.size(); ++i) {
+            OrderRequest request = pending.get(i);
+
             if (request.isValid()) {
-                processRequest(request, orderSendEvent);
+                NewOrder order = processRequest(request);
+
+                if (order != null) {
+                    if (orderSendEvent == null) {
+                        orderSendEvent = sendEventPool.acquire();
+                    }
+                    orderSendEvent.add(order);
+                }
             }
         }
 
-        if (orderSendEvent.hasOrders()) {
-            // post the orders to be executed
+        if (orderSendEvent != null) {
+            // post the orders to be executed, the order gateway service recycles the event
             eventAggregator.publish(orderSendEvent);
         }
     }
 
-    private void processRequest(OrderRequest request, OrderSendEvent orderSendEvent) {
+    private NewOrder processRequest(OrderRequest request) {
         // ensure that this trading state is reflected in the request
         request.setInstrumentId(instrumentId);
         request.setMarketId(marketId);
@@ -129,16 +229,11 @@ public class DefaultOrderManager implements OrderManager {
                 request.getOrderRequestType() == OrderRequestType.Amend) {
             if (!orderFilter.check(request)) {
                 // failed, the failed filter will do the logging
-                return;
+                return null;
             }
         }
         // create the order based on a valid request
-        NewOrder order = createOrder(request);
-
-        if (order != null) {
-            // add to the send event if a valid order was created
-            orderSendEvent.add(order);
-        }
+        return createOrder(request);
     }
 
     private NewOrder createOrder(OrderRequest request) {
@@ -146,16 +241,18 @@ public class DefaultOrderManager implements OrderManager {
         boolean newOrder = request.getOrderRequestType() == OrderRequestType.Create;
 
         if (newOrder) {
-            OrderRefData refData = OrderRefData.builder()
+            order = orderPool.acquireOrder();
+            OrderRefData.builder(order.getRefData())
                     // set a new unique id
-                    .id(idGenerator.generate())
-                    .instrument(request.getInstrumentId())
+                    .id(idGenerator.nextId())
+                    .instrument(request.getInstrumentId(), instrumentIndex)
                     .market(request.getMarketId())
                     .portfolio(request.getPortfolioId())
                     .client(request.getClientOrderId())
                     .broker(request.getBrokerId())
                     .build();
-            order = new Order(refData);
+            // attribute the order to the algo asking for it, carried through to its statuses
+            order.getRefData().setAlgoId(request.getAlgoId());
         } else {
             // get from the book
             order = orderBook.get(request.getDependentOrderId());
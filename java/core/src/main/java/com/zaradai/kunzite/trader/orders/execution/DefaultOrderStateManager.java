@@ -28,12 +28,18 @@ public class DefaultOrderStateManager implements OrderStateManager {
     private final ContextLogger logger;
     private final EventAggregator eventAggregator;
     private final OrderManager orderManager;
+    private final NewOrderPool newOrderPool;
 
     @Inject
     DefaultOrderStateManager(ContextLogger logger, EventAggregator eventAggregator, @Assisted OrderManager orderManager) {
         this.logger = logger;
         this.eventAggregator = eventAggregator;
         this.orderManager = orderManager;
+        newOrderPool = createNewOrderPool();
+    }
+
+    protected NewOrderPool createNewOrderPool() {
+        return new NewOrderPool();
     }
 
     @Override
@@ -53,19 +59,27 @@ public class DefaultOrderStateManager implements OrderStateManager {
             }
         }
         // now set the new order entry in the state to be used by this state manager when
-        // market statuses return
+        // market statuses return, the entry it replaces is no longer referenced
+        OrderEntry previous = state.getEntry();
         state.setEntry(entry);
-        // if this is a new order request then add to order book
+
+        if (previous != null) {
+            orderManager.getPool().release(previous);
+        }
+        // if this is a new order request then add to order book, otherwise let the book see the change
         if (request.getOrderRequestType() == OrderRequestType.Create) {
             orderManager.getBook().add(order);
+        } else {
+            orderManager.getBook().update(order);
         }
         // create the new order request
         return createNewOrder(order, entry);
     }
 
     private NewOrder createNewOrder(Order order, OrderEntry entry) {
-        NewOrder newOrder = new NewOrder();
-        newOrder.setRefData(order.getRefData());
+        // the gateway owns the new order, so it gets a copy of the reference data rather than sharing the order's
+        NewOrder newOrder = newOrderPool.acquire();
+        newOrder.getRefData().copyFrom(order.getRefData());
         newOrder.setPrice(entry.getPrice());
         newOrder.setQuantity(entry.getQuantity());
         newOrder.setSide(entry.getSide());
@@ -78,7 +92,7 @@ public class DefaultOrderStateManager implements OrderStateManager {
     private OrderEntry createEntry(OrderRequest request) {
         OrderRequestType requestType = request.getOrderRequestType();
 
-        OrderEntry entry = OrderEntry.newInstanceWithCreated(request.getCreated());
+        OrderEntry entry = orderManager.getPool().acquireEntry(request.getCreated());
         entry.setRequestType(requestType);
 
         if (requestType != OrderRequestType.Cancel) {
@@ -153,18 +167,20 @@ public class DefaultOrderStateManager implements OrderStateManager {
         state.setPrice(entry.getPrice());
         // update the entry exchange Id
         entry.setExchangeId(event.getExchangeId());
+        orderManager.getBook().update(state.getOrder());
     }
 
     private void onPartiallyFilled(OrderState state, OrderStatusEvent event) {
         // update executed quantity
         state.setExecQty(state.getExecQty() + event.getExecQty());
+        orderManager.getBook().update(state.getOrder());
         // fire a trade event
         fireTradeEvent(state, event);
     }
 
     private void onFilled(OrderState state, OrderStatusEvent event) {
-        // update executed quantity
-        state.setExecQty(event.getExecQty());
+        // update executed quantity, the event carries the last execution as it does for partial fills
+        state.setExecQty(state.getExecQty() + event.getExecQty());
         // order not alive
         state.setAlive(false);
         // remove from order book
@@ -197,6 +213,7 @@ public class DefaultOrderStateManager implements OrderStateManager {
         state.setPrice(entry.getPrice());
         // update the entry exchange Id
         entry.setExchangeId(event.getExchangeId());
+        orderManager.getBook().update(state.getOrder());
     }
 
     private void onPendingCancelReplace(OrderState state, OrderStatusEvent event) {
@@ -247,6 +264,7 @@ public class DefaultOrderStateManager implements OrderStateManager {
         TradeEvent trade = TradeEvent.newTrade(
                 state.getOrder().getRefData().getPortfolioId(),
                 state.getOrder().getRefData().getInstrumentId(),
+                state.getOrder().getRefData().getInstrumentIndex(),
                 event.getExecQty(),
                 event.getLastPx(),
                 event.getTimestamp()
@@ -15,13 +15,22 @@
  */
 package com.zaradai.kunzite.trader.orders.execution;
 
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
 import com.zaradai.kunzite.trader.orders.book.OrderBook;
+import com.zaradai.kunzite.trader.orders.model.OrderPool;
 import com.zaradai.kunzite.trader.orders.model.OrderRequest;
 
 public interface OrderManager {
     void add(OrderRequest orderRequest);
     void process();
     void clear();
+    void onOrderStatus(OrderStatusEvent event);
 
     OrderBook getBook();
+
+    /**
+     * Pool owning the orders, entries and requests of this manager, algos should acquire their requests from it.
+     * @return
+     */
+    OrderPool getPool();
 }
@@ -15,7 +15,13 @@
  */
 package com.zaradai.kunzite.trader.orders.model;
 
+/**
+ * Order instruction for a gateway.  Once passed to OrderGateway.processOrder the gateway owns the order and should
+ * recycle it when done with it, pooled orders carry their own copy of the reference data so they stay valid after
+ * the trader has finished with the order they were created from.
+ */
 public class NewOrder {
+    private final NewOrderPool pool;
     private OrderRefData refData;
     private long quantity;
     private double price;
@@ -24,6 +30,34 @@ public class NewOrder {
     private OrderTimeInForce timeInForce;
     private OrderRequestType requestType;
 
+    public NewOrder() {
+        pool = null;
+    }
+
+    NewOrder(NewOrderPool pool) {
+        this.pool = pool;
+        refData = OrderRefData.builder().build();
+    }
+
+    void clear() {
+        refData.clear();
+        quantity = 0L;
+        price = 0.0;
+        side = null;
+        type = null;
+        timeInForce = null;
+        requestType = null;
+    }
+
+    /**
+     * Return the order to the pool it was acquired from, unpooled orders are simply dropped.
+     */
+    public void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
+
     public OrderRefData getRefData() {
         return refData;
     }
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.model;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * New orders are acquired on the trader thread and recycled by the gateway that sent them, the pool is filled by
+ * those releases rather than up front.
+ */
+public class NewOrderPool {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final BlockingQueue<NewOrder> free;
+
+    public NewOrderPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NewOrderPool(int capacity) {
+        free = new ArrayBlockingQueue<NewOrder>(capacity);
+    }
+
+    public NewOrder acquire() {
+        NewOrder res = free.poll();
+
+        if (res == null) {
+            res = new NewOrder(this);
+        }
+
+        return res;
+    }
+
+    void release(NewOrder order) {
+        order.clear();
+        free.offer(order);
+    }
+
+    public int available() {
+        return free.size();
+    }
+}
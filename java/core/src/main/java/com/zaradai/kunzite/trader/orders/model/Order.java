@@ -20,6 +20,10 @@ import java.util.Comparator;
 public class Order {
     private final OrderState state;
     private OrderRefData refData;
+    // intrusive links, maintained by the OrderQueue holding the order
+    OrderQueue queue;
+    Order previous;
+    Order next;
 
     public Order(OrderRefData orderRefData) {
         this.refData = orderRefData;
@@ -52,6 +52,23 @@ public class OrderEntry {
         return new OrderEntry(created);
     }
 
+    /**
+     * Re-use the entry for a new request.
+     * @param created
+     */
+    void reset(DateTime created) {
+        checkNotNull(created, "Invalid create time");
+
+        requestType = null;
+        side = null;
+        type = null;
+        timeInForce = null;
+        quantity = 0L;
+        price = 0.0;
+        exchangeId = null;
+        latency.reset(created);
+    }
+
     public OrderRequestType getRequestType() {
         return requestType;
     }
@@ -39,6 +39,13 @@ public class OrderLatency {
         return new OrderLatency(created);
     }
 
+    void reset(DateTime created) {
+        this.created = created;
+        sending = null;
+        sent = null;
+        ack = null;
+    }
+
     public DateTime getCreated() {
         return created;
     }
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.model;
+
+import com.google.common.collect.Queues;
+import org.joda.time.DateTime;
+
+import java.util.Deque;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Free lists of the orders, entries and requests an order manager cycles through, so a steady flow of orders re-uses
+ * the same objects.  Not thread safe, each order manager keeps its own pool on its trader thread.
+ */
+public class OrderPool {
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Deque<Order> orders;
+    private final Deque<OrderEntry> entries;
+    private final Deque<OrderRequest> requests;
+    private final int maxSize;
+
+    public OrderPool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public OrderPool(int maxSize) {
+        checkArgument(maxSize >= 0, "Invalid pool size");
+
+        this.maxSize = maxSize;
+        orders = Queues.newArrayDeque();
+        entries = Queues.newArrayDeque();
+        requests = Queues.newArrayDeque();
+    }
+
+    /**
+     * Get an order with empty reference data, fill it using OrderRefData.builder(order.getRefData()).
+     * @return
+     */
+    public Order acquireOrder() {
+        Order res = orders.poll();
+
+        if (res == null) {
+            res = new Order(OrderRefData.builder().build());
+        }
+
+        return res;
+    }
+
+    /**
+     * Return an order that has left the book, along with its current entry.  An order still linked into a book's
+     * queue is refused, re-used it would corrupt that queue and could not be booked again.
+     * @param order
+     */
+    public void release(Order order) {
+        checkArgument(order.queue == null, "Order is still queued");
+        OrderState state = order.getState();
+
+        if (state.getEntry() != null) {
+            release(state.getEntry());
+        }
+
+        if (orders.size() < maxSize) {
+            state.clear();
+            order.getRefData().clear();
+            orders.push(order);
+        }
+    }
+
+    public OrderEntry acquireEntry(DateTime created) {
+        OrderEntry res = entries.poll();
+
+        if (res == null) {
+            return OrderEntry.newInstanceWithCreated(created);
+        }
+
+        res.reset(created);
+
+        return res;
+    }
+
+    public void release(OrderEntry entry) {
+        if (entries.size() < maxSize) {
+            entries.push(entry);
+        }
+    }
+
+    /**
+     * Get a request that recycles itself back to this pool once processed.
+     * @return
+     */
+    public OrderRequest acquireRequest() {
+        OrderRequest res = requests.poll();
+
+        if (res == null) {
+            res = new OrderRequest(this);
+        }
+
+        return res;
+    }
+
+    void release(OrderRequest request) {
+        if (requests.size() < maxSize) {
+            request.clear();
+            requests.push(request);
+        }
+    }
+
+    public int availableOrders() {
+        return orders.size();
+    }
+
+    public int availableEntries() {
+        return entries.size();
+    }
+
+    public int availableRequests() {
+        return requests.size();
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * First in first out queue of orders in time priority.  The links live on the orders themselves so appending and
+ * removing are constant time and the queue allocates nothing, an order can only be queued in one queue at a time.
+ */
+public class OrderQueue {
+    private Order head;
+    private Order tail;
+    private int size;
+
+    public void append(Order order) {
+        checkNotNull(order, "Invalid order");
+        checkArgument(order.queue == null, "Order is already queued");
+
+        order.queue = this;
+        order.previous = tail;
+        order.next = null;
+
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+
+        tail = order;
+        size++;
+    }
+
+    /**
+     * Unlink the order from the queue.
+     * @param order
+     * @return false if the order was not in this queue
+     */
+    public boolean remove(Order order) {
+        if (order == null || order.queue != this) {
+            return false;
+        }
+
+        if (order.previous == null) {
+            head = order.next;
+        } else {
+            order.previous.next = order.next;
+        }
+
+        if (order.next == null) {
+            tail = order.previous;
+        } else {
+            order.next.previous = order.previous;
+        }
+
+        unlink(order);
+        size--;
+
+        return true;
+    }
+
+    public boolean contains(Order order) {
+        return order != null && order.queue == this;
+    }
+
+    public Order first() {
+        return head;
+    }
+
+    public Order last() {
+        return tail;
+    }
+
+    /**
+     * Walk the queue without allocating an iterator.
+     * @param order
+     * @return the order queued behind the given order, null at the end or if the order is not in this queue
+     */
+    public Order next(Order order) {
+        return contains(order) ? order.next : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Order order = head;
+
+        while (order != null) {
+            Order next = order.next;
+            unlink(order);
+            order = next;
+        }
+
+        head = null;
+        tail = null;
+        size = 0;
+    }
+
+    private void unlink(Order order) {
+        order.queue = null;
+        order.previous = null;
+        order.next = null;
+    }
+}
@@ -17,15 +17,20 @@ package com.zaradai.kunzite.trader.orders.model;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
+import com.zaradai.kunzite.trader.orders.utils.OrderIds;
 
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 public class OrderRefData {
+    private long numericOrderId = OrderIds.NO_ID;
     private String orderId;
     private String clientOrderId;
     private String instrumentId;
+    private int instrumentIndex = SymbolRegistry.UNKNOWN_INDEX;
     private String portfolioId;
     private String marketId;
     private String brokerId;
@@ -41,12 +46,34 @@ public class OrderRefData {
         return Maps.newHashMap();
     }
 
+    /**
+     * The string id, for a numeric id this is rendered on first use.
+     * @return
+     */
     public String getOrderId() {
+        if (orderId == null && OrderIds.isValid(numericOrderId)) {
+            orderId = OrderIds.toString(numericOrderId);
+        }
+
         return orderId;
     }
 
     public void setOrderId(String orderId) {
         this.orderId = orderId;
+        numericOrderId = OrderIds.NO_ID;
+    }
+
+    public long getNumericOrderId() {
+        return numericOrderId;
+    }
+
+    public boolean hasNumericOrderId() {
+        return OrderIds.isValid(numericOrderId);
+    }
+
+    public void setNumericOrderId(long numericOrderId) {
+        this.numericOrderId = numericOrderId;
+        orderId = null;
     }
 
     public String getClientOrderId() {
@@ -65,6 +92,14 @@ public class OrderRefData {
         this.instrumentId = instrumentId;
     }
 
+    public int getInstrumentIndex() {
+        return instrumentIndex;
+    }
+
+    public void setInstrumentIndex(int instrumentIndex) {
+        this.instrumentIndex = instrumentIndex;
+    }
+
     public String getPortfolioId() {
         return portfolioId;
     }
@@ -89,6 +124,39 @@ public class OrderRefData {
         this.brokerId = brokerId;
     }
 
+    /**
+     * Take a copy of the given reference data, used by pooled instances in place of sharing the original.
+     * @param other
+     */
+    public void copyFrom(OrderRefData other) {
+        numericOrderId = other.numericOrderId;
+        orderId = other.orderId;
+        clientOrderId = other.clientOrderId;
+        instrumentId = other.instrumentId;
+        instrumentIndex = other.instrumentIndex;
+        portfolioId = other.portfolioId;
+        marketId = other.marketId;
+        brokerId = other.brokerId;
+        algoId = other.algoId;
+        exchangeId = other.exchangeId;
+        fields.clear();
+        fields.putAll(other.fields);
+    }
+
+    void clear() {
+        numericOrderId = OrderIds.NO_ID;
+        orderId = null;
+        clientOrderId = null;
+        instrumentId = null;
+        instrumentIndex = SymbolRegistry.UNKNOWN_INDEX;
+        portfolioId = null;
+        marketId = null;
+        brokerId = null;
+        algoId = null;
+        exchangeId = null;
+        fields.clear();
+    }
+
     void addField(String key, String value) {
         fields.put(key, value);
     }
@@ -114,11 +182,27 @@ public class OrderRefData {
     }
 
     public static OrderRefDataBuilder builder() {
-        return new OrderRefDataBuilder();
+        return new OrderRefDataBuilder(new OrderRefData());
+    }
+
+    /**
+     * Build into an existing instance, such as the reference data of a pooled order, clearing it first.
+     * @param refData
+     * @return
+     */
+    public static OrderRefDataBuilder builder(OrderRefData refData) {
+        checkNotNull(refData, "Invalid reference data");
+        refData.clear();
+
+        return new OrderRefDataBuilder(refData);
     }
 
     public static class OrderRefDataBuilder {
-        final OrderRefData refData = new OrderRefData();
+        final OrderRefData refData;
+
+        private OrderRefDataBuilder(OrderRefData refData) {
+            this.refData = refData;
+        }
 
         public OrderRefDataBuilder id(String id) {
             checkArgument(!Strings.isNullOrEmpty(id), "Invalid Order id");
@@ -126,12 +210,24 @@ public class OrderRefData {
             return this;
         }
 
+        public OrderRefDataBuilder id(long id) {
+            checkArgument(OrderIds.isValid(id), "Invalid Order id");
+            refData.setNumericOrderId(id);
+            return this;
+        }
+
         public OrderRefDataBuilder instrument(String instrumentId) {
             checkArgument(!Strings.isNullOrEmpty(instrumentId), "Invalid Instrument id");
             refData.setInstrumentId(instrumentId);
             return this;
         }
 
+        public OrderRefDataBuilder instrument(String instrumentId, int instrumentIndex) {
+            instrument(instrumentId);
+            refData.setInstrumentIndex(instrumentIndex);
+            return this;
+        }
+
         public OrderRefDataBuilder portfolio(String portfolioId) {
             checkArgument(!Strings.isNullOrEmpty(portfolioId), "Invalid Portfolio id");
             refData.setPortfolioId(portfolioId);
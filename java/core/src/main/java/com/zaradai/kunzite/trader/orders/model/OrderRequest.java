@@ -17,7 +17,13 @@ package com.zaradai.kunzite.trader.orders.model;
 
 import org.joda.time.DateTime;
 
+/**
+ * Request from an algo to create, amend or cancel an order.  Requests acquired from the order manager's pool are
+ * recycled once the manager has processed them, or once their reject has been handled if rejected.  They must not be
+ * held after the request has been processed or rejected.
+ */
 public class OrderRequest {
+    private final OrderPool pool;
     private OrderRequestType orderRequestType;
     private String portfolioId;
     private String instrumentId;
@@ -36,7 +42,40 @@ public class OrderRequest {
     private DateTime created;
 
     public OrderRequest() {
+        this(null);
+    }
+
+    OrderRequest(OrderPool pool) {
+        this.pool = pool;
+        valid = true;
+    }
+
+    void clear() {
+        orderRequestType = null;
+        portfolioId = null;
+        instrumentId = null;
+        clientOrderId = null;
+        algoId = null;
+        quantity = 0L;
+        price = 0.0;
+        side = null;
+        type = null;
+        rejectReason = null;
         valid = true;
+        marketId = null;
+        dependentOrderId = null;
+        brokerId = null;
+        timeInForce = null;
+        created = null;
+    }
+
+    /**
+     * Return the request to the pool it was acquired from, unpooled requests are simply dropped.
+     */
+    public void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        }
     }
 
     public OrderRequestType getOrderRequestType() {
@@ -38,6 +38,18 @@ public class OrderState {
         return new OrderState(order);
     }
 
+    /**
+     * Reset to a freshly created state so the owning order can be re-used.
+     */
+    void clear() {
+        price = 0.0;
+        pending = false;
+        alive = false;
+        quantity = 0L;
+        execQty = 0L;
+        entry = null;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -37,6 +37,15 @@ public class KunziteOrderIdGenerator implements OrderIdGenerator {
         return new KunziteOrderIdGenerator(start);
     }
 
+    /**
+     * The counter alone, ids are only unique within the session.
+     * @return
+     */
+    @Override
+    public synchronized long nextId() {
+        return orderCounter++;
+    }
+
     @Override
     public synchronized String generate() {
         return "Kunzite-" + DateTime.now().getMillis() + "-" + orderCounter++;
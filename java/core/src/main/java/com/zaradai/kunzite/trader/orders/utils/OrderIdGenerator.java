@@ -17,4 +17,10 @@ package com.zaradai.kunzite.trader.orders.utils;
 
 public interface OrderIdGenerator {
     String generate();
+
+    /**
+     * Next numeric order id, always valid, see OrderIds.
+     * @return
+     */
+    long nextId();
 }
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.utils;
+
+/**
+ * Helpers for numeric order ids.  The string form of a numeric id is its decimal value, rendered only when a string
+ * is needed for the wire or the logs.
+ */
+public final class OrderIds {
+    public static final long NO_ID = 0L;
+    private static final int MAX_DIGITS = 19;
+
+    private OrderIds() {
+    }
+
+    public static boolean isValid(long id) {
+        return id > NO_ID;
+    }
+
+    public static String toString(long id) {
+        return Long.toString(id);
+    }
+
+    /**
+     * Read back the numeric id from its string form without throwing for ids that are not numeric.
+     * @param id
+     * @return numeric id or NO_ID if the string is not the form of a numeric id.
+     */
+    public static long parse(String id) {
+        if (id == null || id.length() == 0 || id.length() > MAX_DIGITS) {
+            return NO_ID;
+        }
+
+        long res = 0L;
+
+        for (int i = 0; i < id.length(); ++i) {
+            char c = id.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return NO_ID;
+            }
+            res = res * 10 + (c - '0');
+        }
+        // 19 digits can overflow
+        return (res > NO_ID) ? res : NO_ID;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Lock free generator of 64 bit order ids packing the session, a shard and a sequence:
+ * <pre>
+ *   | 0 | session: 31 bits | shard: 8 bits | sequence: 24 bits |
+ * </pre>
+ * The session is the second the generator was created, counted from the start of 2014, so ids stay unique across
+ * restarts.  A sequence that runs out carries into the session, borrowing the following seconds.  Shards can share a
+ * generator, the sequence is a single atomic counter, or take one each with their own shard id.
+ */
+public class SessionOrderIdGenerator implements OrderIdGenerator {
+    public static final long EPOCH_MILLIS = 1388534400000L;    // 2014-01-01T00:00:00Z
+    public static final int SEQUENCE_BITS = 24;
+    public static final int SHARD_BITS = 8;
+    public static final int SESSION_SHIFT = SEQUENCE_BITS + SHARD_BITS;
+    public static final int MAX_SHARD = (1 << SHARD_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long SESSION_MASK = (1L << (Long.SIZE - 1 - SESSION_SHIFT)) - 1;
+
+    private final long base;
+    private final AtomicLong sequence;
+
+    private SessionOrderIdGenerator(long sessionMillis, int shard) {
+        checkArgument(shard >= 0 && shard <= MAX_SHARD, "Invalid shard");
+        checkArgument(sessionMillis >= EPOCH_MILLIS, "Invalid session time");
+
+        long session = ((sessionMillis - EPOCH_MILLIS) / 1000L) & SESSION_MASK;
+        base = (session << SESSION_SHIFT) | ((long) shard << SEQUENCE_BITS);
+        // ids start at one so NO_ID is never generated
+        sequence = new AtomicLong(1L);
+    }
+
+    public static SessionOrderIdGenerator newInstance() {
+        return newInstanceForShard(0);
+    }
+
+    public static SessionOrderIdGenerator newInstanceForShard(int shard) {
+        return new SessionOrderIdGenerator(System.currentTimeMillis(), shard);
+    }
+
+    public static SessionOrderIdGenerator newInstanceForSession(long sessionMillis, int shard) {
+        return new SessionOrderIdGenerator(sessionMillis, shard);
+    }
+
+    @Override
+    public long nextId() {
+        long next = sequence.getAndIncrement();
+        // overflow of the sequence carries into the session bits, skipping over the shard
+        return base + ((next >>> SEQUENCE_BITS) << SESSION_SHIFT) + (next & SEQUENCE_MASK);
+    }
+
+    @Override
+    public String generate() {
+        return OrderIds.toString(nextId());
+    }
+
+    public static long sessionOf(long id) {
+        return id >>> SESSION_SHIFT;
+    }
+
+    public static int shardOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_SHARD);
+    }
+
+    public static long sequenceOf(long id) {
+        return id & SEQUENCE_MASK;
+    }
+}
@@ -21,23 +21,51 @@ import com.google.common.collect.Queues;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public abstract class AbstractQueueBridge extends AbstractExecutionThreadService implements Bridge {
-    private static final long TIMEOUT = 1000;   // 1 Second
-
-    private final BlockingQueue<Object> events;
+public abstract class AbstractQueueBridge extends AbstractExecutionThreadService implements Bridge, EventPumpHandler {
+    private final EventPump events;
     private final ContextLogger logger;
     private final Meter meter;
 
     public AbstractQueueBridge(ContextLogger logger, MetricRegistry metricRegistry) {
         this.logger = logger;
         this.meter = metricRegistry.meter(getName());
-        events = createQueue();
+        events = new QueueEventPump(createQueue());
+    }
+
+    public AbstractQueueBridge(ContextLogger logger, MetricRegistry metricRegistry,
+                               TraderConfiguration configuration) {
+        this.logger = logger;
+        this.meter = metricRegistry.meter(getName());
+        events = createPump(configuration);
+    }
+
+    /**
+     * For bridges whose name depends on their own state, which is not yet set when the meter is registered.
+     * @param logger
+     * @param metricRegistry
+     * @param configuration
+     * @param name the name to meter events under
+     */
+    protected AbstractQueueBridge(ContextLogger logger, MetricRegistry metricRegistry,
+                                  TraderConfiguration configuration, String name) {
+        this.logger = logger;
+        this.meter = metricRegistry.meter(name);
+        events = createPump(configuration);
+    }
+
+    protected EventPump createPump(TraderConfiguration configuration) {
+        if (configuration.getBridgeType() == BridgeType.Disruptor) {
+            return new DisruptorEventPump(configuration.getBridgeRingSize(),
+                    configuration.getBridgeWaitStrategy().create());
+        }
+
+        return new QueueEventPump(createQueue());
     }
 
     protected BlockingQueue<Object> createQueue() {
@@ -50,17 +78,21 @@ public abstract class AbstractQueueBridge extends AbstractExecutionThreadService
 
     @Override
     protected void run() throws Exception {
-        while (isRunning()) {
-            // get the next event from the queue
-            Object event = events.poll(TIMEOUT, TimeUnit.MILLISECONDS);
-            // null will be returned if timed out
-            if (event != null) {
-                // process the event within the service thread
-                handleEvent(event);
-                // update process count
-                meter.mark();
-            }
-        }
+        // drains on this service thread until halted
+        events.run(this);
+    }
+
+    @Override
+    protected void triggerShutdown() {
+        events.halt();
+    }
+
+    @Override
+    public void onPumpEvent(Object event) {
+        // process the event within the service thread
+        handleEvent(event);
+        // update process count
+        meter.mark();
     }
 
     @Override
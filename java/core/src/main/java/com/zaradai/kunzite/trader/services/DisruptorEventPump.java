@@ -0,0 +1,96 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.WaitStrategy;
+
+/**
+ * Pump backed by a pre-allocated multi producer ring buffer.  The batch processor is run on the calling (bridge)
+ * thread so the bridge keeps its own single consumer thread, no executor is required.
+ */
+public class DisruptorEventPump implements EventPump, EventHandler<DisruptorEventPump.Slot>,
+        EventTranslatorOneArg<DisruptorEventPump.Slot, Object>, LifecycleAware {
+    private static final EventFactory<Slot> FACTORY = new EventFactory<Slot>() {
+        @Override
+        public Slot newInstance() {
+            return new Slot();
+        }
+    };
+
+    private final RingBuffer<Slot> ringBuffer;
+    private final BatchEventProcessor<Slot> processor;
+    private volatile EventPumpHandler handler;
+    private volatile boolean halted;
+
+    public DisruptorEventPump(int ringSize, WaitStrategy waitStrategy) {
+        ringBuffer = RingBuffer.createMultiProducer(FACTORY, ringSize, waitStrategy);
+        processor = new BatchEventProcessor<Slot>(ringBuffer, ringBuffer.newBarrier(), this);
+        // gate from the start so events published before the consumer runs are not overwritten
+        ringBuffer.addGatingSequences(processor.getSequence());
+    }
+
+    @Override
+    public void put(Object event) throws InterruptedException {
+        ringBuffer.publishEvent(this, event);
+    }
+
+    @Override
+    public void run(EventPumpHandler handler) throws Exception {
+        this.handler = handler;
+        processor.run();
+    }
+
+    @Override
+    public void halt() {
+        halted = true;
+        processor.halt();
+    }
+
+    @Override
+    public void onEvent(Slot slot, long sequence, boolean endOfBatch) throws Exception {
+        Object event = slot.event;
+        // release the reference so the slot does not keep the event reachable
+        slot.event = null;
+        handler.onPumpEvent(event);
+    }
+
+    @Override
+    public void translateTo(Slot slot, long sequence, Object event) {
+        slot.event = event;
+    }
+
+    @Override
+    public void onStart() {
+        // a halt may have arrived before the processor was running, in which case the alert has been cleared
+        if (halted) {
+            processor.halt();
+        }
+    }
+
+    @Override
+    public void onShutdown() {
+    }
+
+    static final class Slot {
+        private Object event;
+    }
+}
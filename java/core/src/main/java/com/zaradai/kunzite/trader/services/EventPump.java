@@ -0,0 +1,40 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services;
+
+/**
+ * Transport used by a bridge to hand events from any producer thread over to the single bridge consumer thread.
+ */
+public interface EventPump {
+    /**
+     * Push an event into the pump, may block if the pump is at capacity.
+     * @param event
+     * @throws InterruptedException
+     */
+    void put(Object event) throws InterruptedException;
+
+    /**
+     * Drain events into the handler on the calling thread until the pump is halted.
+     * @param handler
+     * @throws Exception
+     */
+    void run(EventPumpHandler handler) throws Exception;
+
+    /**
+     * Stop draining, run will return shortly after.
+     */
+    void halt();
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pump backed by a blocking queue, consumer polls with a timeout so it can notice when halted.
+ */
+public class QueueEventPump implements EventPump {
+    private static final long TIMEOUT = 1000;   // 1 Second
+
+    private final BlockingQueue<Object> events;
+    private volatile boolean running;
+
+    public QueueEventPump(BlockingQueue<Object> events) {
+        this.events = events;
+        running = true;
+    }
+
+    @Override
+    public void put(Object event) throws InterruptedException {
+        events.put(event);
+    }
+
+    @Override
+    public void run(EventPumpHandler handler) throws Exception {
+        while (running) {
+            // get the next event from the queue
+            Object event = events.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+            // null will be returned if timed out
+            if (event != null) {
+                handler.onPumpEvent(event);
+            }
+        }
+    }
+
+    @Override
+    public void halt() {
+        running = false;
+    }
+}
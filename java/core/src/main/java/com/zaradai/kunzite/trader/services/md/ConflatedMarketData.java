@@ -0,0 +1,48 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md;
+
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+
+/**
+ * Placeholder queued to the trader for an instrument with conflated updates pending.  Updates arriving while it waits
+ * in the trader queue are merged into the pending record, the trader takes the newest state once it gets to it.
+ */
+public final class ConflatedMarketData {
+    private final MarketDataConflater conflater;
+    private MarketDataRecord record;
+
+    ConflatedMarketData(MarketDataConflater conflater) {
+        this.conflater = conflater;
+    }
+
+    MarketDataRecord getRecord() {
+        return record;
+    }
+
+    void setRecord(MarketDataRecord record) {
+        this.record = record;
+    }
+
+    /**
+     * Claim the pending state, later updates for the instrument start a new placeholder.  Must be called once only,
+     * the placeholder is reused as soon as it has been taken.
+     * @return the merged record, owned by the caller who should recycle it once dispatched.
+     */
+    public MarketDataRecord take() {
+        return conflater.take(this);
+    }
+}
@@ -22,32 +22,64 @@ import com.google.inject.Inject;
 import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.logging.LogHelper;
 import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.config.md.ChannelConfig;
 import com.zaradai.kunzite.trader.config.md.MarketDataConfiguration;
 import com.zaradai.kunzite.trader.config.md.Subscription;
 import com.zaradai.kunzite.trader.events.MarketData;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.events.MarketDataRecordPool;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 import com.zaradai.kunzite.trader.services.AbstractQueueBridge;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
 import com.zaradai.kunzite.trader.services.trader.DefaultTraderService;
+import com.zaradai.kunzite.trader.services.trader.TraderService;
 
+import java.util.BitSet;
 import java.util.Map;
 
+/**
+ * Bridges the channels to the trader, records are mapped to their instrument on the service thread and handed to the
+ * owning shard.  A simulated clock is moved on to each record's time as it is handed over, so the timers it releases
+ * are queued to the shards from the same thread and ahead of the record, never overtaking data queued before them.
+ */
 public class DefaultMarketDataService extends AbstractQueueBridge implements MarketDataService {
     static final String SERVICE_NAME = "Market Data Service";
+    private static final long NANOS_PER_MILLI = 1000000L;
 
     private MarketDataConfiguration configuration;
     private final MarketDataChannelFactory marketDataChannelFactory;
     private final DefaultTraderService traderService;
     private final Map<String, MarketDataChannel> channelByName;
     private final Map<String, ChannelConfig> channelConfigByName;
+    private final MarketDataRecordPool recordPool;
+    private final MarketDataConflater conflater;
+    private final BitSet conflatedIndexes;
+    private final SymbolRegistry symbolRegistry;
+    private final TimeBase timeBase;
     private MappingManager mappingManager;
     @Inject
-    DefaultMarketDataService(ContextLogger logger, MetricRegistry metricRegistry,
-                             MarketDataChannelFactory marketDataChannelFactory, DefaultTraderService traderService) {
-        super(logger, metricRegistry);
+    DefaultMarketDataService(ContextLogger logger, MetricRegistry metricRegistry, TraderConfiguration configuration,
+                             MarketDataChannelFactory marketDataChannelFactory, DefaultTraderService traderService,
+                             SymbolRegistry symbolRegistry, TimeBase timeBase) {
+        super(logger, metricRegistry, configuration);
+        this.symbolRegistry = symbolRegistry;
+        this.timeBase = timeBase;
         this.marketDataChannelFactory = marketDataChannelFactory;
         this.traderService = traderService;
         channelByName = createChannelMap();
         channelConfigByName = createChannelConfigMap();
+        recordPool = createRecordPool();
+        conflater = createConflater(metricRegistry, traderService);
+        conflatedIndexes = new BitSet();
+    }
+
+    protected MarketDataRecordPool createRecordPool() {
+        return new MarketDataRecordPool();
+    }
+
+    protected MarketDataConflater createConflater(MetricRegistry metricRegistry, TraderService traderService) {
+        return new MarketDataConflater(metricRegistry, traderService);
     }
 
     private Map<String, ChannelConfig> createChannelConfigMap() {
@@ -63,11 +95,21 @@ public class DefaultMarketDataService extends AbstractQueueBridge implements Mar
         onEvent(marketData);
     }
 
+    @Override
+    public MarketDataRecord acquireRecord() {
+        return recordPool.acquire();
+    }
+
+    @Override
+    public void onMarketData(MarketDataRecord record) {
+        onEvent(record);
+    }
+
     @Override
     public void build(MarketDataConfiguration configuration) throws ConfigException {
         this.configuration = configuration;
         loadChannelConfig();
-        mappingManager = new MappingManager(configuration.getMappings());
+        mappingManager = new MappingManager(configuration.getMappings(), symbolRegistry);
     }
 
     private void loadChannelConfig() {
@@ -91,9 +133,23 @@ public class DefaultMarketDataService extends AbstractQueueBridge implements Mar
             String sid = mappingManager.getSid(subscription.getMap(), subscription.getId());
             // subscribe for market data
             channel.subscribe(sid);
+
+            int index = mappingManager.getIndex(sid);
+
+            if (index != MarketDataRecord.UNKNOWN_INDEX && isConflated(subscription)) {
+                conflatedIndexes.set(index);
+            }
         }
     }
 
+    private boolean isConflated(Subscription subscription) {
+        if (subscription.getConflate() != null) {
+            return subscription.getConflate();
+        }
+
+        return channelConfigByName.get(subscription.getChannel()).isConflate();
+    }
+
     /**
      * Get the channel identified by channelName, lazily load the channel if not cached.
      * @param channelName
@@ -158,14 +214,21 @@ public class DefaultMarketDataService extends AbstractQueueBridge implements Mar
 
     @Override
     public void handleEvent(Object event) {
+        if (event instanceof MarketDataRecord) {
+            handleRecord((MarketDataRecord) event);
+            return;
+        }
+
         MarketData marketData = (MarketData) event;
         // convert the incoming sid to internal instrument id
         String id = mappingManager.getId(marketData.getInstrumentId());
 
         if (!Strings.isNullOrEmpty(id)) {
-            MarketData toProcess = MarketData.newInstance(id, marketData.getTimestamp(), marketData.getFields());
-            // send to the trader
-            traderService.onEvent(toProcess);
+            int index = mappingManager.getIndex(marketData.getInstrumentId());
+            MarketData toProcess = MarketData.newInstance(id, index, marketData.getTimestamp(),
+                    marketData.getFields());
+            // send to the trader shard owning the instrument
+            traderService.onTraderEvent(index, toProcess);
         }  else {
             LogHelper.warn(getLogger())
                     .addContext("Market Data")
@@ -175,6 +238,31 @@ public class DefaultMarketDataService extends AbstractQueueBridge implements Mar
         }
     }
 
+    private void handleRecord(MarketDataRecord record) {
+        String sid = record.getInstrumentId();
+        int index = mappingManager.getIndex(sid);
+
+        if (index != MarketDataRecord.UNKNOWN_INDEX) {
+            // swap the sid for the interned internal id in place, the trader service recycles once dispatched
+            record.setInstrument(mappingManager.getIdByIndex(index), index);
+            // timers due by this record are released ahead of it
+            timeBase.advanceTo(record.getTimestampNanos() / NANOS_PER_MILLI);
+
+            if (conflatedIndexes.get(index)) {
+                conflater.offer(record);
+            } else {
+                traderService.onTraderEvent(index, record);
+            }
+        } else {
+            record.recycle();
+            LogHelper.warn(getLogger())
+                    .addContext("Market Data")
+                    .addReason("Unable to convert symbol")
+                    .add("SID", sid)
+                    .log();
+        }
+    }
+
     @Override
     public String getName() {
         return SERVICE_NAME;
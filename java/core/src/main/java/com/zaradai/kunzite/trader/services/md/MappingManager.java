@@ -19,16 +19,31 @@ import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
 import com.zaradai.kunzite.trader.config.md.MappingConfig;
 import com.zaradai.kunzite.trader.config.md.MappingValue;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 
 import java.util.Map;
 
 public class MappingManager {
     private final Map<String, Map<String, String>> mapper;
     private final Map<String, String> idBySid;
+    private final Map<String, Integer> indexBySid;
+    private final SymbolRegistry symbolRegistry;
 
     public MappingManager(Iterable<MappingConfig> mappings) {
+        this(mappings, new SymbolRegistry());
+    }
+
+    /**
+     * Share the trader's registry so indexes handed out here resolve directly against the trading manager.
+     * @param mappings
+     * @param symbolRegistry
+     */
+    public MappingManager(Iterable<MappingConfig> mappings, SymbolRegistry symbolRegistry) {
+        this.symbolRegistry = symbolRegistry;
         mapper = Maps.newHashMap();
         idBySid = Maps.newHashMap();
+        indexBySid = Maps.newHashMap();
 
         for (MappingConfig mapping : mappings) {
             Map<String, String> idToSid = Maps.newHashMap();
@@ -49,6 +64,7 @@ public class MappingManager {
             if (!Strings.isNullOrEmpty(sid)) {
                 // remember the reverse map
                 idBySid.put(sid, id);
+                intern(sid, id);
                 // and return valid mapping
                 return sid;
             }
@@ -61,6 +77,27 @@ public class MappingManager {
         return idBySid.get(sid);
     }
 
+    /**
+     * Get the interned index of the instrument subscribed with the given sid.
+     * @param sid
+     * @return index or MarketDataRecord.UNKNOWN_INDEX if the sid has not been subscribed.
+     */
+    public int getIndex(String sid) {
+        Integer res = indexBySid.get(sid);
+
+        return (res != null) ? res : MarketDataRecord.UNKNOWN_INDEX;
+    }
+
+    public String getIdByIndex(int index) {
+        return symbolRegistry.symbolOf(index);
+    }
+
+    private void intern(String sid, String id) {
+        if (!indexBySid.containsKey(sid)) {
+            indexBySid.put(sid, symbolRegistry.intern(id));
+        }
+    }
+
     private Map<String, String> getMap(String mapName) {
         return  mapper.get(mapName);
     }
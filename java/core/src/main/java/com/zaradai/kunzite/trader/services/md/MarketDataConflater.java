@@ -0,0 +1,125 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.collect.Queues;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.services.trader.TraderService;
+
+import java.util.Arrays;
+import java.util.Deque;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Conflates market data by instrument while the trader is busy.  The first update for an instrument is queued to
+ * the trader as a {@link ConflatedMarketData} placeholder and any updates arriving before the trader takes it are
+ * merged in, so only the newest state is delivered.  Trade prints are never merged so no volume is lost, they seal
+ * any pending state and are forwarded as is to preserve ordering.
+ */
+public class MarketDataConflater {
+    static final String METRIC_NAME_RECEIVED = "received";
+    static final String METRIC_NAME_DELIVERED = "delivered";
+    static final String METRIC_NAME_RATIO = "ratio";
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final TraderService traderService;
+    private final Meter received;
+    private final Meter delivered;
+    private final Deque<ConflatedMarketData> free;
+    private ConflatedMarketData[] pendingByIndex;
+
+    public MarketDataConflater(MetricRegistry metrics, TraderService traderService) {
+        this.traderService = traderService;
+        received = metrics.meter(name(MarketDataConflater.class, METRIC_NAME_RECEIVED));
+        delivered = metrics.meter(name(MarketDataConflater.class, METRIC_NAME_DELIVERED));
+        metrics.register(name(MarketDataConflater.class, METRIC_NAME_RATIO), new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                // delivered over received, the lower the more updates have been conflated away
+                return Ratio.of(delivered.getCount(), received.getCount());
+            }
+        });
+        free = Queues.newArrayDeque();
+        pendingByIndex = new ConflatedMarketData[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Conflate a mapped record, ownership passes to the conflater.
+     * @param record record with its interned instrument index set
+     */
+    public void offer(MarketDataRecord record) {
+        Object toDeliver;
+        int index = record.getInstrumentIndex();
+        received.mark();
+
+        synchronized (this) {
+            ensureCapacity(index);
+            ConflatedMarketData pending = pendingByIndex[index];
+
+            if (isTrade(record)) {
+                // seal pending state so later updates cannot overtake the print
+                pendingByIndex[index] = null;
+                toDeliver = record;
+            } else if (pending != null) {
+                pending.getRecord().merge(record);
+                record.recycle();
+                return;
+            } else {
+                pending = acquire();
+                pending.setRecord(record);
+                pendingByIndex[index] = pending;
+                toDeliver = pending;
+            }
+        }
+
+        delivered.mark();
+        traderService.onTraderEvent(index, toDeliver);
+    }
+
+    synchronized MarketDataRecord take(ConflatedMarketData pending) {
+        MarketDataRecord res = pending.getRecord();
+        int index = res.getInstrumentIndex();
+
+        if (pendingByIndex[index] == pending) {
+            pendingByIndex[index] = null;
+        }
+        pending.setRecord(null);
+        free.push(pending);
+
+        return res;
+    }
+
+    private boolean isTrade(MarketDataRecord record) {
+        return record.contains(MarketDataFieldType.TRADE_PRICE) || record.contains(MarketDataFieldType.TRADE_SIZE);
+    }
+
+    private ConflatedMarketData acquire() {
+        ConflatedMarketData res = free.poll();
+
+        return (res != null) ? res : new ConflatedMarketData(this);
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= pendingByIndex.length) {
+            pendingByIndex = Arrays.copyOf(pendingByIndex, Math.max(index + 1, pendingByIndex.length * 2));
+        }
+    }
+}
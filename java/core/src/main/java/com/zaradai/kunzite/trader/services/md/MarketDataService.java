@@ -19,9 +19,18 @@ import com.google.common.util.concurrent.Service;
 import com.zaradai.kunzite.trader.config.ConfigException;
 import com.zaradai.kunzite.trader.config.md.MarketDataConfiguration;
 import com.zaradai.kunzite.trader.events.MarketData;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
 
 public interface MarketDataService extends Service {
     void onMarketData(MarketData marketData);
 
+    /**
+     * Get an empty pooled record for a channel to fill and pass to onMarketData(MarketDataRecord).
+     * @return
+     */
+    MarketDataRecord acquireRecord();
+
+    void onMarketData(MarketDataRecord record);
+
     void build(MarketDataConfiguration configuration) throws ConfigException;
 }
@@ -15,29 +15,159 @@
  */
 package com.zaradai.kunzite.trader.services.md.channel;
 
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
 import com.zaradai.kunzite.trader.services.md.MarketDataChannel;
+import com.zaradai.kunzite.trader.services.md.MarketDataService;
+import com.zaradai.kunzite.trader.services.md.eod.EodReaderFactory;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load source publishing emulated ticks for the subscribed symbols into the market data service, either synthetic
+ * books or a replay of compact EOD files depending on the configured source.  Ticks are paced to the configured rate
+ * across all symbols, a rate of 0 publishes as fast as the service accepts them.  Extra synthetic symbols, named
+ * with SYNTHETIC_PREFIX and a number, can be generated on top of the subscriptions for capacity tests, the market
+ * data mappings need to carry them for their ticks to reach the trader.  With nothing to publish the channel parks
+ * rather than spinning.
+ */
 public class EmulatorChannel extends AbstractExecutionThreadService implements MarketDataChannel {
+    public static final String SYNTHETIC_PREFIX = "EMU";
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SEED = 42L;
+
+    private final ContextLogger logger;
+    private final MarketDataService marketDataService;
+    private final TraderConfiguration configuration;
+    private final EodReaderFactory readerFactory;
+    private final Set<String> sids;
+    private final AtomicBoolean subscriptionsChanged;
+    private TickSource source;
+    private Pacer pacer;
+
+    @Inject
+    EmulatorChannel(ContextLogger logger, MarketDataService marketDataService, TraderConfiguration configuration,
+                    EodReaderFactory readerFactory) {
+        this.logger = logger;
+        this.marketDataService = marketDataService;
+        this.configuration = configuration;
+        this.readerFactory = readerFactory;
+        sids = Sets.newCopyOnWriteArraySet();
+        subscriptionsChanged = new AtomicBoolean(true);
+    }
+
+    protected TickSource createSource() {
+        switch (configuration.getEmulatorSource()) {
+            case Synthetic:
+                return new SyntheticTickSource(configuration.getEmulatorBookDepth(), SEED);
+            case Replay:
+                return new ReplayTickSource(logger, readerFactory, configuration.getEmulatorReplayFolder(),
+                        configuration.isEmulatorReplayLoop());
+            default:
+                return null;
+        }
+    }
+
+    protected Pacer createPacer() {
+        return new Pacer(configuration.getEmulatorTickRate());
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+        source = createSource();
+        pacer = createPacer();
+    }
+
     @Override
     protected void run() throws Exception {
         while (isRunning()) {
+            if (subscriptionsChanged.getAndSet(false)) {
+                reopen();
+            }
 
+            if (!publishNext()) {
+                // nothing to send, check back for new subscriptions or the channel stopping
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
         }
     }
 
+    @Override
+    protected void shutDown() throws Exception {
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    private void reopen() {
+        if (source != null) {
+            source.open(getSymbols());
+            pacer.reset();
+        }
+    }
+
+    private List<String> getSymbols() {
+        List<String> res = Lists.newArrayList(sids);
+
+        if (configuration.getEmulatorSource() == EmulatorSource.Synthetic) {
+            for (int i = 0; i < configuration.getEmulatorSymbols(); ++i) {
+                res.add(SYNTHETIC_PREFIX + i);
+            }
+        }
+
+        return res;
+    }
+
+    private boolean publishNext() {
+        if (source == null) {
+            return false;
+        }
+
+        MarketDataRecord record = marketDataService.acquireRecord();
+
+        if (!source.next(record)) {
+            record.recycle();
+            return false;
+        }
+
+        pacer.await();
+        marketDataService.onMarketData(record);
+
+        return true;
+    }
+
     @Override
     public void subscribe(String sid) {
-        //To change body of implemented methods use File | Settings | File Templates.
+        if (!Strings.isNullOrEmpty(sid) && sids.add(sid)) {
+            subscriptionsChanged.set(true);
+            LogHelper.info(logger)
+                    .addContext("Emulator Channel")
+                    .add("Subscribed", sid)
+                    .log();
+        }
     }
 
     @Override
     public void unsubscribe(String sid) {
-        //To change body of implemented methods use File | Settings | File Templates.
+        if (sids.remove(sid)) {
+            subscriptionsChanged.set(true);
+        }
     }
 
     @Override
     public void unsubscribeAll() {
-        //To change body of implemented methods use File | Settings | File Templates.
+        sids.clear();
+        subscriptionsChanged.set(true);
     }
 }
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.channel;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Spaces events evenly at a target rate.  The caller parks while the next slot is well away and spins through the
+ * last stretch, parking alone cannot wake with the precision needed at hundreds of thousands of events a second.
+ * Slots are scheduled from the previous slot rather than from when the caller returned, so the average rate holds
+ * when individual events run late.  A caller that falls far behind is not allowed to burst to catch up.
+ */
+public class Pacer {
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_LAG_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long intervalNanos;
+    private long next;
+
+    /**
+     * @param rate events per second, 0 to run unpaced
+     */
+    public Pacer(int rate) {
+        checkArgument(rate >= 0, "Invalid rate");
+
+        intervalNanos = (rate > 0) ? NANOS_PER_SECOND / rate : 0L;
+        reset();
+    }
+
+    public void reset() {
+        next = System.nanoTime();
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Wait until the next slot is due.
+     */
+    public void await() {
+        if (intervalNanos == 0) {
+            return;
+        }
+
+        long remaining = next - System.nanoTime();
+
+        if (remaining < -MAX_LAG_NANOS) {
+            // too far behind to catch up, start again from now
+            next -= remaining;
+            remaining = 0;
+        }
+
+        while (remaining > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+            remaining = next - System.nanoTime();
+        }
+
+        while (remaining > 0) {
+            remaining = next - System.nanoTime();
+        }
+        next += intervalNanos;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.channel;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.services.md.eod.EodData;
+import com.zaradai.kunzite.trader.services.md.eod.EodIOException;
+import com.zaradai.kunzite.trader.services.md.eod.EodMerger;
+import com.zaradai.kunzite.trader.services.md.eod.EodReader;
+import com.zaradai.kunzite.trader.services.md.eod.EodReaderFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the EOD files of the symbols in date order, merging across symbols so each day is published for every
+ * symbol before the next day starts, ties go to the symbol subscribed first.  Each bar is published as its open, high
+ * and low with the close and volume as the last trade, timestamped with the bar date.  The close is also quoted on
+ * both sides for the volume, as in a backtest, so books and emulated venues built from the feed have a market.  Symbols without a file are skipped.  Once every file is exhausted
+ * the source either ends or, when looping, starts again from the beginning of each file.
+ */
+public class ReplayTickSource implements TickSource {
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ContextLogger logger;
+    private final EodReaderFactory readerFactory;
+    private final String folder;
+    private final boolean loop;
+    private final List<EodReader> readers;
+    private EodMerger merger;
+    private List<String> sids;
+
+    public ReplayTickSource(ContextLogger logger, EodReaderFactory readerFactory, String folder, boolean loop) {
+        this.logger = logger;
+        this.readerFactory = readerFactory;
+        this.folder = folder;
+        this.loop = loop;
+        sids = ImmutableList.of();
+        readers = Lists.newArrayList();
+    }
+
+    @Override
+    public void open(List<String> sids) {
+        this.sids = ImmutableList.copyOf(sids);
+        rewind();
+    }
+
+    private void rewind() {
+        close();
+
+        for (String sid : sids) {
+            EodReader reader = readerFactory.create(folder);
+
+            try {
+                reader.open(sid);
+                readers.add(reader);
+            } catch (EodIOException e) {
+                LogHelper.warn(logger)
+                        .addContext("Emulator Channel")
+                        .addReason("Unable to open replay file")
+                        .add("Folder", folder)
+                        .add("SID", sid)
+                        .log();
+            }
+        }
+        merger = new EodMerger(readers);
+    }
+
+    @Override
+    public boolean next(MarketDataRecord record) {
+        EodData bar = (merger != null) ? merger.next() : null;
+
+        if (bar == null && loop && !readers.isEmpty()) {
+            rewind();
+            bar = merger.next();
+        }
+
+        if (bar == null) {
+            return false;
+        }
+
+        record.setInstrumentId(bar.getSymbol())
+                .setTimestampNanos(bar.getDate().getMillis() * NANOS_PER_MILLI)
+                .addDoubleValue(MarketDataFieldType.OPEN, bar.getOpen())
+                .addDoubleValue(MarketDataFieldType.HIGH, bar.getHigh())
+                .addDoubleValue(MarketDataFieldType.LOW, bar.getLow())
+                .addDoubleValue(MarketDataFieldType.TRADE_PRICE, bar.getClose())
+                .addLongValue(MarketDataFieldType.TRADE_SIZE, bar.getVolume())
+                .addDoubleValue(MarketDataFieldType.BEST_BID, bar.getClose())
+                .addLongValue(MarketDataFieldType.BID_SIZE, bar.getVolume())
+                .addDoubleValue(MarketDataFieldType.BEST_ASK, bar.getClose())
+                .addLongValue(MarketDataFieldType.ASK_SIZE, bar.getVolume());
+
+        return true;
+    }
+
+    @Override
+    public void close() {
+        for (EodReader reader : readers) {
+            try {
+                reader.close();
+            } catch (Exception e) {
+                LogHelper.warn(logger)
+                        .addContext("Emulator Channel")
+                        .addReason("Unable to close replay file")
+                        .log();
+            }
+        }
+        readers.clear();
+        merger = null;
+    }
+}
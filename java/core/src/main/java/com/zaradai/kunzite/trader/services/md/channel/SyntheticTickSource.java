@@ -0,0 +1,114 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.channel;
+
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.zaradai.kunzite.trader.events.MarketDataFieldType.*;
+
+/**
+ * Generates books for the symbols in turn, each a random walk of the mid a tick at a time with a one tick spread and
+ * random sizes at each level.  A seeded source produces the same stream every time it is opened.
+ */
+public class SyntheticTickSource implements TickSource {
+    public static final int MAX_DEPTH = 10;
+    private static final double TICK = 0.01;
+    private static final long START_TICKS = 10000;
+    private static final int LOT = 100;
+    private static final int MAX_LOTS = 10;
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final MarketDataFieldType[] BID_PRICES = {BEST_BID, BEST_BID2, BEST_BID3, BEST_BID4, BEST_BID5,
+            BEST_BID6, BEST_BID7, BEST_BID8, BEST_BID9, BEST_BID10};
+    private static final MarketDataFieldType[] ASK_PRICES = {BEST_ASK, BEST_ASK2, BEST_ASK3, BEST_ASK4, BEST_ASK5,
+            BEST_ASK6, BEST_ASK7, BEST_ASK8, BEST_ASK9, BEST_ASK10};
+    private static final MarketDataFieldType[] BID_SIZES = {BID_SIZE, BID2_SIZE, BID3_SIZE, BID4_SIZE, BID5_SIZE,
+            BID6_SIZE, BID7_SIZE, BID8_SIZE, BID9_SIZE, BID10_SIZE};
+    private static final MarketDataFieldType[] ASK_SIZES = {ASK_SIZE, ASK2_SIZE, ASK3_SIZE, ASK4_SIZE, ASK5_SIZE,
+            ASK6_SIZE, ASK7_SIZE, ASK8_SIZE, ASK9_SIZE, ASK10_SIZE};
+
+    private final int depth;
+    private final long seed;
+    private Random random;
+    private String[] sids;
+    private long[] bidTicks;
+    private int cursor;
+
+    /**
+     * @param depth levels a side, 1 for top of book up to MAX_DEPTH
+     * @param seed
+     */
+    public SyntheticTickSource(int depth, long seed) {
+        checkArgument(depth > 0 && depth <= MAX_DEPTH, "Invalid depth");
+
+        this.depth = depth;
+        this.seed = seed;
+        open(Collections.<String>emptyList());
+    }
+
+    @Override
+    public void open(List<String> sids) {
+        random = new Random(seed);
+        this.sids = sids.toArray(new String[sids.size()]);
+        bidTicks = new long[this.sids.length];
+        cursor = 0;
+
+        for (int i = 0; i < bidTicks.length; ++i) {
+            bidTicks[i] = START_TICKS;
+        }
+    }
+
+    @Override
+    public boolean next(MarketDataRecord record) {
+        if (sids.length == 0) {
+            return false;
+        }
+
+        int symbol = cursor;
+        cursor = (cursor + 1 == sids.length) ? 0 : cursor + 1;
+        // step the bid down, up or not at all, never through the floor
+        long bid = Math.max(depth, bidTicks[symbol] + random.nextInt(3) - 1);
+        bidTicks[symbol] = bid;
+
+        record.setInstrumentId(sids[symbol]);
+        record.setTimestampNanos(System.currentTimeMillis() * NANOS_PER_MILLI);
+
+        for (int level = 0; level < depth; ++level) {
+            record.addDoubleValue(BID_PRICES[level], (bid - level) * TICK);
+            record.addLongValue(BID_SIZES[level], nextSize());
+            record.addDoubleValue(ASK_PRICES[level], (bid + 1 + level) * TICK);
+            record.addLongValue(ASK_SIZES[level], nextSize());
+        }
+
+        return true;
+    }
+
+    private long nextSize() {
+        return (1 + random.nextInt(MAX_LOTS)) * LOT;
+    }
+
+    @Override
+    public void close() {
+        open(Collections.<String>emptyList());
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.channel;
+
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+
+import java.util.List;
+
+/**
+ * Produces the ticks an emulator channel publishes, called from the channel thread only.
+ */
+public interface TickSource {
+    /**
+     * Start producing ticks for the symbols, replacing any previously opened.
+     * @param sids
+     */
+    void open(List<String> sids);
+
+    /**
+     * Fill the record with the next tick.
+     * @param record empty record to fill
+     * @return false if there is nothing more to publish
+     */
+    boolean next(MarketDataRecord record);
+
+    void close();
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.eod;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the streams of several readers into a single stream in date order with a k-way heap, so each bar costs
+ * log(k) rather than a scan of every reader.  Bars on the same date are taken in the order the readers were given.
+ * Readers are expected to already be open and are not closed by the merger.
+ */
+public class EodMerger {
+    private final List<EodReader> readers;
+    private final PriorityQueue<Cursor> heap;
+
+    public EodMerger(List<EodReader> readers) {
+        this.readers = readers;
+        heap = new PriorityQueue<Cursor>(Math.max(1, readers.size()), new Comparator<Cursor>() {
+            @Override
+            public int compare(Cursor c1, Cursor c2) {
+                int res = c1.head.getDate().compareTo(c2.head.getDate());
+
+                return (res != 0) ? res : (c1.ordinal < c2.ordinal ? -1 : (c1.ordinal == c2.ordinal ? 0 : 1));
+            }
+        });
+
+        for (int i = 0; i < readers.size(); ++i) {
+            advance(new Cursor(i));
+        }
+    }
+
+    /**
+     * Index of the reader the next bar will come from, -1 once every reader is exhausted.
+     * @return
+     */
+    public int peekReader() {
+        Cursor cursor = heap.peek();
+
+        return (cursor != null) ? cursor.ordinal : -1;
+    }
+
+    /**
+     * Take the earliest pending bar.
+     * @return the bar or null once every reader is exhausted.
+     */
+    public EodData next() {
+        Cursor cursor = heap.poll();
+
+        if (cursor == null) {
+            return null;
+        }
+
+        EodData res = cursor.head;
+        advance(cursor);
+
+        return res;
+    }
+
+    private void advance(Cursor cursor) {
+        cursor.head = readers.get(cursor.ordinal).getNext();
+        // exhausted readers simply drop out of the heap
+        if (cursor.head != null) {
+            heap.add(cursor);
+        }
+    }
+
+    private static final class Cursor {
+        private final int ordinal;
+        private EodData head;
+
+        private Cursor(int ordinal) {
+            this.ordinal = ordinal;
+        }
+    }
+}
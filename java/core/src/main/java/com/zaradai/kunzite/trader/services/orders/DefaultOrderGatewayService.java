@@ -16,23 +16,28 @@
 package com.zaradai.kunzite.trader.services.orders;
 
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 import com.google.inject.Inject;
 import com.zaradai.kunzite.events.EventAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.logging.LogHelper;
 import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.config.orders.GatewayConfig;
 import com.zaradai.kunzite.trader.config.orders.OrderGatewayConfiguration;
 import com.zaradai.kunzite.trader.events.OrderSendEvent;
 import com.zaradai.kunzite.trader.events.OrderStatus;
 import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.OrderStatusEventPool;
 import com.zaradai.kunzite.trader.orders.model.NewOrder;
 import com.zaradai.kunzite.trader.services.AbstractQueueBridge;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
 import com.zaradai.kunzite.trader.services.trader.TraderService;
-import org.joda.time.DateTime;
 
+import java.util.List;
 import java.util.Map;
 
 public class DefaultOrderGatewayService extends AbstractQueueBridge implements OrderGatewayService {
@@ -43,24 +48,39 @@ public class DefaultOrderGatewayService extends AbstractQueueBridge implements O
     private final OrderGatewayFactory orderGatewayFactory;
     private final Map<String, OrderGateway> orderGatewayByMarket;
     private final ContextLogger logger;
+    private final OrderStatusEventPool statusEventPool;
+    private final MetricRegistry metricRegistry;
+    private final TraderConfiguration traderConfiguration;
+    private final List<NewOrder> batch;
+    private final TimeBase timeBase;
 
     @Inject
-    DefaultOrderGatewayService(ContextLogger logger, MetricRegistry metricRegistry, EventAggregator eventAggregator,
-                               TraderService traderService, OrderGatewayFactory orderGatewayFactory) {
-        super(logger, metricRegistry);
+    DefaultOrderGatewayService(ContextLogger logger, MetricRegistry metricRegistry, TraderConfiguration configuration,
+                               EventAggregator eventAggregator, TraderService traderService,
+                               OrderGatewayFactory orderGatewayFactory, TimeBase timeBase) {
+        super(logger, metricRegistry, configuration);
+        this.timeBase = timeBase;
         this.logger = logger;
         this.eventAggregator = eventAggregator;
         this.traderService = traderService;
         this.orderGatewayFactory = orderGatewayFactory;
+        this.metricRegistry = metricRegistry;
+        this.traderConfiguration = configuration;
 
         eventAggregator.subscribe(this);
         orderGatewayByMarket = createGatewayMap();
+        statusEventPool = createStatusEventPool();
+        batch = Lists.newArrayList();
     }
 
     protected Map<String, OrderGateway> createGatewayMap() {
         return Maps.newHashMap();
     }
 
+    protected OrderStatusEventPool createStatusEventPool() {
+        return new OrderStatusEventPool();
+    }
+
     @Override
     protected void startUp() throws Exception {
         // start all order gateways
@@ -91,43 +111,63 @@ public class DefaultOrderGatewayService extends AbstractQueueBridge implements O
     public void handleEvent(Object event) {
         if (event instanceof OrderSendEvent) {
             processSendOrder((OrderSendEvent) event);
+            // the orders now belong to their gateways, the batch is done with
+            ((OrderSendEvent) event).recycle();
         } else if (event instanceof OrderStatusEvent) {
             processStatusEvent((OrderStatusEvent) event);
         }
     }
 
     /**
-     * Order status received from gateway needs to be sent to the trader
+     * Order status received from gateway needs to be sent to the trader shard owning the instrument
      * @param event
      */
     private void processStatusEvent(OrderStatusEvent event) {
-        traderService.onTraderEvent(event);
+        traderService.onTraderEvent(event.getInstrumentIndex(), event);
     }
 
     /**
-     * Order request from trader needs to be sent to handling gateway
+     * Order request from trader needs to be sent to handling gateway, consecutive orders for a market are handed over
+     * as one batch.
      * @param event
      */
     private void processSendOrder(OrderSendEvent event) {
+        String marketId = null;
+        OrderGateway gateway = null;
         // iterate the orders
         for (NewOrder order : event.getOrders()) {
+            String orderMarketId = order.getRefData().getMarketId();
             // lookup the order gateway for the intended market
-            OrderGateway gateway = getGateway(order.getRefData().getMarketId());
+            if (marketId == null || !marketId.equals(orderMarketId)) {
+                sendBatch(gateway);
+                marketId = orderMarketId;
+                gateway = getGateway(marketId);
+            }
 
             if (gateway != null) {
-                gateway.processOrder(order);
+                batch.add(order);
             } else {
                 processInvalidGateway(order);
             }
         }
+        sendBatch(gateway);
+    }
+
+    private void sendBatch(OrderGateway gateway) {
+        if (batch.size() == 1) {
+            gateway.processOrder(batch.get(0));
+        } else if (batch.size() > 1) {
+            gateway.processOrders(batch);
+        }
+        batch.clear();
     }
 
     private void processInvalidGateway(NewOrder order) {
-        OrderStatusEvent statusEvent = new OrderStatusEvent();
+        OrderStatusEvent statusEvent = statusEventPool.acquire();
         statusEvent.setOrderStatus(OrderStatus.NoExchange);
-        statusEvent.setTimestamp(DateTime.now());
-        statusEvent.setAlgoId(order.getRefData().getAlgoId());
-        statusEvent.setOrderId(order.getRefData().getOrderId());
+        statusEvent.setTimestampMillis(timeBase.now());
+        statusEvent.setOrder(order.getRefData());
+        order.recycle();
         // send back to the trader
         onEvent(statusEvent);
     }
@@ -146,6 +186,11 @@ public class DefaultOrderGatewayService extends AbstractQueueBridge implements O
         return gateway;
     }
 
+    protected OrderGateway createSender(String marketId, OrderGateway gateway) {
+        return new GatewaySender(logger, metricRegistry, this, timeBase, gateway, marketId,
+                traderConfiguration.getGatewayQueueSize(), traderConfiguration.getGatewayBatchSize());
+    }
+
     @Override
     public String getName() {
         return SERVICE_NAME;
@@ -156,6 +201,10 @@ public class DefaultOrderGatewayService extends AbstractQueueBridge implements O
         for (GatewayConfig gatewayConfig : configuration.getGateways()) {
             try {
                 OrderGateway gateway = orderGatewayFactory.create(gatewayConfig.getClazz());
+
+                if (traderConfiguration.getGatewayExecution() == GatewayExecution.Sender) {
+                    gateway = createSender(gatewayConfig.getMarket(), gateway);
+                }
                 this.orderGatewayByMarket.put(gatewayConfig.getMarket(), gateway);
             } catch (GatewayException e) {
                 LogHelper.error(logger)
@@ -170,6 +219,7 @@ public class DefaultOrderGatewayService extends AbstractQueueBridge implements O
     }
 
     @Subscribe
+    @AllowConcurrentEvents
     @Override
     public void onOrderSend(OrderSendEvent event) {
         // add to the queue to be processed and return immediately
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.OrderStatusEventPool;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs a market's gateway on its own thread.  Orders are queued by the order gateway service and drained in batches
+ * of whatever has arrived, up to the batch size, so a slow venue only holds up its own orders.  A full queue never
+ * holds up the service thread, the order is rejected back to the trader and marked as backpressure.  Once stopping
+ * the sender sends what it has queued, orders arriving after that are rejected rather than left in the queue.  A
+ * batch the gateway fails to take is rejected back to the trader order by order, the gateway having taken none of it.
+ */
+public class GatewaySender extends AbstractExecutionThreadService implements OrderGateway {
+    static final String METRIC_DEPTH = "depth";
+    static final String METRIC_BACKPRESSURE = "backpressure";
+    static final String METRIC_BATCH = "batch";
+    static final String METRIC_SENT = "sent";
+    private static final long TIMEOUT = 100;
+
+    private final ContextLogger logger;
+    private final OrderGatewayService orderGatewayService;
+    private final TimeBase timeBase;
+    private final OrderStatusEventPool statusEventPool;
+    private final OrderGateway gateway;
+    private final String marketId;
+    private final BlockingQueue<NewOrder> queue;
+    private final List<NewOrder> batch;
+    private final int batchSize;
+    private final Meter backpressure;
+    private final Meter sent;
+    private final Histogram batches;
+    private final MetricRegistry metricRegistry;
+    private final String depthName;
+    private final Gauge<Integer> depth;
+    private volatile boolean closed;
+
+    public GatewaySender(ContextLogger logger, MetricRegistry metricRegistry, OrderGatewayService orderGatewayService,
+                         TimeBase timeBase, OrderGateway gateway, String marketId, int queueSize, int batchSize) {
+        checkArgument(queueSize > 0, "Invalid queue size");
+        checkArgument(batchSize > 0, "Invalid batch size");
+
+        this.logger = logger;
+        this.metricRegistry = metricRegistry;
+        this.orderGatewayService = orderGatewayService;
+        this.timeBase = timeBase;
+        this.gateway = gateway;
+        this.marketId = marketId;
+        this.batchSize = batchSize;
+        queue = createQueue(queueSize);
+        batch = Lists.newArrayListWithCapacity(batchSize);
+        statusEventPool = createStatusEventPool();
+        backpressure = metricRegistry.meter(name(GatewaySender.class, marketId, METRIC_BACKPRESSURE));
+        sent = metricRegistry.meter(name(GatewaySender.class, marketId, METRIC_SENT));
+        batches = metricRegistry.histogram(name(GatewaySender.class, marketId, METRIC_BATCH));
+        depthName = name(GatewaySender.class, marketId, METRIC_DEPTH);
+        depth = new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return queue.size();
+            }
+        };
+        // a sender re-created for the market takes over the gauge of the one before
+        metricRegistry.remove(depthName);
+        metricRegistry.register(depthName, depth);
+    }
+
+    protected BlockingQueue<NewOrder> createQueue(int queueSize) {
+        return new ArrayBlockingQueue<NewOrder>(queueSize);
+    }
+
+    protected OrderStatusEventPool createStatusEventPool() {
+        return new OrderStatusEventPool();
+    }
+
+    @Override
+    public void processOrder(NewOrder order) {
+        if (closed) {
+            reject(order, "Sender stopped");
+        } else if (!queue.offer(order)) {
+            // venue has fallen behind, turn the order away rather than hold up the service
+            backpressure.mark();
+            reject(order, "Queue full");
+        } else if (closed && queue.remove(order)) {
+            // stopped whilst queueing and missed by the final drain
+            reject(order, "Sender stopped");
+        }
+    }
+
+    private void reject(NewOrder order, String reason) {
+        LogHelper.warn(logger)
+                .addContext("Gateway Sender")
+                .addReason(reason)
+                .add("Market", marketId)
+                .add("Order ID", order.getRefData().getOrderId())
+                .log();
+        OrderStatusEvent statusEvent = statusEventPool.acquire();
+        statusEvent.setOrderStatus(OrderStatus.Rejected);
+        statusEvent.setTimestampMillis(timeBase.now());
+        statusEvent.setOrder(order.getRefData());
+        order.recycle();
+        orderGatewayService.onOrderStatus(statusEvent);
+    }
+
+    @Override
+    public void processOrders(List<NewOrder> orders) {
+        for (int i = 0; i < orders.size(); ++i) {
+            processOrder(orders.get(i));
+        }
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+        gateway.startAsync().awaitRunning();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        while (isRunning()) {
+            // null will be returned if timed out
+            NewOrder order = queue.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+
+            if (order != null) {
+                batch.add(order);
+                queue.drainTo(batch, batchSize - 1);
+                send();
+            }
+        }
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+        closed = true;
+        // send anything queued before stopping
+        while (queue.drainTo(batch, batchSize) > 0) {
+            send();
+        }
+        gateway.stopAsync().awaitTerminated();
+        // leave the gauge to any sender that has taken over the market
+        if (metricRegistry.getMetrics().get(depthName) == depth) {
+            metricRegistry.remove(depthName);
+        }
+    }
+
+    private void send() {
+        int size = batch.size();
+
+        try {
+            gateway.processOrders(batch);
+            sent.mark(size);
+        } catch (RuntimeException e) {
+            LogHelper.error(logger)
+                    .addContext("Gateway Sender")
+                    .addReason(e.getMessage())
+                    .add("Market", marketId)
+                    .add("Orders", size)
+                    .log();
+            // the trader would otherwise wait on these orders forever
+            for (int i = 0; i < size; ++i) {
+                reject(batch.get(i), "Gateway failed");
+            }
+        } finally {
+            batch.clear();
+        }
+        batches.update(size);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public OrderGateway getGateway() {
+        return gateway;
+    }
+
+    @Override
+    protected String serviceName() {
+        return "GatewaySender-" + marketId;
+    }
+
+    @Override
+    public String getName() {
+        return gateway.getName();
+    }
+}
@@ -18,7 +18,20 @@ package com.zaradai.kunzite.trader.services.orders;
 import com.google.common.util.concurrent.Service;
 import com.zaradai.kunzite.trader.orders.model.NewOrder;
 
+import java.util.List;
+
 public interface OrderGateway extends Service {
+    /**
+     * Send the order to the market, the gateway owns the order from here and should recycle it once done with it.
+     * @param order
+     */
     void processOrder(NewOrder order);
+
+    /**
+     * Send a batch of orders for the market so the gateway can coalesce its writes.  The gateway owns the orders but
+     * not the list, which is re-used once this returns.
+     * @param orders
+     */
+    void processOrders(List<NewOrder> orders);
     String getName();
 }
@@ -17,22 +17,53 @@ package com.zaradai.kunzite.trader.services.orders.gateway;
 
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.events.OrderStatus;
 import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.OrderStatusEventPool;
 import com.zaradai.kunzite.trader.orders.model.NewOrder;
 import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
 import com.zaradai.kunzite.trader.services.orders.OrderGateway;
 import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
-import org.joda.time.DateTime;
+import com.zaradai.kunzite.trader.services.timer.SystemTimeBase;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Acknowledges and fills every order.  An artificial venue latency can be configured, paid once per call so a batch
+ * costs a single round trip.
+ */
 public class EmulatorGateway extends AbstractIdleService implements OrderGateway {
     static final String GATEWAY_NAME = "Emulator";
 
     private final OrderGatewayService orderGatewayService;
+    private final OrderStatusEventPool statusEventPool;
+    private final TimeBase timeBase;
+    private volatile long latencyNanos;
 
-    @Inject
     EmulatorGateway(OrderGatewayService orderGatewayService) {
+        this(orderGatewayService, new SystemTimeBase());
+    }
+
+    EmulatorGateway(OrderGatewayService orderGatewayService, TimeBase timeBase) {
         this.orderGatewayService = orderGatewayService;
+        this.timeBase = timeBase;
+        statusEventPool = createStatusEventPool();
+    }
+
+    @Inject
+    EmulatorGateway(OrderGatewayService orderGatewayService, TraderConfiguration configuration, TimeBase timeBase) {
+        this(orderGatewayService, timeBase);
+        setLatencyMicros(configuration.getEmulatorLatencyMicros());
+    }
+
+    protected OrderStatusEventPool createStatusEventPool() {
+        return new OrderStatusEventPool();
     }
 
     @Override
@@ -45,13 +76,51 @@ public class EmulatorGateway extends AbstractIdleService implements OrderGateway
         //NOP
     }
 
+    public void setLatencyMicros(long latencyMicros) {
+        checkArgument(latencyMicros >= 0, "Invalid latency");
+        latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+    }
+
+    public long getLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+    }
+
     @Override
     public void processOrder(NewOrder order) {
+        awaitVenue();
+        execute(order);
+    }
+
+    @Override
+    public void processOrders(List<NewOrder> orders) {
+        awaitVenue();
+
+        for (int i = 0; i < orders.size(); ++i) {
+            execute(orders.get(i));
+        }
+    }
+
+    private void awaitVenue() {
+        long remaining = latencyNanos;
+
+        if (remaining > 0) {
+            long deadline = System.nanoTime() + remaining;
+            // park may return early, keep going until the latency has passed
+            do {
+                LockSupport.parkNanos(remaining);
+                remaining = deadline - System.nanoTime();
+            } while (remaining > 0);
+        }
+    }
+
+    private void execute(NewOrder order) {
         if (order.getRequestType() == OrderRequestType.Create || order.getRequestType() == OrderRequestType.Amend) {
             fillOrder(order);
         } else {
             cancelOrder(order);
         }
+        // everything needed has been copied into the status events
+        order.recycle();
     }
 
     @Override
@@ -63,12 +132,11 @@ public class EmulatorGateway extends AbstractIdleService implements OrderGateway
         sendAck(order);
         // now cancel
         OrderStatusEvent event;
-        event = new OrderStatusEvent();
-        event.setOrderId(order.getRefData().getOrderId());
-        event.setAlgoId(order.getRefData().getAlgoId());
+        event = statusEventPool.acquire();
+        event.setOrder(order.getRefData());
         event.setOrderStatus(OrderStatus.Cancelled);
         event.setExchangeId("emulator");
-        event.setTimestamp(DateTime.now());
+        event.setTimestampMillis(timeBase.now());
         // send  fill
         orderGatewayService.onOrderStatus(event);
     }
@@ -77,25 +145,23 @@ public class EmulatorGateway extends AbstractIdleService implements OrderGateway
         sendAck(order);
         // now fill
         OrderStatusEvent event;
-        event = new OrderStatusEvent();
-        event.setOrderId(order.getRefData().getOrderId());
-        event.setAlgoId(order.getRefData().getAlgoId());
+        event = statusEventPool.acquire();
+        event.setOrder(order.getRefData());
         event.setOrderStatus(OrderStatus.Filled);
         event.setExchangeId("emulator");
         event.setLastPx(order.getPrice());
         event.setExecQty(order.getQuantity());
-        event.setTimestamp(DateTime.now());
+        event.setTimestampMillis(timeBase.now());
         // send  fill
         orderGatewayService.onOrderStatus(event);
     }
 
     private void sendAck(NewOrder order) {
-        OrderStatusEvent event = new OrderStatusEvent();
-        event.setOrderId(order.getRefData().getOrderId());
-        event.setAlgoId(order.getRefData().getAlgoId());
+        OrderStatusEvent event = statusEventPool.acquire();
+        event.setOrder(order.getRefData());
         event.setOrderStatus(OrderStatus.New);
         event.setExchangeId("emulator");
-        event.setTimestamp(DateTime.now());
+        event.setTimestampMillis(timeBase.now());
         // send  ack
         orderGatewayService.onOrderStatus(event);
     }
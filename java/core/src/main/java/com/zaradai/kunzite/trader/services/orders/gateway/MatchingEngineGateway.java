@@ -0,0 +1,284 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.events.EventAggregator;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.events.MarketDataRecordHandler;
+import com.zaradai.kunzite.trader.events.MarketDataRecordPool;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.OrderStatusHandler;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.marketdata.MarketBookFactory;
+import com.zaradai.kunzite.trader.marketdata.MarketBookUpdater;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.services.orders.OrderGateway;
+import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
+import com.zaradai.kunzite.trader.services.orders.gateway.matching.DelayLine;
+import com.zaradai.kunzite.trader.services.orders.gateway.matching.LatencyDistribution;
+import com.zaradai.kunzite.trader.services.orders.gateway.matching.LatencyModel;
+import com.zaradai.kunzite.trader.services.orders.gateway.matching.MatchingEngine;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Local stand-in for a venue, orders are matched in price-time priority against each other and the market book fed
+ * to it through onMarketData, so they can rest, fill partially or not at all.  While running the venue listens to the
+ * market data dispatched to the trader, so it quotes the same market the algos see.  The venue runs on its own thread:
+ * orders reach the matching engine after an ack latency and fills come back after a fill latency, both sampled from
+ * the configured distributions.  Messages keep their order in each direction as on a sequenced session, so an ack
+ * or cancel is never overtaken by a fill sent before it and waits behind it instead.  Orders wait for room in the
+ * inbound queue on the sending gateway's thread, market data never waits as it arrives on the trader's thread, an
+ * update finding the queue full is dropped and counted instead.
+ */
+public class MatchingEngineGateway extends AbstractExecutionThreadService implements OrderGateway,
+        MarketDataRecordHandler {
+    static final String GATEWAY_NAME = "MatchingEngine";
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ContextLogger logger;
+    private final OrderGatewayService orderGatewayService;
+    private final EventAggregator eventAggregator;
+    private final MatchingEngine engine;
+    private final BlockingQueue<Object> inbound;
+    private final List<Object> drained;
+    private final int batchSize;
+    private final MarketDataRecordPool recordPool;
+    private final DelayLine<NewOrder> toVenue;
+    private final DelayLine<OrderStatusEvent> fromVenue;
+    private final AtomicLong droppedMarketData;
+    private volatile LatencyDistribution ackLatency;
+    private volatile LatencyDistribution fillLatency;
+    // time of the current pass of the venue thread
+    private long now;
+
+    @Inject
+    MatchingEngineGateway(ContextLogger logger, OrderGatewayService orderGatewayService,
+                          TraderConfiguration configuration, InstrumentResolver instrumentResolver,
+                          MarketResolver marketResolver, MarketBookFactory marketBookFactory,
+                          MarketBookUpdater marketBookUpdater, TimeBase timeBase, EventAggregator eventAggregator) {
+        this.logger = logger;
+        this.orderGatewayService = orderGatewayService;
+        this.eventAggregator = eventAggregator;
+        batchSize = configuration.getGatewayBatchSize();
+        inbound = createQueue(configuration.getGatewayQueueSize());
+        drained = Lists.newArrayListWithCapacity(batchSize);
+        recordPool = createRecordPool();
+        toVenue = new DelayLine<NewOrder>();
+        fromVenue = new DelayLine<OrderStatusEvent>();
+        droppedMarketData = new AtomicLong();
+        engine = createEngine(instrumentResolver, marketResolver, marketBookFactory, marketBookUpdater,
+                new OrderStatusHandler() {
+                    @Override
+                    public void onOrderStatus(OrderStatusEvent event) {
+                        schedule(event);
+                    }
+                }, timeBase);
+
+        LatencyModel model = configuration.getEmulatorLatencyModel();
+        Random random = new Random();
+        setLatency(model.create(configuration.getEmulatorAckLatencyMicros(),
+                        configuration.getEmulatorLatencyJitterMicros(), random),
+                model.create(configuration.getEmulatorFillLatencyMicros(),
+                        configuration.getEmulatorLatencyJitterMicros(), random));
+    }
+
+    protected BlockingQueue<Object> createQueue(int queueSize) {
+        return new ArrayBlockingQueue<Object>(queueSize);
+    }
+
+    protected MarketDataRecordPool createRecordPool() {
+        return new MarketDataRecordPool();
+    }
+
+    protected MatchingEngine createEngine(InstrumentResolver instrumentResolver, MarketResolver marketResolver,
+                                          MarketBookFactory marketBookFactory, MarketBookUpdater marketBookUpdater,
+                                          OrderStatusHandler handler, TimeBase timeBase) {
+        return new MatchingEngine(instrumentResolver, marketResolver, marketBookFactory, marketBookUpdater, handler,
+                timeBase);
+    }
+
+    /**
+     * Replace the latency distributions, intended to be set before the gateway is started.
+     * @param ackLatency latency from an order being sent to it reaching the matching engine
+     * @param fillLatency latency from an execution to its fill being reported
+     */
+    public void setLatency(LatencyDistribution ackLatency, LatencyDistribution fillLatency) {
+        this.ackLatency = checkNotNull(ackLatency, "Invalid ack latency");
+        this.fillLatency = checkNotNull(fillLatency, "Invalid fill latency");
+    }
+
+    @Override
+    public void processOrder(NewOrder order) {
+        enqueue(order);
+    }
+
+    @Override
+    public void processOrders(List<NewOrder> orders) {
+        for (int i = 0; i < orders.size(); ++i) {
+            enqueue(orders.get(i));
+        }
+    }
+
+    /**
+     * Feed the venue's market book, records are keyed by the internal instrument id.  The venue takes a copy so the
+     * record stays with the caller.  Called on the trader's thread so a venue that has fallen behind must not hold it
+     * up, the copy is dropped if the inbound queue is full and the venue book catches up with the next update.
+     * @param record
+     */
+    @Override
+    public void onMarketData(MarketDataRecord record) {
+        MarketDataRecord copy = recordPool.acquire();
+        copy.setInstrument(record.getInstrumentId(), record.getInstrumentIndex());
+
+        if (!inbound.offer(copy.merge(record))) {
+            copy.recycle();
+            droppedMarketData.incrementAndGet();
+        }
+    }
+
+    /**
+     * Market data updates dropped because the venue had fallen behind.
+     * @return
+     */
+    public long getDroppedMarketData() {
+        return droppedMarketData.get();
+    }
+
+    private void enqueue(NewOrder order) {
+        try {
+            inbound.put(order);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LogHelper.warn(logger)
+                    .addContext("Matching Engine Gateway")
+                    .addReason("Interrupted whilst queueing")
+                    .log();
+        }
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+        eventAggregator.subscribe(this);
+    }
+
+    @Override
+    protected void run() throws Exception {
+        while (isRunning()) {
+            // wait for more work but no longer than the next message is due
+            Object event = inbound.poll(getWaitNanos(), TimeUnit.NANOSECONDS);
+            now = System.nanoTime();
+
+            if (event != null) {
+                accept(event);
+                drain();
+            }
+            release(false);
+        }
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+        eventAggregator.unsubscribe(this);
+        // let everything in flight through regardless of latency
+        now = System.nanoTime();
+        drain();
+        release(true);
+    }
+
+    private long getWaitNanos() {
+        long res = IDLE_NANOS;
+        long time = System.nanoTime();
+
+        if (!toVenue.isEmpty()) {
+            res = Math.min(res, toVenue.nextDue() - time);
+        }
+
+        if (!fromVenue.isEmpty()) {
+            res = Math.min(res, fromVenue.nextDue() - time);
+        }
+
+        return Math.max(0L, res);
+    }
+
+    private void drain() {
+        while (inbound.drainTo(drained, batchSize) > 0) {
+            for (int i = 0; i < drained.size(); ++i) {
+                accept(drained.get(i));
+            }
+            drained.clear();
+        }
+    }
+
+    private void accept(Object event) {
+        if (event instanceof NewOrder) {
+            toVenue.add((NewOrder) event, now + ackLatency.nextNanos());
+        } else {
+            MarketDataRecord record = (MarketDataRecord) event;
+            // orders already at the venue were there before this update
+            releaseOrders(false);
+            engine.onMarketData(record);
+            record.recycle();
+        }
+    }
+
+    private void release(boolean all) {
+        releaseOrders(all);
+
+        while (!fromVenue.isEmpty() && (all || fromVenue.isDue(now))) {
+            orderGatewayService.onOrderStatus(fromVenue.poll());
+        }
+    }
+
+    private void releaseOrders(boolean all) {
+        while (!toVenue.isEmpty() && (all || toVenue.isDue(now))) {
+            engine.process(toVenue.poll());
+        }
+    }
+
+    private void schedule(OrderStatusEvent event) {
+        boolean execution = event.getOrderStatus() == OrderStatus.Filled
+                || event.getOrderStatus() == OrderStatus.PartiallyFilled;
+
+        fromVenue.add(event, execution ? now + fillLatency.nextNanos() : now);
+    }
+
+    @Override
+    protected String serviceName() {
+        return GATEWAY_NAME;
+    }
+
+    @Override
+    public String getName() {
+        return GATEWAY_NAME;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * FIFO of items each held until a due time, modelling a sequenced session where a message can be late but never
+ * overtakes the one sent before it.  A due time earlier than that of the tail is raised to it, so the line stays
+ * ordered by due time and a ring of parallel arrays does instead of a priority queue.  Single threaded.
+ * @param <T>
+ */
+public class DelayLine<T> {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private Object[] items;
+    private long[] dues;
+    private int head;
+    private int size;
+    private long lastDue;
+
+    public DelayLine() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DelayLine(int capacity) {
+        items = new Object[Math.max(1, capacity)];
+        dues = new long[items.length];
+        lastDue = Long.MIN_VALUE;
+    }
+
+    public void add(T item, long dueNanos) {
+        ensureCapacity();
+
+        if (size == 0 || dueNanos - lastDue > 0) {
+            lastDue = dueNanos;
+        }
+
+        int tail = (head + size) % items.length;
+        items[tail] = item;
+        dues[tail] = lastDue;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Due time of the head of the line.
+     * @return
+     */
+    public long nextDue() {
+        checkNotEmpty();
+
+        return dues[head];
+    }
+
+    /**
+     * Check whether the head of the line is due, due times are nanoTime values so compare by difference.
+     * @param nowNanos
+     * @return
+     */
+    public boolean isDue(long nowNanos) {
+        return size > 0 && dues[head] - nowNanos <= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        checkNotEmpty();
+
+        T res = (T) items[head];
+        items[head] = null;
+        head = (head + 1) % items.length;
+        size--;
+
+        return res;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("Delay line is empty");
+        }
+    }
+
+    private void ensureCapacity() {
+        if (size == items.length) {
+            Object[] grownItems = new Object[items.length * 2];
+            long[] grownDues = new long[grownItems.length];
+            // unwrap the ring so the head starts at zero again
+            for (int i = 0; i < size; ++i) {
+                int at = (head + i) % items.length;
+                grownItems[i] = items[at];
+                grownDues[i] = dues[at];
+            }
+            Arrays.fill(items, null);
+            items = grownItems;
+            dues = grownDues;
+            head = 0;
+        }
+    }
+}
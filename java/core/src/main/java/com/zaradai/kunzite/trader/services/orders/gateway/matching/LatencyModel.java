@@ -0,0 +1,80 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Shape of the latency an emulated venue adds to a message.  Each model takes a base latency, which is always paid,
+ * and a jitter on top of it: Fixed ignores the jitter, Uniform spreads evenly up to it and Exponential uses it as the
+ * mean of a long tail.
+ */
+public enum LatencyModel {
+    Fixed {
+        @Override
+        LatencyDistribution distribution(final long baseNanos, long jitterNanos, Random random) {
+            return new LatencyDistribution() {
+                @Override
+                public long nextNanos() {
+                    return baseNanos;
+                }
+            };
+        }
+    },
+    Uniform {
+        @Override
+        LatencyDistribution distribution(final long baseNanos, final long jitterNanos, final Random random) {
+            return new LatencyDistribution() {
+                @Override
+                public long nextNanos() {
+                    return baseNanos + (long) (random.nextDouble() * (jitterNanos + 1));
+                }
+            };
+        }
+    },
+    Exponential {
+        @Override
+        LatencyDistribution distribution(final long baseNanos, final long jitterNanos, final Random random) {
+            return new LatencyDistribution() {
+                @Override
+                public long nextNanos() {
+                    // inverse of the cdf, 1 - u keeps the log argument away from zero
+                    return baseNanos + (long) (-jitterNanos * Math.log(1.0 - random.nextDouble()));
+                }
+            };
+        }
+    };
+
+    abstract LatencyDistribution distribution(long baseNanos, long jitterNanos, Random random);
+
+    /**
+     * Create a distribution sampling from the given random, seed it to replay the same latencies.
+     * @param baseMicros
+     * @param jitterMicros
+     * @param random
+     * @return
+     */
+    public LatencyDistribution create(long baseMicros, long jitterMicros, Random random) {
+        checkArgument(baseMicros >= 0, "Invalid base latency");
+        checkArgument(jitterMicros >= 0, "Invalid latency jitter");
+
+        return distribution(TimeUnit.MICROSECONDS.toNanos(baseMicros), TimeUnit.MICROSECONDS.toNanos(jitterMicros),
+                random);
+    }
+}
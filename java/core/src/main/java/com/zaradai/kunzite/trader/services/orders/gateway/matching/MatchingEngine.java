@@ -0,0 +1,477 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.OrderStatusEventPool;
+import com.zaradai.kunzite.trader.events.OrderStatusHandler;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+import com.zaradai.kunzite.trader.instruments.Market;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.instruments.TickCalculator;
+import com.zaradai.kunzite.trader.marketdata.MarketBookFactory;
+import com.zaradai.kunzite.trader.marketdata.MarketBookUpdater;
+import com.zaradai.kunzite.trader.marketdata.Side;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import com.zaradai.kunzite.trader.services.timer.SystemTimeBase;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
+import com.zaradai.kunzite.utils.collections.LongObjectMap;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * Price-time priority matching for an emulated venue.  Each instrument has a book of the orders sent to the venue
+ * beside the market book replayed from the feed, an incoming order first takes the better of the two at each price,
+ * resting orders ahead of the market at the same price, and what is left rests if it is a limit order good for the
+ * day.  A resting order is filled at its own price when the feed moves the market through it.  Fills are reported
+ * per execution so large orders fill partially across levels, status events go to the handler as they happen.
+ *
+ * Only quotes drive passive fills, trade prints in the feed are not matched against.  The engine is single threaded
+ * and does not allocate once its books and pools are warm, the gateway owning it is responsible for its thread.
+ */
+public class MatchingEngine {
+    static final String EXCHANGE_ID = "matching";
+
+    private final InstrumentResolver instrumentResolver;
+    private final MarketResolver marketResolver;
+    private final MarketBookFactory marketBookFactory;
+    private final MarketBookUpdater marketBookUpdater;
+    private final OrderStatusHandler handler;
+    private final TimeBase timeBase;
+    private final OrderStatusEventPool statusEventPool;
+    private final Map<String, VenueBook> bookByInstrumentId;
+    private final LongObjectMap<VenueOrder> ordersByNumericId;
+    private final Map<String, VenueOrder> ordersByOrderId;
+    private final ArrayDeque<VenueOrder> freeOrders;
+
+    public MatchingEngine(InstrumentResolver instrumentResolver, MarketResolver marketResolver,
+                          MarketBookFactory marketBookFactory, MarketBookUpdater marketBookUpdater,
+                          OrderStatusHandler handler) {
+        this(instrumentResolver, marketResolver, marketBookFactory, marketBookUpdater, handler, new SystemTimeBase());
+    }
+
+    /**
+     * Stamp status events from the given clock, a simulated one keeps them in replayed data time.
+     */
+    public MatchingEngine(InstrumentResolver instrumentResolver, MarketResolver marketResolver,
+                          MarketBookFactory marketBookFactory, MarketBookUpdater marketBookUpdater,
+                          OrderStatusHandler handler, TimeBase timeBase) {
+        this.timeBase = timeBase;
+        this.instrumentResolver = instrumentResolver;
+        this.marketResolver = marketResolver;
+        this.marketBookFactory = marketBookFactory;
+        this.marketBookUpdater = marketBookUpdater;
+        this.handler = handler;
+        statusEventPool = createStatusEventPool();
+        bookByInstrumentId = Maps.newHashMap();
+        ordersByNumericId = new LongObjectMap<VenueOrder>();
+        ordersByOrderId = Maps.newHashMap();
+        freeOrders = new ArrayDeque<VenueOrder>();
+    }
+
+    protected OrderStatusEventPool createStatusEventPool() {
+        return new OrderStatusEventPool();
+    }
+
+    /**
+     * Process an instruction arriving at the venue, the engine owns the order from here.
+     * @param order
+     */
+    public void process(NewOrder order) {
+        switch (order.getRequestType()) {
+            case Create:
+                create(order);
+                break;
+            case Amend:
+                amend(order);
+                break;
+            case Cancel:
+                cancel(order);
+                break;
+        }
+    }
+
+    /**
+     * Apply a market data update for an instrument, keyed by its internal id, then fill whatever resting orders the
+     * market now trades through.  The record remains owned by the caller.
+     * @param record
+     */
+    public void onMarketData(MarketDataRecord record) {
+        VenueBook book = getBook(record.getInstrumentId());
+
+        if (book != null) {
+            book.update(marketBookUpdater, record);
+            sweep(book, Side.Bid, Side.Ask);
+            sweep(book, Side.Ask, Side.Bid);
+        }
+    }
+
+    /**
+     * Number of orders working on the venue across all instruments.
+     * @return
+     */
+    public int getWorkingOrders() {
+        return ordersByNumericId.size() + ordersByOrderId.size();
+    }
+
+    /**
+     * Open quantity resting on a side of an instrument's book.
+     * @param instrumentId
+     * @param side
+     * @return
+     */
+    public long getRestingQuantity(String instrumentId, Side side) {
+        VenueBook book = bookByInstrumentId.get(instrumentId);
+        long res = 0L;
+
+        if (book != null) {
+            for (int depth = 0; depth < book.getDepth(side); ++depth) {
+                res += book.getLevel(side, depth).getQuantity();
+            }
+        }
+
+        return res;
+    }
+
+    private void create(NewOrder order) {
+        VenueBook book = getBook(order.getRefData().getInstrumentId());
+
+        if (book == null || order.getQuantity() <= 0 || isWorking(order.getRefData())) {
+            report(order.getRefData(), OrderStatus.Rejected);
+            order.recycle();
+            return;
+        }
+
+        report(order.getRefData(), OrderStatus.New);
+        VenueOrder venueOrder = acquireOrder();
+        venueOrder.start(order, book, book.toTicks(order.getPrice()));
+
+        if (order.getTimeInForce() == OrderTimeInForce.FillOrKill && available(venueOrder) < venueOrder.getLeaves()) {
+            // nothing is executed unless all of it can be
+            report(order.getRefData(), OrderStatus.Cancelled);
+            releaseOrder(venueOrder);
+            return;
+        }
+
+        match(venueOrder);
+        rest(venueOrder);
+    }
+
+    /**
+     * Amends are cancel/replace, the order keeps its time priority only if it stays at its price and does not grow.
+     * Amending to no more than has already executed leaves nothing to work and cancels the order.
+     */
+    private void amend(NewOrder order) {
+        VenueOrder venueOrder = getWorking(order.getRefData());
+
+        if (venueOrder == null) {
+            report(order.getRefData(), OrderStatus.Rejected);
+            order.recycle();
+            return;
+        }
+
+        VenueBook book = venueOrder.getBook();
+        long priceTicks = book.toTicks(order.getPrice());
+        long leaves = order.getQuantity() - venueOrder.getExecuted();
+
+        if (leaves <= 0) {
+            report(order.getRefData(), OrderStatus.Cancelled);
+            order.recycle();
+            removeOrder(venueOrder);
+        } else if (priceTicks == venueOrder.getPriceTicks() && leaves <= venueOrder.getLeaves()) {
+            venueOrder.setLeaves(leaves);
+            venueOrder.replace(order, priceTicks).recycle();
+            report(order.getRefData(), OrderStatus.Replaced);
+        } else {
+            book.remove(venueOrder);
+            venueOrder.replace(order, priceTicks).recycle();
+            report(order.getRefData(), OrderStatus.Replaced);
+            match(venueOrder);
+
+            if (venueOrder.getLeaves() > 0) {
+                book.add(venueOrder);
+            } else {
+                removeOrder(venueOrder);
+            }
+        }
+    }
+
+    private void cancel(NewOrder order) {
+        VenueOrder venueOrder = getWorking(order.getRefData());
+
+        if (venueOrder == null) {
+            report(order.getRefData(), OrderStatus.Rejected);
+        } else {
+            report(order.getRefData(), OrderStatus.Cancelled);
+            removeOrder(venueOrder);
+        }
+        order.recycle();
+    }
+
+    /**
+     * Decide what happens to what is left of an incoming order once it has taken what it can.
+     */
+    private void rest(VenueOrder venueOrder) {
+        NewOrder order = venueOrder.getOrder();
+
+        if (venueOrder.getLeaves() == 0) {
+            releaseOrder(venueOrder);
+        } else if (order.getType() == OrderType.Market || order.getTimeInForce() == OrderTimeInForce.ImmediateOrCancel
+                || order.getTimeInForce() == OrderTimeInForce.FillOrKill) {
+            report(order.getRefData(), OrderStatus.Cancelled);
+            releaseOrder(venueOrder);
+        } else {
+            venueOrder.getBook().add(venueOrder);
+            addWorking(venueOrder);
+        }
+    }
+
+    /**
+     * Take liquidity for an incoming order, at each step from the better priced of the resting orders and the market.
+     */
+    private void match(VenueOrder taker) {
+        VenueBook book = taker.getBook();
+        Side opposite = taker.isBuy() ? Side.Ask : Side.Bid;
+
+        while (taker.getLeaves() > 0) {
+            PriceLevel resting = book.getBest(opposite);
+            boolean restingCrosses = resting != null && crosses(taker, resting.getPriceTicks());
+            int marketLevel = book.getBestMarketLevel(opposite);
+            long marketTicks = (marketLevel >= 0) ? book.toTicks(book.getMarketPrice(opposite, marketLevel)) : 0L;
+            boolean marketCrosses = marketLevel >= 0 && crosses(taker, marketTicks);
+
+            if (restingCrosses && (!marketCrosses || !isBetter(taker, marketTicks, resting.getPriceTicks()))) {
+                takeFrom(taker, resting);
+            } else if (marketCrosses) {
+                long quantity = Math.min(taker.getLeaves(), book.getMarketAvailable(opposite, marketLevel));
+                book.take(opposite, marketLevel, quantity);
+                execute(taker, quantity, book.getMarketPrice(opposite, marketLevel));
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void takeFrom(VenueOrder taker, PriceLevel level) {
+        VenueOrder maker = level.getFirst();
+        // fill at the resting price, the maker may take the level with it once done so read it first
+        double price = maker.getPrice();
+
+        while (maker != null && taker.getLeaves() > 0) {
+            VenueOrder next = maker.getNext();
+            long quantity = Math.min(taker.getLeaves(), maker.getLeaves());
+            execute(maker, quantity, price);
+            execute(taker, quantity, price);
+
+            if (maker.getLeaves() == 0) {
+                removeOrder(maker);
+            }
+            maker = next;
+        }
+    }
+
+    /**
+     * Fill the resting orders of one side the market now trades through, best price first and in time order within
+     * a price, each at its own price.
+     */
+    private void sweep(VenueBook book, Side side, Side opposite) {
+        while (true) {
+            PriceLevel resting = book.getBest(side);
+            int marketLevel = book.getBestMarketLevel(opposite);
+
+            if (resting == null || marketLevel < 0) {
+                return;
+            }
+
+            VenueOrder maker = resting.getFirst();
+            long marketTicks = book.toTicks(book.getMarketPrice(opposite, marketLevel));
+
+            if (!crosses(maker, marketTicks)) {
+                return;
+            }
+
+            long available = book.getMarketAvailable(opposite, marketLevel);
+            double price = maker.getPrice();
+
+            while (maker != null && available > 0) {
+                VenueOrder next = maker.getNext();
+                long quantity = Math.min(available, maker.getLeaves());
+                book.take(opposite, marketLevel, quantity);
+                available -= quantity;
+                execute(maker, quantity, price);
+
+                if (maker.getLeaves() == 0) {
+                    removeOrder(maker);
+                }
+                maker = next;
+            }
+        }
+    }
+
+    /**
+     * Quantity an order could take right now, used to check fill or kill orders up front.
+     */
+    private long available(VenueOrder taker) {
+        VenueBook book = taker.getBook();
+        Side opposite = taker.isBuy() ? Side.Ask : Side.Bid;
+        long res = 0L;
+
+        for (int depth = 0; depth < book.getDepth(opposite); ++depth) {
+            PriceLevel level = book.getLevel(opposite, depth);
+
+            if (!crosses(taker, level.getPriceTicks())) {
+                break;
+            }
+            res += level.getQuantity();
+        }
+
+        for (int level = 0; level < book.getMarketDepth(opposite); ++level) {
+            double price = book.getMarketPrice(opposite, level);
+
+            if (price <= 0.0 || !crosses(taker, book.toTicks(price))) {
+                break;
+            }
+            res += book.getMarketAvailable(opposite, level);
+        }
+
+        return res;
+    }
+
+    private boolean crosses(VenueOrder order, long priceTicks) {
+        if (order.getOrder().getType() == OrderType.Market) {
+            return true;
+        }
+
+        return order.isBuy() ? priceTicks <= order.getPriceTicks() : priceTicks >= order.getPriceTicks();
+    }
+
+    /**
+     * Check whether the first price is strictly better than the second for the order taking liquidity.
+     */
+    private boolean isBetter(VenueOrder taker, long priceTicks, long thanTicks) {
+        return taker.isBuy() ? priceTicks < thanTicks : priceTicks > thanTicks;
+    }
+
+    private void execute(VenueOrder venueOrder, long quantity, double price) {
+        venueOrder.execute(quantity);
+
+        OrderStatusEvent event = acquireEvent(venueOrder.getOrder().getRefData(),
+                (venueOrder.getLeaves() == 0) ? OrderStatus.Filled : OrderStatus.PartiallyFilled);
+        event.setExecQty(quantity);
+        event.setLastPx(price);
+        handler.onOrderStatus(event);
+    }
+
+    private void report(OrderRefData refData, OrderStatus status) {
+        handler.onOrderStatus(acquireEvent(refData, status));
+    }
+
+    private OrderStatusEvent acquireEvent(OrderRefData refData, OrderStatus status) {
+        OrderStatusEvent res = statusEventPool.acquire();
+        res.setOrder(refData);
+        res.setOrderStatus(status);
+        res.setExchangeId(EXCHANGE_ID);
+        res.setTimestampMillis(timeBase.now());
+
+        return res;
+    }
+
+    private VenueBook getBook(String instrumentId) {
+        VenueBook res = bookByInstrumentId.get(instrumentId);
+
+        if (res == null && !Strings.isNullOrEmpty(instrumentId)) {
+            Instrument instrument = instrumentResolver.resolveInstrument(instrumentId);
+
+            if (instrument != null) {
+                res = new VenueBook(instrumentId, getTickCalculator(instrument), marketBookFactory.create(instrument));
+                bookByInstrumentId.put(instrumentId, res);
+            }
+        }
+
+        return res;
+    }
+
+    private TickCalculator getTickCalculator(Instrument instrument) {
+        if (!Strings.isNullOrEmpty(instrument.getMarketId())) {
+            Market market = marketResolver.resolveMarket(instrument.getMarketId());
+
+            if (market != null) {
+                return market.getTickCalculator();
+            }
+        }
+        // no market ticks, keys fall back to a fixed resolution
+        return new TickCalculator();
+    }
+
+    private boolean isWorking(OrderRefData refData) {
+        return getWorking(refData) != null;
+    }
+
+    private VenueOrder getWorking(OrderRefData refData) {
+        if (refData.hasNumericOrderId()) {
+            return ordersByNumericId.get(refData.getNumericOrderId());
+        }
+
+        return (refData.getOrderId() != null) ? ordersByOrderId.get(refData.getOrderId()) : null;
+    }
+
+    private void addWorking(VenueOrder venueOrder) {
+        OrderRefData refData = venueOrder.getOrder().getRefData();
+
+        if (refData.hasNumericOrderId()) {
+            ordersByNumericId.put(refData.getNumericOrderId(), venueOrder);
+        } else if (refData.getOrderId() != null) {
+            ordersByOrderId.put(refData.getOrderId(), venueOrder);
+        }
+    }
+
+    /**
+     * Take a working order off the venue once it is done.
+     */
+    private void removeOrder(VenueOrder venueOrder) {
+        OrderRefData refData = venueOrder.getOrder().getRefData();
+
+        if (refData.hasNumericOrderId()) {
+            ordersByNumericId.remove(refData.getNumericOrderId());
+        } else if (refData.getOrderId() != null) {
+            ordersByOrderId.remove(refData.getOrderId());
+        }
+        venueOrder.getBook().remove(venueOrder);
+        releaseOrder(venueOrder);
+    }
+
+    private VenueOrder acquireOrder() {
+        VenueOrder res = freeOrders.poll();
+
+        return (res != null) ? res : new VenueOrder();
+    }
+
+    private void releaseOrder(VenueOrder venueOrder) {
+        // the status events carry their own copy of the ids, the instruction can go back to its pool
+        venueOrder.getOrder().recycle();
+        venueOrder.clear();
+        freeOrders.offer(venueOrder);
+    }
+}
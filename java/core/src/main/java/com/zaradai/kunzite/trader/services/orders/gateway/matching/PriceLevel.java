@@ -0,0 +1,97 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+/**
+ * Orders resting at a single price, queued in arrival order through links held on the orders themselves so joining
+ * and leaving the queue does not allocate.  The open quantity of the level is kept as a running total.
+ */
+final class PriceLevel {
+    private long priceTicks;
+    private VenueOrder first;
+    private VenueOrder last;
+    private long quantity;
+    private int size;
+
+    void reset(long priceTicks) {
+        this.priceTicks = priceTicks;
+        first = null;
+        last = null;
+        quantity = 0L;
+        size = 0;
+    }
+
+    void append(VenueOrder order) {
+        order.setLevel(this);
+        order.setPrevious(last);
+        order.setNext(null);
+
+        if (last == null) {
+            first = order;
+        } else {
+            last.setNext(order);
+        }
+        last = order;
+        quantity += order.getLeaves();
+        size++;
+    }
+
+    void remove(VenueOrder order) {
+        VenueOrder previous = order.getPrevious();
+        VenueOrder next = order.getNext();
+
+        if (previous == null) {
+            first = next;
+        } else {
+            previous.setNext(next);
+        }
+
+        if (next == null) {
+            last = previous;
+        } else {
+            next.setPrevious(previous);
+        }
+        quantity -= order.getLeaves();
+        size--;
+        order.setLevel(null);
+        order.setPrevious(null);
+        order.setNext(null);
+    }
+
+    void reduce(long quantity) {
+        this.quantity -= quantity;
+    }
+
+    long getPriceTicks() {
+        return priceTicks;
+    }
+
+    VenueOrder getFirst() {
+        return first;
+    }
+
+    long getQuantity() {
+        return quantity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
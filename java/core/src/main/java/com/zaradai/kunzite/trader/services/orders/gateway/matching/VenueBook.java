@@ -0,0 +1,185 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.instruments.TickCalculator;
+import com.zaradai.kunzite.trader.marketdata.MarketBook;
+import com.zaradai.kunzite.trader.marketdata.MarketBookUpdater;
+import com.zaradai.kunzite.trader.marketdata.Side;
+import com.zaradai.kunzite.utils.collections.SortedLongMap;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * The emulated venue's view of a single instrument.  Orders sent to the venue rest in price-time priority on either
+ * side, keyed by their tick index, next to the market book replayed from the feed whose levels stand in for the rest
+ * of the market's liquidity.  Liquidity taken from a market level is remembered until the feed next updates the book,
+ * so the same displayed size cannot be filled twice.
+ */
+final class VenueBook {
+    // the feed carries at most ten levels a side
+    private static final int MAX_FEED_DEPTH = 10;
+
+    private final String instrumentId;
+    private final TickCalculator tickCalculator;
+    private final MarketBook marketBook;
+    private final SortedLongMap<PriceLevel> bids;
+    private final SortedLongMap<PriceLevel> asks;
+    private final ArrayDeque<PriceLevel> freeLevels;
+    private final long[] bidTaken;
+    private final long[] askTaken;
+
+    VenueBook(String instrumentId, TickCalculator tickCalculator, MarketBook marketBook) {
+        this.instrumentId = instrumentId;
+        this.tickCalculator = tickCalculator;
+        this.marketBook = marketBook;
+        bids = new SortedLongMap<PriceLevel>();
+        asks = new SortedLongMap<PriceLevel>();
+        freeLevels = new ArrayDeque<PriceLevel>();
+        bidTaken = new long[MAX_FEED_DEPTH];
+        askTaken = new long[MAX_FEED_DEPTH];
+    }
+
+    String getInstrumentId() {
+        return instrumentId;
+    }
+
+    long toTicks(double price) {
+        return tickCalculator.toTicks(price);
+    }
+
+    void add(VenueOrder order) {
+        SortedLongMap<PriceLevel> side = order.isBuy() ? bids : asks;
+        PriceLevel level = side.get(order.getPriceTicks());
+
+        if (level == null) {
+            level = acquireLevel(order.getPriceTicks());
+            side.put(order.getPriceTicks(), level);
+        }
+        level.append(order);
+    }
+
+    void remove(VenueOrder order) {
+        PriceLevel level = order.getLevel();
+
+        if (level != null) {
+            level.remove(order);
+
+            if (level.isEmpty()) {
+                (order.isBuy() ? bids : asks).remove(level.getPriceTicks());
+                freeLevels.offer(level);
+            }
+        }
+    }
+
+    private PriceLevel acquireLevel(long priceTicks) {
+        PriceLevel res = freeLevels.poll();
+
+        if (res == null) {
+            res = new PriceLevel();
+        }
+        res.reset(priceTicks);
+
+        return res;
+    }
+
+    /**
+     * Number of price levels resting on the side.
+     * @param side
+     * @return
+     */
+    int getDepth(Side side) {
+        return (side == Side.Bid) ? bids.size() : asks.size();
+    }
+
+    /**
+     * Resting level at the depth, zero being the best price of the side.
+     * @param side
+     * @param depth
+     * @return
+     */
+    PriceLevel getLevel(Side side, int depth) {
+        return (side == Side.Bid) ? bids.valueAt(bids.size() - 1 - depth) : asks.valueAt(depth);
+    }
+
+    PriceLevel getBest(Side side) {
+        return (getDepth(side) > 0) ? getLevel(side, 0) : null;
+    }
+
+    /**
+     * Apply an update from the feed, what had been taken from the market levels is forgotten as the feed now shows
+     * what is left.
+     * @param updater
+     * @param record
+     */
+    void update(MarketBookUpdater updater, MarketDataRecord record) {
+        updater.update(marketBook, record);
+        Arrays.fill(bidTaken, 0L);
+        Arrays.fill(askTaken, 0L);
+    }
+
+    int getMarketDepth(Side side) {
+        return Math.min(MAX_FEED_DEPTH, (side == Side.Bid) ? marketBook.getBidDepth() : marketBook.getAskDepth());
+    }
+
+    double getMarketPrice(Side side, int level) {
+        return (side == Side.Bid) ? marketBook.getBid(level) : marketBook.getAsk(level);
+    }
+
+    /**
+     * Quantity still available at the market level.
+     * @param side
+     * @param level
+     * @return
+     */
+    long getMarketAvailable(Side side, int level) {
+        if (getMarketPrice(side, level) <= 0.0) {
+            return 0L;
+        }
+
+        long res = (side == Side.Bid) ? marketBook.getBidSize(level) - bidTaken[level] :
+                marketBook.getAskSize(level) - askTaken[level];
+
+        return Math.max(0L, res);
+    }
+
+    /**
+     * Best market level on the side with quantity still available.
+     * @param side
+     * @return the level or -1 if there is none
+     */
+    int getBestMarketLevel(Side side) {
+        int depth = getMarketDepth(side);
+
+        for (int level = 0; level < depth; ++level) {
+            if (getMarketAvailable(side, level) > 0) {
+                return level;
+            }
+        }
+
+        return -1;
+    }
+
+    void take(Side side, int level, long quantity) {
+        if (side == Side.Bid) {
+            bidTaken[level] += quantity;
+        } else {
+            askTaken[level] += quantity;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+
+/**
+ * Order working on the emulated venue.  Holds the instruction it was created or last amended with, owning it until
+ * the order is done, and links into the queue of its price level.
+ */
+final class VenueOrder {
+    private NewOrder order;
+    private VenueBook book;
+    private PriceLevel level;
+    private VenueOrder previous;
+    private VenueOrder next;
+    private boolean buy;
+    private long priceTicks;
+    private long leaves;
+    private long executed;
+
+    void clear() {
+        order = null;
+        book = null;
+        level = null;
+        previous = null;
+        next = null;
+        buy = false;
+        priceTicks = 0L;
+        leaves = 0L;
+        executed = 0L;
+    }
+
+    void start(NewOrder order, VenueBook book, long priceTicks) {
+        this.book = book;
+        buy = (order.getSide() == OrderSide.Buy || order.getSide() == OrderSide.Cover_Short);
+        replace(order, priceTicks);
+    }
+
+    /**
+     * Take over the instruction, returning the one it replaces, if any, so the caller can recycle it.
+     * @param order
+     * @param priceTicks
+     * @return
+     */
+    NewOrder replace(NewOrder order, long priceTicks) {
+        NewOrder res = this.order;
+        this.order = order;
+        this.priceTicks = priceTicks;
+        leaves = order.getQuantity() - executed;
+
+        return res;
+    }
+
+    void execute(long quantity) {
+        leaves -= quantity;
+        executed += quantity;
+
+        if (level != null) {
+            level.reduce(quantity);
+        }
+    }
+
+    NewOrder getOrder() {
+        return order;
+    }
+
+    boolean isBuy() {
+        return buy;
+    }
+
+    double getPrice() {
+        return order.getPrice();
+    }
+
+    VenueBook getBook() {
+        return book;
+    }
+
+    PriceLevel getLevel() {
+        return level;
+    }
+
+    void setLevel(PriceLevel level) {
+        this.level = level;
+    }
+
+    VenueOrder getPrevious() {
+        return previous;
+    }
+
+    void setPrevious(VenueOrder previous) {
+        this.previous = previous;
+    }
+
+    VenueOrder getNext() {
+        return next;
+    }
+
+    void setNext(VenueOrder next) {
+        this.next = next;
+    }
+
+    long getPriceTicks() {
+        return priceTicks;
+    }
+
+    long getLeaves() {
+        return leaves;
+    }
+
+    /**
+     * Reduce the open quantity in place, keeps the order's time priority.
+     * @param leaves
+     */
+    void setLeaves(long leaves) {
+        if (level != null) {
+            level.reduce(this.leaves - leaves);
+        }
+        this.leaves = leaves;
+    }
+
+    long getExecuted() {
+        return executed;
+    }
+}
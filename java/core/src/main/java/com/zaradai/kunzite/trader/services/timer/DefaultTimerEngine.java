@@ -15,106 +15,206 @@
  */
 package com.zaradai.kunzite.trader.services.timer;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
 import com.google.common.eventbus.Subscribe;
 import com.google.inject.Inject;
 import com.zaradai.kunzite.events.EventAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.events.TimerEvent;
 import com.zaradai.kunzite.trader.events.TimerListener;
+import com.zaradai.kunzite.trader.services.trader.TraderShard;
+import com.zaradai.kunzite.utils.collections.LongObjectMap;
 import org.joda.time.DateTime;
 
-import java.util.Map;
-import java.util.UUID;
+import java.util.Queue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public class DefaultTimerEngine implements TimerEngine {
+/**
+ * Timer subscriptions keyed by a long handle which also carries the shard owning it.  Timeouts are delivered on the
+ * shard that subscribed, so each shard keeps its own primitive map of listeners touched only from its thread.  Calls
+ * from threads outside of a shard are handed to the owning shard's queue of pending calls, which the shard applies
+ * before it next reads its map, a subscription made off a shard is owned by the first shard.  Requests to the timer
+ * service come from pools and are recycled by the service, so re-arming a timer on a shard does not allocate.
+ */
+public class DefaultTimerEngine implements TimerEngine, TimerListener {
     private final ContextLogger logger;
     private final EventAggregator eventAggregator;
     private final TimerService timerService;
     private final TimeBase timeBase;
-    private final Map<UUID, TimerListener> subscriptions;
+    private final AtomicLong nextId;
+    private final LongObjectMap<TimerListener>[] subscriptionsByShard;
+    private final Queue<PendingCall>[] pendingByShard;
+    private final TimerRequestPool requestPool;
+    private final TimerCancelRequestPool cancelPool;
 
     @Inject
+    @SuppressWarnings("unchecked")
     DefaultTimerEngine(ContextLogger logger, EventAggregator eventAggregator, TimerService timerService,
-                       TimeBase timeBase) {
+                       TimeBase timeBase, TraderConfiguration configuration) {
         this.logger = logger;
         this.eventAggregator = eventAggregator;
         this.timerService = timerService;
         this.timeBase = timeBase;
+        // zero is never handed out
+        nextId = new AtomicLong();
+        requestPool = createRequestPool();
+        cancelPool = createCancelPool();
 
         eventAggregator.subscribe(this);
-        subscriptions = createSubscriptionMap();
+        int shards = Math.max(1, configuration.getTraderShards());
+        subscriptionsByShard = new LongObjectMap[shards];
+        pendingByShard = new Queue[shards];
+        for (int i = 0; i < shards; i++) {
+            subscriptionsByShard[i] = createSubscriptionMap();
+            pendingByShard[i] = createPendingQueue();
+        }
+    }
+
+    protected LongObjectMap<TimerListener> createSubscriptionMap() {
+        return new LongObjectMap<TimerListener>();
+    }
+
+    protected Queue<PendingCall> createPendingQueue() {
+        return Queues.newConcurrentLinkedQueue();
+    }
+
+    protected TimerRequestPool createRequestPool() {
+        return new TimerRequestPool();
     }
 
-    protected Map<UUID, TimerListener> createSubscriptionMap() {
-        return Maps.newHashMap();
+    protected TimerCancelRequestPool createCancelPool() {
+        return new TimerCancelRequestPool();
     }
 
     @Override
-    public UUID subscribe(long duration, TimeUnit unit, boolean repeat, TimerListener listener) {
+    public long subscribe(long duration, TimeUnit unit, boolean repeat, TimerListener listener) {
         checkArgument(duration > 0, "Invalid duration");
         checkNotNull(unit, "Invalid unit");
         checkNotNull(listener, "Invalid listener callback");
+        // timeouts are delivered on the shard subscribing, keeping the listener single threaded
+        int shard = callingShard();
         // create a subscription
-        UUID id = createSubscription(listener);
+        long id = createSubscription(shard, listener);
         // timeout = now + duration
         long nextTimeout = timeBase.now() + unit.toMillis(duration);
-        // create the request
-        TimerRequest request = TimerRequest.newInstance(id, nextTimeout, duration, unit, repeat);
-        // add the request to the timer service
-        timerService.submit(request);
+        // add the request to the timer service, which recycles it
+        timerService.submit(requestPool.acquire().set(id, nextTimeout, duration, unit, repeat, shard));
         // all setup return the id so that the subscriber can unsubscribe
         return id;
     }
 
     @Override
-    public UUID subscribe(DateTime target, TimerListener listener) {
+    public long subscribe(DateTime target, TimerListener listener) {
         return subscribe(target.getMillis() - timeBase.now(), TimeUnit.MILLISECONDS, false, listener);
     }
 
-    private UUID createSubscription(TimerListener listener) {
-        UUID res = UUID.randomUUID();
-        subscriptions.put(res, listener);
+    private long createSubscription(int shard, TimerListener listener) {
+        long res = nextId.incrementAndGet() * subscriptionsByShard.length + shard;
+
+        if (isOwner(shard)) {
+            subscriptions(shard).put(res, listener);
+        } else {
+            pendingByShard[shard].add(new PendingCall(res, listener));
+        }
+
+        return res;
+    }
+
+    private int callingShard() {
+        int res = TraderShard.current();
+
+        return (res < subscriptionsByShard.length) ? res : 0;
+    }
+
+    private int shardOf(long id) {
+        return (int) (id % subscriptionsByShard.length);
+    }
+
+    private boolean isOwner(int shard) {
+        return TraderShard.isShardThread() && TraderShard.current() == shard;
+    }
+
+    /**
+     * The shard's map with any calls handed over from other threads applied, only called on the shard's thread.
+     * @param shard
+     * @return
+     */
+    private LongObjectMap<TimerListener> subscriptions(int shard) {
+        LongObjectMap<TimerListener> res = subscriptionsByShard[shard];
+        PendingCall call;
+
+        while ((call = pendingByShard[shard].poll()) != null) {
+            if (call.listener != null) {
+                res.put(call.id, call.listener);
+            } else {
+                res.remove(call.id);
+            }
+        }
 
         return res;
     }
 
     @Override
-    public void unsubscribe(UUID timerId) {
+    public void unsubscribe(long timerId) {
         // remove from subscriptions, note there may be existing timers
         // before the cancel is acknowledge by the service, in such cases a warninng message will be logged
         // and can safely be ignored.
-        removeSubscription(timerId);
-        // remove from the timer service if it still exists
-        timerService.cancel(TimerCancelRequest.newInstance(timerId));
+        int shard = shardOf(timerId);
+
+        if (isOwner(shard)) {
+            if (subscriptions(shard).remove(timerId) != null) {
+                // still running, a timer that has already delivered its last timeout is gone from the service too
+                cancel(timerId);
+            }
+        } else {
+            // whether the timer is still running is only known on its shard, cancelling a finished timer is harmless
+            pendingByShard[shard].add(new PendingCall(timerId, null));
+            cancel(timerId);
+        }
+    }
+
+    private void cancel(long timerId) {
+        timerService.cancel(cancelPool.acquire().set(timerId));
     }
 
     @Subscribe
+    @Override
     public void onTimer(TimerEvent event) {
         // get the target for this event
+        LongObjectMap<TimerListener> subscriptions = subscriptions(shardOf(event.getTimerId()));
         TimerListener listener = subscriptions.get(event.getTimerId());
 
         if (listener != null) {
             listener.onTimer(event);
             // if this was the last event for the id then remove the subscriber from list
             if (event.isLast()) {
-                removeSubscription(event.getTimerId());
+                subscriptions.remove(event.getTimerId());
             }
         } else {
             LogHelper.warn(logger)
                     .addContext("Timer Engine")
                     .addReason("Unhandled timer event")
-                    .add("ID", event.getTimerId().toString())
+                    .add("ID", event.getTimerId())
                     .log();
         }
     }
 
-    private void removeSubscription(UUID id) {
-        subscriptions.remove(id);
+    /**
+     * A subscribe, or an unsubscribe when without a listener, made off the owning shard's thread.
+     */
+    static final class PendingCall {
+        private final long id;
+        private final TimerListener listener;
+
+        PendingCall(long id, TimerListener listener) {
+            this.id = id;
+            this.listener = listener;
+        }
     }
 }
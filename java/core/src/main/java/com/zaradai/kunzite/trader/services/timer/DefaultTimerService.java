@@ -77,11 +77,14 @@ public class DefaultTimerService extends AbstractExecutionThreadService implemen
 
     private void processTimeout(TimerRequest request) {
         boolean repeat = request.isRepeat();
-        // fire an event on the trader service
-        traderService.onEvent(TimerEvent.newInstance(request.getId(), !repeat));
-        // if repeating push another request on the queue
+        // fire an event on the trader shard that requested the timer
+        traderService.onShardEvent(request.getShard(), TimerEvent.newInstance(request.getId(), !repeat));
+        // if repeating push the request back on the queue for its next timeout
         if (repeat) {
-            submit(request.getNextRequest());
+            request.rearm();
+            submit(request);
+        } else {
+            request.recycle();
         }
     }
 
@@ -106,10 +109,14 @@ public class DefaultTimerService extends AbstractExecutionThreadService implemen
         while (iterator.hasNext()) {
             TimerRequest next = iterator.next();
 
-            if (next.getId().equals(request.getId())) {
-                iterator.remove();
-                return;
+            if (next.getId() == request.getId()) {
+                // the iterator is a snapshot, only recycle if the timer thread has not taken the request meanwhile
+                if (requestQueue.remove(next)) {
+                    next.recycle();
+                }
+                break;
             }
         }
+        request.recycle();
     }
 }
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerEventBatch;
+import com.zaradai.kunzite.trader.events.TimerEventPool;
+import com.zaradai.kunzite.trader.services.trader.ShardEventSink;
+
+import java.util.List;
+
+/**
+ * Gathers the timeouts of a tick by shard.  A shard with a single timeout is sent the event itself, a batch is only
+ * taken from the pool once a second timeout expires for the same shard.  Owned by the timer thread, not thread safe.
+ */
+class ShardTimeouts implements TimerWheel.ExpiryHandler {
+    private final TimerEventPool eventPool;
+    // per shard, nothing, a single event or a batch
+    private final List<Object> pendingByShard;
+
+    ShardTimeouts(TimerEventPool eventPool) {
+        this.eventPool = eventPool;
+        pendingByShard = Lists.newArrayList();
+    }
+
+    @Override
+    public void onExpired(TimerEvent event, int shard) {
+        while (pendingByShard.size() <= shard) {
+            pendingByShard.add(null);
+        }
+        Object pending = pendingByShard.get(shard);
+
+        if (pending == null) {
+            pendingByShard.set(shard, event);
+        } else if (pending instanceof TimerEvent) {
+            TimerEventBatch batch = eventPool.acquireBatch();
+            batch.add((TimerEvent) pending);
+            batch.add(event);
+            pendingByShard.set(shard, batch);
+        } else {
+            ((TimerEventBatch) pending).add(event);
+        }
+    }
+
+    /**
+     * Hand each shard its timeouts, the shard owns and recycles them from here.
+     * @param shardEvents
+     */
+    void fire(ShardEventSink shardEvents) {
+        for (int shard = 0; shard < pendingByShard.size(); ++shard) {
+            Object pending = pendingByShard.get(shard);
+
+            if (pending != null) {
+                pendingByShard.set(shard, null);
+                shardEvents.onShardEvent(shard, pending);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event driven clock for backtests and replays, time only moves when the data being replayed moves it on and never
+ * goes backwards.  Listeners are called on the advancing thread once the new time is visible, so timers driven from
+ * it fire in step with the data.  A sleep returns once simulated time has moved on by the duration, or after that
+ * much real time at the most so polling services can still notice being stopped.
+ */
+public class SimulatedTimeBase implements TimeBase {
+    private final List<TimeListener> listeners;
+    private final Object monitor = new Object();
+    private volatile long now;
+
+    public SimulatedTimeBase() {
+        this(0L);
+    }
+
+    public SimulatedTimeBase(long start) {
+        now = start;
+        listeners = createListeners();
+    }
+
+    protected List<TimeListener> createListeners() {
+        return Lists.newCopyOnWriteArrayList();
+    }
+
+    public void addListener(TimeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TimeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public long now() {
+        return now;
+    }
+
+    @Override
+    public void advanceTo(long millis) {
+        synchronized (monitor) {
+            if (millis <= now) {
+                return;
+            }
+            now = millis;
+            monitor.notifyAll();
+        }
+
+        for (TimeListener listener : listeners) {
+            listener.onTime(millis);
+        }
+    }
+
+    @Override
+    public void sleep(long duration, TimeUnit unit) {
+        long millis = unit.toMillis(duration);
+        long target = now + millis;
+        long realDeadline = System.currentTimeMillis() + millis;
+
+        synchronized (monitor) {
+            long wait;
+
+            while (now < target && (wait = realDeadline - System.currentTimeMillis()) > 0) {
+                try {
+                    monitor.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
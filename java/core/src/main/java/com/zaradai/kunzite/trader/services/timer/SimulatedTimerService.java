@@ -0,0 +1,97 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.events.TimerEventPool;
+import com.zaradai.kunzite.trader.services.trader.ShardEventSink;
+
+/**
+ * Timer service for backtests and replays, timers are expired on the thread advancing the simulated clock as it
+ * moves so their events are queued to the shards in step with the replayed data, ahead of any data for a later time.
+ * Runs at a resolution of a millisecond without a thread of its own.  Replays hand the timeouts to the trader service's
+ * shard queues, backtests dispatch them on the thread driving the tape.
+ */
+public class SimulatedTimerService extends AbstractIdleService implements TimerService, TimeListener {
+    private static final long TICK_MILLIS = 1;
+
+    private final ContextLogger logger;
+    private final ShardEventSink shardEvents;
+    private final SimulatedTimeBase timeBase;
+    private final TimerEventPool eventPool;
+    private final TimerWheel wheel;
+    private final ShardTimeouts timeouts;
+
+    @Inject
+    SimulatedTimerService(ContextLogger logger, ShardEventSink shardEvents, SimulatedTimeBase timeBase,
+                          TraderConfiguration configuration) {
+        this.logger = logger;
+        this.shardEvents = shardEvents;
+        this.timeBase = timeBase;
+        eventPool = createEventPool();
+        wheel = createWheel(TICK_MILLIS, configuration.getTimerWheelSize());
+        timeouts = new ShardTimeouts(eventPool);
+    }
+
+    protected TimerEventPool createEventPool() {
+        return new TimerEventPool();
+    }
+
+    protected TimerWheel createWheel(long tickMillis, int size) {
+        return new TimerWheel(tickMillis, size, eventPool);
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+        timeBase.addListener(this);
+        logTimeState("Running");
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+        timeBase.removeListener(this);
+        logTimeState("Stopped");
+    }
+
+    private void logTimeState(String state) {
+        LogHelper.info(logger)
+                .addContext("Simulated Timer Service")
+                .add("Is", state)
+                .log();
+    }
+
+    @Override
+    public synchronized void onTime(long now) {
+        wheel.expire(now, timeouts);
+        timeouts.fire(shardEvents);
+    }
+
+    @Override
+    public synchronized void submit(TimerRequest request) {
+        wheel.schedule(request);
+        request.recycle();
+    }
+
+    @Override
+    public synchronized void cancel(TimerCancelRequest request) {
+        wheel.cancel(request.getId());
+        request.recycle();
+    }
+}
@@ -30,4 +30,9 @@ public class SystemTimeBase implements TimeBase {
     public long now() {
         return DateTime.now().getMillis();
     }
+
+    @Override
+    public void advanceTo(long millis) {
+        // wall clock time moves on by itself
+    }
 }
@@ -20,4 +20,9 @@ import java.util.concurrent.TimeUnit;
 public interface TimeBase {
     void sleep(long duration, TimeUnit unit);
     long now();
+    /**
+     * Move an event driven clock on to the time of the data being processed, a wall clock ignores it.
+     * @param millis
+     */
+    void advanceTo(long millis);
 }
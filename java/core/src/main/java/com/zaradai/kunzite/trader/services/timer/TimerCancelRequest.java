@@ -15,20 +15,42 @@
  */
 package com.zaradai.kunzite.trader.services.timer;
 
-import java.util.UUID;
-
+/**
+ * Cancels a running timer.  Like a timer request it belongs to the timer service once handed over, the service
+ * recycles it once applied.
+ */
 public class TimerCancelRequest {
-    private final UUID id;
+    private final TimerCancelRequestPool pool;
+    private long id;
+
+    TimerCancelRequest(TimerCancelRequestPool pool) {
+        this.pool = pool;
+    }
 
-    private TimerCancelRequest(UUID id) {
+    public static TimerCancelRequest newInstance(long id) {
+        return new TimerCancelRequest(null).set(id);
+    }
+
+    TimerCancelRequest set(long id) {
         this.id = id;
+
+        return this;
+    }
+
+    /**
+     * Return the request to the pool it was acquired from, unpooled requests are simply dropped.
+     */
+    public void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        }
     }
 
-    public static TimerCancelRequest newInstance(UUID id) {
-        return new TimerCancelRequest(id);
+    void clear() {
+        id = 0;
     }
 
-    public UUID getId() {
+    public long getId() {
         return id;
     }
 }
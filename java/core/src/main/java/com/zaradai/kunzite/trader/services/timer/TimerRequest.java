@@ -16,29 +16,64 @@
 package com.zaradai.kunzite.trader.services.timer;
 
 import java.util.Comparator;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * A timer to schedule.  A request submitted to a timer service belongs to the service, which recycles it once the
+ * timer is applied so a pooled request is never held by the submitter.
+ */
 public class TimerRequest {
-    private final UUID id;
-    private final long timeout;
-    private final long duration;
-    private final TimeUnit unit;
-    private final boolean repeat;
+    private final TimerRequestPool pool;
+    private long id;
+    private long timeout;
+    private long duration;
+    private TimeUnit unit;
+    private boolean repeat;
+    private int shard;
+
+    TimerRequest(TimerRequestPool pool) {
+        this.pool = pool;
+    }
 
-    private TimerRequest(UUID id, long timeout, long duration, TimeUnit unit, boolean repeat) {
+    private TimerRequest(long id, long timeout, long duration, TimeUnit unit, boolean repeat, int shard) {
+        this(null);
+        set(id, timeout, duration, unit, repeat, shard);
+    }
+
+    public static TimerRequest newInstance(long id, long timeout, long duration, TimeUnit unit, boolean repeat) {
+        return newInstance(id, timeout, duration, unit, repeat, 0);
+    }
+
+    public static TimerRequest newInstance(long id, long timeout, long duration, TimeUnit unit, boolean repeat,
+                                           int shard) {
+        return new TimerRequest(id, timeout, duration, unit, repeat, shard);
+    }
+
+    TimerRequest set(long id, long timeout, long duration, TimeUnit unit, boolean repeat, int shard) {
         this.id = id;
         this.timeout = timeout;
         this.duration = duration;
         this.unit = unit;
         this.repeat = repeat;
+        this.shard = shard;
+
+        return this;
     }
 
-    public static TimerRequest newInstance(UUID id, long timeout, long duration, TimeUnit unit, boolean repeat) {
-        return new TimerRequest(id, timeout, duration, unit, repeat);
+    /**
+     * Return the request to the pool it was acquired from, unpooled requests are simply dropped.
+     */
+    public void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
+
+    void clear() {
+        set(0, 0, 0, null, false, 0);
     }
 
-    public UUID getId() {
+    public long getId() {
         return id;
     }
 
@@ -58,6 +93,14 @@ public class TimerRequest {
         return repeat;
     }
 
+    /**
+     * The trader shard the timeout is delivered on
+     * @return
+     */
+    public int getShard() {
+        return shard;
+    }
+
     /**
      * If this is a repeatable timer request, this method will calculate the next timeout and return
      * a fully constructed instance otherwise return null
@@ -67,12 +110,19 @@ public class TimerRequest {
         TimerRequest res = null;
 
         if (repeat) {
-            res = newInstance(id, timeout + unit.toMillis(duration), duration, unit, repeat);
+            res = newInstance(id, timeout + unit.toMillis(duration), duration, unit, repeat, shard);
         }
 
         return res;
     }
 
+    /**
+     * Move a repeating request on to its next timeout in place, for services re-queueing the request they fired.
+     */
+    void rearm() {
+        timeout += unit.toMillis(duration);
+    }
+
     // Add an oldest first comparator
     public static final Comparator<TimerRequest> OLDEST_FIRST = new Comparator<TimerRequest>() {
         public int compare(TimerRequest o1, TimerRequest o2) {
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Requests are acquired by the timer engine on the shard threads and recycled by the timer service once applied, the
+ * pool is filled by those releases rather than up front.
+ */
+public class TimerRequestPool {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final BlockingQueue<TimerRequest> free;
+
+    public TimerRequestPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TimerRequestPool(int capacity) {
+        free = new ArrayBlockingQueue<TimerRequest>(capacity);
+    }
+
+    public TimerRequest acquire() {
+        TimerRequest res = free.poll();
+
+        if (res == null) {
+            res = new TimerRequest(this);
+        }
+
+        return res;
+    }
+
+    void release(TimerRequest request) {
+        request.clear();
+        free.offer(request);
+    }
+
+    public int available() {
+        return free.size();
+    }
+}
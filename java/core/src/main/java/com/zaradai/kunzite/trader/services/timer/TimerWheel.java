@@ -0,0 +1,212 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerEventPool;
+import com.zaradai.kunzite.utils.collections.LongObjectMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hashed timing wheel, timers are linked into the bucket of the tick they expire on so scheduling and cancelling are
+ * O(1) and a tick only visits the timers hashed to its bucket.  Timers more than a revolution out share a bucket with
+ * nearer ones and are passed over until their tick comes round.  Timers never fire early, a deadline is rounded up
+ * to the next tick.  A repeating timer's event is created once when scheduled and handed out on every expiry, a
+ * one-shot timer takes its event from the pool as it expires and the trader recycles it once dispatched.  Owned by
+ * the timer thread, not thread safe.
+ */
+class TimerWheel {
+    interface ExpiryHandler {
+        void onExpired(TimerEvent event, int shard);
+    }
+
+    private final long tickMillis;
+    private final Slot[] buckets;
+    private final int mask;
+    private final LongObjectMap<Slot> slotById;
+    private final TimerEventPool eventPool;
+    private Slot free;
+    // last tick expired, none until the first expiry
+    private long tick = -1;
+
+    TimerWheel(long tickMillis, int size) {
+        this(tickMillis, size, new TimerEventPool());
+    }
+
+    TimerWheel(long tickMillis, int size, TimerEventPool eventPool) {
+        checkArgument(tickMillis > 0, "Invalid tick");
+        checkArgument(size > 0 && Integer.bitCount(size) == 1, "Wheel size must be a power of 2");
+
+        this.tickMillis = tickMillis;
+        buckets = new Slot[size];
+        mask = size - 1;
+        slotById = createSlotMap();
+        this.eventPool = eventPool;
+    }
+
+    protected LongObjectMap<Slot> createSlotMap() {
+        return new LongObjectMap<Slot>();
+    }
+
+    int size() {
+        return slotById.size();
+    }
+
+    void schedule(TimerRequest request) {
+        Slot slot = acquire();
+        slot.id = request.getId();
+        slot.event = request.isRepeat() ? TimerEvent.newInstance(slot.id, false) : null;
+        slot.deadline = request.getTimeout();
+        slot.period = request.getUnit().toMillis(request.getDuration());
+        slot.repeat = request.isRepeat();
+        slot.shard = request.getShard();
+        // replaces any timer already running under the id
+        Slot previous = slotById.put(slot.id, slot);
+
+        if (previous != null) {
+            unlink(previous);
+            release(previous);
+        }
+        link(slot);
+    }
+
+    boolean cancel(long id) {
+        Slot slot = slotById.remove(id);
+
+        if (slot != null) {
+            unlink(slot);
+            release(slot);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Fire the timers due by now in tick order, repeating timers are scheduled again for their next period.
+     * @param now
+     * @param handler
+     */
+    void expire(long now, ExpiryHandler handler) {
+        long nowTick = now / tickMillis;
+        // after a stall longer than a revolution every bucket is visited once
+        long from = Math.max(tick + 1, nowTick - mask);
+
+        for (long t = from; t <= nowTick; ++t) {
+            tick = t;
+            expireBucket(t, handler);
+        }
+    }
+
+    private void expireBucket(long t, ExpiryHandler handler) {
+        Slot slot = buckets[(int) (t & mask)];
+
+        while (slot != null) {
+            Slot next = slot.next;
+
+            if (slot.tick <= t) {
+                unlink(slot);
+
+                if (slot.repeat) {
+                    handler.onExpired(slot.event, slot.shard);
+                    slot.deadline += slot.period;
+                    link(slot);
+                } else {
+                    slotById.remove(slot.id);
+                    handler.onExpired(eventPool.acquire(slot.id, true), slot.shard);
+                    release(slot);
+                }
+            }
+            slot = next;
+        }
+    }
+
+    private void link(Slot slot) {
+        // round up and never into a tick already expired
+        slot.tick = Math.max((slot.deadline + tickMillis - 1) / tickMillis, tick + 1);
+        int index = (int) (slot.tick & mask);
+        Slot head = buckets[index];
+        // append so a bucket being expired meets the slot after its current position
+        if (head == null) {
+            slot.prev = slot;
+            buckets[index] = slot;
+        } else {
+            Slot tail = head.prev;
+            tail.next = slot;
+            slot.prev = tail;
+            head.prev = slot;
+        }
+        slot.next = null;
+    }
+
+    private void unlink(Slot slot) {
+        int index = (int) (slot.tick & mask);
+        Slot head = buckets[index];
+
+        if (slot == head) {
+            buckets[index] = slot.next;
+
+            if (slot.next != null) {
+                slot.next.prev = slot.prev;
+            }
+        } else {
+            slot.prev.next = slot.next;
+
+            if (slot.next != null) {
+                slot.next.prev = slot.prev;
+            } else {
+                head.prev = slot.prev;
+            }
+        }
+        slot.next = null;
+        slot.prev = null;
+    }
+
+    private Slot acquire() {
+        Slot res = free;
+
+        if (res != null) {
+            free = res.next;
+            res.next = null;
+            return res;
+        }
+
+        return new Slot();
+    }
+
+    private void release(Slot slot) {
+        slot.event = null;
+        slot.next = free;
+        free = slot;
+    }
+
+    /**
+     * A scheduled timer, linked into its bucket with the head's prev pointing at the tail.
+     */
+    static final class Slot {
+        long id;
+        // repeating timers only
+        TimerEvent event;
+        long deadline;
+        long period;
+        boolean repeat;
+        int shard;
+        long tick;
+        Slot next;
+        Slot prev;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import com.google.inject.Inject;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.logging.LogHelper;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.events.TimerEventPool;
+import com.zaradai.kunzite.trader.services.trader.DefaultTraderService;
+import com.zaradai.kunzite.trader.services.trader.ShardEventSink;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer service keeping its timers on a hashed timing wheel ticking at the configured resolution.  Submits and
+ * cancels from the trader shards are queued and applied on the timer thread at the next tick, so neither side
+ * contends on the wheel.  The timeouts of a tick are handed to each shard as a single event or batch, which the shard
+ * recycles once dispatched.
+ */
+public class WheelTimerService extends AbstractExecutionThreadService implements TimerService {
+    private final ContextLogger logger;
+    private final ShardEventSink shardEvents;
+    private final TimeBase timeBase;
+    private final long tickMillis;
+    private final TimerEventPool eventPool;
+    private final TimerWheel wheel;
+    private final Queue<Object> commands;
+    private final ShardTimeouts timeouts;
+
+    @Inject
+    WheelTimerService(ContextLogger logger, DefaultTraderService traderService, TimeBase timeBase,
+                      TraderConfiguration configuration) {
+        this(logger, (ShardEventSink) traderService, timeBase, configuration);
+    }
+
+    /**
+     * For drivers taking the timeouts on their own thread, such as benchmarks.
+     */
+    WheelTimerService(ContextLogger logger, ShardEventSink shardEvents, TimeBase timeBase,
+                      TraderConfiguration configuration) {
+        this.logger = logger;
+        this.shardEvents = shardEvents;
+        this.timeBase = timeBase;
+        tickMillis = configuration.getTimerTickMillis();
+        eventPool = createEventPool();
+        wheel = createWheel(tickMillis, configuration.getTimerWheelSize());
+        commands = createCommandQueue();
+        timeouts = new ShardTimeouts(eventPool);
+    }
+
+    protected TimerEventPool createEventPool() {
+        return new TimerEventPool();
+    }
+
+    protected TimerWheel createWheel(long tickMillis, int size) {
+        return new TimerWheel(tickMillis, size, eventPool);
+    }
+
+    protected Queue<Object> createCommandQueue() {
+        return Queues.newConcurrentLinkedQueue();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        logTimeState("Running");
+        while (isRunning()) {
+            process();
+        }
+        logTimeState("Stopped");
+    }
+
+    private void logTimeState(String state) {
+        LogHelper.info(logger)
+                .addContext("Timer Service")
+                .add("Is", state)
+                .add("Tick", tickMillis)
+                .log();
+    }
+
+    @VisibleForTesting
+    void process() {
+        timeBase.sleep(tickMillis, TimeUnit.MILLISECONDS);
+        applyCommands();
+        wheel.expire(timeBase.now(), timeouts);
+        timeouts.fire(shardEvents);
+    }
+
+    private void applyCommands() {
+        Object command;
+
+        while ((command = commands.poll()) != null) {
+            // the wheel keeps what it needs, the requests go back to the engine's pools
+            if (command instanceof TimerRequest) {
+                TimerRequest request = (TimerRequest) command;
+                wheel.schedule(request);
+                request.recycle();
+            } else {
+                TimerCancelRequest request = (TimerCancelRequest) command;
+                wheel.cancel(request.getId());
+                request.recycle();
+            }
+        }
+    }
+
+    @Override
+    public void submit(TimerRequest request) {
+        commands.add(request);
+    }
+
+    @Override
+    public void cancel(TimerCancelRequest request) {
+        commands.add(request);
+    }
+}
@@ -21,30 +21,86 @@ import com.zaradai.kunzite.events.EventAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.logging.LogHelper;
 import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
 import com.zaradai.kunzite.trader.control.TradingManager;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerEventBatch;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 import com.zaradai.kunzite.trader.services.AbstractQueueBridge;
+import com.zaradai.kunzite.trader.services.Bridge;
+import com.zaradai.kunzite.trader.services.md.ConflatedMarketData;
 
 /**
- * Simple message pump for the trader
+ * Simple message pump for the trader.  When configured with more than one shard the instruments are partitioned
+ * across additional TraderShard threads, this service acting as the first shard and routing each instrument event to
+ * its owner.
  */
-public class DefaultTraderService extends AbstractQueueBridge implements TraderService {
+public class DefaultTraderService extends AbstractQueueBridge implements TraderService, ShardEventSink {
     static final String SERVICE_NAME = "TraderService";
 
     private final EventAggregator eventAggregator;
     private final TradingManager tradingManager;
+    private final ShardAssigner shardAssigner;
+    private final Bridge[] shards;
 
     @Inject
-    DefaultTraderService(ContextLogger contextLogger, MetricRegistry metricRegistry, EventAggregator eventAggregator,
-                         TradingManager tradingManager) {
-        super(contextLogger, metricRegistry);
+    DefaultTraderService(ContextLogger contextLogger, MetricRegistry metricRegistry, TraderConfiguration configuration,
+                         EventAggregator eventAggregator, TradingManager tradingManager,
+                         SymbolRegistry symbolRegistry) {
+        super(contextLogger, metricRegistry, configuration);
         this.eventAggregator = eventAggregator;
         this.tradingManager = tradingManager;
+
+        shardAssigner = createShardAssigner(configuration, symbolRegistry);
+        shards = new Bridge[shardAssigner.getShards()];
+        shards[0] = this;
+        for (int i = 1; i < shards.length; i++) {
+            shards[i] = createShard(contextLogger, metricRegistry, configuration, i);
+        }
+    }
+
+    protected ShardAssigner createShardAssigner(TraderConfiguration configuration, SymbolRegistry symbolRegistry) {
+        ShardPolicy policy = configuration.getShardPolicy();
+
+        return new ShardAssigner(Math.max(1, configuration.getTraderShards()),
+                (policy != null) ? policy : ShardPolicy.Hash, symbolRegistry);
+    }
+
+    protected Bridge createShard(ContextLogger contextLogger, MetricRegistry metricRegistry,
+                                 TraderConfiguration configuration, int shard) {
+        return new TraderShard(contextLogger, metricRegistry, configuration, shard, this);
     }
 
     @Override
     public void handleEvent(Object event) {
+        if (event instanceof TimerEventBatch) {
+            publishTimers((TimerEventBatch) event);
+            return;
+        }
+
+        if (event instanceof ConflatedMarketData) {
+            // claim the newest state, later updates for the instrument are conflated into a new placeholder
+            event = ((ConflatedMarketData) event).take();
+        }
         eventAggregator.publish(event);
+        // pooled market data, order statuses and timeouts are only valid for the duration of the dispatch
+        if (event instanceof MarketDataRecord) {
+            ((MarketDataRecord) event).recycle();
+        } else if (event instanceof OrderStatusEvent) {
+            ((OrderStatusEvent) event).recycle();
+        } else if (event instanceof TimerEvent) {
+            ((TimerEvent) event).recycle();
+        }
+    }
+
+    private void publishTimers(TimerEventBatch batch) {
+        for (int i = 0; i < batch.size(); ++i) {
+            eventAggregator.publish(batch.get(i));
+        }
+        batch.recycle();
     }
 
     @Override
@@ -55,6 +111,10 @@ public class DefaultTraderService extends AbstractQueueBridge implements TraderS
     @Override
     public void build(StaticConfiguration configuration) throws ConfigException {
         tradingManager.build(configuration);
+
+        if (isSharded()) {
+            shardAssigner.build(configuration);
+        }
     }
 
     @Override
@@ -62,22 +122,57 @@ public class DefaultTraderService extends AbstractQueueBridge implements TraderS
         onEvent(event);
     }
 
+    @Override
+    public void onTraderEvent(int instrumentIndex, Object event) {
+        onShardEvent(shardAssigner.shardOf(instrumentIndex), event);
+    }
+
+    /**
+     * Queue an event on a specific shard, unknown shards fall back to the first.
+     * @param shard
+     * @param event
+     */
+    @Override
+    public void onShardEvent(int shard, Object event) {
+        if (shard > 0 && shard < shards.length) {
+            shards[shard].onEvent(event);
+        } else {
+            onEvent(event);
+        }
+    }
+
+    private boolean isSharded() {
+        return shards.length > 1;
+    }
+
     @Override
     protected void startUp() throws Exception {
+        TraderShard.enter(0);
         // initialize the trader
         tradingManager.initialize();
+        // only then have the other shards drain their queues on their own threads
+        for (int i = 1; i < shards.length; i++) {
+            shards[i].startAsync().awaitRunning();
+        }
         logTraderState("Started");
     }
 
     @Override
     protected void shutDown() throws Exception {
         logTraderState("Stopping");
+
+        for (int i = 1; i < shards.length; i++) {
+            shards[i].stopAsync().awaitTerminated();
+        }
+        TraderShard.leave();
     }
 
     private void logTraderState(String state) {
         LogHelper.info(getLogger())
                 .addContext("Trader Service")
                 .add("Is", state)
+                .add("Shards", shards.length)
+                .add("Policy", shardAssigner.getPolicy())
                 .log();
     }
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.trader;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import com.zaradai.kunzite.trader.config.statics.InstrumentConfig;
+import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Assigns each interned instrument to the trader shard that owns it.  The assignment is fixed once built so every
+ * event for an instrument is handled by the same thread, keeping the per instrument books single writer.
+ */
+public class ShardAssigner {
+    private final int shards;
+    private final ShardPolicy policy;
+    private final SymbolRegistry symbolRegistry;
+    private volatile int[] shardByIndex;
+
+    public ShardAssigner(int shards, ShardPolicy policy, SymbolRegistry symbolRegistry) {
+        checkArgument(shards > 0, "Invalid number of shards");
+        checkNotNull(policy, "Invalid shard policy");
+        this.shards = shards;
+        this.policy = policy;
+        this.symbolRegistry = symbolRegistry;
+        shardByIndex = new int[0];
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public ShardPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Assign the configured instruments, must be called once the instruments have been interned.
+     * @param configuration
+     */
+    public void build(StaticConfiguration configuration) {
+        int[] res = new int[symbolRegistry.size()];
+        Map<String, Integer> shardByKey = Maps.newHashMap();
+
+        for (InstrumentConfig instrument : configuration.getInstruments()) {
+            int index = symbolRegistry.indexOf(instrument.getId());
+
+            if (index != SymbolRegistry.UNKNOWN_INDEX) {
+                if (index >= res.length) {
+                    res = Arrays.copyOf(res, index + 1);
+                }
+                res[index] = assign(instrument, shardByKey);
+            }
+        }
+        shardByIndex = res;
+    }
+
+    /**
+     * Unknown or unassigned instruments are owned by the first shard.
+     * @param instrumentIndex interned instrument index
+     * @return the owning shard
+     */
+    public int shardOf(int instrumentIndex) {
+        int[] current = shardByIndex;
+
+        if (instrumentIndex >= 0 && instrumentIndex < current.length) {
+            return current[instrumentIndex];
+        }
+
+        return 0;
+    }
+
+    private int assign(InstrumentConfig instrument, Map<String, Integer> shardByKey) {
+        switch (policy) {
+            case Market:
+                return assign(instrument.getMarketId(), instrument.getId(), shardByKey);
+            case Group:
+                return assign(instrument.getShardGroup(), instrument.getId(), shardByKey);
+            default:
+                return hash(instrument.getId());
+        }
+    }
+
+    private int assign(String key, String instrumentId, Map<String, Integer> shardByKey) {
+        if (Strings.isNullOrEmpty(key)) {
+            return hash(instrumentId);
+        }
+        Integer res = shardByKey.get(key);
+        // keys are dealt out in the order first seen
+        if (res == null) {
+            res = shardByKey.size() % shards;
+            shardByKey.put(key, res);
+        }
+
+        return res;
+    }
+
+    private int hash(String instrumentId) {
+        return (instrumentId.hashCode() & Integer.MAX_VALUE) % shards;
+    }
+}
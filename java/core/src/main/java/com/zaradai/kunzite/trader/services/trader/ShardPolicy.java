@@ -0,0 +1,34 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.trader;
+
+/**
+ * How instruments are partitioned across trader shards.
+ */
+public enum ShardPolicy {
+    /**
+     * Spread instruments by a hash of their id.
+     */
+    Hash,
+    /**
+     * Keep all instruments of a market on the same shard.
+     */
+    Market,
+    /**
+     * Keep instruments sharing a shard group from the static configuration on the same shard.
+     */
+    Group
+}
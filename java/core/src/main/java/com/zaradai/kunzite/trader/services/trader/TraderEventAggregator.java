@@ -0,0 +1,135 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.trader;
+
+import com.google.inject.Inject;
+import com.zaradai.kunzite.events.typed.EventDispatcher;
+import com.zaradai.kunzite.events.typed.TypedEventAggregator;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.events.*;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
+
+/**
+ * Reflection free alternative to the event bus for the trader thread.  Events are routed to subscribers by the
+ * handler interfaces they implement rather than by annotated methods.
+ */
+public class TraderEventAggregator extends TypedEventAggregator {
+    @Inject
+    TraderEventAggregator(ContextLogger logger) {
+        super(logger);
+
+        registerMarketDataDispatchers();
+        registerTradeDispatchers();
+        registerPositionDispatchers();
+        registerOrderDispatchers();
+        register(new EventDispatcher<TimerListener, TimerEvent>(TimerListener.class, TimerEvent.class) {
+            @Override
+            public void dispatch(TimerListener listener, TimerEvent event) {
+                listener.onTimer(event);
+            }
+        });
+    }
+
+    private void registerMarketDataDispatchers() {
+        register(new EventDispatcher<MarketDataHandler, MarketData>(MarketDataHandler.class, MarketData.class) {
+            @Override
+            public void dispatch(MarketDataHandler listener, MarketData event) {
+                listener.onMarketData(event);
+            }
+        });
+        register(new EventDispatcher<MarketDataRecordHandler, MarketDataRecord>(MarketDataRecordHandler.class,
+                MarketDataRecord.class) {
+            @Override
+            public void dispatch(MarketDataRecordHandler listener, MarketDataRecord event) {
+                listener.onMarketData(event);
+            }
+        });
+        register(new EventDispatcher<MarketBookUpdateEventHandler, MarketBookUpdateEvent>(
+                MarketBookUpdateEventHandler.class, MarketBookUpdateEvent.class) {
+            @Override
+            public void dispatch(MarketBookUpdateEventHandler listener, MarketBookUpdateEvent event) {
+                listener.onMarketBookUpdate(event);
+            }
+        });
+    }
+
+    private void registerTradeDispatchers() {
+        register(new EventDispatcher<TradeEventHandler, TradeEvent>(TradeEventHandler.class, TradeEvent.class) {
+            @Override
+            public void dispatch(TradeEventHandler listener, TradeEvent event) {
+                listener.onTrade(event);
+            }
+        });
+        register(new EventDispatcher<PositionUpdatesHandler, TradeEvent>(PositionUpdatesHandler.class,
+                TradeEvent.class) {
+            @Override
+            public void dispatch(PositionUpdatesHandler listener, TradeEvent event) {
+                listener.onTrade(event);
+            }
+        });
+    }
+
+    private void registerPositionDispatchers() {
+        register(new EventDispatcher<PositionChangeHandler, PositionInitiatedEvent>(PositionChangeHandler.class,
+                PositionInitiatedEvent.class) {
+            @Override
+            public void dispatch(PositionChangeHandler listener, PositionInitiatedEvent event) {
+                listener.onPositionInitiated(event);
+            }
+        });
+        register(new EventDispatcher<PositionChangeHandler, PositionLiquidatedEvent>(PositionChangeHandler.class,
+                PositionLiquidatedEvent.class) {
+            @Override
+            public void dispatch(PositionChangeHandler listener, PositionLiquidatedEvent event) {
+                listener.onPositionLiquidated(event);
+            }
+        });
+        register(new EventDispatcher<PositionChangeHandler, PositionChangedEvent>(PositionChangeHandler.class,
+                PositionChangedEvent.class) {
+            @Override
+            public void dispatch(PositionChangeHandler listener, PositionChangedEvent event) {
+                listener.onPositionChanged(event);
+            }
+        });
+    }
+
+    private void registerOrderDispatchers() {
+        register(new EventDispatcher<OrderStatusHandler, OrderStatusEvent>(OrderStatusHandler.class,
+                OrderStatusEvent.class) {
+            @Override
+            public void dispatch(OrderStatusHandler listener, OrderStatusEvent event) {
+                listener.onOrderStatus(event);
+            }
+        });
+        register(new EventDispatcher<OrderGatewayService, OrderSendEvent>(OrderGatewayService.class,
+                OrderSendEvent.class) {
+            @Override
+            public void dispatch(OrderGatewayService listener, OrderSendEvent event) {
+                listener.onOrderSend(event);
+            }
+        });
+        register(new EventDispatcher<OrderRejectHandler, OrderRequestRejectEvent>(OrderRejectHandler.class,
+                OrderRequestRejectEvent.class) {
+            @Override
+            public void dispatch(OrderRejectHandler listener, OrderRequestRejectEvent event) {
+                for (OrderRequest request : event.getRejects()) {
+                    listener.onReject(request);
+                }
+            }
+        });
+    }
+}
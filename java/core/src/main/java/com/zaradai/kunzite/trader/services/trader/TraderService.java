@@ -22,4 +22,11 @@ import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
 public interface TraderService extends Service {
     void build(StaticConfiguration configuration) throws ConfigException;
     void onTraderEvent(Object event);
+
+    /**
+     * Queue an instrument event on the trader shard owning the instrument.
+     * @param instrumentIndex interned index of the instrument the event is for
+     * @param event
+     */
+    void onTraderEvent(int instrumentIndex, Object event);
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.trader;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.services.AbstractQueueBridge;
+import com.zaradai.kunzite.trader.services.Bridge;
+
+/**
+ * An additional partition of a sharded trader.  Events are queued and handled on the shard's own thread by the
+ * owning trader service, so the trading states assigned to the shard only ever see a single writer.
+ */
+public class TraderShard extends AbstractQueueBridge {
+    static final String SERVICE_NAME = "TraderShard";
+
+    // unset on threads outside of a shard
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<Integer>();
+
+    private final int shard;
+    private final Bridge owner;
+
+    TraderShard(ContextLogger logger, MetricRegistry metricRegistry, TraderConfiguration configuration, int shard,
+                Bridge owner) {
+        super(logger, metricRegistry, configuration, nameOf(shard));
+        this.shard = shard;
+        this.owner = owner;
+    }
+
+    /**
+     * The shard owning the calling thread, threads outside of a shard report the first shard.
+     * @return
+     */
+    public static int current() {
+        Integer res = CURRENT.get();
+
+        return (res != null) ? res : 0;
+    }
+
+    /**
+     * Whether the calling thread is a shard's thread or is acting as one.
+     * @return
+     */
+    public static boolean isShardThread() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Have the calling thread act as the given shard until it leaves, for drivers handling a shard's events on their
+     * own thread such as backtests.
+     * @param shard
+     */
+    public static void enter(int shard) {
+        CURRENT.set(shard);
+    }
+
+    public static void leave() {
+        CURRENT.remove();
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    static String nameOf(int shard) {
+        return SERVICE_NAME + "-" + shard;
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+        enter(shard);
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+        leave();
+    }
+
+    @Override
+    public void handleEvent(Object event) {
+        owner.handleEvent(event);
+    }
+
+    @Override
+    public String getName() {
+        return nameOf(shard);
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import com.zaradai.kunzite.optimizer.model.InputRow;
+import com.zaradai.kunzite.optimizer.model.InputRowSchema;
+import com.zaradai.kunzite.optimizer.model.OutputRow;
+import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BacktestEvaluatorTest {
+    private InputRowSchema schema;
+    private BacktestEvaluator uut;
+
+    @Before
+    public void setUp() throws Exception {
+        schema = InputRowSchema.newBuilder()
+                .withName(BacktestTest.QUANTITY).from(1).step(1).withSteps(20)
+                .build();
+        uut = new QuantityEvaluator(BacktestTest.createConfiguration(), BacktestTest.createTape());
+    }
+
+    @Test
+    public void shouldDescribeOutputs() throws Exception {
+        assertThat(uut.getOutputKeys(), is((List<String>) ImmutableList.of(BacktestEvaluator.PNL,
+                BacktestEvaluator.SHARPE, BacktestEvaluator.MAX_DRAWDOWN)));
+        assertThat(uut.getOutputSchema().getColumns(), is(uut.getOutputKeys()));
+    }
+
+    @Test
+    public void shouldBacktestRowParameters() throws Exception {
+        InputRow row = InputRow.fromSchema(schema);
+        // step 9 of 1 from 1
+        row.setValue(BacktestTest.QUANTITY, 9);
+
+        OutputRow output = uut.evaluate(row).getOutput();
+
+        assertThat(output.getValue(BacktestEvaluator.PNL), is(30.0));
+        assertThat(output.getValue(BacktestEvaluator.SHARPE) > 0.0, is(true));
+        assertThat(output.getValue(BacktestEvaluator.MAX_DRAWDOWN), is(0.0));
+    }
+
+    @Test
+    public void shouldEvaluateRowsIndependently() throws Exception {
+        InputRow small = InputRow.fromSchema(schema);
+        InputRow large = InputRow.fromSchema(schema);
+        large.setValue(BacktestTest.QUANTITY, 1);
+
+        assertThat(uut.evaluate(small).getOutput().getValue(BacktestEvaluator.PNL), is(3.0));
+        assertThat(uut.evaluate(large).getOutput().getValue(BacktestEvaluator.PNL), is(6.0));
+        assertThat(uut.evaluate(small).getOutput().getValue(BacktestEvaluator.PNL), is(3.0));
+    }
+
+    @Test
+    public void shouldBindWholeInputsAsLongAndDouble() throws Exception {
+        InputRow row = InputRow.fromSchema(schema);
+        row.setValue(BacktestTest.QUANTITY, 9);
+
+        Injector injector = Guice.createInjector(uut.createParameters(row));
+
+        assertThat(injector.getInstance(Key.get(Long.class, Names.named(BacktestTest.QUANTITY))), is(10L));
+        assertThat(injector.getInstance(Key.get(Double.class, Names.named(BacktestTest.QUANTITY))), is(10.0));
+    }
+
+    @Test
+    public void shouldBindFractionalInputsAsDoubleOnly() throws Exception {
+        InputRowSchema fractional = InputRowSchema.newBuilder()
+                .withName(BacktestTest.QUANTITY).from(0.5).step(0.5).withSteps(4)
+                .build();
+        InputRow row = InputRow.fromSchema(fractional);
+
+        Injector injector = Guice.createInjector(uut.createParameters(row));
+
+        assertThat(injector.getInstance(Key.get(Double.class, Names.named(BacktestTest.QUANTITY))), is(0.5));
+        assertThat(injector.getExistingBinding(Key.get(Long.class, Names.named(BacktestTest.QUANTITY))) == null,
+                is(true));
+    }
+
+    private static class QuantityEvaluator extends BacktestEvaluator {
+        QuantityEvaluator(StaticConfiguration configuration, BarTape tape) {
+            super(configuration, tape);
+        }
+
+        @Override
+        public List<String> getInputKeys() {
+            return ImmutableList.of(BacktestTest.QUANTITY);
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0";
+        }
+    }
+}
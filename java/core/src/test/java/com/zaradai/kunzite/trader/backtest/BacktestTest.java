@@ -0,0 +1,252 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import com.zaradai.kunzite.trader.algo.AbstractAlgo;
+import com.zaradai.kunzite.trader.algo.AlgoException;
+import com.zaradai.kunzite.trader.config.statics.AlgoConfig;
+import com.zaradai.kunzite.trader.config.statics.InstrumentConfig;
+import com.zaradai.kunzite.trader.config.statics.MarketConfig;
+import com.zaradai.kunzite.trader.config.statics.PortfolioConfig;
+import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerListener;
+import com.zaradai.kunzite.trader.instruments.InstrumentType;
+import com.zaradai.kunzite.trader.instruments.TickDefinition;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import com.zaradai.kunzite.trader.services.md.eod.EodData;
+import com.zaradai.kunzite.trader.services.timer.TimerEngine;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BacktestTest {
+    private static final String PORTFOLIO_ID = "portfolio";
+    private static final String MARKET_ID = "market";
+    private static final String BROKER_ID = "broker";
+    private static final String INSTRUMENT_ID = "inst";
+    private static final String ALGO_NAME = "buyer";
+    private static final String ALGO_ID = ALGO_NAME + "-" + INSTRUMENT_ID;
+    static final String QUANTITY = "quantity";
+    private static final double LIMIT = 100.0;
+    private static final DateTime DAY_1 = new DateTime(2014, 1, 2, 0, 0);
+
+    @Test
+    public void shouldTradeOnBarAfterSignal() throws Exception {
+        BacktestResult result = new Backtest(createConfiguration(), createTape(), quantity(10)).call();
+
+        PnlSeries series = result.getAlgoSeries().get(ALGO_ID);
+        assertThat(result.getBars(), is(3L));
+        assertThat(result.getFills(), is(1L));
+        // bought at the second open of 11, marked at the closes of 12 and 14
+        assertThat(series.size(), is(2));
+        assertThat(series.getDateMillis(0), is(DAY_1.plusDays(1).getMillis()));
+        assertThat(series.getPnl(0), is(10.0));
+        assertThat(series.getPosition(0), is(10L));
+        assertThat(series.getFinalPnl(), is(30.0));
+        assertThat(result.getPortfolioSeries().get(PORTFOLIO_ID).getFinalPnl(), is(30.0));
+        assertThat(result.getTotal().getFinalPnl(), is(30.0));
+    }
+
+    @Test
+    public void shouldFireTimersAsTapeMovesOn() throws Exception {
+        BacktestResult result = new Backtest(createConfiguration(DelayedBuyAlgo.class), createTape(), quantity(10))
+                .call();
+
+        // the timer set on the first bar fires ahead of the second, the order goes out with it and fills at the
+        // third open of 12 to be marked at the close of 14
+        assertThat(result.getFills(), is(1L));
+        assertThat(result.getTotal().getFinalPnl(), is(20.0));
+    }
+
+    @Test
+    public void shouldRunBacktestsIndependently() throws Exception {
+        StaticConfiguration configuration = createConfiguration();
+        BarTape tape = createTape();
+        List<Backtest> backtests = Lists.newArrayList();
+
+        for (int i = 1; i <= 8; ++i) {
+            backtests.add(new Backtest(configuration, tape, quantity(i)));
+        }
+        List<BacktestResult> results = new BacktestRunner(4).run(backtests);
+
+        assertThat(results.size(), is(8));
+        for (int i = 0; i < results.size(); ++i) {
+            assertThat(results.get(i).getTotal().getFinalPnl(), is(3.0 * (i + 1)));
+        }
+    }
+
+    @Test
+    public void shouldSkipSymbolsNotTraded() throws Exception {
+        BarTape tape = BarTape.builder(ImmutableList.of("unknown", INSTRUMENT_ID))
+                .add(0, bar(DAY_1, 10.0, 10.0))
+                .add(1, bar(DAY_1, 10.0, 10.0))
+                .build();
+
+        BacktestResult result = new Backtest(createConfiguration(), tape, quantity(1)).call();
+
+        assertThat(result.getBars(), is(1L));
+    }
+
+    private AbstractModule quantity(final long quantity) {
+        return new AbstractModule() {
+            @Override
+            protected void configure() {
+                bindConstant().annotatedWith(Names.named(QUANTITY)).to(quantity);
+            }
+        };
+    }
+
+    static BarTape createTape() {
+        return BarTape.builder(ImmutableList.of(INSTRUMENT_ID))
+                .add(0, bar(DAY_1, 10.0, 10.0))
+                .add(0, bar(DAY_1.plusDays(1), 11.0, 12.0))
+                .add(0, bar(DAY_1.plusDays(2), 12.0, 14.0))
+                .build();
+    }
+
+    private static EodData bar(DateTime date, double open, double close) {
+        return EodData.builder()
+                .date(date)
+                .open(open)
+                .high(Math.max(open, close))
+                .low(Math.min(open, close))
+                .close(close)
+                .volumne(1000)
+                .build();
+    }
+
+    static StaticConfiguration createConfiguration() {
+        return createConfiguration(BuyOnceAlgo.class);
+    }
+
+    private static StaticConfiguration createConfiguration(Class<? extends AbstractAlgo> algoClass) {
+        StaticConfiguration res = new StaticConfiguration();
+
+        PortfolioConfig portfolio = new PortfolioConfig();
+        portfolio.setId(PORTFOLIO_ID);
+        res.add(portfolio);
+
+        MarketConfig market = new MarketConfig();
+        market.setId(MARKET_ID);
+        market.add(new TickDefinition(0.0, 1000.0, 0.01));
+        res.add(market);
+
+        InstrumentConfig instrument = new InstrumentConfig();
+        instrument.setId(INSTRUMENT_ID);
+        instrument.setMarketId(MARKET_ID);
+        instrument.setType(InstrumentType.Stock);
+        instrument.setMultiplier(1.0);
+        instrument.setLotSize(1);
+        res.add(instrument);
+
+        AlgoConfig algo = new AlgoConfig();
+        algo.setName(ALGO_NAME);
+        algo.setAlgo(algoClass.getName());
+        algo.addInstrument(INSTRUMENT_ID);
+        res.add(algo);
+
+        return res;
+    }
+
+    /**
+     * Buys on the first book update it sees, the limit is well through the market so it fills at the next open.
+     */
+    public static class BuyOnceAlgo extends AbstractAlgo {
+        private final long quantity;
+        private boolean sent;
+
+        @Inject
+        public BuyOnceAlgo(@Named(QUANTITY) long quantity) {
+            this.quantity = quantity;
+        }
+
+        @Override
+        public void initialize() throws AlgoException {
+            // nothing to prepare
+        }
+
+        @Override
+        public void onMarketBookUpdate(MarketBookUpdateEvent marketBookUpdateEvent) {
+            if (sent) {
+                return;
+            }
+            sent = true;
+            buy();
+        }
+
+        protected void buy() {
+            OrderRequest request = getState().getOrderManager().getPool().acquireRequest();
+            request.setOrderRequestType(OrderRequestType.Create);
+            request.setPortfolioId(PORTFOLIO_ID);
+            request.setInstrumentId(getState().getInstrument().getId());
+            request.setMarketId(getState().getInstrument().getMarketId());
+            request.setAlgoId(getId());
+            request.setClientOrderId(getId());
+            request.setBrokerId(BROKER_ID);
+            request.setSide(OrderSide.Buy);
+            request.setType(OrderType.Limit);
+            request.setPrice(LIMIT);
+            request.setTimeInForce(OrderTimeInForce.Day);
+            request.setQuantity(quantity);
+            request.setCreated(DateTime.now());
+
+            getState().getOrderManager().add(request);
+        }
+    }
+
+    /**
+     * Waits a day from the first book update before buying.
+     */
+    public static class DelayedBuyAlgo extends BuyOnceAlgo implements TimerListener {
+        private final TimerEngine timerEngine;
+        private long timerId;
+
+        @Inject
+        public DelayedBuyAlgo(@Named(QUANTITY) long quantity, TimerEngine timerEngine) {
+            super(quantity);
+            this.timerEngine = timerEngine;
+        }
+
+        @Override
+        public void onMarketBookUpdate(MarketBookUpdateEvent marketBookUpdateEvent) {
+            if (timerId == 0) {
+                timerId = timerEngine.subscribe(1, TimeUnit.DAYS, false, this);
+            }
+        }
+
+        @Override
+        public void onTimer(TimerEvent event) {
+            buy();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.ImmutableList;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.services.md.eod.EodData;
+import com.zaradai.kunzite.trader.services.md.eod.EodIOException;
+import com.zaradai.kunzite.trader.services.md.eod.EodReader;
+import com.zaradai.kunzite.trader.services.md.eod.EodReaderFactory;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BarTapeLoaderTest {
+    private static final String TEST_FOLDER = "folder";
+    private static final DateTime DAY_1 = new DateTime(2014, 1, 2, 0, 0);
+    private static final DateTime DAY_2 = new DateTime(2014, 1, 3, 0, 0);
+    private static final DateTime DAY_3 = new DateTime(2014, 1, 6, 0, 0);
+
+    private EodReader reader1;
+    private EodReader reader2;
+    private BarTapeLoader uut;
+
+    @Before
+    public void setUp() throws Exception {
+        reader1 = mock(EodReader.class);
+        reader2 = mock(EodReader.class);
+        EodReaderFactory readerFactory = mock(EodReaderFactory.class);
+        when(readerFactory.create(TEST_FOLDER)).thenReturn(reader1, reader2);
+        uut = new BarTapeLoader(ContextLoggerMocker.create(), readerFactory);
+    }
+
+    @Test
+    public void shouldMergeSymbolsInDateOrder() throws Exception {
+        when(reader1.getNext()).thenReturn(bar(DAY_1, 1.0), bar(DAY_3, 3.0), null);
+        when(reader2.getNext()).thenReturn(bar(DAY_2, 2.0), null);
+
+        BarTape tape = uut.load(TEST_FOLDER, ImmutableList.of("a", "b"));
+
+        assertThat(tape.getSymbols(), is((Object) ImmutableList.of("a", "b")));
+        assertThat(tape.size(), is(3));
+        assertThat(tape.getSymbolIndex(0), is(0));
+        assertThat(tape.getSymbolIndex(1), is(1));
+        assertThat(tape.getClose(1), is(2.0));
+        assertThat(tape.getDateMillis(2), is(DAY_3.getMillis()));
+        verify(reader1).close();
+        verify(reader2).close();
+    }
+
+    @Test
+    public void shouldKeepBarsWithinRange() throws Exception {
+        when(reader1.getNext()).thenReturn(bar(DAY_1, 1.0), bar(DAY_2, 2.0), bar(DAY_3, 3.0), null);
+
+        BarTape tape = uut.load(TEST_FOLDER, ImmutableList.of("a"), DAY_2, DAY_2);
+
+        assertThat(tape.size(), is(1));
+        assertThat(tape.getClose(0), is(2.0));
+    }
+
+    @Test
+    public void shouldLeaveOutSymbolsWithoutFile() throws Exception {
+        doThrow(new EodIOException("missing")).when(reader1).open("a");
+        when(reader2.getNext()).thenReturn(bar(DAY_1, 1.0), null);
+
+        BarTape tape = uut.load(TEST_FOLDER, ImmutableList.of("a", "b"));
+
+        assertThat(tape.getSymbols(), is((Object) ImmutableList.of("b")));
+        assertThat(tape.size(), is(1));
+        assertThat(tape.getSymbolIndex(0), is(0));
+    }
+
+    private EodData bar(DateTime date, double close) {
+        return EodData.builder()
+                .date(date)
+                .open(close)
+                .high(close)
+                .low(close)
+                .close(close)
+                .build();
+    }
+}
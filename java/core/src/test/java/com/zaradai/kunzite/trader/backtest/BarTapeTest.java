@@ -0,0 +1,81 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.ImmutableList;
+import com.zaradai.kunzite.trader.services.md.eod.EodData;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BarTapeTest {
+    private static final DateTime DAY_1 = new DateTime(2014, 1, 2, 0, 0);
+    private static final DateTime DAY_2 = new DateTime(2014, 1, 3, 0, 0);
+
+    @Test
+    public void shouldHoldBars() throws Exception {
+        BarTape uut = BarTape.builder(ImmutableList.of("a", "b"))
+                .add(1, bar(DAY_1, 10.0))
+                .build();
+
+        assertThat(uut.size(), is(1));
+        assertThat(uut.getSymbols().get(uut.getSymbolIndex(0)), is("b"));
+        assertThat(uut.getDateMillis(0), is(DAY_1.getMillis()));
+        assertThat(uut.getOpen(0), is(9.0));
+        assertThat(uut.getHigh(0), is(11.0));
+        assertThat(uut.getLow(0), is(8.0));
+        assertThat(uut.getClose(0), is(10.0));
+        assertThat(uut.getVolume(0), is(100L));
+    }
+
+    @Test
+    public void shouldGrowPastInitialCapacity() throws Exception {
+        BarTape.Builder builder = BarTape.builder(ImmutableList.of("a"));
+
+        for (int i = 0; i < 5000; ++i) {
+            builder.add(0, bar(DAY_1, i));
+        }
+        BarTape uut = builder.build();
+
+        assertThat(uut.size(), is(5000));
+        assertThat(uut.getClose(4999), is(4999.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBarsOutOfDateOrder() throws Exception {
+        BarTape.builder(ImmutableList.of("a"))
+                .add(0, bar(DAY_2, 10.0))
+                .add(0, bar(DAY_1, 10.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownSymbol() throws Exception {
+        BarTape.builder(ImmutableList.of("a")).add(1, bar(DAY_1, 10.0));
+    }
+
+    private EodData bar(DateTime date, double close) {
+        return EodData.builder()
+                .date(date)
+                .open(close - 1)
+                .high(close + 1)
+                .low(close - 2)
+                .close(close)
+                .volumne(100)
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PerformanceRecorderTest {
+    private static final String TEST_ALGO_ID = "algo";
+    private static final String TEST_PORTFOLIO_ID = "portfolio";
+    private static final int TEST_INDEX = 2;
+    private static final long DAY_1 = 1000L;
+    private static final long DAY_2 = 2000L;
+
+    private InstrumentResolver instrumentResolver;
+    private PerformanceRecorder uut;
+
+    @Before
+    public void setUp() throws Exception {
+        instrumentResolver = mock(InstrumentResolver.class);
+        uut = new PerformanceRecorder(instrumentResolver);
+    }
+
+    @Test
+    public void shouldMarkPositionToClose() throws Exception {
+        uut.onFill(refData(TEST_ALGO_ID, TEST_INDEX), 100, 10.0, DAY_1);
+        uut.mark(TEST_INDEX, 10.5);
+        uut.sample(DAY_1);
+        uut.mark(TEST_INDEX, 9.0);
+        uut.sample(DAY_2);
+
+        PnlSeries series = uut.getResult(2, 1).getAlgoSeries().get(TEST_ALGO_ID);
+
+        assertThat(series.size(), is(2));
+        assertThat(series.getDateMillis(0), is(DAY_1));
+        assertThat(series.getPnl(0), is(50.0));
+        assertThat(series.getPosition(0), is(100L));
+        assertThat(series.getPnl(1), is(-100.0));
+        assertThat(series.getFinalPnl(), is(-100.0));
+    }
+
+    @Test
+    public void shouldRealisePnlOnClosingTrade() throws Exception {
+        uut.onFill(refData(TEST_ALGO_ID, TEST_INDEX), 100, 10.0, DAY_1);
+        uut.onFill(refData(TEST_ALGO_ID, TEST_INDEX), -100, 12.0, DAY_1);
+        uut.mark(TEST_INDEX, 5.0);
+        uut.sample(DAY_1);
+
+        PnlSeries series = uut.getResult(1, 2).getAlgoSeries().get(TEST_ALGO_ID);
+
+        assertThat(series.getPnl(0), is(200.0));
+        assertThat(series.getPosition(0), is(0L));
+    }
+
+    @Test
+    public void shouldApplyInstrumentMultiplier() throws Exception {
+        Instrument instrument = mock(Instrument.class);
+        when(instrument.getMultiplier()).thenReturn(50.0);
+        when(instrumentResolver.resolveInstrument(TEST_INDEX)).thenReturn(instrument);
+
+        uut.onFill(refData(TEST_ALGO_ID, TEST_INDEX), 1, 10.0, DAY_1);
+        uut.mark(TEST_INDEX, 11.0);
+        uut.sample(DAY_1);
+
+        assertThat(uut.getResult(1, 1).getTotal().getPnl(0), is(50.0));
+    }
+
+    @Test
+    public void shouldAttributeToPortfolioAndTotal() throws Exception {
+        uut.onFill(refData(TEST_ALGO_ID, TEST_INDEX), 10, 10.0, DAY_1);
+        uut.onFill(refData(null, TEST_INDEX + 1), -10, 20.0, DAY_1);
+        uut.mark(TEST_INDEX, 11.0);
+        uut.mark(TEST_INDEX + 1, 19.0);
+        uut.sample(DAY_1);
+
+        BacktestResult result = uut.getResult(2, 2);
+
+        assertThat(result.getAlgoSeries().size(), is(1));
+        assertThat(result.getAlgoSeries().get(TEST_ALGO_ID).getPnl(0), is(10.0));
+        assertThat(result.getPortfolioSeries().get(TEST_PORTFOLIO_ID).getPnl(0), is(20.0));
+        assertThat(result.getTotal().getPnl(0), is(20.0));
+        assertThat(result.getTotal().getPosition(0), is(0L));
+        assertThat(result.getBars(), is(2L));
+        assertThat(result.getFills(), is(2L));
+    }
+
+    @Test
+    public void shouldHandleInstrumentsBeyondInitialCapacity() throws Exception {
+        uut.onFill(refData(TEST_ALGO_ID, 1000), 1, 10.0, DAY_1);
+        uut.mark(1000, 12.0);
+        uut.sample(DAY_1);
+
+        assertThat(uut.getResult(1, 1).getTotal().getPnl(0), is(2.0));
+    }
+
+    private OrderRefData refData(String algoId, int index) {
+        OrderRefData res = OrderRefData.builder()
+                .portfolio(TEST_PORTFOLIO_ID)
+                .instrument("inst" + index, index)
+                .build();
+        res.setAlgoId(algoId);
+
+        return res;
+    }
+}
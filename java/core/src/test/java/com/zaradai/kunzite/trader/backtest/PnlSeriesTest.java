@@ -0,0 +1,78 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PnlSeriesTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void shouldBeFlatWhenEmpty() throws Exception {
+        PnlSeries uut = new PnlSeries();
+
+        assertThat(uut.getFinalPnl(), is(0.0));
+        assertThat(uut.getSharpeRatio(), is(0.0));
+        assertThat(uut.getMaxDrawdown(), is(0.0));
+    }
+
+    @Test
+    public void shouldGrowPastInitialCapacity() throws Exception {
+        PnlSeries uut = series(new double[1000]);
+        uut.add(1000, 5.0, 1);
+
+        assertThat(uut.size(), is(1001));
+        assertThat(uut.getFinalPnl(), is(5.0));
+        assertThat(uut.getPosition(1000), is(1L));
+    }
+
+    @Test
+    public void shouldAnnualiseSharpeOfDailyChanges() throws Exception {
+        // changes of 0, 10 and 20
+        PnlSeries uut = series(0.0, 10.0, 30.0);
+
+        double expected = 10.0 / Math.sqrt(200.0 / 3.0) * Math.sqrt(252.0);
+
+        assertThat(Math.abs(uut.getSharpeRatio() - expected) < EPSILON, is(true));
+    }
+
+    @Test
+    public void shouldHaveNoSharpeWithoutVariation() throws Exception {
+        PnlSeries uut = series(0.0, 0.0, 0.0);
+
+        assertThat(uut.getSharpeRatio(), is(0.0));
+    }
+
+    @Test
+    public void shouldMeasureLargestDrawdown() throws Exception {
+        PnlSeries uut = series(-5.0, 10.0, 4.0, 12.0, 1.0, 8.0);
+
+        assertThat(uut.getMaxDrawdown(), is(11.0));
+    }
+
+    private PnlSeries series(double... pnl) {
+        PnlSeries res = new PnlSeries();
+
+        for (int i = 0; i < pnl.length; ++i) {
+            res.add(i, pnl[i], 0);
+        }
+
+        return res;
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.backtest;
+
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.events.EventAggregator;
+import com.zaradai.kunzite.trader.events.OrderSendEvent;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import com.zaradai.kunzite.trader.services.timer.SimulatedTimeBase;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class SimulatedFillGatewayTest {
+    private static final long TEST_ORDER_ID = 7L;
+    private static final int TEST_INSTRUMENT_INDEX = 3;
+    private static final long TEST_QUANTITY = 100;
+    private static final long TEST_NOW = 1234L;
+
+    private EventAggregator eventAggregator;
+    private FillListener fillListener;
+    private List<OrderStatus> published;
+    private SimulatedFillGateway uut;
+
+    @Before
+    public void setUp() throws Exception {
+        eventAggregator = mock(EventAggregator.class);
+        fillListener = mock(FillListener.class);
+        published = Lists.newArrayList();
+        // statuses are recycled once published so take what is needed as they go
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                published.add(((OrderStatusEvent) invocation.getArguments()[0]).getOrderStatus());
+                return null;
+            }
+        }).when(eventAggregator).publish(any());
+        uut = new SimulatedFillGateway(eventAggregator, new SimulatedTimeBase(TEST_NOW), fillListener);
+    }
+
+    @Test
+    public void shouldHoldStatusesUntilFlushed() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Limit, 10.0));
+
+        assertThat(published.size(), is(0));
+        uut.flush();
+
+        assertThat(published, is((List<OrderStatus>) Lists.newArrayList(OrderStatus.New)));
+        assertThat(uut.getWorkingCount(), is(1));
+    }
+
+    @Test
+    public void shouldFillMarketOrderAtOpen() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Market, 0.0));
+
+        uut.onBar(TEST_INSTRUMENT_INDEX, 10.5, 11.0, 10.0);
+        uut.flush();
+
+        verify(fillListener).onFill(any(OrderRefData.class), eq(TEST_QUANTITY), eq(10.5), eq(TEST_NOW));
+        assertThat(published, is((List<OrderStatus>) Lists.newArrayList(OrderStatus.New, OrderStatus.Filled)));
+        assertThat(uut.getWorkingCount(), is(0));
+        assertThat(uut.getFillCount(), is(1L));
+    }
+
+    @Test
+    public void shouldFillLimitBuyAtBetterOfOpenAndPrice() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Limit, 10.0));
+
+        uut.onBar(TEST_INSTRUMENT_INDEX, 9.5, 10.5, 9.0);
+
+        verify(fillListener).onFill(any(OrderRefData.class), eq(TEST_QUANTITY), eq(9.5), anyLong());
+    }
+
+    @Test
+    public void shouldFillLimitSellWithNegativeQuantity() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Sell, OrderType.Limit, 10.0));
+
+        uut.onBar(TEST_INSTRUMENT_INDEX, 9.5, 10.5, 9.0);
+
+        verify(fillListener).onFill(any(OrderRefData.class), eq(-TEST_QUANTITY), eq(10.0), anyLong());
+    }
+
+    @Test
+    public void shouldFillStopBuyWhenTouched() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Stop, 11.0));
+
+        uut.onBar(TEST_INSTRUMENT_INDEX, 11.5, 12.0, 11.2);
+
+        verify(fillListener).onFill(any(OrderRefData.class), eq(TEST_QUANTITY), eq(11.5), anyLong());
+    }
+
+    @Test
+    public void shouldKeepGoodTillCancelUntilTouched() throws Exception {
+        NewOrder order = order(OrderRequestType.Create, OrderSide.Buy, OrderType.Limit, 8.0);
+        order.setTimeInForce(OrderTimeInForce.GoodTillCancel);
+        send(order);
+
+        uut.onBar(TEST_INSTRUMENT_INDEX, 10.0, 11.0, 9.0);
+        assertThat(uut.getWorkingCount(), is(1));
+        uut.onBar(TEST_INSTRUMENT_INDEX, 9.0, 9.0, 7.5);
+
+        verify(fillListener).onFill(any(OrderRefData.class), eq(TEST_QUANTITY), eq(8.0), anyLong());
+        assertThat(uut.getWorkingCount(), is(0));
+    }
+
+    @Test
+    public void shouldExpireDayOrderNotFilled() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Limit, 8.0));
+
+        uut.onBar(TEST_INSTRUMENT_INDEX, 10.0, 11.0, 9.0);
+        uut.flush();
+
+        verify(fillListener, never()).onFill(any(OrderRefData.class), anyLong(), anyDouble(), anyLong());
+        assertThat(published, is((List<OrderStatus>) Lists.newArrayList(OrderStatus.New, OrderStatus.Expired)));
+        assertThat(uut.getWorkingCount(), is(0));
+    }
+
+    @Test
+    public void shouldOnlyWorkOrdersOfBarInstrument() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Market, 0.0));
+
+        uut.onBar(TEST_INSTRUMENT_INDEX + 1, 10.0, 11.0, 9.0);
+
+        assertThat(uut.getWorkingCount(), is(1));
+    }
+
+    @Test
+    public void shouldAmendWorkingOrder() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Limit, 8.0));
+        send(order(OrderRequestType.Amend, OrderSide.Buy, OrderType.Limit, 9.5));
+
+        uut.onBar(TEST_INSTRUMENT_INDEX, 10.0, 11.0, 9.0);
+        uut.flush();
+
+        verify(fillListener).onFill(any(OrderRefData.class), eq(TEST_QUANTITY), eq(9.5), anyLong());
+        assertThat(published, is((List<OrderStatus>) Lists.newArrayList(OrderStatus.New, OrderStatus.Replaced,
+                OrderStatus.Filled)));
+    }
+
+    @Test
+    public void shouldCancelWorkingOrder() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Limit, 8.0));
+        send(order(OrderRequestType.Cancel, OrderSide.Buy, OrderType.Limit, 8.0));
+
+        uut.onBar(TEST_INSTRUMENT_INDEX, 8.0, 8.0, 7.0);
+        uut.flush();
+
+        verify(fillListener, never()).onFill(any(OrderRefData.class), anyLong(), anyDouble(), anyLong());
+        assertThat(published, is((List<OrderStatus>) Lists.newArrayList(OrderStatus.New, OrderStatus.Cancelled)));
+    }
+
+    @Test
+    public void shouldRejectCancelOfUnknownOrder() throws Exception {
+        send(order(OrderRequestType.Cancel, OrderSide.Buy, OrderType.Limit, 8.0));
+        uut.flush();
+
+        assertThat(published, is((List<OrderStatus>) Lists.newArrayList(OrderStatus.Rejected)));
+    }
+
+    @Test
+    public void shouldRejectUnsupportedOrderType() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Stop_Limit, 8.0));
+        uut.flush();
+
+        assertThat(published, is((List<OrderStatus>) Lists.newArrayList(OrderStatus.Rejected)));
+        assertThat(uut.getWorkingCount(), is(0));
+    }
+
+    @Test
+    public void shouldRejectDuplicateOrderId() throws Exception {
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Limit, 8.0));
+        send(order(OrderRequestType.Create, OrderSide.Buy, OrderType.Limit, 8.0));
+        uut.flush();
+
+        assertThat(published, is((List<OrderStatus>) Lists.newArrayList(OrderStatus.New, OrderStatus.Rejected)));
+        assertThat(uut.getWorkingCount(), is(1));
+    }
+
+    private void send(NewOrder order) {
+        OrderSendEvent event = OrderSendEvent.newInstance();
+        event.add(order);
+        uut.onOrderSend(event);
+    }
+
+    private NewOrder order(OrderRequestType requestType, OrderSide side, OrderType type, double price) {
+        NewOrder res = new NewOrder();
+        res.setRefData(OrderRefData.builder()
+                .id(TEST_ORDER_ID)
+                .instrument("inst", TEST_INSTRUMENT_INDEX)
+                .build());
+        res.setRequestType(requestType);
+        res.setSide(side);
+        res.setType(type);
+        res.setTimeInForce(OrderTimeInForce.Day);
+        res.setPrice(price);
+        res.setQuantity(TEST_QUANTITY);
+
+        return res;
+    }
+}
@@ -16,11 +16,20 @@
 package com.zaradai.kunzite.trader.config;
 
 import com.zaradai.kunzite.config.ConfigurationSource;
+import com.zaradai.kunzite.trader.services.BridgeType;
+import com.zaradai.kunzite.trader.services.BridgeWaitStrategy;
+import com.zaradai.kunzite.trader.services.md.channel.EmulatorSource;
+import com.zaradai.kunzite.trader.services.orders.GatewayExecution;
+import com.zaradai.kunzite.trader.services.orders.gateway.matching.LatencyModel;
+import com.zaradai.kunzite.trader.services.trader.ShardPolicy;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class SourcedTraderConfigurationTest {
     private ConfigurationSource source;
@@ -53,4 +62,132 @@ public class SourcedTraderConfigurationTest {
 
         verify(source).get(SourcedTraderConfiguration.OG_URI,SourcedTraderConfiguration.DEFAULT_OG_CONFIG_URI);
     }
+
+    @Test
+    public void shouldGetBridgeType() throws Exception {
+        when(source.get(SourcedTraderConfiguration.BRIDGE_TYPE, SourcedTraderConfiguration.DEFAULT_BRIDGE_TYPE))
+                .thenReturn("Disruptor");
+
+        assertThat(uut.getBridgeType(), is(BridgeType.Disruptor));
+    }
+
+    @Test
+    public void shouldGetBridgeRingSize() throws Exception {
+        uut.getBridgeRingSize();
+
+        verify(source).get(SourcedTraderConfiguration.BRIDGE_RING_SIZE,
+                SourcedTraderConfiguration.DEFAULT_BRIDGE_RING_SIZE);
+    }
+
+    @Test
+    public void shouldGetBridgeWaitStrategy() throws Exception {
+        when(source.get(SourcedTraderConfiguration.BRIDGE_WAIT_STRATEGY,
+                SourcedTraderConfiguration.DEFAULT_BRIDGE_WAIT_STRATEGY)).thenReturn("BusySpin");
+
+        assertThat(uut.getBridgeWaitStrategy(), is(BridgeWaitStrategy.BusySpin));
+    }
+
+    @Test
+    public void shouldGetTraderShards() throws Exception {
+        uut.getTraderShards();
+
+        verify(source).get(SourcedTraderConfiguration.TRADER_SHARDS,
+                SourcedTraderConfiguration.DEFAULT_TRADER_SHARDS);
+    }
+
+    @Test
+    public void shouldGetShardPolicy() throws Exception {
+        when(source.get(SourcedTraderConfiguration.SHARD_POLICY, SourcedTraderConfiguration.DEFAULT_SHARD_POLICY))
+                .thenReturn("Market");
+
+        assertThat(uut.getShardPolicy(), is(ShardPolicy.Market));
+    }
+
+    @Test
+    public void shouldGetGatewayExecution() throws Exception {
+        when(source.get(SourcedTraderConfiguration.GATEWAY_EXECUTION,
+                SourcedTraderConfiguration.DEFAULT_GATEWAY_EXECUTION)).thenReturn("Sender");
+
+        assertThat(uut.getGatewayExecution(), is(GatewayExecution.Sender));
+    }
+
+    @Test
+    public void shouldGetGatewayQueueAndBatchSize() throws Exception {
+        uut.getGatewayQueueSize();
+        uut.getGatewayBatchSize();
+
+        verify(source).get(SourcedTraderConfiguration.GATEWAY_QUEUE_SIZE,
+                SourcedTraderConfiguration.DEFAULT_GATEWAY_QUEUE_SIZE);
+        verify(source).get(SourcedTraderConfiguration.GATEWAY_BATCH_SIZE,
+                SourcedTraderConfiguration.DEFAULT_GATEWAY_BATCH_SIZE);
+    }
+
+    @Test
+    public void shouldGetEmulatorLatency() throws Exception {
+        uut.getEmulatorLatencyMicros();
+
+        verify(source).get(SourcedTraderConfiguration.EMULATOR_LATENCY_MICROS,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_LATENCY_MICROS);
+    }
+
+    @Test
+    public void shouldGetEmulatorLatencyModel() throws Exception {
+        when(source.get(SourcedTraderConfiguration.EMULATOR_LATENCY_MODEL,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_LATENCY_MODEL)).thenReturn("Exponential");
+
+        assertThat(uut.getEmulatorLatencyModel(), is(LatencyModel.Exponential));
+    }
+
+    @Test
+    public void shouldGetEmulatorAckAndFillLatency() throws Exception {
+        uut.getEmulatorAckLatencyMicros();
+        uut.getEmulatorFillLatencyMicros();
+        uut.getEmulatorLatencyJitterMicros();
+
+        verify(source).get(SourcedTraderConfiguration.EMULATOR_ACK_LATENCY_MICROS,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_ACK_LATENCY_MICROS);
+        verify(source).get(SourcedTraderConfiguration.EMULATOR_FILL_LATENCY_MICROS,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_FILL_LATENCY_MICROS);
+        verify(source).get(SourcedTraderConfiguration.EMULATOR_LATENCY_JITTER_MICROS,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_LATENCY_JITTER_MICROS);
+    }
+
+    @Test
+    public void shouldGetEmulatorSource() throws Exception {
+        when(source.get(SourcedTraderConfiguration.EMULATOR_SOURCE,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_SOURCE)).thenReturn("Replay");
+
+        assertThat(uut.getEmulatorSource(), is(EmulatorSource.Replay));
+    }
+
+    @Test
+    public void shouldGetEmulatorChannelSettings() throws Exception {
+        uut.getEmulatorTickRate();
+        uut.getEmulatorBookDepth();
+        uut.getEmulatorSymbols();
+        uut.getEmulatorReplayFolder();
+        uut.isEmulatorReplayLoop();
+
+        verify(source).get(SourcedTraderConfiguration.EMULATOR_TICK_RATE,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_TICK_RATE);
+        verify(source).get(SourcedTraderConfiguration.EMULATOR_BOOK_DEPTH,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_BOOK_DEPTH);
+        verify(source).get(SourcedTraderConfiguration.EMULATOR_SYMBOLS,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_SYMBOLS);
+        verify(source).get(SourcedTraderConfiguration.EMULATOR_REPLAY_FOLDER,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_REPLAY_FOLDER);
+        verify(source).get(SourcedTraderConfiguration.EMULATOR_REPLAY_LOOP,
+                SourcedTraderConfiguration.DEFAULT_EMULATOR_REPLAY_LOOP);
+    }
+
+    @Test
+    public void shouldGetTimerSettings() throws Exception {
+        uut.getTimerTickMillis();
+        uut.getTimerWheelSize();
+
+        verify(source).get(SourcedTraderConfiguration.TIMER_TICK_MILLIS,
+                SourcedTraderConfiguration.DEFAULT_TIMER_TICK_MILLIS);
+        verify(source).get(SourcedTraderConfiguration.TIMER_WHEEL_SIZE,
+                SourcedTraderConfiguration.DEFAULT_TIMER_WHEEL_SIZE);
+    }
 }
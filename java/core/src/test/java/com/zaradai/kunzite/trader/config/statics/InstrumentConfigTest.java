@@ -72,6 +72,14 @@ public class InstrumentConfigTest {
         assertThat(uut.getMarketId(), is(TEST_STRING));
     }
 
+    @Test
+    public void shouldGetShardGroup() throws Exception {
+        InstrumentConfig uut = new InstrumentConfig();
+        uut.setShardGroup(TEST_STRING);
+
+        assertThat(uut.getShardGroup(), is(TEST_STRING));
+    }
+
     @Test
     public void shouldGetType() throws Exception {
         InstrumentConfig uut = new InstrumentConfig();
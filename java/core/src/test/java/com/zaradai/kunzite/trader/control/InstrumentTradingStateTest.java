@@ -15,22 +15,29 @@
  */
 package com.zaradai.kunzite.trader.control;
 
+import com.zaradai.kunzite.trader.algo.Algo;
+import com.zaradai.kunzite.trader.events.*;
 import com.zaradai.kunzite.trader.instruments.Instrument;
 import com.zaradai.kunzite.trader.marketdata.MarketBook;
 import com.zaradai.kunzite.trader.marketdata.MarketBookFactory;
+import com.zaradai.kunzite.trader.marketdata.MarketBookUpdater;
 import com.zaradai.kunzite.trader.orders.book.OrderBook;
 import com.zaradai.kunzite.trader.orders.execution.OrderManager;
 import com.zaradai.kunzite.trader.orders.execution.OrderManagerFactory;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.positions.Position;
 import com.zaradai.kunzite.trader.positions.PositionBook;
 import com.zaradai.kunzite.trader.positions.PositionBookFactory;
+import com.google.common.collect.Iterables;
+import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class InstrumentTradingStateTest {
     private Instrument instrument;
@@ -39,6 +46,8 @@ public class InstrumentTradingStateTest {
     private PositionBook positionBook;
     private OrderBook orderBook;
     private OrderManager orderManager;
+    private MarketBookUpdater marketBookUpdater;
+    private Algo algo;
 
     @Before
     public void setUp() throws Exception {
@@ -55,7 +64,11 @@ public class InstrumentTradingStateTest {
         orderBook = mock(OrderBook.class);
         when(orderManager.getBook()).thenReturn(orderBook);
 
-        uut = new InstrumentTradingState(marketBookFactory, positionBookFactory, orderManagerFactory, instrument);
+        marketBookUpdater = mock(MarketBookUpdater.class);
+        algo = mock(Algo.class);
+
+        uut = new InstrumentTradingState(marketBookFactory, positionBookFactory, orderManagerFactory,
+                marketBookUpdater, instrument);
     }
 
     @Test
@@ -82,4 +95,81 @@ public class InstrumentTradingStateTest {
     public void shouldGetOrderManager() throws Exception {
         assertThat(uut.getOrderManager(), is(orderManager));
     }
+
+    @Test
+    public void shouldAddAlgoOnce() throws Exception {
+        uut.add(algo);
+        uut.add(algo);
+
+        assertThat(Iterables.size(uut.getAlgos()), is(1));
+    }
+
+    @Test
+    public void shouldUpdateBookAndNotifyAlgosOnRecord() throws Exception {
+        MarketDataRecord record = MarketDataRecord.newInstance();
+        MarketBookUpdateEvent event = MarketBookUpdateEvent.newReusable("id", marketBook);
+        event.update(0L, MarketBookUpdateEvent.BEST_PRICE, 1L, 0L);
+        when(marketBookUpdater.update(marketBook, record)).thenReturn(event);
+        uut.add(algo);
+
+        uut.onMarketData(record);
+
+        verify(algo).onMarketBookUpdate(event);
+        verify(orderManager).process();
+    }
+
+    @Test
+    public void shouldNotNotifyAlgosWhenBookUnchanged() throws Exception {
+        MarketData marketData = MarketData.newInstance("id");
+        MarketBookUpdateEvent event = MarketBookUpdateEvent.newReusable("id", marketBook);
+        when(marketBookUpdater.update(marketBook, marketData)).thenReturn(event);
+        uut.add(algo);
+
+        uut.onMarketData(marketData);
+
+        verify(algo, never()).onMarketBookUpdate(any(MarketBookUpdateEvent.class));
+        verify(orderManager, never()).process();
+    }
+
+    @Test
+    public void shouldPassOrderStatusToOrderManager() throws Exception {
+        OrderStatusEvent event = new OrderStatusEvent();
+
+        uut.onOrderStatus(event);
+
+        verify(orderManager).onOrderStatus(event);
+    }
+
+    @Test
+    public void shouldUpdatePositionsThenAlgosOnTrade() throws Exception {
+        TradeEvent event = TradeEvent.newTrade("ptf", "id", 100, 1.0, DateTime.now());
+        uut.add(algo);
+
+        uut.onTrade(event);
+
+        InOrder inOrder = inOrder(positionBook, algo, orderManager);
+        inOrder.verify(positionBook).onTrade(event);
+        inOrder.verify(algo).onTrade(event);
+        inOrder.verify(orderManager).process();
+    }
+
+    @Test
+    public void shouldNotifyAlgosOfRejectsAndPositions() throws Exception {
+        OrderRequest request = new OrderRequest();
+        Position position = mock(Position.class);
+        PositionInitiatedEvent initiated = new PositionInitiatedEvent(position);
+        PositionChangedEvent changed = new PositionChangedEvent(position);
+        PositionLiquidatedEvent liquidated = new PositionLiquidatedEvent(position);
+        uut.add(algo);
+
+        uut.onReject(request);
+        uut.onPositionInitiated(initiated);
+        uut.onPositionChanged(changed);
+        uut.onPositionLiquidated(liquidated);
+
+        verify(algo).onReject(request);
+        verify(algo).onPositionInitiated(initiated);
+        verify(algo).onPositionChanged(changed);
+        verify(algo).onPositionLiquidated(liquidated);
+    }
 }
@@ -26,6 +26,8 @@ import com.zaradai.kunzite.trader.positions.PortfolioFactory;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 
 public class TradingBuilderTest {
@@ -41,6 +43,7 @@ public class TradingBuilderTest {
     private AlgoFactory algoFactory;
     private TradingBuilder uut;
     private TradingManager tradingManager;
+    private SymbolRegistry symbolRegistry;
 
     @Before
     public void setUp() throws Exception {
@@ -51,9 +54,10 @@ public class TradingBuilderTest {
         instrumentFactory = mock(InstrumentFactory.class);
         algoFactory = mock(AlgoFactory.class);
         tradingManager = mock(TradingManager.class);
+        symbolRegistry = new SymbolRegistry();
 
         uut = new TradingBuilder(logger, portfolioFactory, marketFactory, tradingStateFactory, instrumentFactory,
-                algoFactory);
+                algoFactory, symbolRegistry);
     }
 
     @Test
@@ -84,6 +88,22 @@ public class TradingBuilderTest {
 
         verify(marketFactory).create(TEST_ID);
         verify(tradingManager).add(market);
+        verify(market, never()).setBookDepth(anyInt());
+    }
+
+    @Test
+    public void shouldBuildMarketsWithBookDepth() throws Exception {
+        StaticConfiguration configuration = new StaticConfiguration();
+        MarketConfig config = new MarketConfig();
+        config.setId(TEST_ID);
+        config.setBookDepth(20);
+        configuration.add(config);
+        Market market = mock(Market.class);
+        when(marketFactory.create(TEST_ID)).thenReturn(market);
+
+        uut.build(tradingManager, configuration);
+
+        verify(market).setBookDepth(20);
     }
 
     @Test
@@ -198,6 +218,23 @@ public class TradingBuilderTest {
         verify(tradingManager).add(stock);
     }
 
+    @Test
+    public void shouldInternInstrumentIndex() throws Exception {
+        StaticConfiguration configuration = new StaticConfiguration();
+        InstrumentConfig config = new InstrumentConfig();
+        Stock stock = mock(Stock.class);
+        when(instrumentFactory.createStock()).thenReturn(stock);
+        symbolRegistry.intern("other");
+        config.setId(TEST_ID);
+        config.setType(InstrumentType.Stock);
+        configuration.add(config);
+
+        uut.build(tradingManager, configuration);
+
+        verify(stock).setIndex(1);
+        assertThat(symbolRegistry.indexOf(TEST_ID), is(1));
+    }
+
     @Test
     public void shouldBuildWarrantInstrument() throws Exception {
         StaticConfiguration configuration = new StaticConfiguration();
@@ -15,25 +15,38 @@
  */
 package com.zaradai.kunzite.trader.control;
 
+import com.zaradai.kunzite.events.EventAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.algo.Algo;
 import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+import com.zaradai.kunzite.trader.events.*;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.orders.model.OrderPool;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.positions.Position;
+import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
 
 public class TradingManagerTest {
     private TradingManager uut;
     private ContextLogger logger;
     private TradingBuilder builder;
+    private EventAggregator eventAggregator;
 
     @Before
     public void setUp() throws Exception {
         logger = ContextLoggerMocker.create();
         builder = mock(TradingBuilder.class);
-        uut = new TradingManager(logger, builder);
+        eventAggregator = mock(EventAggregator.class);
+        uut = new TradingManager(logger, builder, eventAggregator);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -61,6 +74,28 @@ public class TradingManagerTest {
         uut.resolveAlgo(null);
     }
 
+    @Test
+    public void shouldResolveInstrumentAndStateByIndex() throws Exception {
+        Instrument instrument = mock(Instrument.class);
+        when(instrument.getId()).thenReturn("id");
+        when(instrument.getIndex()).thenReturn(3);
+        TradingState state = mock(TradingState.class);
+        when(state.getInstrument()).thenReturn(instrument);
+
+        uut.add(instrument);
+        uut.add(state);
+
+        assertThat(uut.resolveInstrument(3), is(instrument));
+        assertThat(uut.resolveTradingState(3), is(state));
+        assertThat(uut.resolveInstrument("id"), is(instrument));
+    }
+
+    @Test
+    public void shouldNotResolveUnknownIndex() throws Exception {
+        assertThat(uut.resolveInstrument(SymbolRegistry.UNKNOWN_INDEX), is(nullValue()));
+        assertThat(uut.resolveTradingState(10), is(nullValue()));
+    }
+
     @Test
     public void shouldRun() throws Exception {
         StaticConfiguration configuration = new StaticConfiguration();
@@ -70,4 +105,116 @@ public class TradingManagerTest {
         verify(builder).build(uut, configuration);
         verify(logger).info();
     }
+
+    private TradingState addState(String id, int index) {
+        Instrument instrument = mock(Instrument.class);
+        when(instrument.getId()).thenReturn(id);
+        when(instrument.getIndex()).thenReturn(index);
+        TradingState state = mock(TradingState.class);
+        when(state.getInstrument()).thenReturn(instrument);
+        uut.add(instrument);
+        uut.add(state);
+
+        return state;
+    }
+
+    @Test
+    public void shouldSubscribeForEventsOnInitialize() throws Exception {
+        uut.initialize();
+
+        verify(eventAggregator).subscribe(uut);
+    }
+
+    @Test
+    public void shouldBindAlgoToItsState() throws Exception {
+        TradingState state = addState("id", 0);
+        Algo algo = mock(Algo.class);
+        when(algo.getId()).thenReturn("algo");
+        when(algo.getState()).thenReturn(state);
+
+        uut.add(algo);
+
+        verify(state).add(algo);
+    }
+
+    @Test
+    public void shouldRouteMarketDataByIndexOnly() throws Exception {
+        TradingState state1 = addState("id1", 0);
+        TradingState state2 = addState("id2", 1);
+        MarketDataRecord record = MarketDataRecord.newInstance().setInstrument("id2", 1);
+
+        uut.onMarketData(record);
+
+        verify(state2).onMarketData(record);
+        verify(state1, never()).onMarketData(any(MarketDataRecord.class));
+    }
+
+    @Test
+    public void shouldFallBackToIdWhenNotInterned() throws Exception {
+        TradingState state = addState("id", 0);
+        MarketData marketData = MarketData.newInstance("id");
+
+        uut.onMarketData(marketData);
+
+        verify(state).onMarketData(marketData);
+    }
+
+    @Test
+    public void shouldWarnWhenNoStateForEvent() throws Exception {
+        uut.onMarketData(MarketData.newInstance("unknown"));
+
+        verify(logger).warn();
+    }
+
+    @Test
+    public void shouldRouteOrderAndTradeEvents() throws Exception {
+        TradingState state = addState("id", 0);
+        OrderStatusEvent status = new OrderStatusEvent();
+        status.setInstrumentIndex(0);
+        TradeEvent trade = TradeEvent.newTrade("ptf", "id", 0, 100, 1.0, DateTime.now());
+        OrderRequest request = new OrderRequest();
+        request.setInstrumentId("id");
+        OrderRequestRejectEvent rejects = OrderRequestRejectEvent.newInstance();
+        rejects.add(request);
+
+        uut.onOrderStatus(status);
+        uut.onTrade(trade);
+        uut.onOrderRequestReject(rejects);
+
+        verify(state).onOrderStatus(status);
+        verify(state).onTrade(trade);
+        verify(state).onReject(request);
+    }
+
+    @Test
+    public void shouldRecycleRejectedRequestOnceRouted() throws Exception {
+        TradingState state = addState("id", 0);
+        OrderPool pool = new OrderPool();
+        OrderRequest request = pool.acquireRequest();
+        request.setInstrumentId("id");
+
+        uut.onReject(request);
+
+        verify(state).onReject(request);
+        assertThat(pool.availableRequests(), is(1));
+    }
+
+    @Test
+    public void shouldRoutePositionEvents() throws Exception {
+        TradingState state = addState("id", 0);
+        Instrument instrument = state.getInstrument();
+        Position position = mock(Position.class);
+        when(position.getInstrument()).thenReturn(instrument);
+        PositionInitiatedEvent initiated = new PositionInitiatedEvent(position);
+        PositionChangedEvent changed = new PositionChangedEvent(position);
+        PositionLiquidatedEvent liquidated = new PositionLiquidatedEvent(position);
+
+        uut.onPositionInitiated(initiated);
+        uut.onPositionChanged(changed);
+        uut.onPositionLiquidated(liquidated);
+
+        verify(state).onPositionInitiated(initiated);
+        verify(state).onPositionChanged(changed);
+        verify(state).onPositionLiquidated(liquidated);
+    }
 }
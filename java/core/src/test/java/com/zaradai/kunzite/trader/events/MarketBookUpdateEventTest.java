@@ -69,4 +69,35 @@ public class MarketBookUpdateEventTest {
 
         assertThat(uut.getTimestamp(), not(nullValue()));
     }
+
+    @Test
+    public void shouldBuildWithLevels() throws Exception {
+        MarketBookUpdateEvent uut = MarketBookUpdateEvent.builder()
+                .instrument(TEST_INST_ID)
+                .bidLevels(0x5L)
+                .askLevels(0x2L)
+                .build();
+
+        assertThat(uut.isBidLevelChanged(0), is(true));
+        assertThat(uut.isBidLevelChanged(1), is(false));
+        assertThat(uut.isBidLevelChanged(2), is(true));
+        assertThat(uut.isAskLevelChanged(1), is(true));
+        assertThat(uut.isAskLevelChanged(64), is(false));
+    }
+
+    @Test
+    public void shouldUpdateReusable() throws Exception {
+        MarketBookUpdateEvent uut = MarketBookUpdateEvent.newReusable(TEST_INST_ID, TEST_BOOK);
+
+        uut.update(TEST_TIMESTAMP.getMillis(), MarketBookUpdateEvent.DEPTH | MarketBookUpdateEvent.OHLC, 0x2L, 0L);
+
+        assertThat(uut.getInstrumentId(), is(TEST_INST_ID));
+        assertThat(uut.getMarketBook(), is(TEST_BOOK));
+        assertThat(uut.getTimestamp().getMillis(), is(TEST_TIMESTAMP.getMillis()));
+        assertThat(uut.isDepthUpdated(), is(true));
+        assertThat(uut.isOhlcUpdated(), is(true));
+        assertThat(uut.isBestPriceUpdated(), is(false));
+        assertThat(uut.getBidLevelsChanged(), is(0x2L));
+        assertThat(uut.getAskLevelsChanged(), is(0L));
+    }
 }
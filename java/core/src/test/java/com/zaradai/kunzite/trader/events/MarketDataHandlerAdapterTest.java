@@ -0,0 +1,42 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class MarketDataHandlerAdapterTest {
+    @Test
+    public void shouldPassImmutableCopyToHandler() throws Exception {
+        MarketDataHandler handler = mock(MarketDataHandler.class);
+        MarketDataHandlerAdapter uut = new MarketDataHandlerAdapter(handler);
+        MarketDataRecord record = MarketDataRecord.newInstance()
+                .setInstrumentId("test")
+                .addDoubleValue(MarketDataFieldType.BEST_BID, 1.5);
+
+        uut.onMarketData(record);
+
+        ArgumentCaptor<MarketData> captor = ArgumentCaptor.forClass(MarketData.class);
+        verify(handler).onMarketData(captor.capture());
+        assertThat(captor.getValue().getInstrumentId(), is("test"));
+        assertThat(captor.getValue().getFields().get(0).getDoubleValue(), is(1.5));
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class MarketDataRecordPoolTest {
+    @Test
+    public void shouldReuseRecycledRecords() throws Exception {
+        MarketDataRecordPool uut = new MarketDataRecordPool(1);
+
+        MarketDataRecord record = uut.acquire();
+        assertThat(uut.available(), is(0));
+        record.setInstrumentId("test");
+        record.recycle();
+
+        assertThat(uut.available(), is(1));
+        MarketDataRecord res = uut.acquire();
+        assertThat(res, is(sameInstance(record)));
+        assertThat(res.getInstrumentId(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldCreateWhenEmpty() throws Exception {
+        MarketDataRecordPool uut = new MarketDataRecordPool(1);
+        MarketDataRecord first = uut.acquire();
+
+        MarketDataRecord second = uut.acquire();
+
+        assertThat(second, is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void shouldDropReleasedRecordsWhenFull() throws Exception {
+        MarketDataRecordPool uut = new MarketDataRecordPool(1);
+        MarketDataRecord first = uut.acquire();
+        MarketDataRecord second = uut.acquire();
+
+        first.recycle();
+        second.recycle();
+
+        assertThat(uut.available(), is(1));
+    }
+}
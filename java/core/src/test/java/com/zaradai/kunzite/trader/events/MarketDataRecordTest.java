@@ -0,0 +1,124 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class MarketDataRecordTest {
+    private static final String TEST_INST_ID = "test";
+    private static final int TEST_INDEX = 3;
+    private static final double TEST_PRICE = 23.45;
+    private static final long TEST_SIZE = 1200;
+    private static final DateTime TEST_TIMESTAMP = new DateTime(1400000000000L);
+    private MarketDataRecord uut;
+
+    @Before
+    public void setUp() throws Exception {
+        uut = MarketDataRecord.newInstance();
+    }
+
+    @Test
+    public void shouldAddFields() throws Exception {
+        uut.setInstrument(TEST_INST_ID, TEST_INDEX)
+                .setTimestampNanos(42L)
+                .addDoubleValue(MarketDataFieldType.BEST_BID, TEST_PRICE)
+                .addLongValue(MarketDataFieldType.BID_SIZE, TEST_SIZE);
+
+        assertThat(uut.getInstrumentId(), is(TEST_INST_ID));
+        assertThat(uut.getInstrumentIndex(), is(TEST_INDEX));
+        assertThat(uut.getTimestampNanos(), is(42L));
+        assertThat(uut.size(), is(2));
+        assertThat(uut.getType(0), is(MarketDataFieldType.BEST_BID));
+        assertThat(uut.getDoubleValue(0), is(TEST_PRICE));
+        assertThat(uut.getType(1), is(MarketDataFieldType.BID_SIZE));
+        assertThat(uut.getLongValue(1), is(TEST_SIZE));
+    }
+
+    @Test
+    public void shouldClear() throws Exception {
+        uut.setInstrument(TEST_INST_ID, TEST_INDEX).addDoubleValue(MarketDataFieldType.BEST_BID, TEST_PRICE);
+
+        uut.clear();
+
+        assertThat(uut.getInstrumentId(), is(nullValue()));
+        assertThat(uut.getInstrumentIndex(), is(MarketDataRecord.UNKNOWN_INDEX));
+        assertThat(uut.size(), is(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldNotGetBeyondSize() throws Exception {
+        uut.addDoubleValue(MarketDataFieldType.BEST_BID, TEST_PRICE);
+
+        uut.getType(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailWhenFull() throws Exception {
+        for (int i = 0; i <= MarketDataFieldType.values().length; ++i) {
+            uut.addDoubleValue(MarketDataFieldType.BEST_BID, TEST_PRICE);
+        }
+    }
+
+    @Test
+    public void shouldRoundTripMarketData() throws Exception {
+        MarketData marketData = MarketData.newInstance(TEST_INST_ID, TEST_TIMESTAMP,
+                MarketDataField.newDoubleValue(MarketDataFieldType.BEST_ASK, TEST_PRICE),
+                MarketDataField.newLongValue(MarketDataFieldType.ASK_SIZE, TEST_SIZE));
+
+        MarketData res = uut.copyFrom(marketData).toMarketData();
+
+        assertThat(res.getInstrumentId(), is(TEST_INST_ID));
+        assertThat(res.getTimestamp().getMillis(), is(TEST_TIMESTAMP.getMillis()));
+        assertThat(res.getFields().size(), is(2));
+        assertThat(res.getFields().get(0).getType(), is(MarketDataFieldType.BEST_ASK));
+        assertThat(res.getFields().get(0).getDoubleValue(), is(TEST_PRICE));
+        assertThat(res.getFields().get(1).getType(), is(MarketDataFieldType.ASK_SIZE));
+        assertThat(res.getFields().get(1).getLongValue(), is(TEST_SIZE));
+    }
+
+    @Test
+    public void shouldMergeNewerValuesAndAppendNewFields() throws Exception {
+        uut.addDoubleValue(MarketDataFieldType.BEST_BID, TEST_PRICE).addLongValue(MarketDataFieldType.BID_SIZE, 1L);
+        MarketDataRecord newer = MarketDataRecord.newInstance()
+                .addLongValue(MarketDataFieldType.BID_SIZE, TEST_SIZE)
+                .addDoubleValue(MarketDataFieldType.BEST_ASK, TEST_PRICE + 1)
+                .setTimestampNanos(100L);
+
+        uut.merge(newer);
+
+        assertThat(uut.size(), is(3));
+        assertThat(uut.getDoubleValue(0), is(TEST_PRICE));
+        assertThat(uut.getType(1), is(MarketDataFieldType.BID_SIZE));
+        assertThat(uut.getLongValue(1), is(TEST_SIZE));
+        assertThat(uut.getType(2), is(MarketDataFieldType.BEST_ASK));
+        assertThat(uut.getDoubleValue(2), is(TEST_PRICE + 1));
+        assertThat(uut.getTimestampNanos(), is(100L));
+    }
+
+    @Test
+    public void shouldCheckContainsField() throws Exception {
+        uut.addDoubleValue(MarketDataFieldType.TRADE_PRICE, TEST_PRICE);
+
+        assertThat(uut.contains(MarketDataFieldType.TRADE_PRICE), is(true));
+        assertThat(uut.contains(MarketDataFieldType.TRADE_SIZE), is(false));
+    }
+}
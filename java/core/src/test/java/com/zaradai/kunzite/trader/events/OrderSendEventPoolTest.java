@@ -0,0 +1,60 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class OrderSendEventPoolTest {
+    @Test
+    public void shouldReuseRecycledEvents() throws Exception {
+        OrderSendEventPool uut = new OrderSendEventPool(1);
+
+        OrderSendEvent event = uut.acquire();
+        event.add(new NewOrder());
+        event.recycle();
+
+        assertThat(uut.available(), is(1));
+        OrderSendEvent res = uut.acquire();
+        assertThat(res, is(sameInstance(event)));
+        assertThat(res.hasOrders(), is(false));
+    }
+
+    @Test
+    public void shouldCreateWhenEmpty() throws Exception {
+        OrderSendEventPool uut = new OrderSendEventPool(1);
+        OrderSendEvent first = uut.acquire();
+
+        OrderSendEvent second = uut.acquire();
+
+        assertThat(second, is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void shouldDropReleasedEventsWhenFull() throws Exception {
+        OrderSendEventPool uut = new OrderSendEventPool(1);
+        OrderSendEvent first = uut.acquire();
+        OrderSendEvent second = uut.acquire();
+
+        first.recycle();
+        second.recycle();
+
+        assertThat(uut.available(), is(1));
+    }
+}
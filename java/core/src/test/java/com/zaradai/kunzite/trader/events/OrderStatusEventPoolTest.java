@@ -0,0 +1,74 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class OrderStatusEventPoolTest {
+    @Test
+    public void shouldReuseRecycledEvents() throws Exception {
+        OrderStatusEventPool uut = new OrderStatusEventPool(1);
+
+        OrderStatusEvent event = uut.acquire();
+        assertThat(uut.available(), is(0));
+        event.setOrderId("test");
+        event.setOrderStatus(OrderStatus.Filled);
+        event.setTimestampMillis(1000L);
+        event.recycle();
+
+        assertThat(uut.available(), is(1));
+        OrderStatusEvent res = uut.acquire();
+        assertThat(res, is(sameInstance(event)));
+        assertThat(res.getOrderId(), is(nullValue()));
+        assertThat(res.getOrderStatus(), is(nullValue()));
+        assertThat(res.getTimestamp(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldCreateWhenEmpty() throws Exception {
+        OrderStatusEventPool uut = new OrderStatusEventPool(1);
+        OrderStatusEvent first = uut.acquire();
+
+        OrderStatusEvent second = uut.acquire();
+
+        assertThat(second, is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void shouldDropReleasedEventsWhenFull() throws Exception {
+        OrderStatusEventPool uut = new OrderStatusEventPool(1);
+        OrderStatusEvent first = uut.acquire();
+        OrderStatusEvent second = uut.acquire();
+
+        first.recycle();
+        second.recycle();
+
+        assertThat(uut.available(), is(1));
+    }
+
+    @Test
+    public void shouldIgnoreRecycleOfUnpooledEvents() throws Exception {
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setOrderId("test");
+
+        event.recycle();
+
+        assertThat(event.getOrderId(), is("test"));
+    }
+}
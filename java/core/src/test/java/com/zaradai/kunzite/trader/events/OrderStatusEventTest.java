@@ -15,6 +15,7 @@
  */
 package com.zaradai.kunzite.trader.events;
 
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
 import org.joda.time.DateTime;
 import org.junit.Test;
 
@@ -28,6 +29,39 @@ public class OrderStatusEventTest {
     private static final double TEST_DOUBLE = 12.34;
     private static final DateTime TEST_DATE_TIME = DateTime.now();
 
+    @Test
+    public void shouldMaterializeTimestampFromMillis() throws Exception {
+        OrderStatusEvent uut = new OrderStatusEvent();
+        uut.setTimestampMillis(TEST_DATE_TIME.getMillis());
+
+        assertThat(uut.getTimestampMillis(), is(TEST_DATE_TIME.getMillis()));
+        assertThat(uut.getTimestamp(), is(TEST_DATE_TIME));
+    }
+
+    @Test
+    public void shouldTakeOrderFromReferenceData() throws Exception {
+        OrderStatusEvent uut = new OrderStatusEvent();
+        OrderRefData refData = OrderRefData.builder().id(1234L).algo(TEST_STRING).instrument(TEST_STRING, 5).build();
+
+        uut.setOrder(refData);
+
+        assertThat(uut.hasNumericOrderId(), is(true));
+        assertThat(uut.getNumericOrderId(), is(1234L));
+        assertThat(uut.getOrderId(), is("1234"));
+        assertThat(uut.getAlgoId(), is(TEST_STRING));
+        assertThat(uut.getInstrumentIndex(), is(5));
+    }
+
+    @Test
+    public void shouldTakeStringOrderIdFromReferenceData() throws Exception {
+        OrderStatusEvent uut = new OrderStatusEvent();
+
+        uut.setOrder(OrderRefData.builder().id(TEST_STRING).build());
+
+        assertThat(uut.hasNumericOrderId(), is(false));
+        assertThat(uut.getOrderId(), is(TEST_STRING));
+    }
+
     @Test
     public void shouldGetOrderStatus() throws Exception {
         OrderStatusEvent uut = new OrderStatusEvent();
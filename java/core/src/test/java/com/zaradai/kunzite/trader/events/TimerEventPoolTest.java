@@ -0,0 +1,75 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.events;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class TimerEventPoolTest {
+    @Test
+    public void shouldReuseRecycledEvents() throws Exception {
+        TimerEventPool uut = new TimerEventPool(1);
+
+        TimerEvent event = uut.acquire(1L, true);
+        assertThat(event.getTimerId(), is(1L));
+        assertThat(event.isLast(), is(true));
+        event.recycle();
+
+        assertThat(uut.available(), is(1));
+        TimerEvent res = uut.acquire(2L, true);
+        assertThat(res, is(sameInstance(event)));
+        assertThat(res.getTimerId(), is(2L));
+    }
+
+    @Test
+    public void shouldRecycleBatchWithItsEvents() throws Exception {
+        TimerEventPool uut = new TimerEventPool(2);
+        TimerEventBatch batch = uut.acquireBatch();
+        batch.add(uut.acquire(1L, true));
+        batch.add(uut.acquire(2L, true));
+
+        batch.recycle();
+
+        assertThat(uut.available(), is(2));
+        assertThat(uut.availableBatches(), is(1));
+        TimerEventBatch res = uut.acquireBatch();
+        assertThat(res, is(sameInstance(batch)));
+        assertThat(res.size(), is(0));
+    }
+
+    @Test
+    public void shouldDropReleasedEventsWhenFull() throws Exception {
+        TimerEventPool uut = new TimerEventPool(1);
+        TimerEvent first = uut.acquire(1L, true);
+        TimerEvent second = uut.acquire(2L, true);
+
+        first.recycle();
+        second.recycle();
+
+        assertThat(uut.available(), is(1));
+    }
+
+    @Test
+    public void shouldIgnoreRecycleOfUnpooledEvents() throws Exception {
+        TimerEvent event = TimerEvent.newInstance(1L, false);
+
+        event.recycle();
+
+        assertThat(event.getTimerId(), is(1L));
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.zaradai.kunzite.trader.events;
 
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 import org.joda.time.DateTime;
 import org.junit.Test;
 
@@ -58,4 +59,13 @@ public class TradeEventTest {
         assertThat(uut.getPortfolioId(), is(TEST_PTF_ID));
         assertThat(uut.getTimestamp(), is(TEST_TIMESTAMP));
     }
+
+    @Test
+    public void shouldCarryInstrumentIndex() throws Exception {
+        TradeEvent uut = TradeEvent.newTrade(TEST_PTF_ID, TEST_INST_ID, 7, TEST_QTY, TEST_PRC, TEST_TIMESTAMP);
+
+        assertThat(uut.getInstrumentIndex(), is(7));
+        assertThat(TradeEvent.newTrade(TEST_PTF_ID, TEST_INST_ID, TEST_QTY, TEST_PRC, TEST_TIMESTAMP)
+                .getInstrumentIndex(), is(SymbolRegistry.UNKNOWN_INDEX));
+    }
 }
@@ -0,0 +1,252 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.trader.control.TradingState;
+import com.zaradai.kunzite.trader.control.TradingStateResolver;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.orders.book.OrderBook;
+import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderRejectReason;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderState;
+import com.zaradai.kunzite.trader.positions.PositionBook;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BatchRiskFilterTest {
+    private static final String TEST_INST_ID = "inst";
+    private static final String TEST_PTF_ID = "ptf";
+    private static final String TEST_ORDER_ID = "ord";
+    private static final double TEST_PRICE = 100.0;
+
+    private Instrument instrument;
+    private TradingStateResolver stateResolver;
+    private PositionBook positionBook;
+    private OrderBook orderBook;
+    private DefaultFilterParameterManager parameterManager;
+    private FilterLimits limits;
+
+    @Before
+    public void setUp() throws Exception {
+        instrument = mock(Instrument.class);
+        when(instrument.getId()).thenReturn(TEST_INST_ID);
+        when(instrument.getMultiplier()).thenReturn(1.0);
+        when(instrument.getLotSize()).thenReturn(10);
+        positionBook = mock(PositionBook.class);
+        orderBook = mock(OrderBook.class);
+        TradingState state = mock(TradingState.class);
+        when(state.getPositionBook()).thenReturn(positionBook);
+        when(state.getOrderBook()).thenReturn(orderBook);
+        stateResolver = mock(TradingStateResolver.class);
+        when(stateResolver.resolveTradingState(TEST_INST_ID)).thenReturn(state);
+        parameterManager = new DefaultFilterParameterManager();
+        limits = new FilterLimits();
+    }
+
+    private BatchRiskFilter createFilter(BatchRiskMode mode) {
+        parameterManager.setLimits(TEST_INST_ID, TEST_PTF_ID, limits);
+
+        return new BatchRiskFilter(ContextLoggerMocker.create(), instrument, stateResolver,
+                new FilterLimitsCache(parameterManager, TEST_INST_ID), mode);
+    }
+
+    private OrderRequest createRequest(OrderSide side, long quantity) {
+        OrderRequest res = new OrderRequest();
+        res.setOrderRequestType(OrderRequestType.Create);
+        res.setInstrumentId(TEST_INST_ID);
+        res.setPortfolioId(TEST_PTF_ID);
+        res.setSide(side);
+        res.setPrice(TEST_PRICE);
+        res.setQuantity(quantity);
+
+        return res;
+    }
+
+    private OrderRequest createAmend(OrderSide side, long quantity) {
+        OrderRequest res = createRequest(side, quantity);
+        res.setOrderRequestType(OrderRequestType.Amend);
+        res.setDependentOrderId(TEST_ORDER_ID);
+
+        return res;
+    }
+
+    private void bookOrder(String orderId, long outstanding) {
+        Order order = mock(Order.class);
+        when(order.getPendingOrOnMarket()).thenReturn(outstanding);
+        when(order.getState()).thenReturn(mock(OrderState.class));
+        when(orderBook.get(orderId)).thenReturn(order);
+    }
+
+    @Test
+    public void shouldGetName() throws Exception {
+        assertThat(createFilter(BatchRiskMode.Reject).getName(), is(Constants.BATCH_RISK_FILTER_NAME));
+    }
+
+    @Test
+    public void shouldRejectBuysTakingBatchBeyondMaxLong() throws Exception {
+        limits.setMaxLong(150);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Reject);
+        OrderRequest first = createRequest(OrderSide.Buy, 100);
+        OrderRequest second = createRequest(OrderSide.Buy, 100);
+
+        uut.check(Lists.newArrayList(first, second));
+
+        assertThat(first.isValid(), is(true));
+        assertThat(second.isValid(), is(false));
+        assertThat(second.getRejectReason(), is(OrderRejectReason.MaxLong));
+    }
+
+    @Test
+    public void shouldIncludePositionAndOutstanding() throws Exception {
+        limits.setMaxLong(150);
+        when(positionBook.getTotalNetPosition()).thenReturn(20L);
+        when(orderBook.getOutstandingBuyQuantity()).thenReturn(50L);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Reject);
+        OrderRequest request = createRequest(OrderSide.Buy, 100);
+
+        uut.check(Lists.newArrayList(request));
+
+        assertThat(request.getRejectReason(), is(OrderRejectReason.MaxLong));
+    }
+
+    @Test
+    public void shouldTrimToLotsThatFit() throws Exception {
+        limits.setMaxLong(155);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Trim);
+        OrderRequest first = createRequest(OrderSide.Buy, 100);
+        OrderRequest second = createRequest(OrderSide.Buy, 100);
+        OrderRequest third = createRequest(OrderSide.Buy, 100);
+
+        uut.check(Lists.newArrayList(first, second, third));
+
+        assertThat(first.getQuantity(), is(100L));
+        assertThat(second.isValid(), is(true));
+        assertThat(second.getQuantity(), is(50L));
+        assertThat(third.getRejectReason(), is(OrderRejectReason.MaxLong));
+    }
+
+    @Test
+    public void shouldRejectSellsTakingBatchBeyondMaxShort() throws Exception {
+        limits.setMaxShort(-150);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Reject);
+        OrderRequest first = createRequest(OrderSide.Sell, 100);
+        OrderRequest second = createRequest(OrderSide.Sell, 100);
+
+        uut.check(Lists.newArrayList(first, second));
+
+        assertThat(first.isValid(), is(true));
+        assertThat(second.getRejectReason(), is(OrderRejectReason.MaxShort));
+    }
+
+    @Test
+    public void shouldRejectShortSellsWhenNotAllowed() throws Exception {
+        limits.setAllowShort(false);
+        when(positionBook.getTotalNetPosition()).thenReturn(100L);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Reject);
+        OrderRequest first = createRequest(OrderSide.Sell, 60);
+        OrderRequest second = createRequest(OrderSide.Sell, 60);
+
+        uut.check(Lists.newArrayList(first, second));
+
+        assertThat(first.isValid(), is(true));
+        assertThat(second.getRejectReason(), is(OrderRejectReason.ShortSell));
+    }
+
+    @Test
+    public void shouldLimitCombinedNotional() throws Exception {
+        limits.setMaxNotional(TEST_PRICE * 150);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Trim);
+        OrderRequest first = createRequest(OrderSide.Buy, 100);
+        OrderRequest second = createRequest(OrderSide.Sell, 100);
+
+        uut.check(Lists.newArrayList(first, second));
+
+        assertThat(first.getQuantity(), is(100L));
+        assertThat(second.isValid(), is(true));
+        assertThat(second.getQuantity(), is(50L));
+    }
+
+    @Test
+    public void shouldAcceptSameSizeAmendAtMaxLong() throws Exception {
+        limits.setMaxLong(100);
+        when(orderBook.getOutstandingBuyQuantity()).thenReturn(100L);
+        bookOrder(TEST_ORDER_ID, 100);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Reject);
+        OrderRequest amend = createAmend(OrderSide.Buy, 100);
+
+        uut.check(Lists.newArrayList(amend));
+
+        assertThat(amend.isValid(), is(true));
+        assertThat(amend.getQuantity(), is(100L));
+    }
+
+    @Test
+    public void shouldProjectOnlyTheAmendedChange() throws Exception {
+        limits.setMaxLong(150);
+        when(orderBook.getOutstandingBuyQuantity()).thenReturn(100L);
+        bookOrder(TEST_ORDER_ID, 100);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Trim);
+        OrderRequest amend = createAmend(OrderSide.Buy, 200);
+        OrderRequest request = createRequest(OrderSide.Buy, 100);
+
+        uut.check(Lists.newArrayList(amend, request));
+
+        assertThat(amend.isValid(), is(true));
+        assertThat(amend.getQuantity(), is(150L));
+        assertThat(request.getRejectReason(), is(OrderRejectReason.MaxLong));
+    }
+
+    @Test
+    public void shouldSkipCancelsAndRejectedRequests() throws Exception {
+        limits.setMaxLong(150);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Reject);
+        OrderRequest rejected = createRequest(OrderSide.Buy, 100);
+        rejected.reject(OrderRejectReason.TICK_SIZE);
+        OrderRequest cancel = createRequest(OrderSide.Buy, 100);
+        cancel.setOrderRequestType(OrderRequestType.Cancel);
+        OrderRequest request = createRequest(OrderSide.Buy, 100);
+
+        uut.check(Lists.newArrayList(rejected, cancel, request));
+
+        assertThat(rejected.getRejectReason(), is(OrderRejectReason.TICK_SIZE));
+        assertThat(cancel.getRejectReason(), is(nullValue()));
+        assertThat(request.isValid(), is(true));
+    }
+
+    @Test
+    public void shouldNotOverflowUnlimitedPositions() throws Exception {
+        when(positionBook.getTotalNetPosition()).thenReturn(-100L);
+        BatchRiskFilter uut = createFilter(BatchRiskMode.Reject);
+        OrderRequest buy = createRequest(OrderSide.Buy, 100);
+        OrderRequest sell = createRequest(OrderSide.Sell, 100);
+
+        uut.check(Lists.newArrayList(buy, sell));
+
+        assertThat(buy.isValid(), is(true));
+        assertThat(sell.isValid(), is(true));
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.control.TradingStateResolver;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+import com.zaradai.kunzite.trader.instruments.Market;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.orders.model.OrderRejectReason;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.positions.Portfolio;
+import com.zaradai.kunzite.trader.positions.PortfolioResolver;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultFilterManagerTest {
+    private static final String TEST_INST_ID = "inst";
+    private static final String TEST_OTHER_INST_ID = "other";
+    private static final String TEST_MARKET_ID = "mkt";
+    private static final String TEST_PTF_ID = "ptf";
+
+    private DefaultFilterParameterManager parameterManager;
+    private Instrument instrument;
+    private DefaultFilterManager uut;
+
+    @Before
+    public void setUp() throws Exception {
+        ContextLogger logger = ContextLoggerMocker.create();
+        parameterManager = new DefaultFilterParameterManager();
+        instrument = createInstrument(TEST_INST_ID);
+        MarketResolver marketResolver = mock(MarketResolver.class);
+        when(marketResolver.resolveMarket(TEST_MARKET_ID)).thenReturn(mock(Market.class));
+        PortfolioResolver portfolioResolver = mock(PortfolioResolver.class);
+        when(portfolioResolver.resolvePortfolio(TEST_PTF_ID)).thenReturn(mock(Portfolio.class));
+
+        uut = new DefaultFilterManager(logger, parameterManager, mock(InstrumentResolver.class),
+                mock(TradingStateResolver.class), marketResolver, portfolioResolver);
+    }
+
+    private Instrument createInstrument(String id) {
+        Instrument res = mock(Instrument.class);
+        when(res.getId()).thenReturn(id);
+        when(res.getMarketId()).thenReturn(TEST_MARKET_ID);
+
+        return res;
+    }
+
+    @Test
+    public void shouldBuildChainOncePerInstrument() throws Exception {
+        Filter chain = uut.createFor(instrument);
+
+        assertThat(uut.createFor(instrument), is(sameInstance(chain)));
+        assertThat(uut.createFor(createInstrument(TEST_OTHER_INST_ID)), is(not(sameInstance(chain))));
+    }
+
+    @Test
+    public void shouldCheckPortfolioFirstThenCheapestFirst() throws Exception {
+        FilterChain chain = (FilterChain) uut.createFor(instrument);
+
+        assertThat(chain.size(), is(FilterType.values().length + 1));
+        assertThat(chain.get(0), is(instanceOf(PortfolioFilter.class)));
+        assertThat(chain.get(1), is(instanceOf(MaxQuantityFilter.class)));
+        assertThat(chain.get(chain.size() - 1), is(instanceOf(MaxShortFilter.class)));
+    }
+
+    @Test
+    public void shouldBuildInConfiguredOrder() throws Exception {
+        uut.setFilterOrder(FilterType.MaxLong, FilterType.TickSize);
+
+        FilterChain chain = (FilterChain) uut.createFor(instrument);
+
+        assertThat(chain.size(), is(3));
+        assertThat(chain.get(1), is(instanceOf(MaxLongFilter.class)));
+        assertThat(chain.get(2), is(instanceOf(TickFilter.class)));
+    }
+
+    @Test
+    public void shouldNotCreateBatchFilterByDefault() throws Exception {
+        assertThat(uut.createBatchFor(instrument), is(nullValue()));
+    }
+
+    @Test
+    public void shouldMoveAggregateLimitsToBatchFilter() throws Exception {
+        uut.setBatchRiskMode(BatchRiskMode.Trim);
+
+        FilterChain chain = (FilterChain) uut.createFor(instrument);
+        BatchFilter batch = uut.createBatchFor(instrument);
+
+        assertThat(batch, is(instanceOf(BatchRiskFilter.class)));
+        assertThat(chain.size(), is(FilterType.values().length - 3));
+        for (int i = 0; i < chain.size(); ++i) {
+            assertThat(chain.get(i), is(not(instanceOf(MaxLongFilter.class))));
+            assertThat(chain.get(i), is(not(instanceOf(MaxNotionalFilter.class))));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToOrderSameFilterTwice() throws Exception {
+        uut.setFilterOrder(FilterType.MaxLong, FilterType.MaxLong);
+    }
+
+    @Test
+    public void shouldRejectInvalidPortfolio() throws Exception {
+        Filter chain = uut.createFor(instrument);
+        OrderRequest request = createRequest(10);
+        request.setPortfolioId("unknown");
+
+        assertThat(chain.check(request), is(false));
+        assertThat(request.getRejectReason(), is(OrderRejectReason.InvalidPortfolio));
+    }
+
+    @Test
+    public void shouldRefreshCachedLimitsWhenChanged() throws Exception {
+        uut.setFilterOrder(FilterType.MaxQuantity);
+        Filter chain = uut.createFor(instrument);
+        FilterLimits limits = new FilterLimits();
+        limits.setMaxQuantity(100);
+        parameterManager.setLimits(TEST_INST_ID, TEST_PTF_ID, limits);
+        assertThat(chain.check(createRequest(200)), is(false));
+
+        limits.setMaxQuantity(300);
+        parameterManager.setLimits(TEST_INST_ID, TEST_PTF_ID, limits);
+
+        assertThat(chain.check(createRequest(200)), is(true));
+    }
+
+    @Test
+    public void shouldRefreshAllChainsWhenDefaultsChange() throws Exception {
+        uut.setFilterOrder(FilterType.RestrictedList);
+        Filter chain = uut.createFor(instrument);
+        assertThat(chain.check(createRequest(200)), is(true));
+        FilterLimits limits = new FilterLimits();
+        limits.setRestricted(true);
+
+        parameterManager.setDefaultLimits(limits);
+        OrderRequest request = createRequest(200);
+
+        assertThat(chain.check(request), is(false));
+        assertThat(request.getRejectReason(), is(OrderRejectReason.RestrictedList));
+    }
+
+    private OrderRequest createRequest(long quantity) {
+        OrderRequest res = new OrderRequest();
+        res.setInstrumentId(TEST_INST_ID);
+        res.setPortfolioId(TEST_PTF_ID);
+        res.setQuantity(quantity);
+
+        return res;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class DefaultFilterParameterManagerTest {
+    private static final String TEST_INST_ID = "inst";
+    private static final String TEST_PTF_ID = "ptf";
+    private static final String TEST_OTHER_PTF_ID = "ptf2";
+
+    private DefaultFilterParameterManager uut;
+    private FilterParameterListener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        uut = new DefaultFilterParameterManager();
+        listener = mock(FilterParameterListener.class);
+        uut.registerUpdateListener(listener);
+    }
+
+    @Test
+    public void shouldNotLimitByDefault() throws Exception {
+        FilterRequest request = FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID);
+
+        assertThat(uut.getMaxQuantity(request), is(Long.MAX_VALUE));
+        assertThat(uut.getMaxLong(request), is(Long.MAX_VALUE));
+        assertThat(uut.getMaxShort(request), is(Long.MIN_VALUE));
+        assertThat(uut.getMinPrice(request), is(0.0));
+        assertThat(uut.allowShort(request), is(true));
+        assertThat(uut.getRestrictedList(request).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldUseLimitsOfInstrumentAndPortfolio() throws Exception {
+        FilterLimits limits = new FilterLimits();
+        limits.setMaxQuantity(100);
+
+        uut.setLimits(TEST_INST_ID, TEST_PTF_ID, limits);
+
+        assertThat(uut.getMaxQuantity(FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID)), is(100L));
+        assertThat(uut.getMaxQuantity(FilterRequest.newInstance(TEST_INST_ID, TEST_OTHER_PTF_ID)),
+                is(Long.MAX_VALUE));
+        verify(listener).onParametersChanged(TEST_INST_ID);
+    }
+
+    @Test
+    public void shouldUseDefaultOnceRemoved() throws Exception {
+        FilterLimits limits = new FilterLimits();
+        limits.setMaxQuantity(100);
+        uut.setLimits(TEST_INST_ID, TEST_PTF_ID, limits);
+
+        uut.removeLimits(TEST_INST_ID, TEST_PTF_ID);
+
+        assertThat(uut.getMaxQuantity(FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID)), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldNotifyAllWhenDefaultsChange() throws Exception {
+        FilterLimits limits = new FilterLimits();
+        limits.setMaxNotional(1000.0);
+
+        uut.setDefaultLimits(limits);
+
+        assertThat(uut.getMaxNotional(FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID)), is(1000.0));
+        verify(listener).onAllParametersChanged();
+    }
+
+    @Test
+    public void shouldRestrictInstrument() throws Exception {
+        FilterRequest request = FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID);
+
+        uut.restrict(TEST_INST_ID);
+        assertThat(uut.getRestrictedList(request).contains(TEST_INST_ID), is(true));
+
+        uut.unrestrict(TEST_INST_ID);
+        assertThat(uut.getRestrictedList(request).contains(TEST_INST_ID), is(false));
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.filters;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FilterLimitsCacheTest {
+    private static final String TEST_INST_ID = "inst";
+    private static final String TEST_OTHER_INST_ID = "other";
+    private static final String TEST_PTF_ID = "ptf";
+    private static final String TEST_OTHER_PTF_ID = "ptf2";
+
+    private FilterParameterManager source;
+    private FilterLimitsCache uut;
+
+    @Before
+    public void setUp() throws Exception {
+        source = mock(FilterParameterManager.class);
+        when(source.getMaxQuantity(any(FilterRequest.class))).thenReturn(100L);
+        when(source.getRestrictedList(any(FilterRequest.class))).thenReturn(ImmutableSet.of(TEST_INST_ID));
+        uut = new FilterLimitsCache(source, TEST_INST_ID);
+    }
+
+    @Test
+    public void shouldResolveLimitsOnce() throws Exception {
+        FilterRequest request = FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID);
+
+        assertThat(uut.getMaxQuantity(request), is(100L));
+        assertThat(uut.getMaxQuantity(request), is(100L));
+
+        verify(source, times(1)).getMaxQuantity(any(FilterRequest.class));
+    }
+
+    @Test
+    public void shouldCacheLimitsPerPortfolio() throws Exception {
+        when(source.getMaxQuantity(any(FilterRequest.class))).thenReturn(100L, 200L);
+
+        assertThat(uut.getMaxQuantity(FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID)), is(100L));
+        assertThat(uut.getMaxQuantity(FilterRequest.newInstance(TEST_INST_ID, TEST_OTHER_PTF_ID)), is(200L));
+        assertThat(uut.getMaxQuantity(FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID)), is(100L));
+
+        verify(source, times(2)).getMaxQuantity(any(FilterRequest.class));
+    }
+
+    @Test
+    public void shouldReloadOnceInvalidated() throws Exception {
+        FilterRequest request = FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID);
+        uut.getMaxQuantity(request);
+        when(source.getMaxQuantity(any(FilterRequest.class))).thenReturn(50L);
+
+        uut.invalidate();
+
+        assertThat(uut.getMaxQuantity(request), is(50L));
+    }
+
+    @Test
+    public void shouldResolveRestrictionForInstrument() throws Exception {
+        FilterRequest request = FilterRequest.newInstance(TEST_INST_ID, TEST_PTF_ID);
+
+        assertThat(uut.getLimits(request).isRestricted(), is(true));
+        assertThat(uut.getRestrictedList(request).contains(TEST_INST_ID), is(true));
+    }
+
+    @Test
+    public void shouldPassOtherInstrumentsToSource() throws Exception {
+        FilterRequest request = FilterRequest.newInstance(TEST_OTHER_INST_ID, TEST_PTF_ID);
+
+        uut.getMaxQuantity(request);
+        uut.getMaxQuantity(request);
+
+        verify(source, times(2)).getMaxQuantity(request);
+    }
+
+    @Test
+    public void shouldRegisterListenerWithSource() throws Exception {
+        FilterParameterListener listener = mock(FilterParameterListener.class);
+
+        uut.registerUpdateListener(listener);
+
+        verify(source).registerUpdateListener(listener);
+    }
+}
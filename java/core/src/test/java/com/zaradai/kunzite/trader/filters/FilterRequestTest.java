@@ -35,6 +35,20 @@ public class FilterRequestTest {
         assertThat(uut.getPortfolioId(), is(TEST_PTF_ID));
     }
 
+    @Test
+    public void shouldSetForNextLookup() throws Exception {
+        FilterRequest uut = FilterRequest.newInstance();
+
+        assertThat(uut.set(TEST_INST_ID, TEST_PTF_ID), is(uut));
+        assertThat(uut.getInstrumentId(), is(TEST_INST_ID));
+        assertThat(uut.getPortfolioId(), is(TEST_PTF_ID));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToSetInvalidPortfolioId() throws Exception {
+        FilterRequest.newInstance().set(TEST_INST_ID, "");
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void shouldFailWithInvalidInstrumentId() throws Exception {
         FilterRequest uut = FilterRequest.newInstance(null, TEST_PTF_ID);
@@ -72,4 +72,16 @@ public class InstrumentTest {
 
         assertThat(uut.getMarketId(), is(TEST_STRING));
     }
+
+    @Test
+    public void shouldDefaultToUnknownIndex() throws Exception {
+        assertThat(uut.getIndex(), is(SymbolRegistry.UNKNOWN_INDEX));
+    }
+
+    @Test
+    public void shouldGetIndex() throws Exception {
+        uut.setIndex(TEST_INT);
+
+        assertThat(uut.getIndex(), is(TEST_INT));
+    }
 }
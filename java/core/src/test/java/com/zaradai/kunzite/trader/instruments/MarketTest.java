@@ -44,6 +44,25 @@ public class MarketTest {
         assertThat(id, is(MARKET_ID));
     }
 
+    @Test
+    public void shouldHaveBookDepth() throws Exception {
+        Market uut = createMarket();
+        assertThat(uut.getBookDepth(), is(Market.DEFAULT_BOOK_DEPTH));
+
+        uut.setBookDepth(20);
+
+        assertThat(uut.getBookDepth(), is(20));
+    }
+
+    @Test
+    public void shouldShareTickCalculator() throws Exception {
+        Market uut = createMarket();
+        uut.addTickDefinition(new TickDefinition(0.0, 10.0, 0.1));
+
+        assertThat(uut.getTickCalculator().isValidTick(5.1), is(true));
+        assertThat(uut.getTickCalculator().toTicks(5.1), is(51L));
+    }
+
     private Market createMarket() {
         return new Market(MARKET_ID);
     }
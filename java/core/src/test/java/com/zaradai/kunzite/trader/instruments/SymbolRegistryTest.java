@@ -0,0 +1,73 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.instruments;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SymbolRegistryTest {
+    private SymbolRegistry uut;
+
+    @Before
+    public void setUp() throws Exception {
+        uut = new SymbolRegistry();
+    }
+
+    @Test
+    public void shouldAssignDenseIndexes() throws Exception {
+        assertThat(uut.intern("A"), is(0));
+        assertThat(uut.intern("B"), is(1));
+        assertThat(uut.intern("A"), is(0));
+        assertThat(uut.size(), is(2));
+    }
+
+    @Test
+    public void shouldLookupBothWays() throws Exception {
+        uut.intern("A");
+        uut.intern("B");
+
+        assertThat(uut.indexOf("B"), is(1));
+        assertThat(uut.symbolOf(1), is("B"));
+    }
+
+    @Test
+    public void shouldNotFindUnknown() throws Exception {
+        uut.intern("A");
+
+        assertThat(uut.indexOf("B"), is(SymbolRegistry.UNKNOWN_INDEX));
+        assertThat(uut.indexOf(null), is(SymbolRegistry.UNKNOWN_INDEX));
+        assertThat(uut.symbolOf(1), is(nullValue()));
+        assertThat(uut.symbolOf(SymbolRegistry.UNKNOWN_INDEX), is(nullValue()));
+    }
+
+    @Test
+    public void shouldGrowBeyondInitialCapacity() throws Exception {
+        for (int i = 0; i < 1000; ++i) {
+            assertThat(uut.intern("S" + i), is(i));
+        }
+
+        assertThat(uut.symbolOf(999), is("S999"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToInternInvalidSymbol() throws Exception {
+        uut.intern("");
+    }
+}
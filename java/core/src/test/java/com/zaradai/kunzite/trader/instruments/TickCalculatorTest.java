@@ -72,5 +72,45 @@ public class TickCalculatorTest {
         uut.reset();
 
         assertThat(uut.getTickDefinitionFor(1), is(nullValue()));
+        assertThat(uut.toTicks(1.0), is(100000L));
+    }
+
+    @Test
+    public void shouldCountTicksWithinDefinition() throws Exception {
+        assertThat(uut.toTicks(0.01), is(0L));
+        assertThat(uut.toTicks(0.011), is(1L));
+        assertThat(uut.toTicks(0.249), is(239L));
+    }
+
+    @Test
+    public void shouldCountTicksAcrossDefinitions() throws Exception {
+        // 240 ticks of 0.001 to reach 0.25, then 51 of 0.005 to reach 0.505
+        assertThat(uut.toTicks(0.25), is(240L));
+        assertThat(uut.toTicks(0.255), is(241L));
+        assertThat(uut.toTicks(0.505), is(291L));
+        assertThat(uut.toTicks(0.515), is(292L));
+    }
+
+    @Test
+    public void shouldKeepTickIndexAscending() throws Exception {
+        long previous = uut.toTicks(0.01);
+
+        for (double price = 0.011; price < 9995.0; price *= 1.01) {
+            long ticks = uut.toTicks(price);
+
+            assertThat(ticks >= previous, is(true));
+            previous = ticks;
+        }
+    }
+
+    @Test
+    public void shouldExtrapolateOutsideDefinitions() throws Exception {
+        assertThat(uut.toTicks(0.005), is(-5L));
+        assertThat(uut.toTicks(10000.0) > uut.toTicks(9995.0), is(true));
+    }
+
+    @Test
+    public void shouldMatchSameTickForApproximatePrices() throws Exception {
+        assertThat(uut.toTicks(23.45), is(uut.toTicks(23.449999999)));
     }
 }
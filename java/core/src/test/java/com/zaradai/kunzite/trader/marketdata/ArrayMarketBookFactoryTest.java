@@ -0,0 +1,61 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.marketdata;
+
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.Market;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.mocks.InstrumentMocker;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ArrayMarketBookFactoryTest {
+    private static final String TEST_MARKET_ID = "market";
+    private MarketResolver marketResolver;
+    private Instrument instrument;
+    private ArrayMarketBookFactory uut;
+
+    @Before
+    public void setUp() throws Exception {
+        marketResolver = mock(MarketResolver.class);
+        instrument = InstrumentMocker.create("test");
+        uut = new ArrayMarketBookFactory(marketResolver);
+    }
+
+    @Test
+    public void shouldCreateWithMarketDepth() throws Exception {
+        Market market = mock(Market.class);
+        when(market.getBookDepth()).thenReturn(20);
+        when(instrument.getMarketId()).thenReturn(TEST_MARKET_ID);
+        when(marketResolver.resolveMarket(TEST_MARKET_ID)).thenReturn(market);
+
+        ArrayMarketBook res = (ArrayMarketBook) uut.create(instrument);
+
+        assertThat(res.getMaxDepth(), is(20));
+    }
+
+    @Test
+    public void shouldCreateWithDefaultDepthWithoutMarket() throws Exception {
+        ArrayMarketBook res = (ArrayMarketBook) uut.create(instrument);
+
+        assertThat(res.getMaxDepth(), is(Market.DEFAULT_BOOK_DEPTH));
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.marketdata;
+
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.mocks.InstrumentMocker;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ArrayMarketBookTest {
+    private static final String TEST_INST_ID = "test";
+    private static final double TEST_PRICE = 52.45;
+    private static final long TEST_QTY = 2345;
+    private static final int TEST_DEPTH = 20;
+    private Instrument instrument;
+    private ArrayMarketBook uut;
+
+    @Before
+    public void setUp() throws Exception {
+        instrument = InstrumentMocker.create(TEST_INST_ID);
+        uut = new ArrayMarketBook(instrument, TEST_DEPTH);
+    }
+
+    @Test
+    public void shouldGetInstrumentId() throws Exception {
+        assertThat(uut.getInstrumentId(), is(TEST_INST_ID));
+        assertThat(uut.getMaxDepth(), is(TEST_DEPTH));
+    }
+
+    @Test
+    public void shouldSetAllLevels() throws Exception {
+        for (int level = 0; level < TEST_DEPTH; ++level) {
+            uut.setPrice(Side.Bid, level, TEST_PRICE + level);
+            uut.setSize(Side.Bid, level, TEST_QTY + level);
+            uut.setPrice(Side.Ask, level, TEST_PRICE - level);
+            uut.setSize(Side.Ask, level, TEST_QTY - level);
+        }
+
+        assertThat(uut.getBidDepth(), is(TEST_DEPTH));
+        assertThat(uut.getAskDepth(), is(TEST_DEPTH));
+        for (int level = 0; level < TEST_DEPTH; ++level) {
+            assertThat(uut.getBid(level), is(TEST_PRICE + level));
+            assertThat(uut.getBidSize(level), is(TEST_QTY + level));
+            assertThat(uut.getAsk(level), is(TEST_PRICE - level));
+            assertThat(uut.getAskSize(level), is(TEST_QTY - level));
+        }
+        assertThat(uut.bestBid(), is(TEST_PRICE));
+        assertThat(uut.bestAskSize(), is(TEST_QTY));
+    }
+
+    @Test
+    public void shouldTrackDepthAsHighestLevelSet() throws Exception {
+        uut.setPrice(Side.Bid, 2, TEST_PRICE);
+
+        assertThat(uut.getBidDepth(), is(3));
+        assertThat(uut.getAskDepth(), is(0));
+        assertThat(uut.getBid(0), is(0.0));
+    }
+
+    @Test
+    public void shouldIgnoreInvalidLevels() throws Exception {
+        uut.setPrice(Side.Bid, TEST_DEPTH, TEST_PRICE);
+        uut.setSize(Side.Ask, -1, TEST_QTY);
+
+        assertThat(uut.getBidDepth(), is(0));
+        assertThat(uut.getAskDepth(), is(0));
+        assertThat(uut.getBid(TEST_DEPTH), is(0.0));
+        assertThat(uut.getAskSize(-1), is(0L));
+    }
+
+    @Test
+    public void shouldReset() throws Exception {
+        uut.setPrice(Side.Bid, 0, TEST_PRICE);
+        uut.setSize(Side.Ask, 3, TEST_QTY);
+
+        uut.reset();
+
+        assertThat(uut.getBidDepth(), is(0));
+        assertThat(uut.getAskDepth(), is(0));
+        uut.setPrice(Side.Ask, 4, TEST_PRICE);
+        assertThat(uut.getAskSize(3), is(0L));
+    }
+
+    @Test
+    public void shouldSetOhlc() throws Exception {
+        uut.setPrevClose(TEST_PRICE);
+        uut.setOpen(TEST_PRICE + 1);
+        uut.setHigh(TEST_PRICE + 2);
+        uut.setLow(TEST_PRICE + 3);
+
+        assertThat(uut.getPrevClose(), is(TEST_PRICE));
+        assertThat(uut.getOpen(), is(TEST_PRICE + 1));
+        assertThat(uut.getHigh(), is(TEST_PRICE + 2));
+        assertThat(uut.getLow(), is(TEST_PRICE + 3));
+    }
+
+    @Test
+    public void shouldSnapshotIndependently() throws Exception {
+        uut.setPrice(Side.Bid, 0, TEST_PRICE);
+        uut.setSize(Side.Bid, 0, TEST_QTY);
+        uut.getLastTrade().setPrice(TEST_PRICE);
+        uut.setHigh(TEST_PRICE);
+
+        MarketBook res = uut.snapshot();
+        uut.setPrice(Side.Bid, 0, TEST_PRICE + 1);
+        uut.getLastTrade().setPrice(TEST_PRICE + 1);
+
+        assertThat(res, is(not(sameInstance((MarketBook) uut))));
+        assertThat(res.bestBid(), is(TEST_PRICE));
+        assertThat(res.bestBidSize(), is(TEST_QTY));
+        assertThat(res.getBidDepth(), is(1));
+        assertThat(res.getLastTradedPrice(), is(TEST_PRICE));
+        assertThat(res.getHigh(), is(TEST_PRICE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCopyToDifferentDepth() throws Exception {
+        uut.copyTo(new ArrayMarketBook(instrument, TEST_DEPTH + 1));
+    }
+}
@@ -220,4 +220,19 @@ public class DefaultMarketBookTest {
         assertThat(uut.getBid(0), is(0.0));
         assertThat(uut.getBidSize(0), is(0L));
     }
+
+    @Test
+    public void shouldSnapshotIndependently() throws Exception {
+        uut.setPrice(Side.Ask, 0, TEST_PRICE);
+        uut.setSize(Side.Ask, 0, TEST_QTY);
+        uut.setLow(TEST_PRICE);
+
+        MarketBook res = uut.snapshot();
+        uut.setPrice(Side.Ask, 0, TEST_PRICE + 1);
+
+        assertThat(res.bestAsk(), is(TEST_PRICE));
+        assertThat(res.bestAskSize(), is(TEST_QTY));
+        assertThat(res.getAskDepth(), is(1));
+        assertThat(res.getLow(), is(TEST_PRICE));
+    }
 }
@@ -20,6 +20,7 @@ import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
 import com.zaradai.kunzite.trader.events.MarketData;
 import com.zaradai.kunzite.trader.events.MarketDataField;
 import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
 import com.zaradai.kunzite.trader.instruments.Instrument;
 import com.zaradai.kunzite.trader.mocks.InstrumentMocker;
 import org.junit.Before;
@@ -144,4 +145,24 @@ public class DefaultMarketBookUpdaterTest {
         assertThat(update.isOhlcUpdated(), is(true));
         assertThat(update.isLastTradeUpdated(), is(true));
     }
+
+    @Test
+    public void shouldUpdateFromRecord() throws Exception {
+        MarketDataRecord record = MarketDataRecord.newInstance()
+                .setInstrumentId(TEST_INST_ID)
+                .addDoubleValue(MarketDataFieldType.BEST_BID, TEST_PRICE)
+                .addLongValue(MarketDataFieldType.BID_SIZE, TEST_QTY)
+                .addDoubleValue(MarketDataFieldType.TRADE_PRICE, TEST_PRICE);
+
+        MarketBookUpdateEvent update = uut.update(marketBook, record);
+
+        assertThat(marketBook.getBid(0), is(TEST_PRICE));
+        assertThat(marketBook.getBidSize(0), is(TEST_QTY));
+        assertThat(marketBook.getLastTradedPrice(), is(TEST_PRICE));
+        assertThat(update.isBestPriceUpdated(), is(true));
+        assertThat(update.isBestSizeUpdated(), is(true));
+        assertThat(update.isLastTradeUpdated(), is(true));
+        assertThat(update.isDepthUpdated(), is(false));
+        assertThat(update.isOhlcUpdated(), is(false));
+    }
 }
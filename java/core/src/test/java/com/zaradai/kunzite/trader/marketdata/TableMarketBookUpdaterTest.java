@@ -0,0 +1,121 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.marketdata;
+
+import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
+import com.zaradai.kunzite.trader.events.MarketData;
+import com.zaradai.kunzite.trader.events.MarketDataField;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.mocks.InstrumentMocker;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class TableMarketBookUpdaterTest {
+    private static final String TEST_INST_ID = "test";
+    private static final double TEST_PRICE = 52.45;
+    private static final long TEST_QTY = 2345;
+    private static final long TEST_MILLIS = 1400000000000L;
+    private Instrument instrument;
+    private DefaultMarketBook marketBook;
+    private TableMarketBookUpdater uut;
+
+    @Before
+    public void setUp() throws Exception {
+        instrument = InstrumentMocker.create(TEST_INST_ID);
+        marketBook = new DefaultMarketBook(instrument);
+        uut = new TableMarketBookUpdater();
+    }
+
+    @Test
+    public void shouldUpdateEveryFieldType() throws Exception {
+        MarketDataRecord record = MarketDataRecord.newInstance().setInstrumentId(TEST_INST_ID);
+        for (MarketDataFieldType type : MarketDataFieldType.values()) {
+            if (type.name().endsWith("SIZE")) {
+                record.addLongValue(type, TEST_QTY);
+            } else {
+                record.addDoubleValue(type, TEST_PRICE);
+            }
+        }
+
+        MarketBookUpdateEvent update = uut.update(marketBook, record);
+
+        for (int level = 0; level < DefaultMarketBook.MAX_BOOK_DEPTH; ++level) {
+            assertThat(marketBook.getBid(level), is(TEST_PRICE));
+            assertThat(marketBook.getAsk(level), is(TEST_PRICE));
+            assertThat(marketBook.getBidSize(level), is(TEST_QTY));
+            assertThat(marketBook.getAskSize(level), is(TEST_QTY));
+        }
+        assertThat(marketBook.getLastTradedPrice(), is(TEST_PRICE));
+        assertThat(marketBook.getLastTradedSize(), is(TEST_QTY));
+        assertThat(marketBook.getHigh(), is(TEST_PRICE));
+        assertThat(marketBook.getLow(), is(TEST_PRICE));
+        assertThat(marketBook.getOpen(), is(TEST_PRICE));
+        assertThat(marketBook.getPrevClose(), is(TEST_PRICE));
+        assertThat(update.getBidLevelsChanged(), is(0x3ffL));
+        assertThat(update.getAskLevelsChanged(), is(0x3ffL));
+        assertThat(update.isBestPriceUpdated(), is(true));
+        assertThat(update.isBestSizeUpdated(), is(true));
+        assertThat(update.isDepthUpdated(), is(true));
+        assertThat(update.isLastTradeUpdated(), is(true));
+        assertThat(update.isOhlcUpdated(), is(true));
+    }
+
+    @Test
+    public void shouldFlagOnlyChangedLevels() throws Exception {
+        MarketData md = MarketData.newInstance(TEST_INST_ID, new DateTime(TEST_MILLIS),
+                MarketDataField.newDoubleValue(MarketDataFieldType.BEST_BID3, TEST_PRICE),
+                MarketDataField.newLongValue(MarketDataFieldType.ASK_SIZE, TEST_QTY));
+
+        MarketBookUpdateEvent update = uut.update(marketBook, md);
+
+        assertThat(update.getInstrumentId(), is(TEST_INST_ID));
+        assertThat(update.getMarketBook(), is((MarketBook) marketBook));
+        assertThat(update.getTimestampMillis(), is(TEST_MILLIS));
+        assertThat(update.isBidLevelChanged(2), is(true));
+        assertThat(update.isBidLevelChanged(0), is(false));
+        assertThat(update.isAskLevelChanged(0), is(true));
+        assertThat(update.isAskLevelChanged(2), is(false));
+        assertThat(update.isDepthUpdated(), is(true));
+        assertThat(update.isBestSizeUpdated(), is(true));
+        assertThat(update.isBestPriceUpdated(), is(false));
+        assertThat(update.isLastTradeUpdated(), is(false));
+    }
+
+    @Test
+    public void shouldReuseEventPerBook() throws Exception {
+        MarketDataRecord record = MarketDataRecord.newInstance()
+                .setInstrumentId(TEST_INST_ID)
+                .addDoubleValue(MarketDataFieldType.BEST_BID, TEST_PRICE);
+        MarketDataRecord trade = MarketDataRecord.newInstance()
+                .setInstrumentId(TEST_INST_ID)
+                .addDoubleValue(MarketDataFieldType.TRADE_PRICE, TEST_PRICE);
+
+        MarketBookUpdateEvent first = uut.update(marketBook, record);
+        MarketBookUpdateEvent second = uut.update(marketBook, trade);
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(second.isBestPriceUpdated(), is(false));
+        assertThat(second.getBidLevelsChanged(), is(0L));
+        assertThat(second.isLastTradeUpdated(), is(true));
+    }
+}
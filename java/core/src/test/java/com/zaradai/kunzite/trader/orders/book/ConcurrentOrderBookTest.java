@@ -16,12 +16,20 @@
 package com.zaradai.kunzite.trader.orders.book;
 
 import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderEntry;
 import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
 import com.zaradai.kunzite.trader.orders.model.OrderState;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
@@ -139,4 +147,132 @@ public class ConcurrentOrderBookTest {
         assertThat(uut.getOutstandingSellQuantity(), is(QTY_1+QTY_3));
         assertThat(uut.get(ORDER_ID_2), is(nullValue()));
     }
+
+    @Test
+    public void shouldSnapshotBestPricesAndOutstanding() throws Exception {
+        uut.add(createOrder(1L, true, 10.00, QTY_1));
+        uut.add(createOrder(2L, true, 10.02, QTY_2));
+        uut.add(createOrder(3L, false, 10.05, QTY_3));
+        uut.add(createOrder(4L, false, 10.04, QTY_1));
+
+        OrderBookSnapshot res = uut.snapshot(new OrderBookSnapshot());
+
+        assertThat(res.getBestBid(), is(10.02));
+        assertThat(res.getBestAsk(), is(10.04));
+        assertThat(res.getOutstandingBuyQuantity(), is(QTY_1 + QTY_2));
+        assertThat(res.getOutstandingSellQuantity(), is(QTY_3 + QTY_1));
+    }
+
+    @Test
+    public void shouldSnapshotEmptySides() throws Exception {
+        Order order = createOrder(1L, true, 10.00, QTY_1);
+        uut.add(order);
+        uut.remove(order);
+
+        OrderBookSnapshot res = uut.snapshot(new OrderBookSnapshot());
+
+        assertThat(Double.isNaN(res.getBestBid()), is(true));
+        assertThat(Double.isNaN(res.getBestAsk()), is(true));
+        assertThat(res.getOutstandingBuyQuantity(), is(0L));
+    }
+
+    @Test
+    public void shouldReadConsistentSnapshotsWhileWriting() throws Exception {
+        final int levels = 50;
+        final int iterations = 200000;
+        // a quote at level n rests n + 1 lots, so each side's size gives away the price it must be seen with
+        final long lot = 100;
+        final double bidBase = 10.00;
+        final double askBase = 10.05;
+        final Order bid = createOrder(1L, true, bidBase, lot);
+        final Order ask = createOrder(2L, false, askBase, lot);
+        uut.add(bid);
+        uut.add(ask);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final CountDownLatch done = new CountDownLatch(2);
+        Runnable reader = new Runnable() {
+            @Override
+            public void run() {
+                OrderBookSnapshot snapshot = new OrderBookSnapshot();
+
+                try {
+                    while (writing.get() && failure.get() == null) {
+                        check(uut.snapshot(snapshot));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }
+
+            private void check(OrderBookSnapshot snapshot) {
+                long bidLevel = Math.round((snapshot.getBestBid() - bidBase) * 100);
+                long askLevel = Math.round((snapshot.getBestAsk() - askBase) * 100);
+                // the writer moves the bid then the ask to each level in turn
+                long lag = (bidLevel - askLevel + levels) % levels;
+
+                if (snapshot.getOutstandingBuyQuantity() != (bidLevel + 1) * lot ||
+                        snapshot.getOutstandingSellQuantity() != (askLevel + 1) * lot || (lag != 0 && lag != 1)) {
+                    failure.compareAndSet(null, "Inconsistent snapshot bid " + snapshot.getBestBid() + " x " +
+                            snapshot.getOutstandingBuyQuantity() + " ask " + snapshot.getBestAsk() + " x " +
+                            snapshot.getOutstandingSellQuantity());
+                }
+            }
+        };
+        new Thread(reader).start();
+        new Thread(reader).start();
+        // single writer requotes one side per change
+        for (int n = 2; n < iterations; n++) {
+            int level = (n / 2) % levels;
+            boolean buy = (n % 2) == 0;
+            Order order = buy ? bid : ask;
+            OrderState state = order.getState();
+            state.setPrice((buy ? bidBase : askBase) + level * 0.01);
+            state.setQuantity((level + 1) * lot);
+            uut.update(order);
+        }
+        writing.set(false);
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(failure.get(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldLookUpNumericIds() throws Exception {
+        Order order = createOrder(1234L, true, QTY_1);
+
+        uut.add(order);
+
+        assertThat(uut.get(1234L), is(order));
+        assertThat(uut.get("1234"), is(order));
+
+        uut.remove(order);
+
+        assertThat(uut.get(1234L), is(nullValue()));
+        assertThat(uut.getOutstandingBuyQuantity(), is(0L));
+    }
+
+    private Order createOrder(long numericOrderId, boolean buy, long quantity) {
+        return createOrder(OrderRefData.builder().id(numericOrderId).build(), buy, quantity);
+    }
+
+    private Order createOrder(long numericOrderId, boolean buy, double price, long quantity) {
+        Order res = createOrder(numericOrderId, buy, quantity);
+        res.getState().setPrice(price);
+
+        return res;
+    }
+
+    private Order createOrder(OrderRefData refData, boolean buy, long quantity) {
+        Order res = new Order(refData);
+        OrderEntry entry = OrderEntry.newInstance();
+        entry.setSide(buy ? OrderSide.Buy : OrderSide.Sell);
+        entry.setType(OrderType.Limit);
+        OrderState state = res.getState();
+        state.setEntry(entry);
+        state.setAlive(true);
+        state.setQuantity(quantity);
+
+        return res;
+    }
 }
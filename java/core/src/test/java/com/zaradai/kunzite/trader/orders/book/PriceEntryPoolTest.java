@@ -0,0 +1,83 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.book;
+
+import com.zaradai.kunzite.trader.orders.model.Order;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class PriceEntryPoolTest {
+    @Test
+    public void shouldCreateWhenEmpty() throws Exception {
+        PriceEntryPool uut = new PriceEntryPool();
+
+        PriceEntry entry = uut.acquire(10.5);
+
+        assertThat(entry.getPrice(), is(10.5));
+        assertThat(uut.size(), is(0));
+    }
+
+    @Test
+    public void shouldReuseReleasedEntries() throws Exception {
+        PriceEntryPool uut = new PriceEntryPool();
+        PriceEntry entry = uut.acquire(10.5);
+
+        uut.release(entry);
+
+        assertThat(uut.size(), is(1));
+
+        PriceEntry reused = uut.acquire(11.0);
+
+        assertThat(reused, is(sameInstance(entry)));
+        assertThat(reused.getPrice(), is(11.0));
+        assertThat(uut.size(), is(0));
+    }
+
+    @Test
+    public void shouldClearReleasedEntries() throws Exception {
+        PriceEntryPool uut = new PriceEntryPool();
+        PriceEntry entry = uut.acquire(10.5);
+        entry.add(mock(Order.class));
+
+        uut.release(entry);
+
+        assertThat(uut.acquire(10.5).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldNotGrowBeyondMaxSize() throws Exception {
+        PriceEntryPool uut = new PriceEntryPool(1);
+        PriceEntry entry1 = uut.acquire(10.5);
+        PriceEntry entry2 = uut.acquire(11.0);
+
+        uut.release(entry1);
+        uut.release(entry2);
+
+        assertThat(uut.size(), is(1));
+        assertThat(uut.acquire(12.0), is(sameInstance(entry1)));
+        assertThat(uut.acquire(12.0), is(not(sameInstance(entry2))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWithInvalidSize() throws Exception {
+        new PriceEntryPool(-1);
+    }
+}
@@ -16,12 +16,13 @@
 package com.zaradai.kunzite.trader.orders.book;
 
 import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderQueue;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.util.Queue;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -33,9 +34,9 @@ public class PriceEntryTest {
 
     private static final double TEST_ENTRY_PRICE = 42.42;
     @Mock
-    Queue<Order> buyMock;
+    OrderQueue buyMock;
     @Mock
-    Queue<Order> sellMock;
+    OrderQueue sellMock;
     private PriceEntry uut;
 
     @Before
@@ -44,12 +45,12 @@ public class PriceEntryTest {
 
         uut = new PriceEntry(TEST_ENTRY_PRICE) {
             @Override
-            protected Queue<Order> createBuyOrderQueue() {
+            protected OrderQueue createBuyOrderQueue() {
                 return buyMock;
             }
 
             @Override
-            protected Queue<Order> createSellOrderQueue() {
+            protected OrderQueue createSellOrderQueue() {
                 return sellMock;
             }
         };
@@ -74,7 +75,7 @@ public class PriceEntryTest {
 
         uut.add(order);
 
-        verify(buyMock).offer(order);
+        verify(buyMock).append(order);
     }
 
     @Test
@@ -84,7 +85,7 @@ public class PriceEntryTest {
 
         uut.add(order);
 
-        verify(sellMock).offer(order);
+        verify(sellMock).append(order);
     }
 
     @Test
@@ -150,4 +151,57 @@ public class PriceEntryTest {
 
         assertThat(uut.getSellOrders().size(), is(1));
     }
+
+    @Test
+    public void shouldKeepArrivalOrder() throws Exception {
+        uut = new PriceEntry(TEST_ENTRY_PRICE);
+        Order first = mock(Order.class);
+        Order second = mock(Order.class);
+        Order third = mock(Order.class);
+        when(first.isBuy()).thenReturn(true);
+        when(second.isBuy()).thenReturn(true);
+        when(third.isBuy()).thenReturn(true);
+
+        uut.add(first);
+        uut.add(second);
+        uut.add(third);
+        uut.remove(second);
+
+        List<Order> orders = uut.getBuyOrders();
+        assertThat(orders.size(), is(2));
+        assertThat(orders.get(0), is(first));
+        assertThat(orders.get(1), is(third));
+    }
+
+    @Test
+    public void shouldBeEmptyOnceCleared() throws Exception {
+        uut = new PriceEntry(TEST_ENTRY_PRICE);
+        Order buy = mock(Order.class);
+        when(buy.isBuy()).thenReturn(true);
+        Order sell = mock(Order.class);
+        uut.add(buy);
+        uut.add(sell);
+
+        assertThat(uut.isEmpty(), is(false));
+
+        uut.clear();
+
+        assertThat(uut.isEmpty(), is(true));
+        assertThat(uut.hasBuyOrders(), is(false));
+        assertThat(uut.hasSellOrders(), is(false));
+    }
+
+    @Test
+    public void shouldResetPrice() throws Exception {
+        uut = new PriceEntry(TEST_ENTRY_PRICE);
+
+        uut.reset(12.5);
+
+        assertThat(uut.getPrice(), is(12.5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailResetWithInvalidPrice() throws Exception {
+        uut.reset(Double.NaN);
+    }
 }
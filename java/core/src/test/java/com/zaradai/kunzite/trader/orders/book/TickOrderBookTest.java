@@ -0,0 +1,413 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.book;
+
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.Market;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.instruments.TickCalculator;
+import com.zaradai.kunzite.trader.instruments.TickDefinition;
+import com.zaradai.kunzite.trader.orders.model.Order;
+import com.zaradai.kunzite.trader.orders.model.OrderEntry;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderState;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import com.zaradai.kunzite.utils.collections.SortedLongMap;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TickOrderBookTest {
+    private static final String MARKET_ID = "test";
+    private static final long QTY_1 = 2500;
+    private static final long QTY_2 = 4500;
+    private static final long QTY_3 = 1500;
+
+    private TickOrderBook uut;
+    private TickCalculator tickCalculator;
+
+    @Before
+    public void setUp() throws Exception {
+        tickCalculator = new TickCalculator();
+        tickCalculator.addDefinition(new TickDefinition(0.0, 100.0, 0.01));
+        uut = new TickOrderBook(tickCalculator);
+    }
+
+    @Test
+    public void shouldUseMarketTicks() throws Exception {
+        Market market = mock(Market.class);
+        when(market.getTickCalculator()).thenReturn(tickCalculator);
+        MarketResolver marketResolver = mock(MarketResolver.class);
+        when(marketResolver.resolveMarket(MARKET_ID)).thenReturn(market);
+        Instrument instrument = mock(Instrument.class);
+        when(instrument.getMarketId()).thenReturn(MARKET_ID);
+
+        uut = new TickOrderBook(marketResolver, instrument);
+        uut.add(createOrder("ord_1", true, 10.0, QTY_1));
+        uut.add(createOrder("ord_2", true, 10.001, QTY_2));
+
+        // both prices round to the same tick
+        assertThat(uut.getLimitOrders().size(), is(1));
+    }
+
+    @Test
+    public void shouldHandleInstrumentWithoutMarket() throws Exception {
+        uut = new TickOrderBook(mock(MarketResolver.class), mock(Instrument.class));
+
+        uut.add(createOrder("ord_1", true, 10.0, QTY_1));
+
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1));
+    }
+
+    @Test
+    public void shouldAddToBothSidesAndGetOutstandingQuantity() throws Exception {
+        Order order1 = createOrder("ord_1", true, 10.0, QTY_1);
+        Order order2 = createOrder("ord_2", true, 10.5, QTY_2);
+        Order order3 = createOrder("ord_3", false, 10.5, QTY_3);
+
+        uut.add(order1);
+        uut.add(order2);
+        uut.add(order3);
+
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1 + QTY_2));
+        assertThat(uut.getOutstandingSellQuantity(), is(QTY_3));
+        assertThat(uut.get("ord_1"), is(order1));
+        assertThat(uut.get("ord_2"), is(order2));
+        assertThat(uut.get("ord_3"), is(order3));
+        assertThat(uut.getLimitOrders().size(), is(2));
+    }
+
+    @Test
+    public void shouldKeepLevelsInPriceOrder() throws Exception {
+        uut.add(createOrder("ord_1", true, 10.5, QTY_1));
+        uut.add(createOrder("ord_2", true, 9.5, QTY_2));
+        uut.add(createOrder("ord_3", false, 11.0, QTY_3));
+
+        SortedLongMap<PriceEntry> levels = uut.getLimitOrders();
+        assertThat(levels.valueAt(0).getPrice(), is(9.5));
+        assertThat(levels.valueAt(1).getPrice(), is(10.5));
+        assertThat(levels.valueAt(2).getPrice(), is(11.0));
+    }
+
+    @Test
+    public void shouldTrackMarketOrders() throws Exception {
+        Order order = createOrder("ord_1", false, 0.0, QTY_1);
+        when(order.isMarketOrder()).thenReturn(true);
+
+        uut.add(order);
+
+        assertThat(uut.getOutstandingSellQuantity(), is(QTY_1));
+        assertThat(uut.getLimitOrders().isEmpty(), is(true));
+
+        uut.remove(order);
+
+        assertThat(uut.getOutstandingSellQuantity(), is(0L));
+    }
+
+    @Test
+    public void shouldRemoveWhatWasBooked() throws Exception {
+        Order order1 = createOrder("ord_1", true, 10.0, QTY_1);
+        Order order2 = createOrder("ord_2", true, 10.5, QTY_2);
+        uut.add(order1);
+        uut.add(order2);
+        // filled orders are no longer outstanding by the time they are removed
+        when(order2.getPendingOrOnMarket()).thenReturn(0L);
+
+        uut.remove(order2);
+
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1));
+        assertThat(uut.get("ord_2"), is(nullValue()));
+        assertThat(uut.getLimitOrders().size(), is(1));
+    }
+
+    @Test
+    public void shouldIgnoreRemoveOfUnknownOrder() throws Exception {
+        uut.add(createOrder("ord_1", true, 10.0, QTY_1));
+
+        uut.remove(createOrder("ord_2", true, 10.0, QTY_2));
+
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1));
+    }
+
+    @Test
+    public void shouldUpdateOutstandingOnFill() throws Exception {
+        Order order = createOrder("ord_1", true, 10.0, QTY_1);
+        uut.add(order);
+        when(order.getPendingOrOnMarket()).thenReturn(QTY_1 - 500);
+
+        uut.update(order);
+
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1 - 500));
+    }
+
+    @Test
+    public void shouldMoveLevelOnAmend() throws Exception {
+        Order order = createOrder("ord_1", false, 10.0, QTY_1);
+        uut.add(order);
+        when(order.getPrice()).thenReturn(10.25);
+        when(order.getPendingOrOnMarket()).thenReturn(QTY_2);
+
+        uut.update(order);
+
+        SortedLongMap<PriceEntry> levels = uut.getLimitOrders();
+        assertThat(levels.size(), is(1));
+        assertThat(levels.keyAt(0), is(tickCalculator.toTicks(10.25)));
+        assertThat(uut.getOutstandingSellQuantity(), is(QTY_2));
+
+        uut.remove(order);
+
+        assertThat(uut.getLimitOrders().isEmpty(), is(true));
+        assertThat(uut.getOutstandingSellQuantity(), is(0L));
+    }
+
+    @Test
+    public void shouldTrackBestPrices() throws Exception {
+        Order bid1 = createOrder("ord_1", true, 10.0, QTY_1);
+        Order bid2 = createOrder("ord_2", true, 10.5, QTY_2);
+        Order ask1 = createOrder("ord_3", false, 10.5, QTY_3);
+        Order ask2 = createOrder("ord_4", false, 11.0, QTY_1);
+        uut.add(bid1);
+        uut.add(ask2);
+
+        assertThat(uut.getBestBid(), is(10.0));
+        assertThat(uut.getBestAsk(), is(11.0));
+
+        uut.add(bid2);
+        uut.add(ask1);
+
+        assertThat(uut.getBestBid(), is(10.5));
+        assertThat(uut.getBestAsk(), is(10.5));
+        // the level still holds the ask once its bid has gone
+        uut.remove(bid2);
+
+        assertThat(uut.getBestBid(), is(10.0));
+        assertThat(uut.getBestAsk(), is(10.5));
+
+        uut.remove(ask1);
+
+        assertThat(uut.getBestAsk(), is(11.0));
+    }
+
+    @Test
+    public void shouldTrackBestPriceAcrossAmends() throws Exception {
+        Order bid1 = createOrder("ord_1", true, 10.0, QTY_1);
+        Order bid2 = createOrder("ord_2", true, 10.25, QTY_2);
+        uut.add(bid1);
+        uut.add(bid2);
+        when(bid2.getPrice()).thenReturn(9.75);
+
+        uut.update(bid2);
+
+        assertThat(uut.getBestBid(), is(10.0));
+
+        uut.remove(bid1);
+        uut.remove(bid2);
+
+        assertThat(Double.isNaN(uut.getBestBid()), is(true));
+        assertThat(Double.isNaN(uut.getBestAsk()), is(true));
+    }
+
+    @Test
+    public void shouldReuseLevelsAsPricesComeAndGo() throws Exception {
+        final PriceEntryPool pool = new PriceEntryPool();
+        uut = new TickOrderBook(tickCalculator) {
+            @Override
+            protected PriceEntryPool createEntryPool() {
+                return pool;
+            }
+        };
+        Order order1 = createOrder("ord_1", true, 10.0, QTY_1);
+        Order order2 = createOrder("ord_2", true, 10.5, QTY_2);
+        uut.add(order1);
+        PriceEntry level = uut.getLimitOrders().valueAt(0);
+
+        uut.remove(order1);
+
+        assertThat(pool.size(), is(1));
+
+        uut.add(order2);
+
+        assertThat(uut.getLimitOrders().valueAt(0), is(sameInstance(level)));
+        assertThat(level.getPrice(), is(10.5));
+        assertThat(pool.size(), is(0));
+    }
+
+    @Test
+    public void shouldReuseBookingsOnceRemoved() throws Exception {
+        Order order1 = createOrder(1L, true, 10.0, QTY_1);
+        Order order2 = createOrder(2L, false, 10.5, QTY_2);
+        uut.add(order1);
+
+        uut.remove(order1);
+
+        assertThat(uut.getFreeBookings(), is(1));
+
+        uut.add(order2);
+
+        assertThat(uut.getFreeBookings(), is(0));
+        assertThat(uut.get(2L), is(order2));
+        assertThat(uut.get(1L), is(nullValue()));
+        assertThat(uut.getOutstandingBuyQuantity(), is(0L));
+        assertThat(uut.getOutstandingSellQuantity(), is(QTY_2));
+        assertThat(uut.getBestAsk(), is(10.5));
+    }
+
+    @Test
+    public void shouldTreatRepeatedAddAsUpdate() throws Exception {
+        Order order = createOrder("ord_1", true, 10.0, QTY_1);
+        uut.add(order);
+
+        uut.add(order);
+
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1));
+    }
+
+    @Test
+    public void shouldIgnoreUpdateOfUnknownOrder() throws Exception {
+        uut.update(createOrder("ord_1", true, 10.0, QTY_1));
+
+        assertThat(uut.getOutstandingBuyQuantity(), is(0L));
+        assertThat(uut.get("ord_1"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldLookUpNumericIds() throws Exception {
+        Order order = createOrder(1234L, true, 10.0, QTY_1);
+
+        uut.add(order);
+
+        assertThat(uut.get(1234L), is(order));
+        assertThat(uut.get("1234"), is(order));
+        assertThat(uut.get(4321L), is(nullValue()));
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1));
+        verify(order.getRefData(), never()).getOrderId();
+    }
+
+    @Test
+    public void shouldRemoveNumericIds() throws Exception {
+        Order order = createOrder(1234L, true, 10.0, QTY_1);
+        uut.add(order);
+
+        uut.remove(order);
+
+        assertThat(uut.get(1234L), is(nullValue()));
+        assertThat(uut.getOutstandingBuyQuantity(), is(0L));
+    }
+
+    @Test
+    public void shouldRemoveCancelledBuyOrder() throws Exception {
+        Order order = createLiveOrder(1234L, OrderType.Limit, 10.0, QTY_1);
+        uut.add(order);
+        cancel(order);
+
+        uut.update(order);
+        order.getState().setAlive(false);
+        uut.remove(order);
+
+        assertThat(uut.getLimitOrders().isEmpty(), is(true));
+        assertThat(uut.getOutstandingBuyQuantity(), is(0L));
+        assertThat(uut.getOutstandingSellQuantity(), is(0L));
+        // the order has been unlinked, so it can be booked again once re-used
+        order.getState().setEntry(createEntry(OrderType.Limit));
+        order.getState().setAlive(true);
+        uut.add(order);
+
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1));
+    }
+
+    @Test
+    public void shouldRemoveCancelledMarketOrder() throws Exception {
+        Order order = createLiveOrder(1234L, OrderType.Market, 0.0, QTY_1);
+        uut.add(order);
+        cancel(order);
+
+        uut.update(order);
+
+        assertThat(uut.getLimitOrders().isEmpty(), is(true));
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1));
+
+        order.getState().setAlive(false);
+        uut.remove(order);
+        order.getState().setEntry(createEntry(OrderType.Market));
+        order.getState().setAlive(true);
+        uut.add(order);
+
+        assertThat(uut.getOutstandingBuyQuantity(), is(QTY_1));
+    }
+
+    private Order createLiveOrder(long numericOrderId, OrderType type, double price, long quantity) {
+        Order res = new Order(OrderRefData.builder().id(numericOrderId).build());
+        OrderState state = res.getState();
+        state.setEntry(createEntry(type));
+        state.setAlive(true);
+        state.setPrice(price);
+        state.setQuantity(quantity);
+
+        return res;
+    }
+
+    private OrderEntry createEntry(OrderType type) {
+        OrderEntry res = OrderEntry.newInstance();
+        res.setRequestType(OrderRequestType.Create);
+        res.setSide(OrderSide.Buy);
+        res.setType(type);
+
+        return res;
+    }
+
+    private void cancel(Order order) {
+        // as the order state manager does, a cancel entry has no side or type
+        OrderEntry entry = OrderEntry.newInstance();
+        entry.setRequestType(OrderRequestType.Cancel);
+        order.getState().setEntry(entry);
+    }
+
+    private Order createOrder(long numericOrderId, boolean buy, double price, long quantity) {
+        Order res = createOrder((String) null, buy, price, quantity);
+        when(res.getRefData().hasNumericOrderId()).thenReturn(true);
+        when(res.getRefData().getNumericOrderId()).thenReturn(numericOrderId);
+
+        return res;
+    }
+
+    private Order createOrder(String orderId, boolean buy, double price, long quantity) {
+        Order res = mock(Order.class);
+        OrderRefData refData = mock(OrderRefData.class);
+        when(refData.getOrderId()).thenReturn(orderId);
+        when(res.getRefData()).thenReturn(refData);
+        when(res.isBuy()).thenReturn(buy);
+        when(res.isSell()).thenReturn(!buy);
+        when(res.isMarketOrder()).thenReturn(false);
+        when(res.getPrice()).thenReturn(price);
+        when(res.getPendingOrOnMarket()).thenReturn(quantity);
+        OrderState state = mock(OrderState.class);
+        when(res.getState()).thenReturn(state);
+        when(state.getCreated()).thenReturn(DateTime.now());
+
+        return res;
+    }
+}
@@ -15,28 +15,44 @@
  */
 package com.zaradai.kunzite.trader.orders.execution;
 
+import com.google.common.collect.Lists;
 import com.zaradai.kunzite.events.EventAggregator;
+import com.zaradai.kunzite.events.typed.EventDispatcher;
+import com.zaradai.kunzite.events.typed.TypedEventAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.trader.control.TradingState;
+import com.zaradai.kunzite.trader.events.OrderRejectHandler;
 import com.zaradai.kunzite.trader.events.OrderRequestRejectEvent;
 import com.zaradai.kunzite.trader.events.OrderSendEvent;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.filters.BatchFilter;
 import com.zaradai.kunzite.trader.filters.Filter;
 import com.zaradai.kunzite.trader.filters.FilterManager;
 import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.TickCalculator;
 import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
 import com.zaradai.kunzite.trader.orders.book.OrderBook;
 import com.zaradai.kunzite.trader.orders.book.OrderBookFactory;
+import com.zaradai.kunzite.trader.orders.book.TickOrderBook;
 import com.zaradai.kunzite.trader.orders.model.*;
 import com.zaradai.kunzite.trader.orders.utils.OrderIdGenerator;
+import com.zaradai.kunzite.trader.orders.utils.OrderIds;
+import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class DefaultOrderManagerTest {
@@ -45,15 +61,23 @@ public class DefaultOrderManagerTest {
     private static final String PTF_ID = "ptf_id";
     private static final String CLIENT_ID = "client_id";
     private static final String BROKER_ID = "broker_id";
+    private static final String ALGO_ID = "algo_id";
     private static final String ORDER_ID = "order_id";
+    private static final long NUMERIC_ORDER_ID = 1234L;
     private static final String DEP_ID = "dep_id";
 
 
     private DefaultOrderManager uut;
     private Filter orderFilter;
+    private BatchFilter batchFilter;
     private OrderStateManager orderStateManager;
     private EventAggregator eventAggregator;
     private OrderBook orderBook;
+    private OrderIdGenerator orderIdGenerator;
+    private OrderStateManagerFactory orderStateManagerFactory;
+    private OrderBookFactory orderBookFactory;
+    private FilterManager filterManager;
+    private Instrument instrument;
 
     @Captor
     ArgumentCaptor<Order> orderArgumentCaptor;
@@ -68,25 +92,32 @@ public class DefaultOrderManagerTest {
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
 
-        ContextLogger logger = ContextLoggerMocker.create();
         eventAggregator = mock(EventAggregator.class);
-        OrderIdGenerator orderIdGenerator = mock(OrderIdGenerator.class);
-        when(orderIdGenerator.generate()).thenReturn(ORDER_ID);
-        OrderStateManagerFactory orderStateManagerFactory = mock(OrderStateManagerFactory.class);
+        orderIdGenerator = mock(OrderIdGenerator.class);
+        when(orderIdGenerator.nextId()).thenReturn(NUMERIC_ORDER_ID);
+        orderStateManagerFactory = mock(OrderStateManagerFactory.class);
         orderStateManager = mock(OrderStateManager.class);
-        OrderBookFactory orderBookFactory = mock(OrderBookFactory.class);
+        orderBookFactory = mock(OrderBookFactory.class);
         orderBook = mock(OrderBook.class);
-        when(orderBookFactory.create()).thenReturn(orderBook);
-        FilterManager filterManager = mock(FilterManager.class);
-        Instrument instrument = mock(Instrument.class);
+        filterManager = mock(FilterManager.class);
+        instrument = mock(Instrument.class);
         when(instrument.getId()).thenReturn(INST_ID);
         when(instrument.getMarketId()).thenReturn(MARKET_ID);
+        when(orderBookFactory.create(instrument)).thenReturn(orderBook);
         TradingState tradingState = mock(TradingState.class);
         when(tradingState.getInstrument()).thenReturn(instrument);
         orderFilter = mock(Filter.class);
         when(filterManager.createFor(instrument)).thenReturn(orderFilter);
+        batchFilter = mock(BatchFilter.class);
+        when(filterManager.createBatchFor(instrument)).thenReturn(batchFilter);
         when(orderStateManagerFactory.create(any(OrderManager.class))).thenReturn(orderStateManager);
-        uut = new DefaultOrderManager(logger, eventAggregator, orderIdGenerator, orderStateManagerFactory,
+        uut = createManager(eventAggregator);
+    }
+
+    private DefaultOrderManager createManager(EventAggregator aggregator) {
+        ContextLogger logger = ContextLoggerMocker.create();
+
+        return new DefaultOrderManager(logger, aggregator, orderIdGenerator, orderStateManagerFactory,
                 orderBookFactory, filterManager, instrument);
     }
 
@@ -113,7 +144,7 @@ public class DefaultOrderManagerTest {
         assertThat(order.getRefData().getPortfolioId(), is(PTF_ID));
         assertThat(order.getRefData().getInstrumentId(), is(INST_ID));
         assertThat(order.getRefData().getBrokerId(), is(BROKER_ID));
-        assertThat(order.getRefData().getOrderId(), is(ORDER_ID));
+        assertThat(order.getRefData().getNumericOrderId(), is(NUMERIC_ORDER_ID));
 
         // verify sent order
         verify(eventAggregator).publish(orderSendEventArgumentCaptor.capture());
@@ -205,6 +236,49 @@ public class DefaultOrderManagerTest {
         assertThat(event.getRejects().get(0), is(request));
     }
 
+    @Test
+    public void shouldCheckBatchBeforeFilteringRequests() throws Exception {
+        final OrderRequest first = createBatchedRequest();
+        final OrderRequest second = createBatchedRequest();
+        when(orderFilter.check(any(OrderRequest.class))).thenReturn(true);
+        when(orderStateManager.newRequest(any(Order.class), any(OrderRequest.class))).thenReturn(mock(NewOrder.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                List<OrderRequest> batch = (List<OrderRequest>) invocation.getArguments()[0];
+                assertThat(batch.size(), is(2));
+                batch.get(1).reject(OrderRejectReason.MaxLong);
+                return null;
+            }
+        }).when(batchFilter).check(anyListOf(OrderRequest.class));
+
+        uut.add(first);
+        uut.add(second);
+        uut.process();
+
+        verify(orderFilter).check(first);
+        verify(orderFilter, never()).check(second);
+        // one send and one combined reject
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventAggregator, times(2)).publish(events.capture());
+        assertThat(events.getAllValues().get(0), is(instanceOf(OrderSendEvent.class)));
+        OrderRequestRejectEvent rejects = (OrderRequestRejectEvent) events.getAllValues().get(1);
+        assertThat(rejects.getRejects().size(), is(1));
+        assertThat(rejects.getRejects().get(0), is(second));
+    }
+
+    private OrderRequest createBatchedRequest() {
+        OrderRequest res = new OrderRequest();
+        res.setOrderRequestType(OrderRequestType.Create);
+        res.setPortfolioId(PTF_ID);
+        res.setClientOrderId(CLIENT_ID);
+        res.setBrokerId(BROKER_ID);
+        res.setSide(OrderSide.Buy);
+        res.setQuantity(100);
+
+        return res;
+    }
+
     @Test(expected = NullPointerException.class)
     public void shouldFailToAddInvalidOrderRequest() throws Exception {
         uut.add(null);
@@ -214,4 +288,241 @@ public class DefaultOrderManagerTest {
     public void shouldGetOrderBook() throws Exception {
         assertThat(uut.getBook(), not(nullValue()));
     }
+
+    @Test
+    public void shouldPassStatusForKnownOrderToStateManager() throws Exception {
+        Order order = mock(Order.class);
+        when(orderBook.get(ORDER_ID)).thenReturn(order);
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setOrderId(ORDER_ID);
+
+        uut.onOrderStatus(event);
+
+        verify(orderStateManager).onOrderStatus(order, event);
+    }
+
+    @Test
+    public void shouldRecycleOrderOnNextProcessOnceOutOfTheBook() throws Exception {
+        Order order = new Order(OrderRefData.builder().id(ORDER_ID).build());
+        when(orderBook.get(ORDER_ID)).thenReturn(order).thenReturn(null);
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setOrderId(ORDER_ID);
+
+        uut.onOrderStatus(event);
+        // the events raised by its final status have still to be handled
+        assertThat(uut.getPool().availableOrders(), is(0));
+        uut.process();
+
+        assertThat(uut.getPool().availableOrders(), is(1));
+        assertThat(uut.getPool().acquireOrder(), is(sameInstance(order)));
+    }
+
+    @Test
+    public void shouldReuseCancelledOrderForNextCreate() throws Exception {
+        final ContextLogger logger = ContextLoggerMocker.create();
+        when(orderStateManagerFactory.create(any(OrderManager.class))).thenAnswer(new Answer<OrderStateManager>() {
+            @Override
+            public OrderStateManager answer(InvocationOnMock invocation) throws Throwable {
+                return new DefaultOrderStateManager(logger, eventAggregator,
+                        (OrderManager) invocation.getArguments()[0]);
+            }
+        });
+        when(orderBookFactory.create(instrument)).thenReturn(new TickOrderBook(new TickCalculator()));
+        when(orderFilter.check(any(OrderRequest.class))).thenReturn(true);
+        when(orderIdGenerator.nextId()).thenReturn(NUMERIC_ORDER_ID, NUMERIC_ORDER_ID + 1);
+        uut = createManager(eventAggregator);
+        uut.add(createRequest(OrderRequestType.Create, null));
+        uut.process();
+        Order order = uut.getBook().get(NUMERIC_ORDER_ID);
+        uut.add(createRequest(OrderRequestType.Cancel, OrderIds.toString(NUMERIC_ORDER_ID)));
+        uut.process();
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setNumericOrderId(NUMERIC_ORDER_ID);
+        event.setOrderStatus(OrderStatus.Cancelled);
+        uut.onOrderStatus(event);
+        uut.process();
+
+        uut.add(createRequest(OrderRequestType.Create, null));
+        uut.process();
+
+        assertThat(uut.getBook().get(NUMERIC_ORDER_ID), is(nullValue()));
+        assertThat(uut.getBook().get(NUMERIC_ORDER_ID + 1), is(sameInstance(order)));
+        assertThat(uut.getBook().getOutstandingBuyQuantity(), is(100L));
+    }
+
+    private OrderRequest createRequest(OrderRequestType type, String dependentOrderId) {
+        OrderRequest res = new OrderRequest();
+        res.setOrderRequestType(type);
+        res.setDependentOrderId(dependentOrderId);
+        res.setPortfolioId(PTF_ID);
+        res.setClientOrderId(CLIENT_ID);
+        res.setBrokerId(BROKER_ID);
+        res.setSide(OrderSide.Buy);
+        res.setType(OrderType.Limit);
+        res.setPrice(10.0);
+        res.setQuantity(100L);
+        res.setCreated(DateTime.now());
+
+        return res;
+    }
+
+    @Test
+    public void shouldNotRecycleOrderStillInTheBook() throws Exception {
+        Order order = new Order(OrderRefData.builder().id(ORDER_ID).build());
+        when(orderBook.get(ORDER_ID)).thenReturn(order);
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setOrderId(ORDER_ID);
+
+        uut.onOrderStatus(event);
+
+        assertThat(uut.getPool().availableOrders(), is(0));
+    }
+
+    @Test
+    public void shouldRecyclePooledRequestsOnceProcessed() throws Exception {
+        OrderRequest request = uut.getPool().acquireRequest();
+        request.setOrderRequestType(OrderRequestType.Create);
+        request.setPortfolioId(PTF_ID);
+        request.setClientOrderId(CLIENT_ID);
+        request.setBrokerId(BROKER_ID);
+        when(orderFilter.check(request)).thenReturn(true);
+
+        uut.add(request);
+        uut.process();
+
+        assertThat(uut.getPool().availableRequests(), is(1));
+    }
+
+    @Test
+    public void shouldHandRejectedRequestsToRejectHandler() throws Exception {
+        OrderRequest request = uut.getPool().acquireRequest();
+        request.setOrderRequestType(OrderRequestType.Create);
+        request.reject(OrderRejectReason.MaxNotional);
+
+        uut.add(request);
+        uut.process();
+
+        assertThat(uut.getPool().availableRequests(), is(0));
+        assertThat(request.getRejectReason(), is(OrderRejectReason.MaxNotional));
+    }
+
+    @Test
+    public void shouldDeliverRejectsPublishedWithinDispatch() throws Exception {
+        TypedEventAggregator aggregator = new TypedEventAggregator(ContextLoggerMocker.create());
+        aggregator.register(new EventDispatcher<OrderRejectHandler, OrderRequestRejectEvent>(
+                OrderRejectHandler.class, OrderRequestRejectEvent.class) {
+            @Override
+            public void dispatch(OrderRejectHandler listener, OrderRequestRejectEvent event) {
+                for (OrderRequest request : event.getRejects()) {
+                    listener.onReject(request);
+                }
+            }
+        });
+        aggregator.register(new EventDispatcher<Runnable, String>(Runnable.class, String.class) {
+            @Override
+            public void dispatch(Runnable listener, String event) {
+                listener.run();
+            }
+        });
+        final DefaultOrderManager manager = createManager(aggregator);
+        final List<String> rejected = Lists.newArrayList();
+        aggregator.subscribe(new OrderRejectHandler() {
+            @Override
+            public void onReject(OrderRequest request) {
+                rejected.add(request.getInstrumentId() + ":" + request.getRejectReason());
+                request.recycle();
+            }
+        });
+        // rejects raised while handling an update are only delivered once the update has been handled
+        aggregator.subscribe(new Runnable() {
+            @Override
+            public void run() {
+                manager.add(rejectedRequest(manager, OrderRejectReason.MaxNotional));
+                manager.process();
+                manager.add(rejectedRequest(manager, OrderRejectReason.MaxLong));
+                manager.process();
+            }
+        });
+
+        aggregator.publish("update");
+
+        assertThat(rejected, is((List<String>) Lists.newArrayList(INST_ID + ":" + OrderRejectReason.MaxNotional,
+                INST_ID + ":" + OrderRejectReason.MaxLong)));
+        assertThat(manager.getPool().availableRequests(), is(2));
+    }
+
+    private OrderRequest rejectedRequest(OrderManager manager, OrderRejectReason reason) {
+        OrderRequest res = manager.getPool().acquireRequest();
+        res.setOrderRequestType(OrderRequestType.Create);
+        res.setInstrumentId(INST_ID);
+        res.reject(reason);
+
+        return res;
+    }
+
+    @Test
+    public void shouldNotPublishWhenNothingPending() throws Exception {
+        uut.process();
+
+        verifyZeroInteractions(eventAggregator);
+    }
+
+    @Test
+    public void shouldTakeCreatedOrdersFromThePool() throws Exception {
+        Order pooled = uut.getPool().acquireOrder();
+        uut.getPool().release(pooled);
+        OrderRequest request = new OrderRequest();
+        request.setOrderRequestType(OrderRequestType.Create);
+        request.setPortfolioId(PTF_ID);
+        request.setClientOrderId(CLIENT_ID);
+        request.setBrokerId(BROKER_ID);
+        when(orderFilter.check(request)).thenReturn(true);
+
+        uut.add(request);
+        uut.process();
+
+        verify(orderStateManager).newRequest(orderArgumentCaptor.capture(), eq(request));
+        assertThat(orderArgumentCaptor.getValue(), is(sameInstance(pooled)));
+        assertThat(pooled.getRefData().getNumericOrderId(), is(NUMERIC_ORDER_ID));
+    }
+
+    @Test
+    public void shouldAttributeCreatedOrderToRequestingAlgo() throws Exception {
+        OrderRequest request = new OrderRequest();
+        request.setOrderRequestType(OrderRequestType.Create);
+        request.setPortfolioId(PTF_ID);
+        request.setClientOrderId(CLIENT_ID);
+        request.setBrokerId(BROKER_ID);
+        request.setAlgoId(ALGO_ID);
+        when(orderFilter.check(request)).thenReturn(true);
+
+        uut.add(request);
+        uut.process();
+
+        verify(orderStateManager).newRequest(orderArgumentCaptor.capture(), eq(request));
+        assertThat(orderArgumentCaptor.getValue().getRefData().getAlgoId(), is(ALGO_ID));
+    }
+
+    @Test
+    public void shouldLookUpStatusByNumericId() throws Exception {
+        Order order = mock(Order.class);
+        when(orderBook.get(NUMERIC_ORDER_ID)).thenReturn(order);
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setNumericOrderId(NUMERIC_ORDER_ID);
+
+        uut.onOrderStatus(event);
+
+        verify(orderStateManager).onOrderStatus(order, event);
+        verify(orderBook, never()).get(anyString());
+    }
+
+    @Test
+    public void shouldIgnoreStatusForUnknownOrder() throws Exception {
+        OrderStatusEvent event = new OrderStatusEvent();
+        event.setOrderId(ORDER_ID);
+
+        uut.onOrderStatus(event);
+
+        verify(orderStateManager, never()).onOrderStatus(any(Order.class), any(OrderStatusEvent.class));
+    }
 }
@@ -31,7 +31,9 @@ import org.mockito.Captor;
 import org.mockito.MockitoAnnotations;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -46,6 +48,7 @@ public class DefaultOrderStateManagerTest {
     private ContextLogger logger;
     private EventAggregator eventAggregator;
     private OrderBook orderBook;
+    private OrderPool pool;
     private OrderState state;
     private OrderEntry entry;
     private Order order;
@@ -62,6 +65,8 @@ public class DefaultOrderStateManagerTest {
         OrderManager orderManager = mock(OrderManager.class);
         orderBook = mock(OrderBook.class);
         when(orderManager.getBook()).thenReturn(orderBook);
+        pool = new OrderPool();
+        when(orderManager.getPool()).thenReturn(pool);
         // setup the status event mocks
         OrderRefData refData = mock(OrderRefData.class);
         when(refData.getPortfolioId()).thenReturn(PTF_ID);
@@ -149,6 +154,36 @@ public class DefaultOrderStateManagerTest {
         assertThat(entry.getType(), is(type));
         assertThat(state.getCreated(), is(created));
         verify(orderBook, never()).add(order);  // amended orders already in the book
+        verify(orderBook).update(order);
+    }
+
+    @Test
+    public void shouldRecycleReplacedEntry() throws Exception {
+        Order order = new Order(OrderRefData.builder().build());
+        OrderEntry previous = OrderEntry.newInstance();
+        order.getState().setEntry(previous);
+        OrderRequest request = new OrderRequest();
+        request.setOrderRequestType(OrderRequestType.Amend);
+        request.setCreated(DateTime.now());
+
+        uut.newRequest(order, request);
+
+        assertThat(order.getState().getEntry(), is(not(sameInstance(previous))));
+        assertThat(pool.availableEntries(), is(1));
+    }
+
+    @Test
+    public void shouldCopyReferenceDataIntoNewOrder() throws Exception {
+        Order order = new Order(OrderRefData.builder().id(TEST_ID).portfolio(PTF_ID).build());
+        OrderRequest request = new OrderRequest();
+        request.setOrderRequestType(OrderRequestType.Create);
+        request.setCreated(DateTime.now());
+
+        NewOrder res = uut.newRequest(order, request);
+
+        assertThat(res.getRefData(), is(not(sameInstance(order.getRefData()))));
+        assertThat(res.getRefData().getOrderId(), is(TEST_ID));
+        assertThat(res.getRefData().getPortfolioId(), is(PTF_ID));
     }
 
     @Test
@@ -165,6 +200,7 @@ public class DefaultOrderStateManagerTest {
         verify(state).setQuantity(TEST_QTY);
         verify(state).setPrice(TEST_PRC);
         verify(entry).setExchangeId(TEST_ID);
+        verify(orderBook).update(order);
     }
 
     @Test
@@ -178,6 +214,7 @@ public class DefaultOrderStateManagerTest {
         uut.onOrderStatus(order, event);
 
         verify(state).setExecQty(TEST_QTY);
+        verify(orderBook).update(order);
         verify(eventAggregator).publish(tradeEventArgumentCaptor.capture());
         TradeEvent tradeEvent = tradeEventArgumentCaptor.getValue();
 
@@ -245,6 +282,7 @@ public class DefaultOrderStateManagerTest {
         verify(state).setQuantity(TEST_QTY);
         verify(state).setPrice(TEST_PRC);
         verify(entry).setExchangeId(TEST_ID);
+        verify(orderBook).update(order);
     }
 
     @Test
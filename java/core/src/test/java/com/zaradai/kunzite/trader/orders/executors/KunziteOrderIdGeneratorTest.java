@@ -34,6 +34,14 @@ public class KunziteOrderIdGeneratorTest {
         assertThat(res.substring(res.lastIndexOf("-")+1), is("1"));
     }
 
+    @Test
+    public void shouldGenerateNumericIdFromCounter() throws Exception {
+        KunziteOrderIdGenerator uut = KunziteOrderIdGenerator.newInstanceWithStartCounter(START_COUNTER);
+
+        assertThat(uut.nextId(), is(START_COUNTER));
+        assertThat(uut.nextId(), is(START_COUNTER + 1));
+    }
+
     @Test
     public void shouldGenerateFromKnownStart() throws Exception {
         KunziteOrderIdGenerator uut = KunziteOrderIdGenerator.newInstanceWithStartCounter(START_COUNTER);
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.model;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class NewOrderPoolTest {
+    @Test
+    public void shouldReuseRecycledOrders() throws Exception {
+        NewOrderPool uut = new NewOrderPool(1);
+
+        NewOrder order = uut.acquire();
+        order.getRefData().setOrderId("test");
+        order.setQuantity(100L);
+        order.setSide(OrderSide.Buy);
+        order.recycle();
+
+        assertThat(uut.available(), is(1));
+        NewOrder res = uut.acquire();
+        assertThat(res, is(sameInstance(order)));
+        assertThat(res.getRefData().getOrderId(), is(nullValue()));
+        assertThat(res.getQuantity(), is(0L));
+        assertThat(res.getSide(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldOwnReferenceData() throws Exception {
+        NewOrderPool uut = new NewOrderPool(1);
+        OrderRefData refData = OrderRefData.builder().id("test").market("mkt").build();
+
+        NewOrder order = uut.acquire();
+        order.getRefData().copyFrom(refData);
+        refData.setOrderId("changed");
+
+        assertThat(order.getRefData(), is(not(sameInstance(refData))));
+        assertThat(order.getRefData().getOrderId(), is("test"));
+        assertThat(order.getRefData().getMarketId(), is("mkt"));
+    }
+
+    @Test
+    public void shouldDropReleasedOrdersWhenFull() throws Exception {
+        NewOrderPool uut = new NewOrderPool(1);
+        NewOrder first = uut.acquire();
+        NewOrder second = uut.acquire();
+
+        first.recycle();
+        second.recycle();
+
+        assertThat(uut.available(), is(1));
+    }
+}
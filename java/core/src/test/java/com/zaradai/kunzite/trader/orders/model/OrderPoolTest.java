@@ -0,0 +1,123 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.model;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class OrderPoolTest {
+    private static final DateTime CREATED = DateTime.now();
+
+    @Test
+    public void shouldReuseReleasedOrders() throws Exception {
+        OrderPool uut = new OrderPool();
+        Order order = uut.acquireOrder();
+        OrderRefData.builder(order.getRefData()).id("test").portfolio("ptf").build();
+        OrderEntry entry = uut.acquireEntry(CREATED);
+        order.getState().setEntry(entry);
+        order.getState().setAlive(true);
+        order.getState().setQuantity(100L);
+
+        uut.release(order);
+
+        assertThat(uut.availableOrders(), is(1));
+        assertThat(uut.availableEntries(), is(1));
+        Order res = uut.acquireOrder();
+        assertThat(res, is(sameInstance(order)));
+        assertThat(res.getRefData().getOrderId(), is(nullValue()));
+        assertThat(res.getRefData().getPortfolioId(), is(nullValue()));
+        assertThat(res.getState().isAlive(), is(false));
+        assertThat(res.getState().getQuantity(), is(0L));
+        assertThat(res.getState().getEntry(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldResetReusedEntries() throws Exception {
+        OrderPool uut = new OrderPool();
+        OrderEntry entry = uut.acquireEntry(CREATED);
+        entry.setPrice(12.5);
+        entry.setSide(OrderSide.Sell);
+        entry.setExchangeId("exch");
+        entry.getLatency().setAck(CREATED);
+        DateTime created = CREATED.plusSeconds(1);
+
+        uut.release(entry);
+        OrderEntry res = uut.acquireEntry(created);
+
+        assertThat(res, is(sameInstance(entry)));
+        assertThat(res.getPrice(), is(0.0));
+        assertThat(res.getSide(), is(nullValue()));
+        assertThat(res.getExchangeId(), is(nullValue()));
+        assertThat(res.getLatency().getCreated(), is(created));
+        assertThat(res.getLatency().getAck(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldRecycleRequestsToTheirPool() throws Exception {
+        OrderPool uut = new OrderPool();
+        OrderRequest request = uut.acquireRequest();
+        request.setPortfolioId("ptf");
+        request.reject(OrderRejectReason.MaxNotional);
+
+        request.recycle();
+
+        assertThat(uut.availableRequests(), is(1));
+        OrderRequest res = uut.acquireRequest();
+        assertThat(res, is(sameInstance(request)));
+        assertThat(res.getPortfolioId(), is(nullValue()));
+        assertThat(res.isValid(), is(true));
+        assertThat(res.getRejectReason(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotPoolUnpooledRequests() throws Exception {
+        OrderPool uut = new OrderPool();
+
+        new OrderRequest().recycle();
+
+        assertThat(uut.availableRequests(), is(0));
+    }
+
+    @Test
+    public void shouldNotGrowBeyondMaxSize() throws Exception {
+        OrderPool uut = new OrderPool(1);
+        Order order1 = uut.acquireOrder();
+        Order order2 = uut.acquireOrder();
+
+        uut.release(order1);
+        uut.release(order2);
+
+        assertThat(uut.availableOrders(), is(1));
+        assertThat(uut.acquireOrder(), is(sameInstance(order1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToReleaseQueuedOrder() throws Exception {
+        OrderPool uut = new OrderPool();
+        Order order = uut.acquireOrder();
+        new OrderQueue().append(order);
+
+        uut.release(order);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWithInvalidSize() throws Exception {
+        new OrderPool(-1);
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class OrderQueueTest {
+    private OrderQueue uut;
+    private Order order1;
+    private Order order2;
+    private Order order3;
+
+    @Before
+    public void setUp() throws Exception {
+        uut = new OrderQueue();
+        order1 = new Order(OrderRefData.builder().build());
+        order2 = new Order(OrderRefData.builder().build());
+        order3 = new Order(OrderRefData.builder().build());
+    }
+
+    @Test
+    public void shouldBeEmptyWhenCreated() throws Exception {
+        assertThat(uut.isEmpty(), is(true));
+        assertThat(uut.size(), is(0));
+        assertThat(uut.first(), is(nullValue()));
+        assertThat(uut.last(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldAppendInArrivalOrder() throws Exception {
+        uut.append(order1);
+        uut.append(order2);
+        uut.append(order3);
+
+        assertThat(uut.size(), is(3));
+        assertThat(uut.first(), is(order1));
+        assertThat(uut.next(order1), is(order2));
+        assertThat(uut.next(order2), is(order3));
+        assertThat(uut.next(order3), is(nullValue()));
+        assertThat(uut.last(), is(order3));
+    }
+
+    @Test
+    public void shouldRemoveFromMiddle() throws Exception {
+        uut.append(order1);
+        uut.append(order2);
+        uut.append(order3);
+
+        assertThat(uut.remove(order2), is(true));
+
+        assertThat(uut.size(), is(2));
+        assertThat(uut.next(order1), is(order3));
+        assertThat(uut.contains(order2), is(false));
+    }
+
+    @Test
+    public void shouldRemoveHeadAndTail() throws Exception {
+        uut.append(order1);
+        uut.append(order2);
+        uut.append(order3);
+
+        uut.remove(order1);
+        uut.remove(order3);
+
+        assertThat(uut.first(), is(order2));
+        assertThat(uut.last(), is(order2));
+
+        uut.remove(order2);
+
+        assertThat(uut.isEmpty(), is(true));
+        assertThat(uut.first(), is(nullValue()));
+        assertThat(uut.last(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotRemoveOrderFromAnotherQueue() throws Exception {
+        OrderQueue other = new OrderQueue();
+        other.append(order1);
+
+        assertThat(uut.remove(order1), is(false));
+        assertThat(uut.remove(null), is(false));
+        assertThat(other.contains(order1), is(true));
+        assertThat(uut.next(order1), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotQueueOrderTwice() throws Exception {
+        uut.append(order1);
+
+        uut.append(order1);
+    }
+
+    @Test
+    public void shouldAllowRequeueOnceRemoved() throws Exception {
+        uut.append(order1);
+        uut.append(order2);
+        uut.remove(order1);
+
+        uut.append(order1);
+
+        assertThat(uut.first(), is(order2));
+        assertThat(uut.last(), is(order1));
+    }
+
+    @Test
+    public void shouldUnlinkAllOnClear() throws Exception {
+        uut.append(order1);
+        uut.append(order2);
+
+        uut.clear();
+
+        assertThat(uut.isEmpty(), is(true));
+        assertThat(uut.contains(order1), is(false));
+        // released orders can be queued elsewhere
+        new OrderQueue().append(order1);
+    }
+}
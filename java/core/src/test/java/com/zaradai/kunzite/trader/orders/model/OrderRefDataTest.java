@@ -39,6 +39,37 @@ public class OrderRefDataTest {
         assertThat(uut.getOrderId(), is(TEST_STRING));
     }
 
+    @Test
+    public void shouldRenderNumericOrderIdOnDemand() throws Exception {
+        uut.setNumericOrderId(1234L);
+
+        assertThat(uut.hasNumericOrderId(), is(true));
+        assertThat(uut.getNumericOrderId(), is(1234L));
+        assertThat(uut.getOrderId(), is("1234"));
+    }
+
+    @Test
+    public void shouldDropNumericOrderIdForStringId() throws Exception {
+        uut.setNumericOrderId(1234L);
+
+        uut.setOrderId(TEST_STRING);
+
+        assertThat(uut.hasNumericOrderId(), is(false));
+        assertThat(uut.getOrderId(), is(TEST_STRING));
+    }
+
+    @Test
+    public void shouldBuildWithNumericOrderId() throws Exception {
+        OrderRefData res = OrderRefData.builder().id(1234L).build();
+
+        assertThat(res.getNumericOrderId(), is(1234L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToBuildWithInvalidNumericOrderId() throws Exception {
+        OrderRefData.builder().id(0L);
+    }
+
     @Test
     public void shouldGetClientOrderId() throws Exception {
         uut.setClientOrderId(TEST_STRING);
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.utils;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class OrderIdsTest {
+    @Test
+    public void shouldRenderAndParse() throws Exception {
+        long id = 1234567890123L;
+
+        assertThat(OrderIds.parse(OrderIds.toString(id)), is(id));
+        assertThat(OrderIds.parse(String.valueOf(Long.MAX_VALUE)), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldNotParseNonNumericIds() throws Exception {
+        assertThat(OrderIds.parse(null), is(OrderIds.NO_ID));
+        assertThat(OrderIds.parse(""), is(OrderIds.NO_ID));
+        assertThat(OrderIds.parse("Kunzite-1-1"), is(OrderIds.NO_ID));
+        assertThat(OrderIds.parse("-12"), is(OrderIds.NO_ID));
+        assertThat(OrderIds.parse("99999999999999999999"), is(OrderIds.NO_ID));
+        assertThat(OrderIds.parse("9999999999999999999"), is(OrderIds.NO_ID));
+    }
+
+    @Test
+    public void shouldOnlyTreatPositiveIdsAsValid() throws Exception {
+        assertThat(OrderIds.isValid(1L), is(true));
+        assertThat(OrderIds.isValid(OrderIds.NO_ID), is(false));
+        assertThat(OrderIds.isValid(-1L), is(false));
+    }
+}
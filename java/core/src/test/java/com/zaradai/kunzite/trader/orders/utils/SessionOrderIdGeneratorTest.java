@@ -0,0 +1,107 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.orders.utils;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SessionOrderIdGeneratorTest {
+    private static final long SESSION_MILLIS = SessionOrderIdGenerator.EPOCH_MILLIS + 5000L;
+
+    @Test
+    public void shouldPackSessionShardAndSequence() throws Exception {
+        SessionOrderIdGenerator uut = SessionOrderIdGenerator.newInstanceForSession(SESSION_MILLIS, 3);
+
+        long first = uut.nextId();
+        long second = uut.nextId();
+
+        assertThat(SessionOrderIdGenerator.sessionOf(first), is(5L));
+        assertThat(SessionOrderIdGenerator.shardOf(first), is(3));
+        assertThat(SessionOrderIdGenerator.sequenceOf(first), is(1L));
+        assertThat(SessionOrderIdGenerator.sequenceOf(second), is(2L));
+        assertThat(OrderIds.isValid(first), is(true));
+    }
+
+    @Test
+    public void shouldRenderString() throws Exception {
+        SessionOrderIdGenerator uut = SessionOrderIdGenerator.newInstanceForSession(SESSION_MILLIS, 0);
+
+        String res = uut.generate();
+
+        assertThat(SessionOrderIdGenerator.sequenceOf(OrderIds.parse(res)), is(1L));
+    }
+
+    @Test
+    public void shouldKeepShardsApart() throws Exception {
+        SessionOrderIdGenerator shard0 = SessionOrderIdGenerator.newInstanceForSession(SESSION_MILLIS, 0);
+        SessionOrderIdGenerator shard1 = SessionOrderIdGenerator.newInstanceForSession(SESSION_MILLIS, 1);
+
+        assertThat(shard0.nextId() == shard1.nextId(), is(false));
+    }
+
+    @Test
+    public void shouldCarrySequenceOverflowIntoSession() throws Exception {
+        SessionOrderIdGenerator uut = SessionOrderIdGenerator.newInstanceForSession(SESSION_MILLIS, 7);
+        long last = 0L;
+
+        for (long i = 1; i < (1L << SessionOrderIdGenerator.SEQUENCE_BITS); ++i) {
+            last = uut.nextId();
+        }
+
+        long next = uut.nextId();
+
+        assertThat(SessionOrderIdGenerator.sessionOf(last), is(5L));
+        assertThat(SessionOrderIdGenerator.sessionOf(next), is(6L));
+        assertThat(SessionOrderIdGenerator.shardOf(next), is(7));
+        assertThat(SessionOrderIdGenerator.sequenceOf(next), is(0L));
+    }
+
+    @Test
+    public void shouldGenerateUniqueIdsAcrossThreads() throws Exception {
+        final SessionOrderIdGenerator uut = SessionOrderIdGenerator.newInstance();
+        final Set<Long> ids = Sets.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        final int threads = 4;
+        final int perThread = 10000;
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; ++t) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; ++i) {
+                        ids.add(uut.nextId());
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertThat(ids.size(), is(threads * perThread));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWithInvalidShard() throws Exception {
+        SessionOrderIdGenerator.newInstanceForShard(SessionOrderIdGenerator.MAX_SHARD + 1);
+    }
+}
@@ -18,6 +18,7 @@ package com.zaradai.kunzite.trader.services;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
 import org.junit.Before;
 import org.junit.Test;
@@ -104,4 +105,32 @@ public class AbstractQueueBridgeTest {
 
         verify(meter).mark();
     }
+
+    @Test
+    public void shouldHandleEventThroughDisruptor() throws Exception {
+        TraderConfiguration configuration = mock(TraderConfiguration.class);
+        when(configuration.getBridgeType()).thenReturn(BridgeType.Disruptor);
+        when(configuration.getBridgeRingSize()).thenReturn(16);
+        when(configuration.getBridgeWaitStrategy()).thenReturn(BridgeWaitStrategy.Yielding);
+        final CountDownLatch barrier = new CountDownLatch(1);
+        uut = new AbstractQueueBridge(logger, metricRegistry, configuration) {
+            @Override
+            public void handleEvent(Object event) {
+                barrier.countDown();
+            }
+
+            @Override
+            public String getName() {
+                return TEST_NAME;
+            }
+        };
+        uut.startAsync().awaitRunning();
+        uut.onEvent(TEST_EVENT);
+
+        barrier.await();
+
+        uut.stopAsync().awaitTerminated();
+
+        verify(meter).mark();
+    }
 }
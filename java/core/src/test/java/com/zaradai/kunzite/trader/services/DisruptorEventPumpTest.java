@@ -0,0 +1,113 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services;
+
+import com.google.common.collect.Lists;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DisruptorEventPumpTest {
+    private static final int TEST_RING_SIZE = 16;
+    private DisruptorEventPump uut;
+
+    @Before
+    public void setUp() throws Exception {
+        uut = new DisruptorEventPump(TEST_RING_SIZE, new BlockingWaitStrategy());
+    }
+
+    @Test
+    public void shouldDeliverEventsPublishedBeforeRunInOrder() throws Exception {
+        final List<Object> received = Lists.newArrayList();
+        final CountDownLatch barrier = new CountDownLatch(3);
+
+        uut.put(1);
+        uut.put(2);
+        uut.put(3);
+        Thread consumer = startConsumer(new EventPumpHandler() {
+            @Override
+            public void onPumpEvent(Object event) {
+                received.add(event);
+                barrier.countDown();
+            }
+        });
+
+        assertThat(barrier.await(5, TimeUnit.SECONDS), is(true));
+        uut.halt();
+        consumer.join(5000);
+
+        assertThat(consumer.isAlive(), is(false));
+        assertThat(received, is((List<Object>) Lists.<Object>newArrayList(1, 2, 3)));
+    }
+
+    @Test
+    public void shouldWrapRingMoreThanOnce() throws Exception {
+        final int count = TEST_RING_SIZE * 4;
+        final CountDownLatch barrier = new CountDownLatch(count);
+        Thread consumer = startConsumer(new EventPumpHandler() {
+            @Override
+            public void onPumpEvent(Object event) {
+                barrier.countDown();
+            }
+        });
+
+        for (int i = 0; i < count; i++) {
+            uut.put(i);
+        }
+
+        assertThat(barrier.await(5, TimeUnit.SECONDS), is(true));
+        uut.halt();
+        consumer.join(5000);
+        assertThat(consumer.isAlive(), is(false));
+    }
+
+    @Test
+    public void shouldStopIfHaltedBeforeRunning() throws Exception {
+        uut.halt();
+
+        Thread consumer = startConsumer(new EventPumpHandler() {
+            @Override
+            public void onPumpEvent(Object event) {
+            }
+        });
+        consumer.join(5000);
+
+        assertThat(consumer.isAlive(), is(false));
+    }
+
+    private Thread startConsumer(final EventPumpHandler handler) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    uut.run(handler);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        thread.start();
+
+        return thread;
+    }
+}
@@ -15,23 +15,35 @@
  */
 package com.zaradai.kunzite.trader.services.md;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.Lists;
 import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.config.md.*;
 import com.zaradai.kunzite.trader.events.MarketData;
 import com.zaradai.kunzite.trader.events.MarketDataField;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.events.MarketDataRecordPool;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.services.timer.SimulatedTimeBase;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
+import com.zaradai.kunzite.trader.services.timer.TimeListener;
 import com.zaradai.kunzite.trader.services.trader.DefaultTraderService;
+import com.zaradai.kunzite.trader.services.trader.TraderService;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -43,6 +55,8 @@ public class DefaultMarketDataServiceTest {
     private static final String MAP_NAME = "map_name";
     private static final String TEST_SID = "sid";
     private static final String TEST_ID = "id";
+    private static final long START = 1000L;
+    private static final int WAIT = 2000;
 
     private MarketDataConfiguration configuration;
     private ContextLogger logger;
@@ -55,6 +69,10 @@ public class DefaultMarketDataServiceTest {
     @Mock
     BlockingQueue<Object> mockQueue;
     private MetricRegistry metricRegistry;
+    private TraderConfiguration traderConfiguration;
+    private SymbolRegistry symbolRegistry;
+    private MarketDataConflater conflater;
+    private TimeBase timeBase;
 
     @Before
     public void setUp() throws Exception {
@@ -68,7 +86,11 @@ public class DefaultMarketDataServiceTest {
         when(channel.startAsync()).thenReturn(channel);
         when(channel.stopAsync()).thenReturn(channel);
         metricRegistry = mock(MetricRegistry.class);
-        uut = new DefaultMarketDataService(logger, metricRegistry, marketDataChannelFactory, traderService);
+        traderConfiguration = mock(TraderConfiguration.class);
+        symbolRegistry = new SymbolRegistry();
+        timeBase = mock(TimeBase.class);
+        uut = new DefaultMarketDataService(logger, metricRegistry, traderConfiguration,
+                marketDataChannelFactory, traderService, symbolRegistry, timeBase);
     }
 
     private MarketDataConfiguration createConfiguration() {
@@ -142,11 +164,12 @@ public class DefaultMarketDataServiceTest {
 
         uut.handleEvent(marketData);
 
-        verify(traderService).onEvent(argumentCaptor.capture());
+        verify(traderService).onTraderEvent(eq(0), argumentCaptor.capture());
 
         MarketData res = (MarketData) argumentCaptor.getValue();
 
         assertThat(res.getInstrumentId(), is(TEST_ID));
+        assertThat(res.getInstrumentIndex(), is(0));
     }
 
     @Test
@@ -164,7 +187,8 @@ public class DefaultMarketDataServiceTest {
     public void shouldQueueMarketDataFromChannel() throws Exception {
         List<MarketDataField> fields = Lists.newArrayList();
         MarketData marketData = MarketData.newInstance(TEST_ID, fields);
-        uut = new DefaultMarketDataService(logger, metricRegistry, marketDataChannelFactory, traderService) {
+        uut = new DefaultMarketDataService(logger, metricRegistry, traderConfiguration,
+                marketDataChannelFactory, traderService, symbolRegistry, timeBase) {
             @Override
             protected BlockingQueue<Object> createQueue() {
                 return mockQueue;
@@ -175,4 +199,172 @@ public class DefaultMarketDataServiceTest {
 
         verify(mockQueue).put(marketData);
     }
+
+    @Test
+    public void shouldMapIdsInPlaceOnHandlingSubscribedRecord() throws Exception {
+        when(marketDataChannelFactory.create(CHANNEL_1_CLASS)).thenReturn(channel);
+        uut.build(configuration);
+        uut.startUp();
+        MarketDataRecord record = uut.acquireRecord();
+        record.setInstrumentId(TEST_SID);
+
+        uut.handleEvent(record);
+
+        verify(traderService).onTraderEvent(0, record);
+        assertThat(record.getInstrumentId(), is(TEST_ID));
+        assertThat(record.getInstrumentIndex(), is(0));
+    }
+
+    @Test
+    public void shouldUseSharedRegistryIndexForRecords() throws Exception {
+        symbolRegistry.intern("first");
+        when(marketDataChannelFactory.create(CHANNEL_1_CLASS)).thenReturn(channel);
+        uut.build(configuration);
+        uut.startUp();
+        MarketDataRecord record = uut.acquireRecord().setInstrumentId(TEST_SID);
+
+        uut.handleEvent(record);
+
+        assertThat(record.getInstrumentIndex(), is(symbolRegistry.indexOf(TEST_ID)));
+        assertThat(record.getInstrumentIndex(), is(1));
+    }
+
+    @Test
+    public void shouldRecycleAndWarnOnHandlingUnknownRecord() throws Exception {
+        final MarketDataRecordPool pool = new MarketDataRecordPool(1);
+        uut = new DefaultMarketDataService(logger, metricRegistry, traderConfiguration,
+                marketDataChannelFactory, traderService, symbolRegistry, timeBase) {
+            @Override
+            protected MarketDataRecordPool createRecordPool() {
+                return pool;
+            }
+        };
+        uut.build(configuration);
+        MarketDataRecord record = uut.acquireRecord();
+        record.setInstrumentId("Unknown");
+
+        uut.handleEvent(record);
+
+        verify(logger).warn();
+        assertThat(pool.available(), is(1));
+    }
+
+    @Test
+    public void shouldAdvanceTimeBaseToRecordTime() throws Exception {
+        when(marketDataChannelFactory.create(CHANNEL_1_CLASS)).thenReturn(channel);
+        uut.build(configuration);
+        uut.startUp();
+        MarketDataRecord record = uut.acquireRecord().setInstrumentId(TEST_SID)
+                .setTimestampNanos(TimeUnit.MILLISECONDS.toNanos(START));
+
+        uut.handleEvent(record);
+
+        verify(timeBase).advanceTo(START);
+    }
+
+    @Test
+    public void shouldHandTimersToShardsInStepWithQueuedRecords() throws Exception {
+        SimulatedTimeBase simulatedTimeBase = new SimulatedTimeBase(START);
+        // stands in for the simulated timer service, queueing a timer due mid way on the advancing thread
+        simulatedTimeBase.addListener(new TimeListener() {
+            private boolean fired;
+
+            @Override
+            public void onTime(long now) {
+                if (!fired && now >= START + 100) {
+                    fired = true;
+                    traderService.onShardEvent(0, TimerEvent.newInstance(1, true));
+                }
+            }
+        });
+        when(marketDataChannelFactory.create(CHANNEL_1_CLASS)).thenReturn(channel);
+        when(metricRegistry.meter(anyString())).thenReturn(new Meter());
+        uut = new DefaultMarketDataService(logger, metricRegistry, traderConfiguration,
+                marketDataChannelFactory, traderService, symbolRegistry, simulatedTimeBase);
+        uut.build(configuration);
+        MarketDataRecord before = recordAt(START + 50);
+        MarketDataRecord after = recordAt(START + 150);
+        // both queued before the service drains, the timer must still land between them
+        uut.onMarketData(before);
+        uut.onMarketData(after);
+        uut.startAsync().awaitRunning();
+
+        verify(traderService, timeout(WAIT)).onTraderEvent(0, after);
+        uut.stopAsync().awaitTerminated();
+
+        InOrder inOrder = inOrder(traderService);
+        inOrder.verify(traderService).onTraderEvent(0, before);
+        inOrder.verify(traderService).onShardEvent(eq(0), any(TimerEvent.class));
+        inOrder.verify(traderService).onTraderEvent(0, after);
+    }
+
+    private MarketDataRecord recordAt(long millis) {
+        return uut.acquireRecord().setInstrumentId(TEST_SID).setTimestampNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    public void shouldQueueRecordFromChannel() throws Exception {
+        uut = new DefaultMarketDataService(logger, metricRegistry, traderConfiguration,
+                marketDataChannelFactory, traderService, symbolRegistry, timeBase) {
+            @Override
+            protected BlockingQueue<Object> createQueue() {
+                return mockQueue;
+            }
+        };
+        MarketDataRecord record = uut.acquireRecord();
+
+        uut.onMarketData(record);
+
+        verify(mockQueue).put(record);
+    }
+
+    @Test
+    public void shouldConflateRecordsForConflatedSubscription() throws Exception {
+        configuration.getSubscriptions().iterator().next().setConflate(true);
+        MarketDataRecord record = startWithConflater();
+
+        uut.handleEvent(record);
+
+        verify(conflater).offer(record);
+        verify(traderService, never()).onTraderEvent(anyInt(), eq(record));
+    }
+
+    @Test
+    public void shouldConflateRecordsForConflatedChannel() throws Exception {
+        configuration.getChannels().iterator().next().setConflate(true);
+        MarketDataRecord record = startWithConflater();
+
+        uut.handleEvent(record);
+
+        verify(conflater).offer(record);
+    }
+
+    @Test
+    public void shouldLetSubscriptionOverrideChannelConflation() throws Exception {
+        configuration.getChannels().iterator().next().setConflate(true);
+        configuration.getSubscriptions().iterator().next().setConflate(false);
+        MarketDataRecord record = startWithConflater();
+
+        uut.handleEvent(record);
+
+        verify(conflater, never()).offer(record);
+        verify(traderService).onTraderEvent(0, record);
+    }
+
+    private MarketDataRecord startWithConflater() throws Exception {
+        conflater = mock(MarketDataConflater.class);
+        uut = new DefaultMarketDataService(logger, metricRegistry, traderConfiguration,
+                marketDataChannelFactory, traderService, symbolRegistry, timeBase) {
+            @Override
+            protected MarketDataConflater createConflater(MetricRegistry metricRegistry,
+                                                          TraderService traderService) {
+                return conflater;
+            }
+        };
+        when(marketDataChannelFactory.create(CHANNEL_1_CLASS)).thenReturn(channel);
+        uut.build(configuration);
+        uut.startUp();
+
+        return uut.acquireRecord().setInstrumentId(TEST_SID);
+    }
 }
@@ -18,6 +18,8 @@ package com.zaradai.kunzite.trader.services.md;
 import com.google.common.collect.Lists;
 import com.zaradai.kunzite.trader.config.md.MappingConfig;
 import com.zaradai.kunzite.trader.config.md.MappingValue;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -88,4 +90,33 @@ public class MappingManagerTest {
     public void shouldNotGetReverseBeforeGetSidCalled() throws Exception {
         assertThat(uut.getId(SID1_MAP_1), is(nullValue()));
     }
+
+    @Test
+    public void shouldInternIndexAfterGetSid() throws Exception {
+        uut.getSid(MAP_1, ID1_MAP_1);
+        uut.getSid(MAP_2, ID1_MAP_2);
+
+        assertThat(uut.getIndex(SID1_MAP_1), is(0));
+        assertThat(uut.getIndex(SID1_MAP_2), is(1));
+        assertThat(uut.getIdByIndex(1), is(ID1_MAP_2));
+    }
+
+    @Test
+    public void shouldNotGetIndexBeforeGetSidCalled() throws Exception {
+        assertThat(uut.getIndex(SID1_MAP_1), is(MarketDataRecord.UNKNOWN_INDEX));
+    }
+
+    @Test
+    public void shouldInternIntoSharedRegistry() throws Exception {
+        SymbolRegistry registry = new SymbolRegistry();
+        registry.intern(ID1_MAP_2);
+        uut = new MappingManager(testConfig, registry);
+
+        uut.getSid(MAP_1, ID1_MAP_1);
+        uut.getSid(MAP_2, ID1_MAP_2);
+
+        assertThat(uut.getIndex(SID1_MAP_2), is(0));
+        assertThat(uut.getIndex(SID1_MAP_1), is(1));
+        assertThat(registry.symbolOf(1), is(ID1_MAP_1));
+    }
 }
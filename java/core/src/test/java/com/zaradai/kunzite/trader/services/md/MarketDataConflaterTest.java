@@ -0,0 +1,153 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.events.MarketDataRecordPool;
+import com.zaradai.kunzite.trader.services.trader.TraderService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MarketDataConflaterTest {
+    private static final String TEST_ID = "id";
+    private static final int TEST_INDEX = 2;
+    private MetricRegistry metrics;
+    private TraderService traderService;
+    private MarketDataRecordPool pool;
+    private MarketDataConflater uut;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new MetricRegistry();
+        traderService = mock(TraderService.class);
+        pool = new MarketDataRecordPool(8);
+        uut = new MarketDataConflater(metrics, traderService);
+    }
+
+    private MarketDataRecord bid(double price) {
+        return pool.acquire().setInstrument(TEST_ID, TEST_INDEX).addDoubleValue(MarketDataFieldType.BEST_BID, price);
+    }
+
+    private MarketDataRecord trade(long size) {
+        return pool.acquire().setInstrument(TEST_ID, TEST_INDEX).addLongValue(MarketDataFieldType.TRADE_SIZE, size);
+    }
+
+    private List<Object> delivered(int count) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(traderService, times(count)).onTraderEvent(eq(TEST_INDEX), captor.capture());
+
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void shouldDeliverNewestStateOnce() throws Exception {
+        uut.offer(bid(1.0));
+        uut.offer(bid(2.0));
+        uut.offer(bid(3.0));
+
+        Object res = delivered(1).get(0);
+
+        assertThat(res, instanceOf(ConflatedMarketData.class));
+        MarketDataRecord record = ((ConflatedMarketData) res).take();
+        assertThat(record.size(), is(1));
+        assertThat(record.getDoubleValue(0), is(3.0));
+        assertThat(pool.available(), is(8 - 1));
+    }
+
+    @Test
+    public void shouldStartNewPlaceholderOnceTaken() throws Exception {
+        uut.offer(bid(1.0));
+        ((ConflatedMarketData) delivered(1).get(0)).take();
+
+        uut.offer(bid(2.0));
+
+        List<Object> res = delivered(2);
+        assertThat(((ConflatedMarketData) res.get(1)).take().getDoubleValue(0), is(2.0));
+    }
+
+    @Test
+    public void shouldForwardTradesWithoutConflating() throws Exception {
+        MarketDataRecord trade1 = trade(100);
+        MarketDataRecord trade2 = trade(200);
+
+        uut.offer(trade1);
+        uut.offer(trade2);
+
+        List<Object> res = delivered(2);
+        assertThat(res.get(0), is((Object) trade1));
+        assertThat(res.get(1), is((Object) trade2));
+    }
+
+    @Test
+    public void shouldNotMergeUpdatesAfterTradeIntoEarlierState() throws Exception {
+        MarketDataRecord trade = trade(100);
+
+        uut.offer(bid(1.0));
+        uut.offer(trade);
+        uut.offer(bid(2.0));
+
+        List<Object> res = delivered(3);
+        assertThat(((ConflatedMarketData) res.get(0)).take().getDoubleValue(0), is(1.0));
+        assertThat(res.get(1), is((Object) trade));
+        assertThat(res.get(2), not(sameInstance(res.get(0))));
+        assertThat(((ConflatedMarketData) res.get(2)).take().getDoubleValue(0), is(2.0));
+    }
+
+    @Test
+    public void shouldConflateInstrumentsIndependently() throws Exception {
+        uut.offer(bid(1.0));
+        uut.offer(pool.acquire().setInstrument("other", 200).addDoubleValue(MarketDataFieldType.BEST_BID, 5.0));
+
+        delivered(1);
+        verify(traderService).onTraderEvent(eq(200), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldExposeConflationRatio() throws Exception {
+        uut.offer(bid(1.0));
+        uut.offer(bid(2.0));
+        uut.offer(bid(3.0));
+        uut.offer(bid(4.0));
+
+        Gauge<Double> ratio = metrics.getGauges().get(name(MarketDataConflater.class,
+                MarketDataConflater.METRIC_NAME_RATIO));
+
+        assertThat(metrics.meter(name(MarketDataConflater.class,
+                MarketDataConflater.METRIC_NAME_RECEIVED)).getCount(), is(4L));
+        assertThat(metrics.meter(name(MarketDataConflater.class,
+                MarketDataConflater.METRIC_NAME_DELIVERED)).getCount(), is(1L));
+        assertThat(ratio.getValue(), is(0.25));
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.channel;
+
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.services.md.MarketDataService;
+import com.zaradai.kunzite.trader.services.md.eod.EodReaderFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EmulatorChannelTest {
+    private static final int WAIT = 2000;
+    private static final int TEST_RATE = 1000;
+    private static final String TEST_SID = "sid";
+
+    private MarketDataService marketDataService;
+    private TraderConfiguration configuration;
+    private EmulatorChannel uut;
+
+    @Before
+    public void setUp() throws Exception {
+        marketDataService = mock(MarketDataService.class);
+        when(marketDataService.acquireRecord()).thenAnswer(new Answer<MarketDataRecord>() {
+            @Override
+            public MarketDataRecord answer(InvocationOnMock invocation) throws Throwable {
+                return MarketDataRecord.newInstance();
+            }
+        });
+        configuration = mock(TraderConfiguration.class);
+        when(configuration.getEmulatorTickRate()).thenReturn(TEST_RATE);
+        when(configuration.getEmulatorBookDepth()).thenReturn(1);
+        uut = new EmulatorChannel(ContextLoggerMocker.create(), marketDataService, configuration,
+                mock(EodReaderFactory.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        uut.stopAsync().awaitTerminated();
+    }
+
+    @Test
+    public void shouldPublishSyntheticTicksForSubscriptions() throws Exception {
+        when(configuration.getEmulatorSource()).thenReturn(EmulatorSource.Synthetic);
+        uut.startAsync().awaitRunning();
+
+        uut.subscribe(TEST_SID);
+
+        ArgumentCaptor<MarketDataRecord> captor = ArgumentCaptor.forClass(MarketDataRecord.class);
+        verify(marketDataService, timeout(WAIT).atLeast(5)).onMarketData(captor.capture());
+        assertThat(captor.getValue().getInstrumentId(), is(TEST_SID));
+    }
+
+    @Test
+    public void shouldPublishExtraSyntheticSymbols() throws Exception {
+        when(configuration.getEmulatorSource()).thenReturn(EmulatorSource.Synthetic);
+        when(configuration.getEmulatorSymbols()).thenReturn(1);
+        uut.startAsync().awaitRunning();
+
+        ArgumentCaptor<MarketDataRecord> captor = ArgumentCaptor.forClass(MarketDataRecord.class);
+        verify(marketDataService, timeout(WAIT).atLeast(1)).onMarketData(captor.capture());
+        assertThat(captor.getValue().getInstrumentId(), is(EmulatorChannel.SYNTHETIC_PREFIX + 0));
+    }
+
+    @Test
+    public void shouldNotPublishWithoutSource() throws Exception {
+        when(configuration.getEmulatorSource()).thenReturn(EmulatorSource.None);
+        uut.startAsync().awaitRunning();
+
+        uut.subscribe(TEST_SID);
+
+        Thread.sleep(200);
+        verify(marketDataService, never()).onMarketData(any(MarketDataRecord.class));
+    }
+
+    @Test
+    public void shouldNotPublishWithoutSubscriptions() throws Exception {
+        when(configuration.getEmulatorSource()).thenReturn(EmulatorSource.Synthetic);
+        uut.startAsync().awaitRunning();
+
+        Thread.sleep(200);
+        verify(marketDataService, never()).onMarketData(any(MarketDataRecord.class));
+    }
+
+    @Test
+    public void shouldStopPublishingOnceUnsubscribed() throws Exception {
+        when(configuration.getEmulatorSource()).thenReturn(EmulatorSource.Synthetic);
+        uut.startAsync().awaitRunning();
+        uut.subscribe(TEST_SID);
+        final AtomicInteger published = new AtomicInteger();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                published.incrementAndGet();
+                return null;
+            }
+        }).when(marketDataService).onMarketData(any(MarketDataRecord.class));
+        verify(marketDataService, timeout(WAIT).atLeast(1)).onMarketData(any(MarketDataRecord.class));
+
+        uut.unsubscribeAll();
+        Thread.sleep(50);
+        int settled = published.get();
+        Thread.sleep(200);
+
+        assertThat(published.get(), is(settled));
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.channel;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PacerTest {
+    @Test
+    public void shouldSpaceEventsAtRate() throws Exception {
+        Pacer uut = new Pacer(1000);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 21; ++i) {
+            uut.await();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        assertThat(elapsed >= TimeUnit.MILLISECONDS.toNanos(20), is(true));
+    }
+
+    @Test
+    public void shouldNotWaitWhenUnpaced() throws Exception {
+        Pacer uut = new Pacer(0);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 1000; ++i) {
+            uut.await();
+        }
+
+        assertThat(uut.getIntervalNanos(), is(0L));
+        assertThat(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNegativeRate() throws Exception {
+        new Pacer(-1);
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.channel;
+
+import com.google.common.collect.ImmutableList;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.services.md.eod.EodData;
+import com.zaradai.kunzite.trader.services.md.eod.EodIOException;
+import com.zaradai.kunzite.trader.services.md.eod.EodReader;
+import com.zaradai.kunzite.trader.services.md.eod.EodReaderFactory;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReplayTickSourceTest {
+    private static final String TEST_FOLDER = "folder";
+    private static final String TEST_SID_1 = "sid1";
+    private static final String TEST_SID_2 = "sid2";
+    private static final DateTime DAY_1 = new DateTime(2014, 1, 2, 0, 0);
+    private static final DateTime DAY_2 = new DateTime(2014, 1, 3, 0, 0);
+
+    private EodReaderFactory readerFactory;
+    private EodReader reader1;
+    private EodReader reader2;
+
+    @Before
+    public void setUp() throws Exception {
+        reader1 = mock(EodReader.class);
+        reader2 = mock(EodReader.class);
+        readerFactory = mock(EodReaderFactory.class);
+        when(readerFactory.create(TEST_FOLDER)).thenReturn(reader1, reader2);
+    }
+
+    @Test
+    public void shouldMergeSymbolsInDateOrder() throws Exception {
+        when(reader1.getNext()).thenReturn(bar(TEST_SID_1, DAY_1, 10.0), bar(TEST_SID_1, DAY_2, 11.0), null);
+        when(reader2.getNext()).thenReturn(bar(TEST_SID_2, DAY_1, 20.0), bar(TEST_SID_2, DAY_2, 21.0), null);
+        ReplayTickSource uut = createSource(false);
+
+        assertNext(uut, TEST_SID_1, 10.0);
+        assertNext(uut, TEST_SID_2, 20.0);
+        assertNext(uut, TEST_SID_1, 11.0);
+        assertNext(uut, TEST_SID_2, 21.0);
+        assertThat(uut.next(MarketDataRecord.newInstance()), is(false));
+    }
+
+    @Test
+    public void shouldPublishBarAsTradeAndRange() throws Exception {
+        when(reader1.getNext()).thenReturn(bar(TEST_SID_1, DAY_1, 10.0), null);
+        when(reader2.getNext()).thenReturn(null);
+        ReplayTickSource uut = createSource(false);
+        MarketDataRecord record = MarketDataRecord.newInstance();
+
+        uut.next(record);
+
+        assertThat(record.getTimestampNanos(), is(DAY_1.getMillis() * 1000000L));
+        assertThat(record.contains(MarketDataFieldType.OPEN), is(true));
+        assertThat(record.contains(MarketDataFieldType.HIGH), is(true));
+        assertThat(record.contains(MarketDataFieldType.LOW), is(true));
+        assertThat(record.contains(MarketDataFieldType.TRADE_SIZE), is(true));
+    }
+
+    @Test
+    public void shouldQuoteCloseForVolume() throws Exception {
+        when(reader1.getNext()).thenReturn(bar(TEST_SID_1, DAY_1, 10.0), null);
+        when(reader2.getNext()).thenReturn(null);
+        ReplayTickSource uut = createSource(false);
+        MarketDataRecord record = MarketDataRecord.newInstance();
+
+        uut.next(record);
+
+        assertThat(record.getType(5), is(MarketDataFieldType.BEST_BID));
+        assertThat(record.getDoubleValue(5), is(10.0));
+        assertThat(record.getType(6), is(MarketDataFieldType.BID_SIZE));
+        assertThat(record.getLongValue(6), is(1000L));
+        assertThat(record.getType(7), is(MarketDataFieldType.BEST_ASK));
+        assertThat(record.getDoubleValue(7), is(10.0));
+        assertThat(record.getType(8), is(MarketDataFieldType.ASK_SIZE));
+        assertThat(record.getLongValue(8), is(1000L));
+    }
+
+    @Test
+    public void shouldSkipSymbolsWithoutFile() throws Exception {
+        doThrow(new EodIOException("missing")).when(reader1).open(TEST_SID_1);
+        when(reader2.getNext()).thenReturn(bar(TEST_SID_2, DAY_1, 20.0), null);
+        ReplayTickSource uut = createSource(false);
+
+        assertNext(uut, TEST_SID_2, 20.0);
+        assertThat(uut.next(MarketDataRecord.newInstance()), is(false));
+    }
+
+    @Test
+    public void shouldStartAgainWhenLooping() throws Exception {
+        EodReader reader3 = mock(EodReader.class);
+        EodReader reader4 = mock(EodReader.class);
+        when(readerFactory.create(TEST_FOLDER)).thenReturn(reader1, reader2, reader3, reader4);
+        when(reader1.getNext()).thenReturn(bar(TEST_SID_1, DAY_1, 10.0), null);
+        when(reader2.getNext()).thenReturn(null);
+        when(reader3.getNext()).thenReturn(bar(TEST_SID_1, DAY_1, 10.0), null);
+        when(reader4.getNext()).thenReturn(null);
+        ReplayTickSource uut = createSource(true);
+
+        assertNext(uut, TEST_SID_1, 10.0);
+        assertNext(uut, TEST_SID_1, 10.0);
+        verify(reader1).close();
+        verify(reader2).close();
+    }
+
+    private ReplayTickSource createSource(boolean loop) {
+        ReplayTickSource res = new ReplayTickSource(ContextLoggerMocker.create(), readerFactory, TEST_FOLDER, loop);
+        res.open(ImmutableList.of(TEST_SID_1, TEST_SID_2));
+
+        return res;
+    }
+
+    private void assertNext(ReplayTickSource uut, String sid, double close) {
+        MarketDataRecord record = MarketDataRecord.newInstance();
+
+        assertThat(uut.next(record), is(true));
+        assertThat(record.getInstrumentId(), is(sid));
+        assertThat(record.getType(3), is(MarketDataFieldType.TRADE_PRICE));
+        assertThat(record.getDoubleValue(3), is(close));
+    }
+
+    private EodData bar(String sid, DateTime date, double close) {
+        EodData res = new EodData(date);
+        res.setSymbol(sid);
+        res.setOpen(close);
+        res.setHigh(close);
+        res.setLow(close);
+        res.setClose(close);
+        res.setVolume(1000);
+
+        return res;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.channel;
+
+import com.google.common.collect.ImmutableList;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SyntheticTickSourceTest {
+    private static final String TEST_SID_1 = "sid1";
+    private static final String TEST_SID_2 = "sid2";
+
+    @Test
+    public void shouldTickSymbolsInTurn() throws Exception {
+        SyntheticTickSource uut = new SyntheticTickSource(1, 1L);
+        uut.open(ImmutableList.of(TEST_SID_1, TEST_SID_2));
+
+        assertThat(next(uut).getInstrumentId(), is(TEST_SID_1));
+        assertThat(next(uut).getInstrumentId(), is(TEST_SID_2));
+        assertThat(next(uut).getInstrumentId(), is(TEST_SID_1));
+    }
+
+    @Test
+    public void shouldPublishTopOfBook() throws Exception {
+        SyntheticTickSource uut = new SyntheticTickSource(1, 1L);
+        uut.open(ImmutableList.of(TEST_SID_1));
+
+        MarketDataRecord record = next(uut);
+
+        assertThat(record.size(), is(4));
+        assertThat(record.getType(0), is(MarketDataFieldType.BEST_BID));
+        assertThat(record.getType(2), is(MarketDataFieldType.BEST_ASK));
+        assertThat(record.getDoubleValue(2) > record.getDoubleValue(0), is(true));
+    }
+
+    @Test
+    public void shouldPublishFullDepth() throws Exception {
+        SyntheticTickSource uut = new SyntheticTickSource(SyntheticTickSource.MAX_DEPTH, 1L);
+        uut.open(ImmutableList.of(TEST_SID_1));
+
+        MarketDataRecord record = next(uut);
+
+        assertThat(record.size(), is(4 * SyntheticTickSource.MAX_DEPTH));
+        assertThat(record.contains(MarketDataFieldType.BEST_ASK10), is(true));
+        assertThat(record.contains(MarketDataFieldType.BID10_SIZE), is(true));
+    }
+
+    @Test
+    public void shouldReplaySameStreamWhenReopened() throws Exception {
+        SyntheticTickSource uut = new SyntheticTickSource(1, 1L);
+        uut.open(ImmutableList.of(TEST_SID_1));
+        double first = next(uut).getDoubleValue(0);
+        double second = next(uut).getDoubleValue(0);
+
+        uut.open(ImmutableList.of(TEST_SID_1));
+
+        assertThat(next(uut).getDoubleValue(0), is(first));
+        assertThat(next(uut).getDoubleValue(0), is(second));
+    }
+
+    @Test
+    public void shouldHaveNothingWithoutSymbols() throws Exception {
+        SyntheticTickSource uut = new SyntheticTickSource(1, 1L);
+
+        assertThat(uut.next(MarketDataRecord.newInstance()), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowDepthBeyondFeed() throws Exception {
+        new SyntheticTickSource(SyntheticTickSource.MAX_DEPTH + 1, 1L);
+    }
+
+    private MarketDataRecord next(SyntheticTickSource uut) {
+        MarketDataRecord res = MarketDataRecord.newInstance();
+        assertThat(uut.next(res), is(true));
+
+        return res;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.md.eod;
+
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EodMergerTest {
+    private static final DateTime DAY_1 = new DateTime(2014, 1, 2, 0, 0);
+    private static final DateTime DAY_2 = new DateTime(2014, 1, 3, 0, 0);
+    private static final DateTime DAY_3 = new DateTime(2014, 1, 6, 0, 0);
+
+    @Test
+    public void shouldMergeInDateOrder() throws Exception {
+        EodReader reader1 = reader(bar("a", DAY_1), bar("a", DAY_3));
+        EodReader reader2 = reader(bar("b", DAY_2));
+        EodMerger uut = new EodMerger(ImmutableList.of(reader1, reader2));
+
+        assertThat(uut.next().getSymbol(), is("a"));
+        assertThat(uut.next().getSymbol(), is("b"));
+        assertThat(uut.next().getDate(), is(DAY_3));
+        assertThat(uut.next(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldTakeSameDateInReaderOrder() throws Exception {
+        EodReader reader1 = reader(bar("a", DAY_1));
+        EodReader reader2 = reader(bar("b", DAY_1));
+        EodReader reader3 = reader(bar("c", DAY_1));
+        EodMerger uut = new EodMerger(ImmutableList.of(reader3, reader1, reader2));
+
+        assertThat(uut.peekReader(), is(0));
+        assertThat(uut.next().getSymbol(), is("c"));
+        assertThat(uut.peekReader(), is(1));
+        assertThat(uut.next().getSymbol(), is("a"));
+        assertThat(uut.peekReader(), is(2));
+        assertThat(uut.next().getSymbol(), is("b"));
+        assertThat(uut.peekReader(), is(-1));
+    }
+
+    @Test
+    public void shouldSkipEmptyReaders() throws Exception {
+        EodReader empty = reader();
+        EodReader reader = reader(bar("a", DAY_1));
+        EodMerger uut = new EodMerger(ImmutableList.of(empty, reader));
+
+        assertThat(uut.peekReader(), is(1));
+        assertThat(uut.next().getSymbol(), is("a"));
+        assertThat(uut.next(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldHandleNoReaders() throws Exception {
+        EodMerger uut = new EodMerger(Collections.<EodReader>emptyList());
+
+        assertThat(uut.peekReader(), is(-1));
+        assertThat(uut.next(), is(nullValue()));
+    }
+
+    private EodReader reader(EodData... bars) {
+        EodReader res = mock(EodReader.class);
+        EodData[] rest = new EodData[bars.length];
+
+        for (int i = 1; i < bars.length; ++i) {
+            rest[i - 1] = bars[i];
+        }
+        when(res.getNext()).thenReturn((bars.length > 0) ? bars[0] : null, rest);
+
+        return res;
+    }
+
+    private EodData bar(String symbol, DateTime date) {
+        EodData res = new EodData(date);
+        res.setSymbol(symbol);
+
+        return res;
+    }
+}
@@ -20,14 +20,17 @@ import com.google.common.collect.Maps;
 import com.zaradai.kunzite.events.EventAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.trader.config.ConfigException;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.config.orders.GatewayConfig;
 import com.zaradai.kunzite.trader.config.orders.OrderGatewayConfiguration;
 import com.zaradai.kunzite.trader.events.OrderSendEvent;
+import com.zaradai.kunzite.trader.events.OrderSendEventPool;
 import com.zaradai.kunzite.trader.events.OrderStatus;
 import com.zaradai.kunzite.trader.events.OrderStatusEvent;
 import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
 import com.zaradai.kunzite.trader.orders.model.NewOrder;
 import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
 import com.zaradai.kunzite.trader.services.trader.DefaultTraderService;
 import org.junit.Before;
 import org.junit.Test;
@@ -39,6 +42,7 @@ import org.mockito.MockitoAnnotations;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
@@ -59,6 +63,8 @@ public class DefaultOrderGatewayServiceTest {
     @Captor
     ArgumentCaptor<OrderStatusEvent> statusEventArgumentCaptor;
     private MetricRegistry metricRegistry;
+    private TraderConfiguration traderConfiguration;
+    private TimeBase timeBase;
 
     @Before
     public void setUp() throws Exception {
@@ -69,8 +75,10 @@ public class DefaultOrderGatewayServiceTest {
         traderService = mock(DefaultTraderService.class);
         orderGatewayFactory = mock(OrderGatewayFactory.class);
         metricRegistry = mock(MetricRegistry.class);
-        uut = new DefaultOrderGatewayService(logger, metricRegistry, eventAggregator, traderService,
-                orderGatewayFactory) {
+        traderConfiguration = mock(TraderConfiguration.class);
+        timeBase = mock(TimeBase.class);
+        uut = new DefaultOrderGatewayService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
             @Override
             protected BlockingQueue<Object> createQueue() {
                 return mockQueue;
@@ -91,10 +99,11 @@ public class DefaultOrderGatewayServiceTest {
     @Test
     public void shouldProcessOrderStatusEvent() throws Exception {
         OrderStatusEvent orderStatusEvent = mock(OrderStatusEvent.class);
+        when(orderStatusEvent.getInstrumentIndex()).thenReturn(3);
 
         uut.handleEvent(orderStatusEvent);
 
-        verify(traderService).onTraderEvent(orderStatusEvent);
+        verify(traderService).onTraderEvent(3, orderStatusEvent);
     }
 
     @Test
@@ -106,8 +115,8 @@ public class DefaultOrderGatewayServiceTest {
         OrderGateway gateway = mock(OrderGateway.class);
         when(gatewayMap.get(TEST_MARKET_ID)).thenReturn(gateway);
 
-        uut = new DefaultOrderGatewayService(logger, metricRegistry, eventAggregator, traderService,
-                orderGatewayFactory) {
+        uut = new DefaultOrderGatewayService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
             @Override
             protected Map<String, OrderGateway> createGatewayMap() {
                 return gatewayMap;
@@ -121,6 +130,47 @@ public class DefaultOrderGatewayServiceTest {
         verify(gateway).processOrder(order);
     }
 
+    @Test
+    public void shouldProcessOrdersForSameMarketAsBatch() throws Exception {
+        OrderGateway gateway = mock(OrderGateway.class);
+        when(gatewayMap.get(TEST_MARKET_ID)).thenReturn(gateway);
+        uut = new DefaultOrderGatewayService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
+            @Override
+            protected Map<String, OrderGateway> createGatewayMap() {
+                return gatewayMap;
+            }
+        };
+        OrderSendEvent sendEvent = OrderSendEvent.newInstance();
+        sendEvent.add(createOrder(TEST_MARKET_ID));
+        sendEvent.add(createOrder(TEST_MARKET_ID));
+
+        uut.handleEvent(sendEvent);
+
+        verify(gateway).processOrders(anyListOf(NewOrder.class));
+        verify(gateway, never()).processOrder(any(NewOrder.class));
+        verify(gatewayMap, times(1)).get(TEST_MARKET_ID);
+    }
+
+    private NewOrder createOrder(String marketId) {
+        NewOrder res = mock(NewOrder.class);
+        OrderRefData refData = mock(OrderRefData.class);
+        when(res.getRefData()).thenReturn(refData);
+        when(refData.getMarketId()).thenReturn(marketId);
+
+        return res;
+    }
+
+    @Test
+    public void shouldRecycleSendEventOnceProcessed() throws Exception {
+        OrderSendEventPool pool = new OrderSendEventPool(1);
+        OrderSendEvent sendEvent = pool.acquire();
+
+        uut.handleEvent(sendEvent);
+
+        assertThat(pool.available(), is(1));
+    }
+
     @Test
     public void shouldProcessInvalidGatewayForOrder() throws Exception {
         NewOrder order = mock(NewOrder.class);
@@ -128,8 +178,9 @@ public class DefaultOrderGatewayServiceTest {
         when(order.getRefData()).thenReturn(refData);
         when(refData.getMarketId()).thenReturn(TEST_MARKET_ID);
         when(gatewayMap.get(TEST_MARKET_ID)).thenReturn(null);
-        uut = new DefaultOrderGatewayService(logger, metricRegistry, eventAggregator, traderService,
-                orderGatewayFactory) {
+        when(timeBase.now()).thenReturn(1234L);
+        uut = new DefaultOrderGatewayService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
             @Override
             protected Map<String, OrderGateway> createGatewayMap() {
                 return gatewayMap;
@@ -147,6 +198,7 @@ public class DefaultOrderGatewayServiceTest {
 
         verify(mockQueue).put(statusEventArgumentCaptor.capture());
         assertThat(statusEventArgumentCaptor.getValue().getOrderStatus(), is(OrderStatus.NoExchange));
+        assertThat(statusEventArgumentCaptor.getValue().getTimestampMillis(), is(1234L));
         verify(logger).error();
     }
 
@@ -174,8 +226,8 @@ public class DefaultOrderGatewayServiceTest {
         OrderGateway gateway = mock(OrderGateway.class);
         when(gateway.startAsync()).thenReturn(gateway);
         gateways.put(TEST_MARKET_ID, gateway);
-        uut = new DefaultOrderGatewayService(logger, metricRegistry, eventAggregator, traderService,
-                orderGatewayFactory) {
+        uut = new DefaultOrderGatewayService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
             @Override
             protected Map<String, OrderGateway> createGatewayMap() {
                 return gateways;
@@ -195,8 +247,8 @@ public class DefaultOrderGatewayServiceTest {
         OrderGateway gateway = mock(OrderGateway.class);
         when(gateway.stopAsync()).thenReturn(gateway);
         gateways.put(TEST_MARKET_ID, gateway);
-        uut = new DefaultOrderGatewayService(logger, metricRegistry, eventAggregator, traderService,
-                orderGatewayFactory) {
+        uut = new DefaultOrderGatewayService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
             @Override
             protected Map<String, OrderGateway> createGatewayMap() {
                 return gateways;
@@ -219,8 +271,8 @@ public class DefaultOrderGatewayServiceTest {
         ogc.add(config);
         OrderGateway gateway = mock(OrderGateway.class);
         when(orderGatewayFactory.create(TEST_GATEWAY_NAME)).thenReturn(gateway);
-        uut = new DefaultOrderGatewayService(logger, metricRegistry, eventAggregator, traderService,
-                orderGatewayFactory) {
+        uut = new DefaultOrderGatewayService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
             @Override
             protected Map<String, OrderGateway> createGatewayMap() {
                 return gatewayMap;
@@ -232,6 +284,33 @@ public class DefaultOrderGatewayServiceTest {
         verify(gatewayMap).put(TEST_MARKET_ID, gateway);
     }
 
+    @Test
+    public void shouldRunGatewaysOnSendersWhenConfigured() throws Exception {
+        GatewayConfig config = new GatewayConfig();
+        config.setClazz(TEST_GATEWAY_NAME);
+        config.setMarket(TEST_MARKET_ID);
+        OrderGatewayConfiguration ogc = new OrderGatewayConfiguration();
+        ogc.add(config);
+        OrderGateway gateway = mock(OrderGateway.class);
+        when(orderGatewayFactory.create(TEST_GATEWAY_NAME)).thenReturn(gateway);
+        when(traderConfiguration.getGatewayExecution()).thenReturn(GatewayExecution.Sender);
+        when(traderConfiguration.getGatewayQueueSize()).thenReturn(16);
+        when(traderConfiguration.getGatewayBatchSize()).thenReturn(4);
+        final Map<String, OrderGateway> gateways = Maps.newHashMap();
+        uut = new DefaultOrderGatewayService(logger, new MetricRegistry(), traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
+            @Override
+            protected Map<String, OrderGateway> createGatewayMap() {
+                return gateways;
+            }
+        };
+
+        uut.build(ogc);
+
+        assertThat(gateways.get(TEST_MARKET_ID), is(instanceOf(GatewaySender.class)));
+        assertThat(((GatewaySender) gateways.get(TEST_MARKET_ID)).getGateway(), is(gateway));
+    }
+
     @Test
     public void shouldLogIfFailToCreateGateway() throws Exception {
         GatewayConfig config = new GatewayConfig();
@@ -240,8 +319,8 @@ public class DefaultOrderGatewayServiceTest {
         OrderGatewayConfiguration ogc = new OrderGatewayConfiguration();
         ogc.add(config);
         doThrow(GatewayException.class).when(orderGatewayFactory).create(TEST_GATEWAY_NAME);
-        uut = new DefaultOrderGatewayService(logger, metricRegistry, eventAggregator, traderService,
-                orderGatewayFactory) {
+        uut = new DefaultOrderGatewayService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
             @Override
             protected Map<String, OrderGateway> createGatewayMap() {
                 return gatewayMap;
@@ -266,8 +345,8 @@ public class DefaultOrderGatewayServiceTest {
         OrderGatewayConfiguration ogc = new OrderGatewayConfiguration();
         ogc.add(config);
         doThrow(GatewayException.class).when(orderGatewayFactory).create(TEST_GATEWAY_NAME);
-        uut = new DefaultOrderGatewayService(logger, metricRegistry, eventAggregator, traderService,
-                orderGatewayFactory) {
+        uut = new DefaultOrderGatewayService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, traderService, orderGatewayFactory, timeBase) {
             @Override
             protected Map<String, OrderGateway> createGatewayMap() {
                 return gatewayMap;
@@ -0,0 +1,248 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.services.timer.TimeBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GatewaySenderTest {
+    private static final String TEST_MARKET_ID = "mkt";
+    private static final String TEST_GATEWAY_NAME = "gateway";
+    private static final int WAIT = 5000;
+    private static final long TEST_NOW = 1234L;
+
+    private ContextLogger logger;
+    private MetricRegistry metricRegistry;
+    private OrderGatewayService orderGatewayService;
+    private TimeBase timeBase;
+    private OrderGateway gateway;
+    private AtomicInteger sent;
+    private GatewaySender uut;
+
+    @Before
+    public void setUp() throws Exception {
+        logger = ContextLoggerMocker.create();
+        metricRegistry = new MetricRegistry();
+        orderGatewayService = mock(OrderGatewayService.class);
+        timeBase = mock(TimeBase.class);
+        when(timeBase.now()).thenReturn(TEST_NOW);
+        gateway = mock(OrderGateway.class);
+        when(gateway.startAsync()).thenReturn(gateway);
+        when(gateway.stopAsync()).thenReturn(gateway);
+        when(gateway.getName()).thenReturn(TEST_GATEWAY_NAME);
+        sent = new AtomicInteger();
+        // the batch list is re-used, count what was in it
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                sent.addAndGet(((List<?>) invocation.getArguments()[0]).size());
+                return null;
+            }
+        }).when(gateway).processOrders(anyListOf(NewOrder.class));
+        uut = createSender();
+    }
+
+    private GatewaySender createSender() {
+        return new GatewaySender(logger, metricRegistry, orderGatewayService, timeBase, gateway, TEST_MARKET_ID, 2, 8);
+    }
+
+    private NewOrder order() {
+        NewOrder res = mock(NewOrder.class);
+        when(res.getRefData()).thenReturn(mock(OrderRefData.class));
+
+        return res;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (uut.isRunning()) {
+            uut.stopAsync().awaitTerminated();
+        }
+    }
+
+    @Test
+    public void shouldGetNameOfGateway() throws Exception {
+        assertThat(uut.getName(), is(TEST_GATEWAY_NAME));
+    }
+
+    @Test
+    public void shouldStartAndStopGateway() throws Exception {
+        uut.startAsync().awaitRunning();
+        uut.stopAsync().awaitTerminated();
+
+        verify(gateway).startAsync();
+        verify(gateway).stopAsync();
+    }
+
+    @Test
+    public void shouldSendQueuedOrdersOnSenderThread() throws Exception {
+        uut.startAsync().awaitRunning();
+
+        uut.processOrders(Lists.newArrayList(mock(NewOrder.class), mock(NewOrder.class)));
+
+        verify(gateway, timeout(WAIT).atLeastOnce()).processOrders(anyListOf(NewOrder.class));
+        uut.stopAsync().awaitTerminated();
+        assertThat(sent.get(), is(2));
+        assertThat(metricRegistry.meter(name(GatewaySender.class, TEST_MARKET_ID, GatewaySender.METRIC_SENT))
+                .getCount(), is(2L));
+    }
+
+    @Test
+    public void shouldPublishQueueDepth() throws Exception {
+        uut.processOrder(mock(NewOrder.class));
+
+        Gauge depth = metricRegistry.getGauges().get(name(GatewaySender.class, TEST_MARKET_ID,
+                GatewaySender.METRIC_DEPTH));
+
+        assertThat((Integer) depth.getValue(), is(1));
+        assertThat(uut.getQueueDepth(), is(1));
+    }
+
+    @Test
+    public void shouldRejectAndMarkBackpressureWhenQueueFull() throws Exception {
+        uut.processOrder(order());
+        uut.processOrder(order());
+        NewOrder order = order();
+
+        uut.processOrder(order);
+
+        assertRejected();
+        verify(order).recycle();
+        assertThat(uut.getQueueDepth(), is(2));
+        assertThat(metricRegistry.meter(name(GatewaySender.class, TEST_MARKET_ID,
+                GatewaySender.METRIC_BACKPRESSURE)).getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldRejectOrdersOnceStopped() throws Exception {
+        uut.startAsync().awaitRunning();
+        uut.stopAsync().awaitTerminated();
+
+        uut.processOrder(order());
+
+        assertRejected();
+        assertThat(uut.getQueueDepth(), is(0));
+        verify(gateway, never()).processOrders(anyListOf(NewOrder.class));
+    }
+
+    private void assertRejected() {
+        ArgumentCaptor<OrderStatusEvent> captor = ArgumentCaptor.forClass(OrderStatusEvent.class);
+        verify(orderGatewayService).onOrderStatus(captor.capture());
+        assertThat(captor.getValue().getOrderStatus(), is(OrderStatus.Rejected));
+        assertThat(captor.getValue().getTimestampMillis(), is(TEST_NOW));
+    }
+
+    @Test
+    public void shouldTakeOverDepthGaugeWhenRecreated() throws Exception {
+        uut.processOrder(order());
+
+        GatewaySender recreated = createSender();
+
+        assertThat((Integer) getDepthGauge().getValue(), is(0));
+        recreated.processOrder(order());
+        assertThat((Integer) getDepthGauge().getValue(), is(1));
+    }
+
+    @Test
+    public void shouldRemoveDepthGaugeOnceStopped() throws Exception {
+        uut.startAsync().awaitRunning();
+        uut.stopAsync().awaitTerminated();
+
+        assertThat(getDepthGauge() == null, is(true));
+    }
+
+    @Test
+    public void shouldLeaveDepthGaugeOfSenderTakingOver() throws Exception {
+        uut.startAsync().awaitRunning();
+        GatewaySender recreated = createSender();
+
+        uut.stopAsync().awaitTerminated();
+
+        recreated.processOrder(order());
+        assertThat((Integer) getDepthGauge().getValue(), is(1));
+    }
+
+    private Gauge getDepthGauge() {
+        return metricRegistry.getGauges().get(name(GatewaySender.class, TEST_MARKET_ID, GatewaySender.METRIC_DEPTH));
+    }
+
+    @Test
+    public void shouldSendRemainingOrdersOnShutdown() throws Exception {
+        uut.processOrder(mock(NewOrder.class));
+        uut.processOrder(mock(NewOrder.class));
+
+        uut.startAsync().awaitRunning();
+        uut.stopAsync().awaitTerminated();
+
+        assertThat(sent.get(), is(2));
+    }
+
+    @Test
+    public void shouldRejectBatchTheGatewayFailsToTake() throws Exception {
+        doThrow(new IllegalStateException("down")).when(gateway).processOrders(anyListOf(NewOrder.class));
+        NewOrder order1 = order();
+        NewOrder order2 = order();
+        uut.processOrder(order1);
+        uut.processOrder(order2);
+
+        uut.startAsync().awaitRunning();
+        uut.stopAsync().awaitTerminated();
+
+        ArgumentCaptor<OrderStatusEvent> captor = ArgumentCaptor.forClass(OrderStatusEvent.class);
+        verify(orderGatewayService, times(2)).onOrderStatus(captor.capture());
+        assertThat(captor.getAllValues().get(0).getOrderStatus(), is(OrderStatus.Rejected));
+        assertThat(captor.getAllValues().get(1).getOrderStatus(), is(OrderStatus.Rejected));
+        verify(order1).recycle();
+        verify(order2).recycle();
+        assertThat(metricRegistry.meter(name(GatewaySender.class, TEST_MARKET_ID, GatewaySender.METRIC_SENT))
+                .getCount(), is(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWithInvalidQueueSize() throws Exception {
+        new GatewaySender(logger, new MetricRegistry(), orderGatewayService, timeBase, gateway, TEST_MARKET_ID, 0, 8);
+    }
+}
@@ -15,23 +15,31 @@
  */
 package com.zaradai.kunzite.trader.services.orders.gateway;
 
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.events.OrderStatus;
 import com.zaradai.kunzite.trader.events.OrderStatusEvent;
 import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.orders.model.NewOrderPool;
 import com.zaradai.kunzite.trader.orders.model.OrderRefData;
 import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
 import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
+import com.zaradai.kunzite.trader.services.timer.SimulatedTimeBase;
+import com.zaradai.kunzite.trader.services.timer.SystemTimeBase;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.MockitoAnnotations;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class EmulatorGatewayTest {
     private static final String TEST_ALGO_ID = "algoId";
@@ -67,6 +75,22 @@ public class EmulatorGatewayTest {
         assertThat(orderStatusEventArgumentCaptor.getAllValues().get(1).getOrderStatus(), is(OrderStatus.Filled));
     }
 
+    @Test
+    public void shouldStampStatusFromTimeBase() throws Exception {
+        uut = new EmulatorGateway(orderGatewayService, new SimulatedTimeBase(1234L));
+        NewOrder order = new NewOrder();
+        order.setRefData(OrderRefData.builder().id(TEST_ORDER_ID).algo(TEST_ALGO_ID).build());
+        order.setRequestType(OrderRequestType.Create);
+        order.setPrice(TEST_PRICE);
+        order.setQuantity(TEST_QUANTITY);
+
+        uut.processOrder(order);
+
+        verify(orderGatewayService, times(2)).onOrderStatus(orderStatusEventArgumentCaptor.capture());
+        assertThat(orderStatusEventArgumentCaptor.getAllValues().get(0).getTimestampMillis(), is(1234L));
+        assertThat(orderStatusEventArgumentCaptor.getAllValues().get(1).getTimestampMillis(), is(1234L));
+    }
+
     @Test
     public void shouldFillAmendedOrder() throws Exception {
         NewOrder order = new NewOrder();
@@ -95,6 +119,62 @@ public class EmulatorGatewayTest {
         assertThat(orderStatusEventArgumentCaptor.getAllValues().get(1).getOrderStatus(), is(OrderStatus.Cancelled));
     }
 
+    @Test
+    public void shouldRecycleProcessedOrder() throws Exception {
+        NewOrderPool pool = new NewOrderPool(1);
+        NewOrder order = pool.acquire();
+        order.getRefData().setOrderId(TEST_ORDER_ID);
+        order.setRequestType(OrderRequestType.Create);
+
+        uut.processOrder(order);
+
+        assertThat(pool.available(), is(1));
+    }
+
+    @Test
+    public void shouldFillBatchOfOrders() throws Exception {
+        NewOrder first = new NewOrder();
+        first.setRefData(OrderRefData.builder().id(TEST_ORDER_ID).algo(TEST_ALGO_ID).build());
+        first.setRequestType(OrderRequestType.Create);
+        NewOrder second = new NewOrder();
+        second.setRefData(OrderRefData.builder().id(TEST_ORDER_ID).algo(TEST_ALGO_ID).build());
+        second.setRequestType(OrderRequestType.Cancel);
+
+        uut.processOrders(Lists.newArrayList(first, second));
+
+        verify(orderGatewayService, times(4)).onOrderStatus(orderStatusEventArgumentCaptor.capture());
+        assertThat(orderStatusEventArgumentCaptor.getAllValues().get(1).getOrderStatus(), is(OrderStatus.Filled));
+        assertThat(orderStatusEventArgumentCaptor.getAllValues().get(3).getOrderStatus(), is(OrderStatus.Cancelled));
+    }
+
+    @Test
+    public void shouldWaitForVenueLatency() throws Exception {
+        NewOrder order = new NewOrder();
+        order.setRefData(OrderRefData.builder().id(TEST_ORDER_ID).algo(TEST_ALGO_ID).build());
+        order.setRequestType(OrderRequestType.Create);
+        uut.setLatencyMicros(5000);
+        long start = System.nanoTime();
+
+        uut.processOrder(order);
+
+        assertThat(System.nanoTime() - start >= TimeUnit.MICROSECONDS.toNanos(5000), is(true));
+    }
+
+    @Test
+    public void shouldGetLatencyFromConfiguration() throws Exception {
+        TraderConfiguration configuration = mock(TraderConfiguration.class);
+        when(configuration.getEmulatorLatencyMicros()).thenReturn(250L);
+
+        uut = new EmulatorGateway(orderGatewayService, configuration, new SystemTimeBase());
+
+        assertThat(uut.getLatencyMicros(), is(250L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWithNegativeLatency() throws Exception {
+        uut.setLatencyMicros(-1);
+    }
+
     @Test
     public void shouldGetGatewayName() throws Exception {
         assertThat(uut.getName(), is(EmulatorGateway.GATEWAY_NAME));
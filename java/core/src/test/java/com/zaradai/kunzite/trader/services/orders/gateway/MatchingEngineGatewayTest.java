@@ -0,0 +1,204 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway;
+
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.events.EventAggregator;
+import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.marketdata.ArrayMarketBook;
+import com.zaradai.kunzite.trader.marketdata.MarketBookFactory;
+import com.zaradai.kunzite.trader.marketdata.TableMarketBookUpdater;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
+import com.zaradai.kunzite.trader.services.orders.gateway.matching.LatencyModel;
+import com.zaradai.kunzite.trader.services.timer.SystemTimeBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MatchingEngineGatewayTest {
+    private static final int WAIT = 2000;
+    private static final int QUEUE_SIZE = 1024;
+    private static final String TEST_INSTRUMENT_ID = "instrumentId";
+    private static final double TEST_PRICE = 42.42;
+    private static final long FILL_LATENCY_MICROS = 500000;
+    private static final long ACK_LATENCY_MICROS = 10000000;
+
+    private OrderGatewayService orderGatewayService;
+    private EventAggregator eventAggregator;
+    private MatchingEngineGateway uut;
+
+    @Before
+    public void setUp() throws Exception {
+        orderGatewayService = mock(OrderGatewayService.class);
+        eventAggregator = mock(EventAggregator.class);
+        TraderConfiguration configuration = mock(TraderConfiguration.class);
+        when(configuration.getGatewayQueueSize()).thenReturn(QUEUE_SIZE);
+        when(configuration.getGatewayBatchSize()).thenReturn(64);
+        when(configuration.getEmulatorLatencyModel()).thenReturn(LatencyModel.Fixed);
+        Instrument instrument = mock(Instrument.class);
+        when(instrument.getId()).thenReturn(TEST_INSTRUMENT_ID);
+        InstrumentResolver instrumentResolver = mock(InstrumentResolver.class);
+        when(instrumentResolver.resolveInstrument(TEST_INSTRUMENT_ID)).thenReturn(instrument);
+        MarketBookFactory marketBookFactory = mock(MarketBookFactory.class);
+        when(marketBookFactory.create(instrument)).thenReturn(new ArrayMarketBook(instrument, 5));
+
+        uut = new MatchingEngineGateway(mock(ContextLogger.class), orderGatewayService, configuration,
+                instrumentResolver, mock(MarketResolver.class), marketBookFactory, new TableMarketBookUpdater(),
+                new SystemTimeBase(), eventAggregator);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (uut.isRunning()) {
+            uut.stopAsync().awaitTerminated();
+        }
+    }
+
+    @Test
+    public void shouldMatchOrdersOnVenueThread() throws Exception {
+        uut.startAsync().awaitRunning();
+
+        uut.processOrders(Lists.newArrayList(order("sell", OrderSide.Sell), order("buy", OrderSide.Buy)));
+
+        assertStatuses(4, OrderStatus.New, OrderStatus.New, OrderStatus.Filled, OrderStatus.Filled);
+    }
+
+    @Test
+    public void shouldFillAgainstMarketDataFedToVenue() throws Exception {
+        uut.startAsync().awaitRunning();
+        MarketDataRecord record = MarketDataRecord.newInstance()
+                .setInstrumentId(TEST_INSTRUMENT_ID)
+                .addDoubleValue(MarketDataFieldType.BEST_ASK, TEST_PRICE)
+                .addLongValue(MarketDataFieldType.ASK_SIZE, 100);
+
+        uut.onMarketData(record);
+        uut.processOrder(order("buy", OrderSide.Buy));
+
+        assertStatuses(2, OrderStatus.New, OrderStatus.Filled);
+        // the venue worked from its own copy
+        assertThat(record.size(), is(2));
+    }
+
+    @Test
+    public void shouldDropMarketDataRatherThanWaitForVenue() throws Exception {
+        MarketDataRecord record = MarketDataRecord.newInstance()
+                .setInstrumentId(TEST_INSTRUMENT_ID)
+                .addDoubleValue(MarketDataFieldType.BEST_ASK, TEST_PRICE);
+        // venue not started, nothing drains the queue
+        for (int i = 0; i < QUEUE_SIZE; ++i) {
+            uut.onMarketData(record);
+        }
+
+        assertThat(uut.getDroppedMarketData(), is(0L));
+
+        uut.onMarketData(record);
+
+        assertThat(uut.getDroppedMarketData(), is(1L));
+    }
+
+    @Test
+    public void shouldListenToMarketDataWhileRunning() throws Exception {
+        uut.startAsync().awaitRunning();
+
+        verify(eventAggregator).subscribe(uut);
+
+        uut.stopAsync().awaitTerminated();
+
+        verify(eventAggregator).unsubscribe(uut);
+    }
+
+    @Test
+    public void shouldDelayFillsByFillLatency() throws Exception {
+        uut.setLatency(LatencyModel.Fixed.create(0, 0, new Random()),
+                LatencyModel.Fixed.create(FILL_LATENCY_MICROS, 0, new Random()));
+        uut.startAsync().awaitRunning();
+
+        uut.processOrders(Lists.newArrayList(order("sell", OrderSide.Sell), order("buy", OrderSide.Buy)));
+
+        verify(orderGatewayService, timeout(WAIT).times(2)).onOrderStatus(any(OrderStatusEvent.class));
+        verify(orderGatewayService, times(2)).onOrderStatus(any(OrderStatusEvent.class));
+        assertStatuses(4, OrderStatus.New, OrderStatus.New, OrderStatus.Filled, OrderStatus.Filled);
+    }
+
+    @Test
+    public void shouldReleaseInFlightOrdersWhenStopped() throws Exception {
+        uut.setLatency(LatencyModel.Fixed.create(ACK_LATENCY_MICROS, 0, new Random()),
+                LatencyModel.Fixed.create(0, 0, new Random()));
+        uut.startAsync().awaitRunning();
+        uut.processOrder(order("buy", OrderSide.Buy));
+
+        uut.stopAsync().awaitTerminated();
+
+        ArgumentCaptor<OrderStatusEvent> captor = ArgumentCaptor.forClass(OrderStatusEvent.class);
+        verify(orderGatewayService).onOrderStatus(captor.capture());
+        assertThat(captor.getValue().getOrderStatus(), is(OrderStatus.New));
+    }
+
+    @Test
+    public void shouldHaveName() throws Exception {
+        assertThat(uut.getName(), is(MatchingEngineGateway.GATEWAY_NAME));
+    }
+
+    private void assertStatuses(int count, OrderStatus... statuses) {
+        ArgumentCaptor<OrderStatusEvent> captor = ArgumentCaptor.forClass(OrderStatusEvent.class);
+        verify(orderGatewayService, timeout(WAIT).times(count)).onOrderStatus(captor.capture());
+        List<OrderStatusEvent> events = captor.getAllValues();
+
+        for (int i = 0; i < statuses.length; ++i) {
+            assertThat(events.get(i).getOrderStatus(), is(statuses[i]));
+        }
+    }
+
+    private NewOrder order(String orderId, OrderSide side) {
+        NewOrder res = new NewOrder();
+        res.setRefData(OrderRefData.builder().id(orderId).instrument(TEST_INSTRUMENT_ID).build());
+        res.setRequestType(OrderRequestType.Create);
+        res.setSide(side);
+        res.setType(OrderType.Limit);
+        res.setTimeInForce(OrderTimeInForce.Day);
+        res.setPrice(TEST_PRICE);
+        res.setQuantity(10);
+
+        return res;
+    }
+}
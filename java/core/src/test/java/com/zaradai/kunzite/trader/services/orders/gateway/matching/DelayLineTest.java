@@ -0,0 +1,76 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DelayLineTest {
+    private DelayLine<String> uut;
+
+    @Before
+    public void setUp() throws Exception {
+        uut = new DelayLine<String>(2);
+    }
+
+    @Test
+    public void shouldHoldItemsUntilDue() throws Exception {
+        uut.add("a", 10L);
+
+        assertThat(uut.isDue(9L), is(false));
+        assertThat(uut.isDue(10L), is(true));
+        assertThat(uut.poll(), is("a"));
+        assertThat(uut.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldNotLetLaterItemOvertake() throws Exception {
+        uut.add("slow", 100L);
+        uut.add("fast", 10L);
+
+        assertThat(uut.isDue(10L), is(false));
+        assertThat(uut.poll(), is("slow"));
+        assertThat(uut.nextDue(), is(100L));
+        assertThat(uut.poll(), is("fast"));
+    }
+
+    @Test
+    public void shouldGrowKeepingOrder() throws Exception {
+        uut.add("a", 1L);
+        uut.add("b", 2L);
+        uut.poll();
+        uut.add("c", 3L);
+        uut.add("d", 4L);
+        uut.add("e", 5L);
+
+        assertThat(uut.size(), is(4));
+        assertThat(uut.poll(), is("b"));
+        assertThat(uut.poll(), is("c"));
+        assertThat(uut.poll(), is("d"));
+        assertThat(uut.nextDue(), is(5L));
+        assertThat(uut.poll(), is("e"));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldFailToPollWhenEmpty() throws Exception {
+        uut.poll();
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LatencyModelTest {
+    private static final long BASE_MICROS = 20;
+    private static final long JITTER_MICROS = 10;
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    @Test
+    public void shouldIgnoreJitterWhenFixed() throws Exception {
+        LatencyDistribution uut = LatencyModel.Fixed.create(BASE_MICROS, JITTER_MICROS, new Random(1));
+
+        assertThat(uut.nextNanos(), is(BASE_MICROS * NANOS_PER_MICRO));
+    }
+
+    @Test
+    public void shouldSpreadUniformlyWithinJitter() throws Exception {
+        LatencyDistribution uut = LatencyModel.Uniform.create(BASE_MICROS, JITTER_MICROS, new Random(1));
+
+        for (int i = 0; i < 1000; ++i) {
+            long latency = uut.nextNanos();
+
+            assertThat(latency >= BASE_MICROS * NANOS_PER_MICRO, is(true));
+            assertThat(latency <= (BASE_MICROS + JITTER_MICROS) * NANOS_PER_MICRO, is(true));
+        }
+    }
+
+    @Test
+    public void shouldAverageJitterOverBaseWhenExponential() throws Exception {
+        LatencyDistribution uut = LatencyModel.Exponential.create(BASE_MICROS, JITTER_MICROS, new Random(1));
+        long total = 0L;
+        int samples = 100000;
+
+        for (int i = 0; i < samples; ++i) {
+            long latency = uut.nextNanos();
+            assertThat(latency >= BASE_MICROS * NANOS_PER_MICRO, is(true));
+            total += latency;
+        }
+
+        long mean = total / samples;
+        assertThat(Math.abs(mean - (BASE_MICROS + JITTER_MICROS) * NANOS_PER_MICRO) < NANOS_PER_MICRO, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowNegativeLatency() throws Exception {
+        LatencyModel.Fixed.create(-1, 0, new Random(1));
+    }
+}
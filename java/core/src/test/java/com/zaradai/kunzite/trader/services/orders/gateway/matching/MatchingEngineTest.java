@@ -0,0 +1,313 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.orders.gateway.matching;
+
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.trader.events.MarketDataFieldType;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.events.OrderStatus;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.OrderStatusHandler;
+import com.zaradai.kunzite.trader.instruments.Instrument;
+import com.zaradai.kunzite.trader.instruments.InstrumentResolver;
+import com.zaradai.kunzite.trader.instruments.MarketResolver;
+import com.zaradai.kunzite.trader.marketdata.ArrayMarketBook;
+import com.zaradai.kunzite.trader.marketdata.MarketBookFactory;
+import com.zaradai.kunzite.trader.marketdata.Side;
+import com.zaradai.kunzite.trader.marketdata.TableMarketBookUpdater;
+import com.zaradai.kunzite.trader.orders.model.NewOrder;
+import com.zaradai.kunzite.trader.orders.model.OrderRefData;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MatchingEngineTest {
+    private static final String TEST_INSTRUMENT_ID = "instrumentId";
+    private static final double TEST_PRICE = 100.0;
+    private static final double TEST_BETTER_PRICE = 99.5;
+    private static final double TEST_WORSE_PRICE = 100.5;
+
+    private List<OrderStatusEvent> events;
+    private MatchingEngine uut;
+
+    @Before
+    public void setUp() throws Exception {
+        final Instrument instrument = mock(Instrument.class);
+        when(instrument.getId()).thenReturn(TEST_INSTRUMENT_ID);
+        InstrumentResolver instrumentResolver = mock(InstrumentResolver.class);
+        when(instrumentResolver.resolveInstrument(TEST_INSTRUMENT_ID)).thenReturn(instrument);
+        MarketBookFactory marketBookFactory = mock(MarketBookFactory.class);
+        when(marketBookFactory.create(instrument)).thenReturn(new ArrayMarketBook(instrument, 5));
+        events = Lists.newArrayList();
+
+        uut = new MatchingEngine(instrumentResolver, mock(MarketResolver.class), marketBookFactory,
+                new TableMarketBookUpdater(), new OrderStatusHandler() {
+                    @Override
+                    public void onOrderStatus(OrderStatusEvent event) {
+                        events.add(event);
+                    }
+                });
+    }
+
+    @Test
+    public void shouldRestLimitOrderThatDoesNotCross() throws Exception {
+        uut.process(limit("buy", OrderSide.Buy, TEST_PRICE, 10));
+
+        assertEvents("buy", OrderStatus.New);
+        assertThat(uut.getWorkingOrders(), is(1));
+        assertThat(uut.getRestingQuantity(TEST_INSTRUMENT_ID, Side.Bid), is(10L));
+    }
+
+    @Test
+    public void shouldMatchRestingOrdersInPriceTimePriority() throws Exception {
+        uut.process(limit("worse", OrderSide.Sell, TEST_WORSE_PRICE, 5));
+        uut.process(limit("first", OrderSide.Sell, TEST_PRICE, 5));
+        uut.process(limit("second", OrderSide.Sell, TEST_PRICE, 5));
+        events.clear();
+
+        uut.process(limit("buy", OrderSide.Buy, TEST_WORSE_PRICE, 12));
+
+        assertThat(events.size(), is(7));
+        assertExecution(events.get(1), "first", OrderStatus.Filled, 5, TEST_PRICE);
+        assertExecution(events.get(2), "buy", OrderStatus.PartiallyFilled, 5, TEST_PRICE);
+        assertExecution(events.get(3), "second", OrderStatus.Filled, 5, TEST_PRICE);
+        assertExecution(events.get(4), "buy", OrderStatus.PartiallyFilled, 5, TEST_PRICE);
+        assertExecution(events.get(5), "worse", OrderStatus.PartiallyFilled, 2, TEST_WORSE_PRICE);
+        assertExecution(events.get(6), "buy", OrderStatus.Filled, 2, TEST_WORSE_PRICE);
+        assertThat(uut.getWorkingOrders(), is(1));
+        assertThat(uut.getRestingQuantity(TEST_INSTRUMENT_ID, Side.Ask), is(3L));
+    }
+
+    @Test
+    public void shouldTakeMarketLiquidityAcrossLevels() throws Exception {
+        uut.onMarketData(quote(TEST_PRICE - 1, 10, TEST_PRICE, 3, TEST_WORSE_PRICE, 10));
+
+        uut.process(limit("buy", OrderSide.Buy, TEST_WORSE_PRICE, 5));
+
+        assertThat(events.size(), is(3));
+        assertExecution(events.get(1), "buy", OrderStatus.PartiallyFilled, 3, TEST_PRICE);
+        assertExecution(events.get(2), "buy", OrderStatus.Filled, 2, TEST_WORSE_PRICE);
+        assertThat(uut.getWorkingOrders(), is(0));
+    }
+
+    @Test
+    public void shouldPreferRestingOrdersToMarketAtSamePrice() throws Exception {
+        uut.onMarketData(quote(TEST_PRICE - 1, 10, TEST_PRICE, 10, TEST_WORSE_PRICE, 10));
+        uut.process(limit("sell", OrderSide.Sell, TEST_PRICE, 2));
+        events.clear();
+
+        uut.process(limit("buy", OrderSide.Buy, TEST_PRICE, 4));
+
+        assertExecution(events.get(1), "sell", OrderStatus.Filled, 2, TEST_PRICE);
+        assertExecution(events.get(2), "buy", OrderStatus.PartiallyFilled, 2, TEST_PRICE);
+        assertExecution(events.get(3), "buy", OrderStatus.Filled, 2, TEST_PRICE);
+    }
+
+    @Test
+    public void shouldNotTakeSameMarketLiquidityTwice() throws Exception {
+        uut.onMarketData(quote(TEST_PRICE - 1, 10, TEST_PRICE, 3, 0.0, 0));
+        uut.process(limit("first", OrderSide.Buy, TEST_PRICE, 3));
+        events.clear();
+
+        uut.process(limit("second", OrderSide.Buy, TEST_PRICE, 3));
+
+        assertEvents("second", OrderStatus.New);
+        assertThat(uut.getRestingQuantity(TEST_INSTRUMENT_ID, Side.Bid), is(3L));
+    }
+
+    @Test
+    public void shouldFillRestingOrderWhenMarketTradesThroughIt() throws Exception {
+        uut.process(limit("buy", OrderSide.Buy, TEST_PRICE, 10));
+        events.clear();
+
+        uut.onMarketData(quote(TEST_PRICE - 1, 10, TEST_BETTER_PRICE, 4, 0.0, 0));
+
+        assertThat(events.size(), is(1));
+        assertExecution(events.get(0), "buy", OrderStatus.PartiallyFilled, 4, TEST_PRICE);
+        assertThat(uut.getRestingQuantity(TEST_INSTRUMENT_ID, Side.Bid), is(6L));
+    }
+
+    @Test
+    public void shouldCancelImmediateOrCancelRemainder() throws Exception {
+        uut.onMarketData(quote(TEST_PRICE - 1, 10, TEST_PRICE, 3, 0.0, 0));
+        NewOrder order = limit("ioc", OrderSide.Buy, TEST_PRICE, 5);
+        order.setTimeInForce(OrderTimeInForce.ImmediateOrCancel);
+
+        uut.process(order);
+
+        assertEvents("ioc", OrderStatus.New, OrderStatus.PartiallyFilled, OrderStatus.Cancelled);
+        assertThat(uut.getWorkingOrders(), is(0));
+    }
+
+    @Test
+    public void shouldKillFillOrKillWithoutExecuting() throws Exception {
+        uut.onMarketData(quote(TEST_PRICE - 1, 10, TEST_PRICE, 3, 0.0, 0));
+        NewOrder order = limit("fok", OrderSide.Buy, TEST_PRICE, 5);
+        order.setTimeInForce(OrderTimeInForce.FillOrKill);
+
+        uut.process(order);
+
+        assertEvents("fok", OrderStatus.New, OrderStatus.Cancelled);
+    }
+
+    @Test
+    public void shouldCancelMarketOrderRemainder() throws Exception {
+        uut.onMarketData(quote(TEST_PRICE - 1, 2, TEST_PRICE, 3, 0.0, 0));
+        NewOrder order = limit("market", OrderSide.Sell, 0.0, 5);
+        order.setType(OrderType.Market);
+
+        uut.process(order);
+
+        assertEvents("market", OrderStatus.New, OrderStatus.PartiallyFilled, OrderStatus.Cancelled);
+        assertExecution(events.get(1), "market", OrderStatus.PartiallyFilled, 2, TEST_PRICE - 1);
+    }
+
+    @Test
+    public void shouldCancelWorkingOrder() throws Exception {
+        uut.process(limit("buy", OrderSide.Buy, TEST_PRICE, 10));
+        events.clear();
+
+        uut.process(instruction("buy", OrderRequestType.Cancel, OrderSide.Buy, TEST_PRICE, 10));
+
+        assertEvents("buy", OrderStatus.Cancelled);
+        assertThat(uut.getWorkingOrders(), is(0));
+        assertThat(uut.getRestingQuantity(TEST_INSTRUMENT_ID, Side.Bid), is(0L));
+    }
+
+    @Test
+    public void shouldRejectCancelOfUnknownOrder() throws Exception {
+        uut.process(instruction("unknown", OrderRequestType.Cancel, OrderSide.Buy, TEST_PRICE, 10));
+
+        assertEvents("unknown", OrderStatus.Rejected);
+    }
+
+    @Test
+    public void shouldRejectOrderForUnknownInstrument() throws Exception {
+        NewOrder order = limit("buy", OrderSide.Buy, TEST_PRICE, 10);
+        order.getRefData().setInstrumentId("unknown");
+
+        uut.process(order);
+
+        assertEvents("buy", OrderStatus.Rejected);
+    }
+
+    @Test
+    public void shouldKeepPriorityWhenAmendedDown() throws Exception {
+        uut.process(limit("first", OrderSide.Sell, TEST_PRICE, 5));
+        uut.process(limit("second", OrderSide.Sell, TEST_PRICE, 5));
+        uut.process(instruction("first", OrderRequestType.Amend, OrderSide.Sell, TEST_PRICE, 3));
+        events.clear();
+
+        uut.process(limit("buy", OrderSide.Buy, TEST_PRICE, 3));
+
+        assertExecution(events.get(1), "first", OrderStatus.Filled, 3, TEST_PRICE);
+    }
+
+    @Test
+    public void shouldLosePriorityWhenAmendedUp() throws Exception {
+        uut.process(limit("first", OrderSide.Sell, TEST_PRICE, 5));
+        uut.process(limit("second", OrderSide.Sell, TEST_PRICE, 5));
+        uut.process(instruction("first", OrderRequestType.Amend, OrderSide.Sell, TEST_PRICE, 8));
+        events.clear();
+
+        uut.process(limit("buy", OrderSide.Buy, TEST_PRICE, 3));
+
+        assertExecution(events.get(1), "second", OrderStatus.PartiallyFilled, 3, TEST_PRICE);
+        assertThat(uut.getRestingQuantity(TEST_INSTRUMENT_ID, Side.Ask), is(10L));
+    }
+
+    @Test
+    public void shouldMatchWhenAmendedThroughTheMarket() throws Exception {
+        uut.process(limit("sell", OrderSide.Sell, TEST_PRICE, 5));
+        uut.process(limit("buy", OrderSide.Buy, TEST_BETTER_PRICE, 5));
+        events.clear();
+
+        uut.process(instruction("buy", OrderRequestType.Amend, OrderSide.Buy, TEST_PRICE, 5));
+
+        assertThat(events.get(0).getOrderStatus(), is(OrderStatus.Replaced));
+        assertExecution(events.get(1), "sell", OrderStatus.Filled, 5, TEST_PRICE);
+        assertExecution(events.get(2), "buy", OrderStatus.Filled, 5, TEST_PRICE);
+        assertThat(uut.getWorkingOrders(), is(0));
+    }
+
+    @Test
+    public void shouldCancelWhenAmendedBelowExecuted() throws Exception {
+        uut.process(limit("sell", OrderSide.Sell, TEST_PRICE, 5));
+        uut.process(limit("buy", OrderSide.Buy, TEST_PRICE, 3));
+        events.clear();
+
+        uut.process(instruction("sell", OrderRequestType.Amend, OrderSide.Sell, TEST_PRICE, 3));
+
+        assertEvents("sell", OrderStatus.Cancelled);
+        assertThat(uut.getWorkingOrders(), is(0));
+    }
+
+    private void assertEvents(String orderId, OrderStatus... statuses) {
+        assertThat(events.size(), is(statuses.length));
+
+        for (int i = 0; i < statuses.length; ++i) {
+            assertThat(events.get(i).getOrderId(), is(orderId));
+            assertThat(events.get(i).getOrderStatus(), is(statuses[i]));
+        }
+    }
+
+    private void assertExecution(OrderStatusEvent event, String orderId, OrderStatus status, long quantity,
+                                 double price) {
+        assertThat(event.getOrderId(), is(orderId));
+        assertThat(event.getOrderStatus(), is(status));
+        assertThat(event.getExecQty(), is(quantity));
+        assertThat(event.getLastPx(), is(price));
+    }
+
+    private MarketDataRecord quote(double bid, long bidSize, double ask, long askSize, double ask2, long ask2Size) {
+        return MarketDataRecord.newInstance()
+                .setInstrumentId(TEST_INSTRUMENT_ID)
+                .addDoubleValue(MarketDataFieldType.BEST_BID, bid)
+                .addLongValue(MarketDataFieldType.BID_SIZE, bidSize)
+                .addDoubleValue(MarketDataFieldType.BEST_ASK, ask)
+                .addLongValue(MarketDataFieldType.ASK_SIZE, askSize)
+                .addDoubleValue(MarketDataFieldType.BEST_ASK2, ask2)
+                .addLongValue(MarketDataFieldType.ASK2_SIZE, ask2Size);
+    }
+
+    private NewOrder limit(String orderId, OrderSide side, double price, long quantity) {
+        return instruction(orderId, OrderRequestType.Create, side, price, quantity);
+    }
+
+    private NewOrder instruction(String orderId, OrderRequestType requestType, OrderSide side, double price,
+                                 long quantity) {
+        NewOrder res = new NewOrder();
+        res.setRefData(OrderRefData.builder().id(orderId).instrument(TEST_INSTRUMENT_ID).build());
+        res.setRequestType(requestType);
+        res.setSide(side);
+        res.setType(OrderType.Limit);
+        res.setTimeInForce(OrderTimeInForce.Day);
+        res.setPrice(price);
+        res.setQuantity(quantity);
+
+        return res;
+    }
+}
@@ -17,10 +17,14 @@ package com.zaradai.kunzite.trader.services.timer;
 
 import com.zaradai.kunzite.events.EventAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
 import com.zaradai.kunzite.trader.events.TimerEvent;
 import com.zaradai.kunzite.trader.events.TimerListener;
 import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.services.trader.TraderShard;
+import com.zaradai.kunzite.utils.collections.LongObjectMap;
 import org.joda.time.DateTime;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -28,15 +32,16 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
-import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -45,14 +50,14 @@ public class DefaultTimerEngineTest {
     private static final boolean TEST_REPEAT = true;
     private static final TimerListener TEST_LISTENER = mock(TimerListener.class);
     private static final long TEST_DURATION = 1000;
-    private static final UUID TEST_ID = UUID.randomUUID();
+    private static final long TEST_ID = 42L;
 
     private ContextLogger logger;
     private EventAggregator eventAggregator;
     private TimerService timerService;
     private DefaultTimerEngine uut;
     @Mock
-    private Map<UUID, TimerListener> mockMap;
+    private LongObjectMap<TimerListener> mockMap;
     @Captor
     ArgumentCaptor<TimerRequest> requestArgumentCaptor;
     @Captor
@@ -63,19 +68,35 @@ public class DefaultTimerEngineTest {
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
+        // calls are made as the shard owning the subscriptions unless a test leaves it
+        TraderShard.enter(0);
 
         logger = ContextLoggerMocker.create();
         eventAggregator = mock(EventAggregator.class);
         timerService = mock(TimerService.class);
         timeBase = mock(TimeBase.class);
-        uut = new DefaultTimerEngine(logger, eventAggregator, timerService, timeBase) {
+        TraderConfiguration configuration = mock(TraderConfiguration.class);
+        when(configuration.getTraderShards()).thenReturn(1);
+        uut = new DefaultTimerEngine(logger, eventAggregator, timerService, timeBase, configuration) {
             @Override
-            protected Map<UUID, TimerListener> createSubscriptionMap() {
+            protected LongObjectMap<TimerListener> createSubscriptionMap() {
                 return mockMap;
             }
         };
     }
 
+    @After
+    public void tearDown() throws Exception {
+        TraderShard.leave();
+    }
+
+    private DefaultTimerEngine createSharded(int shards) {
+        TraderConfiguration configuration = mock(TraderConfiguration.class);
+        when(configuration.getTraderShards()).thenReturn(shards);
+
+        return new DefaultTimerEngine(logger, eventAggregator, timerService, timeBase, configuration);
+    }
+
     @Test
     public void shouldSubscribeToEventAggregatorOnConstruction() throws Exception {
         verify(eventAggregator).subscribe(uut);
@@ -98,9 +119,9 @@ public class DefaultTimerEngineTest {
 
     @Test
     public void shouldSubscribe() throws Exception {
-        UUID res = uut.subscribe(TEST_DURATION, TEST_UNIT, TEST_REPEAT, TEST_LISTENER);
+        long res = uut.subscribe(TEST_DURATION, TEST_UNIT, TEST_REPEAT, TEST_LISTENER);
 
-        assertThat(res, not(nullValue()));
+        assertThat(res, not(0L));
         verify(mockMap).put(res, TEST_LISTENER);
         verify(timerService).submit(requestArgumentCaptor.capture());
         assertThat(requestArgumentCaptor.getValue().isRepeat(), is(TEST_REPEAT));
@@ -116,9 +137,9 @@ public class DefaultTimerEngineTest {
         DateTime target = now.plusMillis((int)targetDuration);
         when(timeBase.now()).thenReturn(now.getMillis());
 
-        UUID res = uut.subscribe(target, TEST_LISTENER);
+        long res = uut.subscribe(target, TEST_LISTENER);
 
-        assertThat(res, not(nullValue()));
+        assertThat(res, not(0L));
         verify(mockMap).put(res, TEST_LISTENER);
         verify(timerService).submit(requestArgumentCaptor.capture());
         assertThat(requestArgumentCaptor.getValue().isRepeat(), is(false));
@@ -127,8 +148,18 @@ public class DefaultTimerEngineTest {
         assertThat(requestArgumentCaptor.getValue().getId(), is(res));
     }
 
+    @Test
+    public void shouldHandOutSequentialIds() throws Exception {
+        long first = uut.subscribe(TEST_DURATION, TEST_UNIT, TEST_REPEAT, TEST_LISTENER);
+        long second = uut.subscribe(TEST_DURATION, TEST_UNIT, TEST_REPEAT, TEST_LISTENER);
+
+        assertThat(second, is(first + 1));
+    }
+
     @Test
     public void shouldUnsubscribe() throws Exception {
+        when(mockMap.remove(TEST_ID)).thenReturn(TEST_LISTENER);
+
         uut.unsubscribe(TEST_ID);
 
         verify(mockMap).remove(TEST_ID);
@@ -137,6 +168,14 @@ public class DefaultTimerEngineTest {
         assertThat(requestCancelArgumentCaptor.getValue().getId(), is(TEST_ID));
     }
 
+    @Test
+    public void shouldNotCancelFinishedTimer() throws Exception {
+        uut.unsubscribe(TEST_ID);
+
+        verify(mockMap).remove(TEST_ID);
+        verify(timerService, never()).cancel(any(TimerCancelRequest.class));
+    }
+
     @Test
     public void shouldUpdateListenerOnTimeout() throws Exception {
         TimerEvent event = TimerEvent.newInstance(TEST_ID, false);
@@ -158,6 +197,71 @@ public class DefaultTimerEngineTest {
         verify(mockMap).remove(TEST_ID);
     }
 
+    @Test
+    public void shouldRecycleRequestsForNextRearm() throws Exception {
+        long id = uut.subscribe(TEST_DURATION, TEST_UNIT, TEST_REPEAT, TEST_LISTENER);
+        verify(timerService).submit(requestArgumentCaptor.capture());
+        TimerRequest first = requestArgumentCaptor.getValue();
+        first.recycle();
+        when(mockMap.remove(id)).thenReturn(TEST_LISTENER);
+        uut.unsubscribe(id);
+
+        uut.subscribe(TEST_DURATION, TEST_UNIT, TEST_REPEAT, TEST_LISTENER);
+
+        verify(timerService, times(2)).submit(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue(), is(sameInstance(first)));
+    }
+
+    @Test
+    public void shouldDeliverOnShardSubscribing() throws Exception {
+        uut = createSharded(3);
+        TraderShard.enter(2);
+        TimerListener listener = mock(TimerListener.class);
+
+        long id = uut.subscribe(TEST_DURATION, TEST_UNIT, TEST_REPEAT, listener);
+
+        verify(timerService).submit(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue().getShard(), is(2));
+        TimerEvent event = TimerEvent.newInstance(id, false);
+        uut.onTimer(event);
+        verify(listener).onTimer(event);
+    }
+
+    @Test
+    public void shouldHandSubscribeOffShardToFirstShard() throws Exception {
+        uut = createSharded(3);
+        TraderShard.leave();
+        TimerListener listener = mock(TimerListener.class);
+
+        long id = uut.subscribe(TEST_DURATION, TEST_UNIT, TEST_REPEAT, listener);
+
+        verify(timerService).submit(requestArgumentCaptor.capture());
+        assertThat(requestArgumentCaptor.getValue().getShard(), is(0));
+        // applied by the first shard as it handles the timeout
+        TraderShard.enter(0);
+        TimerEvent event = TimerEvent.newInstance(id, false);
+        uut.onTimer(event);
+        verify(listener).onTimer(event);
+    }
+
+    @Test
+    public void shouldHandUnsubscribeOffShardToOwningShard() throws Exception {
+        uut = createSharded(3);
+        TraderShard.enter(1);
+        TimerListener listener = mock(TimerListener.class);
+        long id = uut.subscribe(TEST_DURATION, TEST_UNIT, TEST_REPEAT, listener);
+        TraderShard.leave();
+
+        uut.unsubscribe(id);
+
+        verify(timerService).cancel(requestCancelArgumentCaptor.capture());
+        assertThat(requestCancelArgumentCaptor.getValue().getId(), is(id));
+        TraderShard.enter(1);
+        uut.onTimer(TimerEvent.newInstance(id, false));
+        verify(listener, never()).onTimer(any(TimerEvent.class));
+        verify(logger).warn();
+    }
+
     @Test
     public void shouldLogIfNoSubscriberToUpdate() throws Exception {
         TimerEvent event = TimerEvent.newInstance(TEST_ID, true);
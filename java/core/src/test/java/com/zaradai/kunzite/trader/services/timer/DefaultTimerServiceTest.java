@@ -25,7 +25,6 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.MockitoAnnotations;
 
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -52,9 +51,9 @@ public class DefaultTimerServiceTest {
 
     @Test
     public void shouldProcessExpiredTimeouts() throws Exception {
-        UUID id1 = UUID.randomUUID();
-        UUID id2 = UUID.randomUUID();
-        UUID id3 = UUID.randomUUID();
+        long id1 = 1;
+        long id2 = 2;
+        long id3 = 3;
 
         long timeout1 = 5000;
         long timeout2 = 4500;   // oldest
@@ -74,7 +73,7 @@ public class DefaultTimerServiceTest {
 
         uut.process();
         // timeouts id2 and id1 should have been fired in that order
-        verify(traderService, times(2)).onEvent(timerEventArgumentCaptor.capture());
+        verify(traderService, times(2)).onShardEvent(eq(0), timerEventArgumentCaptor.capture());
 
         assertThat(timerEventArgumentCaptor.getAllValues().get(0).getTimerId(), is(id2));
         assertThat(timerEventArgumentCaptor.getAllValues().get(1).getTimerId(), is(id1));
@@ -82,9 +81,9 @@ public class DefaultTimerServiceTest {
 
     @Test
     public void shouldCancelRegisteredRequest() throws Exception {
-        UUID id1 = UUID.randomUUID();
-        UUID id2 = UUID.randomUUID();
-        UUID id3 = UUID.randomUUID();
+        long id1 = 1;
+        long id2 = 2;
+        long id3 = 3;
         long timeout1 = 5000;
         long timeout2 = 4500;   // oldest
         long timeout3 = 5500;   // latest
@@ -101,7 +100,7 @@ public class DefaultTimerServiceTest {
         // run the process
         uut.process();
         // Only timeout id2 should have been fired.
-        verify(traderService).onEvent(timerEventArgumentCaptor.capture());
+        verify(traderService).onShardEvent(eq(0), timerEventArgumentCaptor.capture());
 
         assertThat(timerEventArgumentCaptor.getValue().getTimerId(), is(id2));
     }
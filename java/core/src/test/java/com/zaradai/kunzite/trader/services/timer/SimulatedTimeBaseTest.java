@@ -0,0 +1,121 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class SimulatedTimeBaseTest {
+    private static final long START = 1000L;
+
+    private SimulatedTimeBase uut;
+
+    @Before
+    public void setUp() throws Exception {
+        uut = new SimulatedTimeBase(START);
+    }
+
+    @Test
+    public void shouldStartAtGivenTime() throws Exception {
+        assertThat(uut.now(), is(START));
+    }
+
+    @Test
+    public void shouldAdvance() throws Exception {
+        uut.advanceTo(START + 10);
+
+        assertThat(uut.now(), is(START + 10));
+    }
+
+    @Test
+    public void shouldNotGoBackwards() throws Exception {
+        uut.advanceTo(START + 10);
+
+        uut.advanceTo(START + 5);
+
+        assertThat(uut.now(), is(START + 10));
+    }
+
+    @Test
+    public void shouldNotifyListenersOnAdvance() throws Exception {
+        TimeListener listener = mock(TimeListener.class);
+        uut.addListener(listener);
+
+        uut.advanceTo(START + 10);
+
+        verify(listener).onTime(START + 10);
+    }
+
+    @Test
+    public void shouldNotNotifyListenersIfTimeHasNotMoved() throws Exception {
+        TimeListener listener = mock(TimeListener.class);
+        uut.addListener(listener);
+
+        uut.advanceTo(START);
+
+        verify(listener, never()).onTime(anyLong());
+    }
+
+    @Test
+    public void shouldNotNotifyRemovedListener() throws Exception {
+        TimeListener listener = mock(TimeListener.class);
+        uut.addListener(listener);
+        uut.removeListener(listener);
+
+        uut.advanceTo(START + 10);
+
+        verify(listener, never()).onTime(anyLong());
+    }
+
+    @Test
+    public void shouldWakeSleeperOnceTimeHasMovedOn() throws Exception {
+        final CountDownLatch woken = new CountDownLatch(1);
+        Thread sleeper = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                uut.sleep(1, TimeUnit.HOURS);
+                woken.countDown();
+            }
+        });
+        sleeper.start();
+        while (sleeper.getState() != Thread.State.TIMED_WAITING) {
+            Thread.yield();
+        }
+
+        uut.advanceTo(START + TimeUnit.HOURS.toMillis(1));
+
+        assertThat(woken.await(2, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void shouldLimitSleepToRealTime() throws Exception {
+        long start = System.nanoTime();
+
+        uut.sleep(10, TimeUnit.MILLISECONDS);
+
+        assertThat(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), is(true));
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerEventBatch;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.services.trader.ShardEventSink;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SimulatedTimerServiceTest {
+    private static final long START = 4000L;
+    private static final int SIZE = 1024;
+
+    private ShardEventSink shardEvents;
+    private SimulatedTimeBase timeBase;
+    private SimulatedTimerService uut;
+
+    @Before
+    public void setUp() throws Exception {
+        shardEvents = mock(ShardEventSink.class);
+        timeBase = new SimulatedTimeBase(START);
+        TraderConfiguration configuration = mock(TraderConfiguration.class);
+        when(configuration.getTimerWheelSize()).thenReturn(SIZE);
+        uut = new SimulatedTimerService(ContextLoggerMocker.create(), shardEvents, timeBase, configuration);
+        uut.startAsync().awaitRunning();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        uut.stopAsync().awaitTerminated();
+    }
+
+    @Test
+    public void shouldNotFireBeforeDue() throws Exception {
+        uut.submit(TimerRequest.newInstance(1, START + 500, 500, TimeUnit.MILLISECONDS, false));
+
+        timeBase.advanceTo(START + 499);
+
+        verify(shardEvents, never()).onShardEvent(anyInt(), any());
+    }
+
+    @Test
+    public void shouldFireWhenDataTimeReachesDue() throws Exception {
+        long id = 1;
+        uut.submit(TimerRequest.newInstance(id, START + 500, 500, TimeUnit.MILLISECONDS, false, 2));
+
+        timeBase.advanceTo(START + 500);
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(shardEvents).onShardEvent(eq(2), captor.capture());
+        TimerEvent event = (TimerEvent) captor.getValue();
+        assertThat(event.getTimerId(), is(id));
+        assertThat(event.isLast(), is(true));
+    }
+
+    @Test
+    public void shouldBatchTimeoutsDueTogether() throws Exception {
+        uut.submit(TimerRequest.newInstance(1, START + 200, 200, TimeUnit.MILLISECONDS, false));
+        uut.submit(TimerRequest.newInstance(2, START + 100, 100, TimeUnit.MILLISECONDS, false));
+
+        timeBase.advanceTo(START + 300);
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(shardEvents).onShardEvent(eq(0), captor.capture());
+        TimerEventBatch batch = (TimerEventBatch) captor.getValue();
+        assertThat(batch.size(), is(2));
+        assertThat(batch.get(0).getTimerId(), is(2L));
+        assertThat(batch.get(1).getTimerId(), is(1L));
+    }
+
+    @Test
+    public void shouldRepeatWithDataTime() throws Exception {
+        uut.submit(TimerRequest.newInstance(1, START + 100, 100, TimeUnit.MILLISECONDS, true));
+
+        timeBase.advanceTo(START + 100);
+        timeBase.advanceTo(START + 150);
+        timeBase.advanceTo(START + 200);
+
+        verify(shardEvents, times(2)).onShardEvent(eq(0), any());
+    }
+
+    @Test
+    public void shouldNotFireCancelledTimer() throws Exception {
+        uut.submit(TimerRequest.newInstance(1, START + 100, 100, TimeUnit.MILLISECONDS, false));
+        uut.cancel(TimerCancelRequest.newInstance(1));
+
+        timeBase.advanceTo(START + 100);
+
+        verify(shardEvents, never()).onShardEvent(anyInt(), any());
+    }
+
+    @Test
+    public void shouldStopFollowingTimeOnceStopped() throws Exception {
+        uut.submit(TimerRequest.newInstance(1, START + 100, 100, TimeUnit.MILLISECONDS, false));
+        uut.stopAsync().awaitTerminated();
+
+        timeBase.advanceTo(START + 100);
+
+        verify(shardEvents, never()).onShardEvent(anyInt(), any());
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class TimerCancelRequestPoolTest {
+    @Test
+    public void shouldReuseRecycledRequests() throws Exception {
+        TimerCancelRequestPool uut = new TimerCancelRequestPool(1);
+
+        TimerCancelRequest request = uut.acquire().set(42L);
+        request.recycle();
+
+        assertThat(uut.available(), is(1));
+        TimerCancelRequest res = uut.acquire();
+        assertThat(res, is(sameInstance(request)));
+        assertThat(res.getId(), is(0L));
+    }
+
+    @Test
+    public void shouldCreateWhenEmpty() throws Exception {
+        TimerCancelRequestPool uut = new TimerCancelRequestPool(1);
+        TimerCancelRequest first = uut.acquire();
+
+        assertThat(uut.acquire(), is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void shouldIgnoreRecycleOfUnpooledRequests() throws Exception {
+        TimerCancelRequest request = TimerCancelRequest.newInstance(42L);
+
+        request.recycle();
+
+        assertThat(request.getId(), is(42L));
+    }
+}
@@ -17,13 +17,11 @@ package com.zaradai.kunzite.trader.services.timer;
 
 import org.junit.Test;
 
-import java.util.UUID;
-
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
 public class TimerCancelRequestTest {
-    private static final UUID TEST_ID = UUID.randomUUID();
+    private static final long TEST_ID = 42L;
 
     @Test
     public void shouldGetId() throws Exception {
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class TimerRequestPoolTest {
+    @Test
+    public void shouldReuseRecycledRequests() throws Exception {
+        TimerRequestPool uut = new TimerRequestPool(1);
+
+        TimerRequest request = uut.acquire().set(42L, 1000L, 10L, TimeUnit.SECONDS, true, 2);
+        assertThat(uut.available(), is(0));
+        request.recycle();
+
+        assertThat(uut.available(), is(1));
+        TimerRequest res = uut.acquire();
+        assertThat(res, is(sameInstance(request)));
+        assertThat(res.getId(), is(0L));
+        assertThat(res.getUnit(), is(nullValue()));
+        assertThat(res.isRepeat(), is(false));
+        assertThat(res.getShard(), is(0));
+    }
+
+    @Test
+    public void shouldCreateWhenEmpty() throws Exception {
+        TimerRequestPool uut = new TimerRequestPool(1);
+        TimerRequest first = uut.acquire();
+
+        TimerRequest second = uut.acquire();
+
+        assertThat(second, is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void shouldDropReleasedRequestsWhenFull() throws Exception {
+        TimerRequestPool uut = new TimerRequestPool(1);
+        TimerRequest first = uut.acquire();
+        TimerRequest second = uut.acquire();
+
+        first.recycle();
+        second.recycle();
+
+        assertThat(uut.available(), is(1));
+    }
+
+    @Test
+    public void shouldIgnoreRecycleOfUnpooledRequests() throws Exception {
+        TimerRequest request = TimerRequest.newInstance(42L, 1000L, 10L, TimeUnit.SECONDS, true);
+
+        request.recycle();
+
+        assertThat(request.getId(), is(42L));
+    }
+}
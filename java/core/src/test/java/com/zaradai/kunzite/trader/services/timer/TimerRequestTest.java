@@ -18,7 +18,6 @@ package com.zaradai.kunzite.trader.services.timer;
 import org.joda.time.DateTime;
 import org.junit.Test;
 
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -32,7 +31,7 @@ public class TimerRequestTest {
     private static final TimeUnit TEST_UNIT = TimeUnit.MILLISECONDS;
     private static final long TEST_DURATION = 5;
     private static final long TEST_TIMEOUT = DateTime.now().getMillis();
-    private static final UUID TEST_ID = UUID.randomUUID();
+    private static final long TEST_ID = 42L;
 
     @Test
     public void shouldCreateWithParameters() throws Exception {
@@ -43,6 +42,14 @@ public class TimerRequestTest {
         assertThat(uut.getTimeout(), is(TEST_TIMEOUT));
         assertThat(uut.getUnit(), is(TEST_UNIT));
         assertThat(uut.isRepeat(), is(TEST_REPEAT));
+        assertThat(uut.getShard(), is(0));
+    }
+
+    @Test
+    public void shouldKeepShardOnNextRequest() throws Exception {
+        TimerRequest uut = TimerRequest.newInstance(TEST_ID, TEST_TIMEOUT, TEST_DURATION, TEST_UNIT, TEST_REPEAT, 2);
+
+        assertThat(uut.getNextRequest().getShard(), is(2));
     }
 
     @Test
@@ -68,6 +75,16 @@ public class TimerRequestTest {
         assertThat(res, is(nullValue()));
     }
 
+    @Test
+    public void shouldRearmInPlace() throws Exception {
+        TimerRequest uut = TimerRequest.newInstance(42L, 1000L, 10L, TimeUnit.SECONDS, true, 2);
+
+        uut.rearm();
+
+        assertThat(uut.getTimeout(), is(11000L));
+        assertThat(uut.getShard(), is(2));
+    }
+
     @Test
     public void shouldCompareOldestFirst() throws Exception {
         TimerRequest oldest = TimerRequest.newInstance(TEST_ID, 1000, TEST_DURATION, TEST_UNIT, TEST_REPEAT);
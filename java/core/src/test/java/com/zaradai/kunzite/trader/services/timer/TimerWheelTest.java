@@ -0,0 +1,203 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import com.google.common.collect.Lists;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerEventPool;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class TimerWheelTest {
+    private static final long TICK = 10;
+    private static final int SIZE = 8;
+
+    private List<TimerEvent> fired;
+    private List<Integer> firedShards;
+    private TimerWheel.ExpiryHandler handler;
+    private long nextId;
+    private TimerWheel uut;
+
+    @Before
+    public void setUp() throws Exception {
+        fired = Lists.newArrayList();
+        firedShards = Lists.newArrayList();
+        handler = new TimerWheel.ExpiryHandler() {
+            @Override
+            public void onExpired(TimerEvent event, int shard) {
+                fired.add(event);
+                firedShards.add(shard);
+            }
+        };
+        uut = new TimerWheel(TICK, SIZE);
+        uut.expire(1000, handler);
+    }
+
+    @Test
+    public void shouldFireInDeadlineOrder() throws Exception {
+        long late = schedule(1050, false, 1);
+        long early = schedule(1020, false, 2);
+
+        uut.expire(1060, handler);
+
+        assertThat(fired.size(), is(2));
+        assertThat(fired.get(0).getTimerId(), is(early));
+        assertThat(fired.get(0).isLast(), is(true));
+        assertThat(firedShards.get(0), is(2));
+        assertThat(fired.get(1).getTimerId(), is(late));
+        assertThat(firedShards.get(1), is(1));
+        assertThat(uut.size(), is(0));
+    }
+
+    @Test
+    public void shouldNotFireEarly() throws Exception {
+        schedule(1025, false, 0);
+
+        uut.expire(1029, handler);
+        assertThat(fired.size(), is(0));
+
+        uut.expire(1030, handler);
+        assertThat(fired.size(), is(1));
+    }
+
+    @Test
+    public void shouldHoldTimersBeyondRevolution() throws Exception {
+        long id = schedule(1000 + TICK * SIZE * 3, false, 0);
+
+        for (long now = 1000; now < 1000 + TICK * SIZE * 3; now += TICK) {
+            uut.expire(now, handler);
+        }
+        assertThat(fired.size(), is(0));
+
+        uut.expire(1000 + TICK * SIZE * 3, handler);
+        assertThat(fired.size(), is(1));
+        assertThat(fired.get(0).getTimerId(), is(id));
+    }
+
+    @Test
+    public void shouldFireEverythingDueAfterStall() throws Exception {
+        schedule(1010, false, 0);
+        schedule(1000 + TICK * SIZE * 2, false, 0);
+
+        uut.expire(1000 + TICK * SIZE * 5, handler);
+
+        assertThat(fired.size(), is(2));
+    }
+
+    @Test
+    public void shouldFireImmediatelyWhenPastDue() throws Exception {
+        long id = schedule(500, false, 0);
+
+        uut.expire(1010, handler);
+
+        assertThat(fired.size(), is(1));
+        assertThat(fired.get(0).getTimerId(), is(id));
+    }
+
+    @Test
+    public void shouldRepeatSameEventUntilCancelled() throws Exception {
+        long id = ++nextId;
+        uut.schedule(TimerRequest.newInstance(id, 1020, 20, TimeUnit.MILLISECONDS, true));
+
+        for (long now = 1000; now <= 1100; now += TICK) {
+            uut.expire(now, handler);
+        }
+        assertThat(fired.size(), is(5));
+        assertThat(fired.get(4), sameInstance(fired.get(0)));
+        assertThat(fired.get(0).isLast(), is(false));
+        assertThat(uut.size(), is(1));
+
+        assertThat(uut.cancel(id), is(true));
+        uut.expire(1200, handler);
+
+        assertThat(fired.size(), is(5));
+        assertThat(uut.size(), is(0));
+    }
+
+    @Test
+    public void shouldTakeOneShotEventsFromPool() throws Exception {
+        TimerEventPool pool = new TimerEventPool();
+        uut = new TimerWheel(TICK, SIZE, pool);
+        uut.expire(1000, handler);
+        schedule(1010, false, 0);
+        uut.expire(1010, handler);
+        TimerEvent first = fired.get(0);
+        first.recycle();
+        long id = schedule(1020, false, 0);
+
+        uut.expire(1020, handler);
+
+        assertThat(fired.get(1), is(sameInstance(first)));
+        assertThat(fired.get(1).getTimerId(), is(id));
+        assertThat(pool.available(), is(0));
+    }
+
+    @Test
+    public void shouldCancel() throws Exception {
+        long cancelled = schedule(1020, false, 0);
+        long kept = schedule(1020, false, 0);
+
+        assertThat(uut.cancel(cancelled), is(true));
+        uut.expire(1020, handler);
+
+        assertThat(fired.size(), is(1));
+        assertThat(fired.get(0).getTimerId(), is(kept));
+        assertThat(uut.cancel(cancelled), is(false));
+    }
+
+    @Test
+    public void shouldReplaceTimerWithSameId() throws Exception {
+        long id = schedule(1020, false, 0);
+        uut.schedule(TimerRequest.newInstance(id, 1040, 40, TimeUnit.MILLISECONDS, false));
+
+        uut.expire(1030, handler);
+        assertThat(fired.size(), is(0));
+
+        uut.expire(1040, handler);
+        assertThat(fired.size(), is(1));
+        assertThat(uut.size(), is(0));
+    }
+
+    @Test
+    public void shouldReuseSlots() throws Exception {
+        for (int i = 0; i < SIZE * 4; ++i) {
+            long id = schedule(1010 + i * TICK, false, 0);
+            uut.expire(1010 + i * TICK, handler);
+            assertThat(fired.get(i).getTimerId(), is(id));
+        }
+
+        assertThat(uut.size(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNeedPowerOfTwoSize() throws Exception {
+        new TimerWheel(TICK, 6);
+    }
+
+    private long schedule(long timeout, boolean repeat, int shard) {
+        long res = ++nextId;
+        uut.schedule(TimerRequest.newInstance(res, timeout, timeout, TimeUnit.MILLISECONDS, repeat, shard));
+
+        return res;
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.timer;
+
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerEventBatch;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.services.trader.DefaultTraderService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WheelTimerServiceTest {
+    private static final long TICK = 1;
+    private static final int SIZE = 1024;
+
+    private DefaultTraderService traderService;
+    private TimeBase timeBase;
+    private WheelTimerService uut;
+
+    @Before
+    public void setUp() throws Exception {
+        traderService = mock(DefaultTraderService.class);
+        timeBase = mock(TimeBase.class);
+        TraderConfiguration configuration = mock(TraderConfiguration.class);
+        when(configuration.getTimerTickMillis()).thenReturn(TICK);
+        when(configuration.getTimerWheelSize()).thenReturn(SIZE);
+        uut = new WheelTimerService(ContextLoggerMocker.create(), traderService, timeBase, configuration);
+        when(timeBase.now()).thenReturn(4000L);
+        uut.process();
+    }
+
+    @Test
+    public void shouldSleepATick() throws Exception {
+        verify(timeBase).sleep(TICK, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldFireSingleTimeoutOnItsShard() throws Exception {
+        long id = 1;
+        uut.submit(TimerRequest.newInstance(id, 4500, 500, TimeUnit.MILLISECONDS, false, 2));
+        when(timeBase.now()).thenReturn(5000L);
+
+        uut.process();
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(traderService).onShardEvent(eq(2), captor.capture());
+        TimerEvent event = (TimerEvent) captor.getValue();
+        assertThat(event.getTimerId(), is(id));
+        assertThat(event.isLast(), is(true));
+    }
+
+    @Test
+    public void shouldBatchTimeoutsPerShard() throws Exception {
+        long id1 = 1;
+        long id2 = 2;
+        long id3 = 3;
+        uut.submit(TimerRequest.newInstance(id1, 5000, 1000, TimeUnit.MILLISECONDS, true));
+        uut.submit(TimerRequest.newInstance(id2, 4500, 500, TimeUnit.MILLISECONDS, false));
+        uut.submit(TimerRequest.newInstance(id3, 5500, 1000, TimeUnit.MILLISECONDS, false));
+        when(timeBase.now()).thenReturn(5000L);
+
+        uut.process();
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(traderService).onShardEvent(eq(0), captor.capture());
+        TimerEventBatch batch = (TimerEventBatch) captor.getValue();
+        assertThat(batch.size(), is(2));
+        assertThat(batch.get(0).getTimerId(), is(id2));
+        assertThat(batch.get(1).getTimerId(), is(id1));
+        assertThat(batch.get(1).isLast(), is(false));
+    }
+
+    @Test
+    public void shouldCancelRegisteredRequest() throws Exception {
+        long id = 1;
+        uut.submit(TimerRequest.newInstance(id, 4500, 500, TimeUnit.MILLISECONDS, true));
+        uut.cancel(TimerCancelRequest.newInstance(id));
+        when(timeBase.now()).thenReturn(5000L);
+
+        uut.process();
+
+        verify(traderService, never()).onShardEvent(anyInt(), any());
+    }
+
+    @Test
+    public void shouldRecycleRequestsOnceApplied() throws Exception {
+        TimerRequestPool requests = new TimerRequestPool();
+        TimerCancelRequestPool cancels = new TimerCancelRequestPool();
+        uut.submit(requests.acquire().set(1, 4500, 500, TimeUnit.MILLISECONDS, true, 0));
+        uut.cancel(cancels.acquire().set(1));
+
+        uut.process();
+
+        assertThat(requests.available(), is(1));
+        assertThat(cancels.available(), is(1));
+    }
+}
@@ -18,11 +18,25 @@ package com.zaradai.kunzite.trader.services.trader;
 import com.codahale.metrics.MetricRegistry;
 import com.zaradai.kunzite.events.EventAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.config.statics.InstrumentConfig;
 import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
 import com.zaradai.kunzite.trader.control.TradingManager;
+import com.zaradai.kunzite.trader.events.MarketDataRecord;
+import com.zaradai.kunzite.trader.events.MarketDataRecordPool;
+import com.zaradai.kunzite.trader.events.OrderStatusEvent;
+import com.zaradai.kunzite.trader.events.OrderStatusEventPool;
+import com.zaradai.kunzite.trader.events.TimerEvent;
+import com.zaradai.kunzite.trader.events.TimerEventBatch;
+import com.zaradai.kunzite.trader.events.TimerEventPool;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
 import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.services.Bridge;
+import com.zaradai.kunzite.trader.services.md.MarketDataConflater;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -30,8 +44,12 @@ import java.util.concurrent.BlockingQueue;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class DefaultTraderServiceTest {
     private static final Object TEST_EVENT = new Object();
@@ -42,6 +60,8 @@ public class DefaultTraderServiceTest {
     @Mock
     private BlockingQueue<Object> mockQueue;
     private MetricRegistry metricRegistry;
+    private TraderConfiguration traderConfiguration;
+    private SymbolRegistry symbolRegistry;
 
     @Before
     public void setUp() throws Exception {
@@ -51,7 +71,10 @@ public class DefaultTraderServiceTest {
         eventAggregator = mock(EventAggregator.class);
         tradingManager = mock(TradingManager.class);
         metricRegistry = mock(MetricRegistry.class);
-        uut = new DefaultTraderService(logger, metricRegistry, eventAggregator, tradingManager);
+        traderConfiguration = mock(TraderConfiguration.class);
+        symbolRegistry = new SymbolRegistry();
+        uut = new DefaultTraderService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, tradingManager, symbolRegistry);
     }
 
     @Test
@@ -61,9 +84,80 @@ public class DefaultTraderServiceTest {
         verify(eventAggregator).publish(TEST_EVENT);
     }
 
+    @Test
+    public void shouldRecycleMarketDataRecordAfterPublish() throws Exception {
+        MarketDataRecordPool pool = new MarketDataRecordPool(1);
+        MarketDataRecord record = pool.acquire();
+
+        uut.handleEvent(record);
+
+        verify(eventAggregator).publish(record);
+        assertThat(pool.available(), is(1));
+    }
+
+    @Test
+    public void shouldRecycleOrderStatusAfterPublish() throws Exception {
+        OrderStatusEventPool pool = new OrderStatusEventPool(1);
+        OrderStatusEvent event = pool.acquire();
+
+        uut.handleEvent(event);
+
+        verify(eventAggregator).publish(event);
+        assertThat(pool.available(), is(1));
+    }
+
+    @Test
+    public void shouldPublishEachTimerInBatch() throws Exception {
+        TimerEvent first = TimerEvent.newInstance(1L, true);
+        TimerEvent second = TimerEvent.newInstance(2L, false);
+        TimerEventBatch batch = TimerEventBatch.newInstance();
+        batch.add(first);
+        batch.add(second);
+
+        uut.handleEvent(batch);
+
+        InOrder inOrder = inOrder(eventAggregator);
+        inOrder.verify(eventAggregator).publish(first);
+        inOrder.verify(eventAggregator).publish(second);
+        verify(eventAggregator, never()).publish(batch);
+    }
+
+    @Test
+    public void shouldRecycleTimersOnceDispatched() throws Exception {
+        TimerEventPool pool = new TimerEventPool();
+        TimerEvent event = pool.acquire(1L, true);
+        TimerEventBatch batch = pool.acquireBatch();
+        batch.add(pool.acquire(2L, true));
+        batch.add(pool.acquire(3L, true));
+
+        uut.handleEvent(event);
+        uut.handleEvent(batch);
+
+        verify(eventAggregator).publish(event);
+        assertThat(pool.available(), is(3));
+        assertThat(pool.availableBatches(), is(1));
+    }
+
+    @Test
+    public void shouldTakeConflatedMarketDataBeforePublish() throws Exception {
+        MarketDataRecordPool pool = new MarketDataRecordPool(1);
+        MarketDataRecord record = pool.acquire();
+        record.setInstrument("id", 0);
+        TraderService target = mock(TraderService.class);
+        new MarketDataConflater(new MetricRegistry(), target).offer(record);
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(target).onTraderEvent(eq(0), captor.capture());
+
+        uut.handleEvent(captor.getValue());
+
+        verify(eventAggregator).publish(record);
+        assertThat(pool.available(), is(1));
+    }
+
     @Test
     public void shouldHandleEventForTrader() throws Exception {
-        uut = new DefaultTraderService(logger, metricRegistry, eventAggregator, tradingManager) {
+        uut = new DefaultTraderService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, tradingManager, symbolRegistry) {
             @Override
             protected BlockingQueue<Object> createQueue() {
                 return mockQueue;
@@ -95,4 +189,109 @@ public class DefaultTraderServiceTest {
 
         verify(tradingManager).initialize();
     }
+
+    @Test
+    public void shouldQueueInstrumentEventsOnSelfWhenNotSharded() throws Exception {
+        uut = new DefaultTraderService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, tradingManager, symbolRegistry) {
+            @Override
+            protected BlockingQueue<Object> createQueue() {
+                return mockQueue;
+            }
+        };
+
+        uut.onTraderEvent(5, TEST_EVENT);
+
+        verify(mockQueue).put(TEST_EVENT);
+    }
+
+    @Test
+    public void shouldRouteInstrumentEventsToOwningShard() throws Exception {
+        Bridge[] shards = startSharded();
+
+        uut.onTraderEvent(symbolRegistry.indexOf("B"), TEST_EVENT);
+        uut.onTraderEvent(symbolRegistry.indexOf("A"), TEST_EVENT);
+
+        verify(shards[1]).onEvent(TEST_EVENT);
+        verify(mockQueue).put(TEST_EVENT);
+    }
+
+    @Test
+    public void shouldRouteShardEvents() throws Exception {
+        Bridge[] shards = startSharded();
+
+        uut.onShardEvent(1, TEST_EVENT);
+
+        verify(shards[1]).onEvent(TEST_EVENT);
+    }
+
+    @Test
+    public void shouldRouteUnknownShardToFirst() throws Exception {
+        startSharded();
+
+        uut.onShardEvent(7, TEST_EVENT);
+
+        verify(mockQueue).put(TEST_EVENT);
+    }
+
+    @Test
+    public void shouldStartAndStopShards() throws Exception {
+        Bridge[] shards = startSharded();
+        when(shards[1].startAsync()).thenReturn(shards[1]);
+        when(shards[1].stopAsync()).thenReturn(shards[1]);
+
+        uut.startUp();
+        uut.shutDown();
+
+        verify(shards[1]).awaitRunning();
+        verify(shards[1]).awaitTerminated();
+    }
+
+    @Test
+    public void shouldInitializeTraderBeforeStartingShards() throws Exception {
+        Bridge[] shards = startSharded();
+        when(shards[1].startAsync()).thenReturn(shards[1]);
+
+        uut.startUp();
+
+        InOrder inOrder = inOrder(tradingManager, shards[1]);
+        inOrder.verify(tradingManager).initialize();
+        inOrder.verify(shards[1]).startAsync();
+    }
+
+    private Bridge[] startSharded() throws Exception {
+        final Bridge[] shards = new Bridge[] {null, mock(Bridge.class)};
+        when(traderConfiguration.getTraderShards()).thenReturn(2);
+        when(traderConfiguration.getShardPolicy()).thenReturn(ShardPolicy.Group);
+        uut = new DefaultTraderService(logger, metricRegistry, traderConfiguration,
+                eventAggregator, tradingManager, symbolRegistry) {
+            @Override
+            protected BlockingQueue<Object> createQueue() {
+                return mockQueue;
+            }
+
+            @Override
+            protected Bridge createShard(ContextLogger contextLogger, MetricRegistry metricRegistry,
+                                         TraderConfiguration configuration, int shard) {
+                return shards[shard];
+            }
+        };
+        uut.build(staticConfiguration("A", "first", "B", "second"));
+
+        return shards;
+    }
+
+    private StaticConfiguration staticConfiguration(String... idAndGroups) {
+        StaticConfiguration res = new StaticConfiguration();
+
+        for (int i = 0; i < idAndGroups.length; i += 2) {
+            InstrumentConfig instrument = new InstrumentConfig();
+            instrument.setId(idAndGroups[i]);
+            instrument.setShardGroup(idAndGroups[i + 1]);
+            symbolRegistry.intern(instrument.getId());
+            res.add(instrument);
+        }
+
+        return res;
+    }
 }
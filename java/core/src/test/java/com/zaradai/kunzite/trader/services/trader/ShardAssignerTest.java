@@ -0,0 +1,128 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.trader;
+
+import com.zaradai.kunzite.trader.config.statics.InstrumentConfig;
+import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+import com.zaradai.kunzite.trader.instruments.SymbolRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ShardAssignerTest {
+    private SymbolRegistry symbolRegistry;
+    private StaticConfiguration configuration;
+
+    @Before
+    public void setUp() throws Exception {
+        symbolRegistry = new SymbolRegistry();
+        configuration = new StaticConfiguration();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWithoutShards() throws Exception {
+        new ShardAssigner(0, ShardPolicy.Hash, symbolRegistry);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldFailWithoutPolicy() throws Exception {
+        new ShardAssigner(2, null, symbolRegistry);
+    }
+
+    @Test
+    public void shouldAssignUnknownToFirstShard() throws Exception {
+        ShardAssigner uut = new ShardAssigner(4, ShardPolicy.Hash, symbolRegistry);
+
+        assertThat(uut.shardOf(SymbolRegistry.UNKNOWN_INDEX), is(0));
+        assertThat(uut.shardOf(100), is(0));
+    }
+
+    @Test
+    public void shouldAssignByHash() throws Exception {
+        add("A", "M1", null);
+        add("AB", "M1", null);
+        ShardAssigner uut = new ShardAssigner(4, ShardPolicy.Hash, symbolRegistry);
+
+        uut.build(configuration);
+
+        assertThat(uut.shardOf(symbolRegistry.indexOf("A")), is("A".hashCode() % 4));
+        assertThat(uut.shardOf(symbolRegistry.indexOf("AB")), is("AB".hashCode() % 4));
+    }
+
+    @Test
+    public void shouldKeepMarketTogether() throws Exception {
+        add("A", "M1", null);
+        add("B", "M2", null);
+        add("C", "M1", null);
+        add("D", "M3", null);
+        ShardAssigner uut = new ShardAssigner(2, ShardPolicy.Market, symbolRegistry);
+
+        uut.build(configuration);
+
+        assertThat(uut.shardOf(symbolRegistry.indexOf("A")), is(0));
+        assertThat(uut.shardOf(symbolRegistry.indexOf("B")), is(1));
+        assertThat(uut.shardOf(symbolRegistry.indexOf("C")), is(0));
+        assertThat(uut.shardOf(symbolRegistry.indexOf("D")), is(0));
+    }
+
+    @Test
+    public void shouldKeepGroupTogether() throws Exception {
+        add("A", "M1", "g1");
+        add("B", "M1", "g2");
+        add("C", "M2", "g1");
+        ShardAssigner uut = new ShardAssigner(2, ShardPolicy.Group, symbolRegistry);
+
+        uut.build(configuration);
+
+        assertThat(uut.shardOf(symbolRegistry.indexOf("A")), is(0));
+        assertThat(uut.shardOf(symbolRegistry.indexOf("B")), is(1));
+        assertThat(uut.shardOf(symbolRegistry.indexOf("C")), is(0));
+    }
+
+    @Test
+    public void shouldHashUngroupedInstruments() throws Exception {
+        add("AB", "M1", null);
+        ShardAssigner uut = new ShardAssigner(4, ShardPolicy.Group, symbolRegistry);
+
+        uut.build(configuration);
+
+        assertThat(uut.shardOf(symbolRegistry.indexOf("AB")), is("AB".hashCode() % 4));
+    }
+
+    @Test
+    public void shouldIgnoreInstrumentsNotInterned() throws Exception {
+        InstrumentConfig instrument = new InstrumentConfig();
+        instrument.setId("X");
+        configuration.add(instrument);
+        ShardAssigner uut = new ShardAssigner(2, ShardPolicy.Hash, symbolRegistry);
+
+        uut.build(configuration);
+
+        assertThat(symbolRegistry.indexOf("X"), is(SymbolRegistry.UNKNOWN_INDEX));
+        assertThat(uut.shardOf(0), is(0));
+    }
+
+    private void add(String id, String marketId, String group) {
+        InstrumentConfig instrument = new InstrumentConfig();
+        instrument.setId(id);
+        instrument.setMarketId(marketId);
+        instrument.setShardGroup(group);
+        symbolRegistry.intern(id);
+        configuration.add(instrument);
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.trader;
+
+import com.zaradai.kunzite.trader.events.*;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.positions.Position;
+import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TraderEventAggregatorTest {
+    private TraderEventAggregator uut;
+
+    @Before
+    public void setUp() throws Exception {
+        uut = new TraderEventAggregator(ContextLoggerMocker.create());
+    }
+
+    @Test
+    public void shouldRouteMarketData() throws Exception {
+        MarketDataHandler handler = mock(MarketDataHandler.class);
+        MarketDataRecordHandler recordHandler = mock(MarketDataRecordHandler.class);
+        MarketData marketData = MarketData.newInstance("id");
+        MarketDataRecord record = MarketDataRecord.newInstance();
+        uut.subscribe(handler);
+        uut.subscribe(recordHandler);
+
+        uut.publish(marketData);
+        uut.publish(record);
+
+        verify(handler).onMarketData(marketData);
+        verify(recordHandler).onMarketData(record);
+    }
+
+    @Test
+    public void shouldRouteTradesToBothTradeHandlers() throws Exception {
+        TradeEventHandler handler = mock(TradeEventHandler.class);
+        PositionUpdatesHandler updatesHandler = mock(PositionUpdatesHandler.class);
+        TradeEvent event = TradeEvent.newTrade("ptf", "id", 100, 1.0, DateTime.now());
+        uut.subscribe(handler);
+        uut.subscribe(updatesHandler);
+
+        uut.publish(event);
+
+        verify(handler).onTrade(event);
+        verify(updatesHandler).onTrade(event);
+    }
+
+    @Test
+    public void shouldRoutePositionChanges() throws Exception {
+        PositionChangeHandler handler = mock(PositionChangeHandler.class);
+        Position position = mock(Position.class);
+        PositionInitiatedEvent initiated = new PositionInitiatedEvent(position);
+        PositionChangedEvent changed = new PositionChangedEvent(position);
+        PositionLiquidatedEvent liquidated = new PositionLiquidatedEvent(position);
+        uut.subscribe(handler);
+
+        uut.publish(initiated);
+        uut.publish(changed);
+        uut.publish(liquidated);
+
+        verify(handler).onPositionInitiated(initiated);
+        verify(handler).onPositionChanged(changed);
+        verify(handler).onPositionLiquidated(liquidated);
+    }
+
+    @Test
+    public void shouldRouteOrderEvents() throws Exception {
+        OrderGatewayService gatewayService = mock(OrderGatewayService.class);
+        OrderRejectHandler rejectHandler = mock(OrderRejectHandler.class);
+        OrderSendEvent sendEvent = OrderSendEvent.newInstance();
+        OrderRequestRejectEvent rejectEvent = OrderRequestRejectEvent.newInstance();
+        OrderRequest request = mock(OrderRequest.class);
+        rejectEvent.add(request);
+        uut.subscribe(gatewayService);
+        uut.subscribe(rejectHandler);
+
+        uut.publish(sendEvent);
+        uut.publish(rejectEvent);
+
+        verify(gatewayService).onOrderSend(sendEvent);
+        verify(rejectHandler).onReject(request);
+    }
+
+    @Test
+    public void shouldRouteTimerEvents() throws Exception {
+        TimerListener listener = mock(TimerListener.class);
+        TimerEvent event = TimerEvent.newInstance(1L, true);
+        uut.subscribe(listener);
+
+        uut.publish(event);
+
+        verify(listener).onTimer(event);
+    }
+}
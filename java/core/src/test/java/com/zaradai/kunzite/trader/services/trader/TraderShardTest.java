@@ -0,0 +1,124 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader.services.trader;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zaradai.kunzite.trader.config.TraderConfiguration;
+import com.zaradai.kunzite.trader.mocks.ContextLoggerMocker;
+import com.zaradai.kunzite.trader.services.Bridge;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class TraderShardTest {
+    private static final Object TEST_EVENT = new Object();
+    private Bridge owner;
+    private TraderShard uut;
+
+    @Before
+    public void setUp() throws Exception {
+        owner = mock(Bridge.class);
+        uut = new TraderShard(ContextLoggerMocker.create(), new MetricRegistry(), mock(TraderConfiguration.class), 2,
+                owner);
+    }
+
+    @Test
+    public void shouldGetShard() throws Exception {
+        assertThat(uut.getShard(), is(2));
+        assertThat(uut.getName(), is(TraderShard.SERVICE_NAME + "-2"));
+    }
+
+    @Test
+    public void shouldMeterEachShardSeparately() throws Exception {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        TraderShard first = new TraderShard(ContextLoggerMocker.create(), metricRegistry,
+                mock(TraderConfiguration.class), 1, owner);
+        TraderShard second = new TraderShard(ContextLoggerMocker.create(), metricRegistry,
+                mock(TraderConfiguration.class), 2, owner);
+
+        first.onPumpEvent(TEST_EVENT);
+        second.onPumpEvent(TEST_EVENT);
+
+        assertThat(metricRegistry.meter(first.getName()).getCount(), is(1L));
+        assertThat(metricRegistry.meter(second.getName()).getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldHandleEventThroughOwner() throws Exception {
+        uut.handleEvent(TEST_EVENT);
+
+        verify(owner).handleEvent(TEST_EVENT);
+    }
+
+    @Test
+    public void shouldReportFirstShardOutsideOfShardThread() throws Exception {
+        assertThat(TraderShard.current(), is(0));
+        assertThat(TraderShard.isShardThread(), is(false));
+    }
+
+    @Test
+    public void shouldActAsShardUntilLeft() throws Exception {
+        TraderShard.enter(3);
+        try {
+            assertThat(TraderShard.current(), is(3));
+            assertThat(TraderShard.isShardThread(), is(true));
+        } finally {
+            TraderShard.leave();
+        }
+
+        assertThat(TraderShard.isShardThread(), is(false));
+    }
+
+    @Test
+    public void shouldReportShardOnShardThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Integer res = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    uut.startUp();
+                    return TraderShard.current();
+                }
+            }).get(1, TimeUnit.SECONDS);
+
+            assertThat(res, is(2));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldDrainQueuedEventsOnOwnThread() throws Exception {
+        uut.startAsync().awaitRunning();
+        try {
+            uut.onEvent(TEST_EVENT);
+
+            verify(owner, timeout(1000)).handleEvent(TEST_EVENT);
+        } finally {
+            uut.stopAsync().awaitTerminated();
+        }
+    }
+}
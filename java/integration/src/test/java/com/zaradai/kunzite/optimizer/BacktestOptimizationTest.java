@@ -0,0 +1,177 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.optimizer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.zaradai.kunzite.optimizer.config.OptimizerConfigurationImpl;
+import com.zaradai.kunzite.optimizer.control.OptimizeRequest;
+import com.zaradai.kunzite.optimizer.eval.Evaluator;
+import com.zaradai.kunzite.optimizer.evaluators.BandBacktestEvaluator;
+import com.zaradai.kunzite.optimizer.model.InputRowGenerator;
+import com.zaradai.kunzite.optimizer.model.InputRowSchema;
+import com.zaradai.kunzite.optimizer.tactic.FloodFillTactic;
+import com.zaradai.kunzite.optimizer.tactic.HillClimberTactic;
+import com.zaradai.kunzite.optimizer.tactic.OptimizerResult;
+import com.zaradai.kunzite.optimizer.tactic.ShotgunHillClimber;
+import com.zaradai.kunzite.trader.backtest.BacktestEvaluator;
+import com.zaradai.kunzite.trader.backtest.BarTape;
+import com.zaradai.kunzite.trader.config.statics.AlgoConfig;
+import com.zaradai.kunzite.trader.config.statics.InstrumentConfig;
+import com.zaradai.kunzite.trader.config.statics.MarketConfig;
+import com.zaradai.kunzite.trader.config.statics.PortfolioConfig;
+import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+import com.zaradai.kunzite.trader.instruments.InstrumentType;
+import com.zaradai.kunzite.trader.instruments.TickDefinition;
+import com.zaradai.kunzite.trader.services.md.eod.EodData;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class BacktestOptimizationTest extends BaseOptimizerTest {
+    private static final String MARKET_ID = "market";
+    private static final String INSTRUMENT_ID = "inst";
+    private static final int DAYS = 250;
+
+    @Override
+    protected OptimizerModule getOptimizerModule() {
+        return new OptimizerModule(CacheStrategy.None, DataStrategy.None, EvaluationStrategy.LocalMultiThreaded);
+    }
+
+    @Override
+    protected List<Module> getModules() {
+        List<Module> res = super.getModules();
+        // read once, every evaluation shares it
+        final BarTape tape = createTape();
+        final StaticConfiguration configuration = createConfiguration();
+        res.add(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(BarTape.class).toInstance(tape);
+                bind(StaticConfiguration.class).toInstance(configuration);
+            }
+        });
+
+        return res;
+    }
+
+    @Override
+    protected InputRowSchema buildSchema() {
+        return InputRowSchema.newBuilder()
+                .withName(BandBacktestEvaluator.INPUT_BUY_BELOW).from(90).step(1).withSteps(10)
+                .withName(BandBacktestEvaluator.INPUT_SELL_ABOVE).from(101).step(1).withSteps(10)
+                .build();
+    }
+
+    @Override
+    protected Class<? extends Evaluator> getEvaluator() {
+        return BandBacktestEvaluator.class;
+    }
+
+    @Test
+    public void shouldRunFloodFill() throws Exception {
+        OptimizeRequest request = OptimizeRequest.newRequest(FloodFillTactic.class, BacktestEvaluator.PNL,
+                true, InputRowGenerator.getRandom(getSchema()));
+        getSource().set(OptimizerConfigurationImpl.FLOOD_BATCH_SIZE, 50);
+
+        assertProfitable(getController().optimize(request).get());
+    }
+
+    @Test
+    public void shouldRunHillClimber() throws Exception {
+        OptimizeRequest request = OptimizeRequest.newRequest(HillClimberTactic.class, BacktestEvaluator.PNL,
+                true, InputRowGenerator.getRandom(getSchema()));
+
+        assertProfitable(getController().optimize(request).get());
+    }
+
+    @Test
+    public void shouldRunShotgun() throws Exception {
+        OptimizeRequest request = OptimizeRequest.newRequest(ShotgunHillClimber.class, BacktestEvaluator.SHARPE,
+                true, InputRowGenerator.getRandom(getSchema()));
+        getSource().set(OptimizerConfigurationImpl.NUM_SHOTGUN_CLIMBERS, 4);
+
+        OptimizerResult res = getController().optimize(request).get();
+
+        assertThat(res.getOptimizedRow(), not(nullValue()));
+    }
+
+    private void assertProfitable(OptimizerResult res) {
+        assertThat(res.getOptimizedRow(), not(nullValue()));
+        // every band in the schema buys the dips and sells the rallies of the cycle
+        assertThat(res.getOptimizedValue() > 0.0, is(true));
+    }
+
+    /**
+     * A price cycling between 90 and 110 every 20 days.
+     */
+    private BarTape createTape() {
+        BarTape.Builder builder = BarTape.builder(ImmutableList.of(INSTRUMENT_ID));
+        DateTime date = new DateTime(2014, 1, 1, 0, 0);
+        double previous = 100.0;
+
+        for (int i = 0; i < DAYS; ++i) {
+            double close = Math.round(100.0 + 10.0 * Math.sin(2.0 * Math.PI * i / 20.0));
+            builder.add(0, EodData.builder()
+                    .date(date.plusDays(i))
+                    .open(previous)
+                    .high(Math.max(previous, close))
+                    .low(Math.min(previous, close))
+                    .close(close)
+                    .volumne(1000)
+                    .build());
+            previous = close;
+        }
+
+        return builder.build();
+    }
+
+    private StaticConfiguration createConfiguration() {
+        StaticConfiguration res = new StaticConfiguration();
+
+        PortfolioConfig portfolio = new PortfolioConfig();
+        portfolio.setId(BandBacktestEvaluator.PORTFOLIO_ID);
+        res.add(portfolio);
+
+        MarketConfig market = new MarketConfig();
+        market.setId(MARKET_ID);
+        market.add(new TickDefinition(0.0, 1000.0, 0.01));
+        res.add(market);
+
+        InstrumentConfig instrument = new InstrumentConfig();
+        instrument.setId(INSTRUMENT_ID);
+        instrument.setMarketId(MARKET_ID);
+        instrument.setType(InstrumentType.Stock);
+        instrument.setMultiplier(1.0);
+        instrument.setLotSize(1);
+        res.add(instrument);
+
+        AlgoConfig algo = new AlgoConfig();
+        algo.setName("band");
+        algo.setAlgo(BandBacktestEvaluator.BandAlgo.class.getName());
+        algo.addInstrument(INSTRUMENT_ID);
+        res.add(algo);
+
+        return res;
+    }
+}
@@ -15,8 +15,10 @@
  */
 package com.zaradai.kunzite.optimizer;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Module;
 import com.zaradai.kunzite.config.ConfigurationSource;
 import com.zaradai.kunzite.optimizer.control.OptimizeController;
 import com.zaradai.kunzite.optimizer.eval.Evaluator;
@@ -25,6 +27,8 @@ import com.zaradai.kunzite.optimizer.model.InputRowSchema;
 import org.junit.After;
 import org.junit.Before;
 
+import java.util.List;
+
 public class BaseOptimizerTest {
     private InputRowSchema schema;
     private Injector injector;
@@ -34,7 +38,7 @@ public class BaseOptimizerTest {
     @Before
     public void setUp() throws Exception {
         schema = buildSchema();
-        injector = Guice.createInjector(getOptimizerModule());
+        injector = Guice.createInjector(getModules());
         // get the config source
         source = injector.getInstance(ConfigurationSource.class);
         // get the optimizer service
@@ -45,6 +49,13 @@ public class BaseOptimizerTest {
         controller = optimizerService.create("test", "A test database", getEvaluator(), getSchema());
     }
 
+    protected List<Module> getModules() {
+        List<Module> res = Lists.newArrayList();
+        res.add(getOptimizerModule());
+
+        return res;
+    }
+
     protected OptimizerModule getOptimizerModule() {
         return new OptimizerModule(CacheStrategy.None, DataStrategy.None,
                 EvaluationStrategy.LocalSingleThreaded);
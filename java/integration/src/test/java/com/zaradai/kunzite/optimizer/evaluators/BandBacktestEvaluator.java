@@ -0,0 +1,111 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.optimizer.evaluators;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import com.zaradai.kunzite.trader.algo.AbstractAlgo;
+import com.zaradai.kunzite.trader.algo.AlgoException;
+import com.zaradai.kunzite.trader.backtest.BacktestEvaluator;
+import com.zaradai.kunzite.trader.backtest.BarTape;
+import com.zaradai.kunzite.trader.config.statics.StaticConfiguration;
+import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import org.joda.time.DateTime;
+
+import java.util.List;
+
+public class BandBacktestEvaluator extends BacktestEvaluator {
+    public static final String INPUT_BUY_BELOW = "buyBelow";
+    public static final String INPUT_SELL_ABOVE = "sellAbove";
+    public static final String PORTFOLIO_ID = "portfolio";
+    public static final String BROKER_ID = "broker";
+    public static final String VERSION = "1.0";
+    private static final List<String> validInputs = ImmutableList.of(INPUT_BUY_BELOW, INPUT_SELL_ABOVE);
+
+    @Inject
+    BandBacktestEvaluator(StaticConfiguration configuration, BarTape tape) {
+        super(configuration, tape);
+    }
+
+    @Override
+    public List<String> getInputKeys() {
+        return validInputs;
+    }
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    /**
+     * Goes long a lot when the price drops below the band and back to flat once it rises above it.  Orders are
+     * priced through the market so they fill at the next open.
+     */
+    public static class BandAlgo extends AbstractAlgo {
+        private final double buyBelow;
+        private final double sellAbove;
+        private boolean holding;
+
+        @Inject
+        public BandAlgo(@Named(INPUT_BUY_BELOW) double buyBelow, @Named(INPUT_SELL_ABOVE) double sellAbove) {
+            this.buyBelow = buyBelow;
+            this.sellAbove = sellAbove;
+        }
+
+        @Override
+        public void initialize() throws AlgoException {
+            // nothing to prepare
+        }
+
+        @Override
+        public void onMarketBookUpdate(MarketBookUpdateEvent marketBookUpdateEvent) {
+            double price = getState().getMarketBook().bestBid();
+
+            if (!holding && price <= buyBelow) {
+                send(OrderSide.Buy, Math.ceil(price * 2));
+                holding = true;
+            } else if (holding && price >= sellAbove) {
+                send(OrderSide.Sell, 1.0);
+                holding = false;
+            }
+        }
+
+        private void send(OrderSide side, double limit) {
+            OrderRequest request = getState().getOrderManager().getPool().acquireRequest();
+            request.setOrderRequestType(OrderRequestType.Create);
+            request.setPortfolioId(PORTFOLIO_ID);
+            request.setInstrumentId(getState().getInstrument().getId());
+            request.setMarketId(getState().getInstrument().getMarketId());
+            request.setAlgoId(getId());
+            request.setClientOrderId(getId());
+            request.setBrokerId(BROKER_ID);
+            request.setSide(side);
+            request.setType(OrderType.Limit);
+            request.setTimeInForce(OrderTimeInForce.Day);
+            request.setPrice(limit);
+            request.setQuantity(1);
+            request.setCreated(DateTime.now());
+
+            getState().getOrderManager().add(request);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2014 Zaradai
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.zaradai.kunzite.trader;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+import com.zaradai.kunzite.trader.algo.AbstractAlgo;
+import com.zaradai.kunzite.trader.algo.AlgoException;
+import com.zaradai.kunzite.trader.config.SourcedTraderConfiguration;
+import com.zaradai.kunzite.trader.events.MarketBookUpdateEvent;
+import com.zaradai.kunzite.trader.events.TradeEvent;
+import com.zaradai.kunzite.trader.orders.model.OrderRequest;
+import com.zaradai.kunzite.trader.orders.model.OrderRequestType;
+import com.zaradai.kunzite.trader.orders.model.OrderSide;
+import com.zaradai.kunzite.trader.orders.model.OrderTimeInForce;
+import com.zaradai.kunzite.trader.orders.model.OrderType;
+import com.zaradai.kunzite.trader.services.md.channel.EmulatorSource;
+import com.zaradai.kunzite.trader.services.md.eod.EodData;
+import com.zaradai.kunzite.trader.services.md.eod.EodIOException;
+import com.zaradai.kunzite.trader.services.md.eod.EodReader;
+import com.zaradai.kunzite.trader.services.md.eod.EodReaderFactory;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Replays bars through the emulator channel and the market data service to an algo trading against the matching
+ * engine gateway, the venue only has a market to fill against if it hears the same data as the algo.
+ */
+public class MatchingEngineReplayTest extends BaseTraderTest {
+    private static final String SID = "AAA.N";
+    private static final DateTime DAY_1 = new DateTime(2014, 1, 2, 0, 0);
+    private static final int DAYS = 5;
+    private static final double CLOSE = 10.0;
+    private static final double LIMIT = 10.5;
+    private static final long QUANTITY = 100;
+    private static final int WAIT_SECONDS = 10;
+
+    static CountDownLatch filled;
+
+    @Test
+    public void shouldFillAgainstReplayedMarket() throws Exception {
+        filled = new CountDownLatch(1);
+        getSource().set(SourcedTraderConfiguration.STATIC_CONFIG_URI, "replay-trader.xml");
+        getSource().set(SourcedTraderConfiguration.OG_URI, "replay-ordergateways.xml");
+        getSource().set(SourcedTraderConfiguration.MD_CONFIG_URI, "replay-marketdata.xml");
+        getSource().set(SourcedTraderConfiguration.EMULATOR_SOURCE, EmulatorSource.Replay.name());
+        getSource().set(SourcedTraderConfiguration.EMULATOR_TICK_RATE, "0");
+        Trader trader = getInjector().getInstance(Trader.class);
+
+        trader.startAsync().awaitRunning();
+        boolean res = filled.await(WAIT_SECONDS, TimeUnit.SECONDS);
+        trader.stopAsync().awaitTerminated();
+
+        assertThat(res, is(true));
+    }
+
+    @Override
+    protected Module getTraderModule() {
+        return Modules.override(new TraderTestModule()).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(EodReaderFactory.class).toInstance(new EodReaderFactory() {
+                    @Override
+                    public EodReader create(String folder) {
+                        return new BarReader();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * A few flat days for the one symbol in place of the files.
+     */
+    private static class BarReader implements EodReader {
+        private int day = DAYS;
+
+        @Override
+        public void open(String symbol) throws EodIOException {
+            if (!SID.equals(symbol)) {
+                throw new EodIOException("No bars for " + symbol);
+            }
+            day = 0;
+        }
+
+        @Override
+        public EodData getNext(DateTime date) {
+            return getNext();
+        }
+
+        @Override
+        public EodData getNext() {
+            if (day == DAYS) {
+                return null;
+            }
+            EodData res = new EodData(DAY_1.plusDays(day++));
+            res.setSymbol(SID);
+            res.setOpen(CLOSE);
+            res.setHigh(CLOSE);
+            res.setLow(CLOSE);
+            res.setClose(CLOSE);
+            res.setVolume(QUANTITY * 10);
+
+            return res;
+        }
+
+        @Override
+        public void close() throws Exception {
+            day = DAYS;
+        }
+    }
+
+    /**
+     * Bids through the replayed market on the first book update and signals once filled.
+     */
+    public static class ReplayBuyer extends AbstractAlgo {
+        private boolean sent;
+
+        @Override
+        public void initialize() throws AlgoException {
+            // nothing to prepare
+        }
+
+        @Override
+        public void onMarketBookUpdate(MarketBookUpdateEvent marketBookUpdateEvent) {
+            if (sent) {
+                return;
+            }
+            sent = true;
+
+            OrderRequest request = getState().getOrderManager().getPool().acquireRequest();
+            request.setOrderRequestType(OrderRequestType.Create);
+            request.setPortfolioId("ptf1");
+            request.setInstrumentId(getState().getInstrument().getId());
+            request.setMarketId(getState().getInstrument().getMarketId());
+            request.setAlgoId(getId());
+            request.setClientOrderId(getId());
+            request.setBrokerId("broker");
+            request.setSide(OrderSide.Buy);
+            request.setType(OrderType.Limit);
+            request.setPrice(LIMIT);
+            request.setTimeInForce(OrderTimeInForce.Day);
+            request.setQuantity(QUANTITY);
+            request.setCreated(DateTime.now());
+
+            getState().getOrderManager().add(request);
+        }
+
+        @Override
+        public void onTrade(TradeEvent event) {
+            filled.countDown();
+        }
+    }
+}
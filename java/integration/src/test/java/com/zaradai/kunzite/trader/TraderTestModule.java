@@ -23,7 +23,6 @@ import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.zaradai.kunzite.config.ConfigurationSource;
 import com.zaradai.kunzite.config.InMemoryConfigurationSource;
 import com.zaradai.kunzite.events.EventAggregator;
-import com.zaradai.kunzite.events.eventbus.EventBusAggregator;
 import com.zaradai.kunzite.logging.ContextLogger;
 import com.zaradai.kunzite.logging.disruptor.DisruptorLogger;
 import com.zaradai.kunzite.trader.algo.AlgoFactory;
@@ -39,46 +38,55 @@ import com.zaradai.kunzite.trader.config.statics.StaticDataLoader;
 import com.zaradai.kunzite.trader.config.statics.digester.DigesterStaticDataLoader;
 import com.zaradai.kunzite.trader.control.*;
 import com.zaradai.kunzite.trader.filters.DefaultFilterManager;
+import com.zaradai.kunzite.trader.filters.DefaultFilterParameterManager;
 import com.zaradai.kunzite.trader.filters.FilterManager;
+import com.zaradai.kunzite.trader.filters.FilterParameterManager;
 import com.zaradai.kunzite.trader.instruments.*;
-import com.zaradai.kunzite.trader.marketdata.DefaultMarketBook;
-import com.zaradai.kunzite.trader.marketdata.MarketBook;
+import com.zaradai.kunzite.trader.marketdata.ArrayMarketBookFactory;
 import com.zaradai.kunzite.trader.marketdata.MarketBookFactory;
-import com.zaradai.kunzite.trader.orders.book.DefaultOrderBook;
+import com.zaradai.kunzite.trader.marketdata.MarketBookUpdater;
+import com.zaradai.kunzite.trader.marketdata.TableMarketBookUpdater;
 import com.zaradai.kunzite.trader.orders.book.OrderBook;
 import com.zaradai.kunzite.trader.orders.book.OrderBookFactory;
+import com.zaradai.kunzite.trader.orders.book.TickOrderBook;
 import com.zaradai.kunzite.trader.orders.execution.*;
-import com.zaradai.kunzite.trader.orders.utils.KunziteOrderIdGenerator;
 import com.zaradai.kunzite.trader.orders.utils.OrderIdGenerator;
+import com.zaradai.kunzite.trader.orders.utils.SessionOrderIdGenerator;
 import com.zaradai.kunzite.trader.positions.*;
 import com.zaradai.kunzite.trader.services.md.DefaultMarketDataService;
 import com.zaradai.kunzite.trader.services.md.InjectedMarketDataChannelFactory;
 import com.zaradai.kunzite.trader.services.md.MarketDataChannelFactory;
 import com.zaradai.kunzite.trader.services.md.MarketDataService;
+import com.zaradai.kunzite.trader.services.md.eod.EodReader;
+import com.zaradai.kunzite.trader.services.md.eod.EodReaderFactory;
+import com.zaradai.kunzite.trader.services.md.eod.compact.CompactEodEncoder;
+import com.zaradai.kunzite.trader.services.md.eod.compact.CompactEodReader;
+import com.zaradai.kunzite.trader.services.md.eod.compact.EodEncoder;
 import com.zaradai.kunzite.trader.services.orders.DefaultOrderGatewayService;
 import com.zaradai.kunzite.trader.services.orders.InjectedGatewayFactory;
 import com.zaradai.kunzite.trader.services.orders.OrderGatewayFactory;
 import com.zaradai.kunzite.trader.services.orders.OrderGatewayService;
-import com.zaradai.kunzite.trader.services.timer.DefaultTimerService;
 import com.zaradai.kunzite.trader.services.timer.SystemTimeBase;
 import com.zaradai.kunzite.trader.services.timer.TimeBase;
 import com.zaradai.kunzite.trader.services.timer.TimerService;
+import com.zaradai.kunzite.trader.services.timer.WheelTimerService;
 import com.zaradai.kunzite.trader.services.trader.DefaultTraderService;
+import com.zaradai.kunzite.trader.services.trader.TraderEventAggregator;
 import com.zaradai.kunzite.trader.services.trader.TraderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class TraderTestModule  extends AbstractModule {
-    private static MetricRegistry metrics = new MetricRegistry();
+    private final MetricRegistry metrics = new MetricRegistry();
 
     private Logger logger;
     private EventBus eventBus;
-    private KunziteOrderIdGenerator orderIdGenerator;
+    private SessionOrderIdGenerator orderIdGenerator;
 
     public TraderTestModule() {
         logger = LoggerFactory.getLogger("trader");
         eventBus = new EventBus("DefaultTraderService");
-        orderIdGenerator = KunziteOrderIdGenerator.newInstance();
+        orderIdGenerator = SessionOrderIdGenerator.newInstance();
     }
 
     @Override
@@ -91,6 +99,7 @@ public class TraderTestModule  extends AbstractModule {
         bind(StaticDataLoader.class).to(DigesterStaticDataLoader.class);
         bind(TradingManager.class).in(Singleton.class);
         bind(TradingBuilder.class);
+        bind(SymbolRegistry.class).in(Singleton.class);
         bind(AlgoFactory.class).to(InjectedAlgoFactory.class);
         bind(InstrumentFactory.class).to(DefaultInstrumentFactory.class);
 
@@ -100,7 +109,9 @@ public class TraderTestModule  extends AbstractModule {
         bind(PortfolioResolver.class).to(TradingManager.class);
         bind(AlgoResolver.class).to(TradingManager.class);
 
-        bind(FilterManager.class).to(DefaultFilterManager.class);
+        // chains are cached per instrument and refreshed by the parameter manager, share a single instance of each
+        bind(FilterParameterManager.class).to(DefaultFilterParameterManager.class).in(Singleton.class);
+        bind(FilterManager.class).to(DefaultFilterManager.class).in(Singleton.class);
 
         bind(OrderIdGenerator.class).toInstance(orderIdGenerator);
         bind(PositionUpdater.class).to(DefaultPositionUpdater.class);
@@ -118,9 +129,10 @@ public class TraderTestModule  extends AbstractModule {
         install(new FactoryModuleBuilder().build(MarketFactory.class));
         install(new FactoryModuleBuilder().build(PortfolioFactory.class));
 
-        install(new FactoryModuleBuilder().implement(MarketBook.class, DefaultMarketBook.class).build(MarketBookFactory.class));
+        bind(MarketBookFactory.class).to(ArrayMarketBookFactory.class);
+        bind(MarketBookUpdater.class).to(TableMarketBookUpdater.class);
         install(new FactoryModuleBuilder().implement(PositionBook.class, DefaultPositionBook.class).build(PositionBookFactory.class));
-        install(new FactoryModuleBuilder().implement(OrderBook.class, DefaultOrderBook.class).build(OrderBookFactory.class));
+        install(new FactoryModuleBuilder().implement(OrderBook.class, TickOrderBook.class).build(OrderBookFactory.class));
         install(new FactoryModuleBuilder().implement(OrderManager.class, DefaultOrderManager.class).build(OrderManagerFactory.class));
         install(new FactoryModuleBuilder().implement(OrderStateManager.class, DefaultOrderStateManager.class).build(OrderStateManagerFactory.class));
         install(new FactoryModuleBuilder().build(PositionFactory.class));
@@ -131,12 +143,16 @@ public class TraderTestModule  extends AbstractModule {
         bindOrderGatewayService();
         bindTimerService();
 
-        bind(TraderService.class).to(DefaultTraderService.class).in(Singleton.class);
+        // the services queueing to the trader take the concrete class, they must share the running instance
+        bind(DefaultTraderService.class).in(Singleton.class);
+        bind(TraderService.class).to(DefaultTraderService.class);
     }
 
     private void bindMarketDataService() {
         bind(MarketDataService.class).to(DefaultMarketDataService.class).in(Singleton.class);
         bind(MarketDataChannelFactory.class).to(InjectedMarketDataChannelFactory.class);
+        bind(EodEncoder.class).to(CompactEodEncoder.class);
+        install(new FactoryModuleBuilder().implement(EodReader.class, CompactEodReader.class).build(EodReaderFactory.class));
     }
 
     private void bindOrderGatewayService() {
@@ -145,13 +161,13 @@ public class TraderTestModule  extends AbstractModule {
     }
 
     private void bindTimerService() {
-        bind(TimerService.class).to(DefaultTimerService.class).in(Singleton.class);
+        bind(TimerService.class).to(WheelTimerService.class).in(Singleton.class);
         bind(TimeBase.class).to(SystemTimeBase.class);
     }
 
     private void bindEvents() {
         bind(EventBus.class).toInstance(eventBus);
-        bind(EventAggregator.class).to(EventBusAggregator.class).in(Singleton.class);
+        bind(EventAggregator.class).to(TraderEventAggregator.class).in(Singleton.class);
     }
 
     private void bindConfiguration() {